@@ -12,6 +12,53 @@ ALTER TABLE Vehicles
 ADD CONSTRAINT FK_Vehicles_Suppliers
 FOREIGN KEY (SupplierID) REFERENCES Suppliers(SupplierID);
 
+-- Row version for incremental inventory refresh
+ALTER TABLE Vehicles
+ADD RowVer ROWVERSION;
+
+CREATE INDEX idx_vehicles_rowver ON Vehicles(RowVer);
+
+-- Invoice numbers, reserved by the client in blocks
+CREATE SEQUENCE InvoiceSeq AS INT START WITH 1 INCREMENT BY 1 CACHE 1000;
+
+-- Sortable table columns (see the DBConnection.page* listings) and customer order history
+CREATE INDEX idx_vehicles_year ON Vehicles(Year);
+CREATE INDEX idx_vehicles_list_price ON Vehicles(ListPrice);
+CREATE INDEX idx_sales_total_price ON Sales(TotalPrice);
+CREATE INDEX idx_sales_customer ON Sales(CustomerID, SaleDate);
+CREATE INDEX idx_customers_registered ON Customers(DateRegistered);
+CREATE INDEX idx_employees_name ON Employees(LastName, FirstName);
+
+-- Technician workload and schedule lookups
+CREATE INDEX idx_service_technician_date ON ServiceDepartment(TechnicianID, ServiceDate);
+
+-- Booked length of a service job, for technician scheduling (see TechnicianSchedule)
+ALTER TABLE ServiceDepartment
+ADD DurationMinutes INT NOT NULL DEFAULT 60 CHECK (DurationMinutes > 0);
+
+-- Test-drive bookings (see TestDriveCalendar). The per-resource indexes are
+-- also the key ranges bookTestDrive locks while it checks for overlaps.
+ALTER TABLE TestDrives
+ADD CONSTRAINT CK_TestDrives_Length CHECK (EndTime > StartTime AND DATEDIFF(MINUTE, StartTime, EndTime) <= 240);
+
+CREATE INDEX idx_test_drives_vehicle ON TestDrives(VehicleID, StartTime);
+CREATE INDEX idx_test_drives_employee ON TestDrives(EmployeeID, StartTime);
+CREATE INDEX idx_test_drives_customer ON TestDrives(CustomerID, StartTime);
+CREATE INDEX idx_test_drives_start ON TestDrives(StartTime);
+
+-- Row version for the incremental sales rollups (see SalesAnalytics)
+ALTER TABLE Sales
+ADD RowVer ROWVERSION;
+
+CREATE INDEX idx_sales_rowver ON Sales(RowVer);
+
+-- VIN lookups by the last characters (see DBConnection.findVehiclesByVin):
+-- a suffix of VIN is a prefix of the reversed VIN, which an index can seek
+ALTER TABLE Vehicles
+ADD VINReversed AS REVERSE(VIN) PERSISTED;
+
+CREATE INDEX idx_vehicles_vin_reversed ON Vehicles(VINReversed) INCLUDE (VIN);
+
 
 
 -- Create Tables
@@ -0,0 +1,405 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool used behind {@link DBConnection#getConnection()}.
+ * Connections handed out are proxies whose close() returns the physical
+ * connection to the pool instead of closing it, after rolling back any
+ * transaction the borrower left open. Each physical connection
+ * keeps its own prepared-statement cache. Statements handed out are timed
+ * into {@link QueryMetrics}.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> active = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ScheduledExecutorService housekeeper;
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private long totalCreated;
+    private long totalBorrowed;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long timeouts;
+    private long leaksDetected;
+    private volatile boolean shutdown;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long maxWaitMillis, long idleTimeoutMillis, long leakThresholdMillis,
+                          int validationTimeoutSeconds, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Builds a pool from db.* properties, falling back to the given defaults
+     * for the connection settings. A key left blank counts as unset.
+     */
+    public static ConnectionPool fromProperties(Properties props, String defaultUrl, String defaultUser, String defaultPass) {
+        return new ConnectionPool(
+                stringProperty(props, "db.url", defaultUrl),
+                stringProperty(props, "db.user", defaultUser),
+                stringProperty(props, "db.password", defaultPass),
+                intProperty(props, "db.pool.maxSize", 10),
+                intProperty(props, "db.pool.minIdle", 2),
+                longProperty(props, "db.pool.maxWaitMillis", 10_000),
+                longProperty(props, "db.pool.idleTimeoutMillis", 300_000),
+                longProperty(props, "db.pool.leakThresholdMillis", 60_000),
+                intProperty(props, "db.pool.validationTimeoutSeconds", 2),
+                intProperty(props, "db.pool.statementCacheSize", 100)
+        );
+    }
+
+    private static String stringProperty(Properties props, String key, String defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        return value;
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to maxWaitMillis for one to free up.
+     * Idle connections are validated before being handed out.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                synchronized (this) {
+                    timeouts++;
+                }
+                throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - waitStart;
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+                synchronized (this) {
+                    totalCreated++;
+                }
+            }
+            synchronized (this) {
+                pooled.borrowedAt = System.currentTimeMillis();
+                pooled.borrowTrace = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+                pooled.leakReported = false;
+                active.add(pooled);
+                totalBorrowed++;
+                totalWaitNanos += waited;
+                maxWaitNanos = Math.max(maxWaitNanos, waited);
+            }
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection candidate;
+            synchronized (this) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) return null;
+            if (isValid(candidate.physical)) return candidate;
+            candidate.destroy();
+        }
+    }
+
+    private boolean isValid(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        boolean reusable = !shutdown;
+        try {
+            if (pooled.physical.isClosed()) {
+                reusable = false;
+            } else {
+                // Never hand the next borrower a half-finished transaction
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                // A batch cancelled or timed out after its own BEGIN TRAN leaves that transaction
+                // open even in auto-commit mode, and XACT_ABORT does not roll back on a cancel
+                try (Statement stmt = pooled.physical.createStatement()) {
+                    stmt.execute("IF @@TRANCOUNT > 0 ROLLBACK TRANSACTION");
+                }
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            pooled.statements.reset();
+        }
+        synchronized (this) {
+            active.remove(pooled);
+            pooled.borrowTrace = null;
+            if (reusable) {
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.addFirst(pooled);
+            }
+        }
+        if (!reusable) {
+            pooled.destroy();
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        List<PooledConnection> evicted = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            // Oldest idle connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastReturnedAt > idleTimeoutMillis) {
+                    it.remove();
+                    evicted.add(pooled);
+                }
+            }
+            if (leakThresholdMillis > 0) {
+                for (PooledConnection pooled : active) {
+                    if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                        pooled.leakReported = true;
+                        leaksDetected++;
+                        System.err.println("Possible connection leak: connection held for " + (now - pooled.borrowedAt) + " ms");
+                        if (pooled.borrowTrace != null) {
+                            pooled.borrowTrace.printStackTrace();
+                        }
+                    }
+                }
+            }
+        }
+        for (PooledConnection pooled : evicted) {
+            pooled.destroy();
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops accepting new borrows.
+     * Borrowed connections are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        List<PooledConnection> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pooled : toClose) {
+            pooled.destroy();
+        }
+    }
+
+    public synchronized PoolStats getStats() {
+        return new PoolStats(active.size(), idle.size(), maxSize, permits.getQueueLength(), totalCreated,
+                totalBorrowed, totalBorrowed == 0 ? 0 : totalWaitNanos / totalBorrowed / 1_000_000.0,
+                maxWaitNanos / 1_000_000.0, timeouts, leaksDetected,
+                statementCacheHits.sum(), statementCacheMisses.sum());
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshot of pool usage for monitoring.
+     */
+    public record PoolStats(int active, int idle, int maxSize, int waitingThreads, long totalCreated,
+                            long totalBorrowed, double averageWaitMillis, double maxWaitMillis,
+                            long timeouts, long leaksDetected, long statementCacheHits,
+                            long statementCacheMisses) {
+        public double statementCacheHitRatio() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, max=%d, waiting=%d, created=%d, borrowed=%d, avgWait=%.2fms, maxWait=%.2fms, timeouts=%d, leaks=%d, stmtCache=%d/%d (%.0f%% hits)",
+                    active, idle, maxSize, waitingThreads, totalCreated, totalBorrowed, averageWaitMillis, maxWaitMillis, timeouts, leaksDetected,
+                    statementCacheHits, statementCacheHits + statementCacheMisses, statementCacheHitRatio() * 100);
+        }
+    }
+
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private long borrowedAt;
+        private long lastReturnedAt;
+        private Throwable borrowTrace;
+        private boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses);
+        }
+
+        void destroy() {
+            statements.closeAll();
+            closeQuietly(physical);
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Per-borrow view of a pooled connection. Once closed, the handle can no
+     * longer reach the physical connection, even if the caller kept a reference.
+     */
+    private class Handle implements InvocationHandler {
+        private PooledConnection pooled;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (pooled != null) {
+                        PooledConnection toRelease = pooled;
+                        pooled = null;
+                        release(toRelease);
+                    }
+                    return null;
+                case "isClosed":
+                    return pooled == null || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pooled == null ? "closed" : pooled.physical) + "]";
+                default:
+                    if (pooled == null) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    Object result = null;
+                    if ("prepareStatement".equals(method.getName())) {
+                        Class<?>[] types = method.getParameterTypes();
+                        if (types.length == 1) {
+                            result = pooled.statements.prepare((String) args[0], -1);
+                        } else if (types.length == 2 && types[1] == int.class) {
+                            result = pooled.statements.prepare((String) args[0], (Integer) args[1]);
+                        }
+                    }
+                    if (result == null) {
+                        try {
+                            result = method.invoke(pooled.physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                    if (result instanceof Statement) {
+                        QueryCancellation.track((Statement) result);
+                        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                        result = InstrumentedStatement.wrap((Statement) result, method.getReturnType(), sql);
+                    }
+                    return result;
+            }
+        }
+    }
+}
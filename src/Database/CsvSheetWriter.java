@@ -0,0 +1,67 @@
+package Database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * RFC 4180 CSV in UTF-8. A byte order mark is written first so Excel does
+ * not read names with accents as Latin-1.
+ */
+final class CsvSheetWriter implements SheetWriter {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer out;
+
+    CsvSheetWriter(OutputStream stream) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+        out.write('\uFEFF');
+    }
+
+    @Override
+    public void header(String[] names) throws IOException {
+        row(names);
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            writeField(format(values[i]));
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static String format(Object value) {
+        if (value == null) return "";
+        if (value instanceof BigDecimal) return ((BigDecimal) value).toPlainString();
+        if (value instanceof Timestamp) return ((Timestamp) value).toLocalDateTime().format(TIMESTAMP_FORMAT);
+        return value.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Order counts and total value for one customer across every status, read
+ * by {@link DBConnection#getCustomerOrderSummary(int)} so the orders screen
+ * can show them while its table is filtered to one status.
+ */
+public record CustomerOrderSummary(int totalOrders, int pendingOrders, int completedOrders, int cancelledOrders,
+                                   BigDecimal totalValue) {
+
+    static CustomerOrderSummary from(ResultSet rs) throws SQLException {
+        return new CustomerOrderSummary(
+                rs.getInt("TotalOrders"),
+                rs.getInt("PendingOrders"),
+                rs.getInt("CompletedOrders"),
+                rs.getInt("CancelledOrders"),
+                rs.getBigDecimal("TotalValue")
+        );
+    }
+}
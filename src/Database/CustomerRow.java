@@ -0,0 +1,29 @@
+package Database;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One customer as listed in the customer management table.
+ */
+public record CustomerRow(int customerId, String firstName, String lastName, String email, String phone,
+                          String address, String city, String state, String zipCode, Date dateRegistered,
+                          int orderCount) {
+
+    static CustomerRow from(ResultSet rs) throws SQLException {
+        return new CustomerRow(
+                rs.getInt("CustomerID"),
+                rs.getString("FirstName"),
+                rs.getString("LastName"),
+                rs.getString("Email"),
+                rs.getString("Phone"),
+                rs.getString("Address"),
+                rs.getString("City"),
+                rs.getString("State"),
+                rs.getString("ZipCode"),
+                rs.getDate("DateRegistered"),
+                rs.getInt("OrderCount")
+        );
+    }
+}
@@ -1,12 +1,24 @@
 package Database;
 
 import java.sql.*;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.HashSet;
 import java.util.Vector;
+import java.util.function.Consumer;
 
 /**
  * Handles database connections and common database operations
@@ -16,6 +28,13 @@ public class DBConnection {
     private static final String DB_URL = "";
     private static final String USER = "";
     private static final String PASS = "";
+    private static final String CONFIG_FILE = "db.properties";
+
+    private static final long DASHBOARD_STATS_TTL_MILLIS = 30_000;
+
+    private static volatile ConnectionPool pool;
+    private static volatile DashboardStats dashboardStats;
+    private static volatile long dashboardStatsLoadedAt;
 
     static {
         try {
@@ -26,8 +45,93 @@ public class DBConnection {
         }
     }
 
+    /**
+     * Borrows a connection from the shared pool. Closing the returned
+     * connection hands it back to the pool.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return getPool().getConnection();
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DBConnection.class) {
+                current = pool;
+                if (current == null) {
+                    Properties config = loadConfig();
+                    QueryMetrics.configure(config);
+                    current = ConnectionPool.fromProperties(config, DB_URL, USER, PASS);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Loads db.properties from the classpath, then lets a file named by the
+     * db.config system property override it.
+     */
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+        try (InputStream in = DBConnection.class.getResourceAsStream("/" + CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + CONFIG_FILE + ": " + e.getMessage());
+        }
+        String override = System.getProperty("db.config");
+        if (override != null) {
+            try (InputStream in = new FileInputStream(override)) {
+                props.load(in);
+            } catch (IOException e) {
+                System.err.println("Error reading " + override + ": " + e.getMessage());
+            }
+        }
+        return props;
+    }
+
+    public static ConnectionPool.PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    /**
+     * Latency, row and byte counts per data-access method since startup.
+     */
+    public static List<QueryMetrics.OperationStats> getQueryStats() {
+        return QueryMetrics.snapshot();
+    }
+
+    public static void shutdownPool() {
+        synchronized (DBConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    /**
+     * Wraps a ResultSet handed to callers so that closing it also closes its
+     * statement and returns the connection to the pool.
+     */
+    private static ResultSet closingResultSet(ResultSet rs, Statement stmt, Connection conn) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        closeResources(conn, stmt, rs);
+                        return null;
+                    }
+                    try {
+                        return method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
     }
 
     public static int getTotalCount(String tableName) {
@@ -52,6 +156,49 @@ public class DBConnection {
         return count;
     }
 
+    /**
+     * All dashboard counters in a single query. The result is cached for
+     * DASHBOARD_STATS_TTL_MILLIS so reopening the dashboard does not rescan
+     * the tables; returns null if the query fails and nothing is cached.
+     */
+    public static DashboardStats getDashboardStats() {
+        DashboardStats cached = dashboardStats;
+        if (cached != null && System.currentTimeMillis() - dashboardStatsLoadedAt < DASHBOARD_STATS_TTL_MILLIS) {
+            return cached;
+        }
+        String sql = """
+        SELECT v.TotalVehicles, v.AvailableVehicles, v.OnHoldVehicles, v.SoldVehicles,
+               s.TotalSales, s.PendingSales, s.CompletedSales, s.Revenue,
+               c.TotalCustomers, sd.TotalServices, sd.OpenServices
+        FROM (SELECT COUNT(*) AS TotalVehicles,
+                     ISNULL(SUM(CASE WHEN Status = 'Available' THEN 1 ELSE 0 END), 0) AS AvailableVehicles,
+                     ISNULL(SUM(CASE WHEN Status = 'On Hold' THEN 1 ELSE 0 END), 0) AS OnHoldVehicles,
+                     ISNULL(SUM(CASE WHEN Status = 'Sold' THEN 1 ELSE 0 END), 0) AS SoldVehicles
+              FROM Vehicles) v
+        CROSS JOIN (SELECT COUNT(*) AS TotalSales,
+                           ISNULL(SUM(CASE WHEN SaleStatus = 'Pending' THEN 1 ELSE 0 END), 0) AS PendingSales,
+                           ISNULL(SUM(CASE WHEN SaleStatus = 'Completed' THEN 1 ELSE 0 END), 0) AS CompletedSales,
+                           ISNULL(SUM(CASE WHEN SaleStatus = 'Completed' THEN TotalPrice END), 0) AS Revenue
+                    FROM Sales) s
+        CROSS JOIN (SELECT COUNT(*) AS TotalCustomers FROM Customers) c
+        CROSS JOIN (SELECT COUNT(*) AS TotalServices,
+                           ISNULL(SUM(CASE WHEN Status <> 'Completed' THEN 1 ELSE 0 END), 0) AS OpenServices
+                    FROM ServiceDepartment) sd
+        """;
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                cached = DashboardStats.from(rs);
+                dashboardStats = cached;
+                dashboardStatsLoadedAt = System.currentTimeMillis();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading dashboard stats: " + e.getMessage());
+        }
+        return cached;
+    }
+
     public static int getCountByCondition(String tableName, String columnName, String value) {
         int count = 0;
         List<String> allowedTables = Arrays.asList("Vehicles", "Customers", "Sales", "ServiceDepartment", "VehicleCategories");
@@ -94,7 +241,7 @@ public class DBConnection {
     public static ResultSet executeQuery(String query) throws SQLException {
         Connection conn = getConnection();
         Statement stmt = conn.createStatement();
-        return stmt.executeQuery(query);
+        return closingResultSet(stmt.executeQuery(query), stmt, conn);
     }
 
     public static void closeResources(Connection conn, Statement stmt, ResultSet rs) {
@@ -129,27 +276,14 @@ public class DBConnection {
         return lastId;
     }
 
-    public static List<Vector<Object>> getAllVehicles() {
-        List<Vector<Object>> vehicles = new ArrayList<>();
+    public static List<VehicleRow> getAllVehicles() {
+        List<VehicleRow> vehicles = new ArrayList<>();
         String sql = "SELECT v.VehicleID, v.VIN, v.Make, v.Model, v.Year, v.Color, v.Mileage, v.Condition, v.PurchasePrice, v.ListPrice, v.Status, c.CategoryName FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("VehicleID"));
-                row.add(rs.getString("VIN"));
-                row.add(rs.getString("Make"));
-                row.add(rs.getString("Model"));
-                row.add(rs.getInt("Year"));
-                row.add(rs.getString("Color"));
-                row.add(rs.getInt("Mileage"));
-                row.add(rs.getString("Condition"));
-                row.add(rs.getBigDecimal("PurchasePrice"));
-                row.add(rs.getBigDecimal("ListPrice"));
-                row.add(rs.getString("Status"));
-                row.add(rs.getString("CategoryName"));
-                vehicles.add(row);
+                vehicles.add(VehicleRow.from(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -157,34 +291,35 @@ public class DBConnection {
         return vehicles;
     }
 
-    public static List<Vector<Object>> searchVehicles(String searchText) {
-        List<Vector<Object>> vehicles = new ArrayList<>();
+    // Starts or ends with the search text; both halves are index seeks, unlike '%text%' on VIN
+    private static final String VIN_MATCH = "(v.VIN LIKE ? OR v.VINReversed LIKE ?)";
+
+    public static List<VehicleRow> searchVehicles(String searchText) {
+        List<VehicleRow> vehicles = new ArrayList<>();
         if (searchText == null || searchText.trim().isEmpty()) {
             return getAllVehicles();
         }
-        String sql = "SELECT v.VehicleID, v.VIN, v.Make, v.Model, v.Year, v.Color, v.Mileage, v.Condition, v.PurchasePrice, v.ListPrice, v.Status, c.CategoryName FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID WHERE v.Make LIKE ? OR v.Model LIKE ? OR v.VIN LIKE ?";
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.VEHICLE, searchText);
+        String sql = ranked != null
+                ? "SELECT " + VEHICLE_COLUMNS + " FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID " +
+                        "JOIN " + VEHICLE_SEARCH_RANKS + " ON r.ID = v.VehicleID ORDER BY r.SearchRank"
+                : "SELECT v.VehicleID, v.VIN, v.Make, v.Model, v.Year, v.Color, v.Mileage, v.Condition, v.PurchasePrice, v.ListPrice, v.Status, c.CategoryName FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID WHERE v.Make LIKE ? OR v.Model LIKE ? OR " + VIN_MATCH;
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            String searchPattern = "%" + searchText.trim() + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
+            if (ranked != null) {
+                stmt.setString(1, searchRankIds(ranked));
+                stmt.setString(2, vinPrefixPattern(searchText));
+                stmt.setString(3, vinSuffixPattern(searchText));
+            } else {
+                String searchPattern = "%" + searchText.trim() + "%";
+                stmt.setString(1, searchPattern);
+                stmt.setString(2, searchPattern);
+                stmt.setString(3, vinPrefixPattern(searchText));
+                stmt.setString(4, vinSuffixPattern(searchText));
+            }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("VehicleID"));
-                    row.add(rs.getString("VIN"));
-                    row.add(rs.getString("Make"));
-                    row.add(rs.getString("Model"));
-                    row.add(rs.getInt("Year"));
-                    row.add(rs.getString("Color"));
-                    row.add(rs.getInt("Mileage"));
-                    row.add(rs.getString("Condition"));
-                    row.add(rs.getBigDecimal("PurchasePrice"));
-                    row.add(rs.getBigDecimal("ListPrice"));
-                    row.add(rs.getString("Status"));
-                    row.add(rs.getString("CategoryName"));
-                    vehicles.add(row);
+                    vehicles.add(VehicleRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -193,8 +328,8 @@ public class DBConnection {
         return vehicles;
     }
 
-    public static List<Vector<Object>> filterVehiclesByStatus(String status) {
-        List<Vector<Object>> vehicles = new ArrayList<>();
+    public static List<VehicleRow> filterVehiclesByStatus(String status) {
+        List<VehicleRow> vehicles = new ArrayList<>();
         if (status == null || status.equals("All")) {
             return getAllVehicles();
         }
@@ -204,20 +339,7 @@ public class DBConnection {
             stmt.setString(1, status);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("VehicleID"));
-                    row.add(rs.getString("VIN"));
-                    row.add(rs.getString("Make"));
-                    row.add(rs.getString("Model"));
-                    row.add(rs.getInt("Year"));
-                    row.add(rs.getString("Color"));
-                    row.add(rs.getInt("Mileage"));
-                    row.add(rs.getString("Condition"));
-                    row.add(rs.getBigDecimal("PurchasePrice"));
-                    row.add(rs.getBigDecimal("ListPrice"));
-                    row.add(rs.getString("Status"));
-                    row.add(rs.getString("CategoryName"));
-                    vehicles.add(row);
+                    vehicles.add(VehicleRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -226,6 +348,99 @@ public class DBConnection {
         return vehicles;
     }
 
+    /**
+     * Vehicles matching the search text (make, model, or the start or end of
+     * the VIN) and status, read a page at a time in VehicleID order. Blank
+     * text and "All" match everything. Once SearchIndex is loaded the text is
+     * looked up there instead, and the matches come best first, followed by
+     * VIN matches the index did not find.
+     * Sortable by VehicleID, VIN, Make (then Model), Year and ListPrice.
+     */
+    public static PagedQuery<VehicleRow> pageVehicles(String searchText, String status) {
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.VEHICLE, searchText);
+        String from = "Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID";
+        PagedQuery.Builder<VehicleRow> query = ranked != null
+                ? PagedQuery.builder("vehicles", VEHICLE_COLUMNS + ", r.SearchRank",
+                        from + " JOIN " + VEHICLE_SEARCH_RANKS + " ON r.ID = v.VehicleID", VehicleRow::from)
+                        .fromParams(searchRankIds(ranked), vinPrefixPattern(searchText), vinSuffixPattern(searchText))
+                : PagedQuery.builder("vehicles", VEHICLE_COLUMNS, from, VehicleRow::from);
+        if (ranked == null && searchText != null && !searchText.trim().isEmpty()) {
+            String searchPattern = "%" + searchText.trim() + "%";
+            query.where("v.Make LIKE ? OR v.Model LIKE ? OR " + VIN_MATCH, searchPattern, searchPattern,
+                    vinPrefixPattern(searchText), vinSuffixPattern(searchText));
+        }
+        if (status != null && !status.equalsIgnoreCase("All")) {
+            query.where("v.Status = ?", status);
+        }
+        if (ranked != null) {
+            query.orderBy("r.SearchRank", "SearchRank", false);
+        } else {
+            query.orderBy("v.VehicleID", "VehicleID", false);
+        }
+        return query.sortable("VehicleID", "v.VehicleID", "VehicleID")
+                .sortable("VIN", "v.VIN", "VIN")
+                .sortable("Make", "v.Make", "Make")
+                .sortable("Make", "v.Model", "Model")
+                .sortable("Year", "v.Year", "Year")
+                .sortable("ListPrice", "v.ListPrice", "ListPrice")
+                .build();
+    }
+
+    /**
+     * Adds to changed every vehicle inserted or updated after sinceVersion, for
+     * the incremental refresh of InventoryIndex. Rows at or above
+     * MIN_ACTIVE_ROWVERSION() belong to transactions still in flight, so they are
+     * left for the next call rather than skipped.
+     * @return the row version to pass on the next call
+     */
+    public static long getVehiclesChangedSince(long sinceVersion, List<VehicleRow> changed) throws SQLException {
+        String sql = "SELECT v.VehicleID, v.VIN, v.Make, v.Model, v.Year, v.Color, v.Mileage, v.Condition, v.PurchasePrice, v.ListPrice, v.Status, c.CategoryName FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID WHERE v.RowVer > CAST(? AS BINARY(8)) AND v.RowVer < CAST(? AS BINARY(8))";
+        try (Connection conn = getConnection()) {
+            long ceiling = minActiveRowVersion(conn);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, sinceVersion);
+                stmt.setLong(2, ceiling);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        changed.add(VehicleRow.from(rs));
+                    }
+                }
+            }
+            return ceiling - 1;
+        }
+    }
+
+    private static long minActiveRowVersion(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT CAST(MIN_ACTIVE_ROWVERSION() AS BIGINT)");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * IDs of every vehicle, used to drop deleted rows from InventoryIndex.
+     */
+    public static List<Integer> getVehicleIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT VehicleID FROM Vehicles");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    public static int countVehicles() throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM Vehicles");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
 
     public static boolean addVehicle(String vin, String make, String model, int year, String color, int mileage, String condition, BigDecimal purchasePrice, BigDecimal listPrice, String status, String categoryName) {
         try (Connection conn = getConnection()) {
@@ -244,6 +459,10 @@ public class DBConnection {
                 stmt.setString(10, status);
                 stmt.setInt(11, categoryId);
                 int result = stmt.executeUpdate();
+                if (result > 0) {
+                    SearchIndex.added(SearchIndex.Kind.VEHICLE);
+                    InventoryIndex.changed();
+                }
                 return result > 0;
             }
         } catch (SQLException e) {
@@ -271,6 +490,10 @@ public class DBConnection {
                 stmt.setInt(11, categoryId);
                 stmt.setInt(12, vehicleId);
                 int result = stmt.executeUpdate();
+                if (result > 0) {
+                    SearchIndex.changed(SearchIndex.Kind.VEHICLE, vehicleId);
+                    InventoryIndex.changed();
+                }
                 return result > 0;
             }
         } catch (SQLException e) {
@@ -289,6 +512,10 @@ public class DBConnection {
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, vehicleId);
                 int result = stmt.executeUpdate();
+                if (result > 0) {
+                    SearchIndex.changed(SearchIndex.Kind.VEHICLE, vehicleId);
+                    InventoryIndex.removed(vehicleId);
+                }
                 return result > 0;
             }
         } catch (SQLException e) {
@@ -320,18 +547,16 @@ public class DBConnection {
         String sql = "SELECT * FROM Vehicles WHERE VehicleID = ?";
         PreparedStatement stmt = conn.prepareStatement(sql);
         stmt.setInt(1, vehicleId);
-        return stmt.executeQuery();
+        return closingResultSet(stmt.executeQuery(), stmt, conn);
     }
 
+    /**
+     * Category names in CategoryID order, from ReferenceData.
+     */
     public static List<String> getAllCategories() {
         List<String> categories = new ArrayList<>();
-        String sql = "SELECT CategoryName FROM VehicleCategories";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                categories.add(rs.getString("CategoryName"));
-            }
+        try {
+            categories.addAll(ReferenceData.getInstance().names(ReferenceData.Table.CATEGORIES).values());
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -339,46 +564,33 @@ public class DBConnection {
     }
 
     private static int getCategoryId(Connection conn, String categoryName) throws SQLException {
-        String sql = "SELECT CategoryID FROM VehicleCategories WHERE CategoryName = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, categoryName);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return rs.getInt("CategoryID");
-            }
+        Integer categoryId = ReferenceData.getInstance().id(conn, ReferenceData.Table.CATEGORIES, categoryName);
+        if (categoryId == null) {
+            throw new SQLException("Category not found: " + categoryName);
         }
-        throw new SQLException("Category not found: " + categoryName);
+        return categoryId;
     }
 
+    /**
+     * The category's name, from ReferenceData; conn is only used if the
+     * categories have to be read.
+     */
     public static String getCategoryName(Connection conn, int categoryId) throws SQLException {
-        String sql = "SELECT CategoryName FROM VehicleCategories WHERE CategoryID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, categoryId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return rs.getString("CategoryName");
-            }
+        String categoryName = ReferenceData.getInstance().name(conn, ReferenceData.Table.CATEGORIES, categoryId);
+        if (categoryName == null) {
+            throw new SQLException("Category ID not found: " + categoryId);
         }
-        throw new SQLException("Category ID not found: " + categoryId);
+        return categoryName;
     }
 
-    public static List<Vector<Object>> getAllCustomers() {
-        List<Vector<Object>> customers = new ArrayList<>();
-        String sql = "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered FROM Customers";
+    public static List<CustomerRow> getAllCustomers() {
+        List<CustomerRow> customers = new ArrayList<>();
+        String sql = "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered, OrderCount FROM Customers";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("CustomerID"));
-                row.add(rs.getString("FirstName"));
-                row.add(rs.getString("LastName"));
-                row.add(rs.getString("Email"));
-                row.add(rs.getString("Phone"));
-                row.add(rs.getString("Address"));
-                row.add(rs.getString("City"));
-                row.add(rs.getString("State"));
-                row.add(rs.getString("ZipCode"));
-                row.add(rs.getDate("DateRegistered"));
-                customers.add(row);
+                customers.add(CustomerRow.from(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error fetching customers: " + e.getMessage());
@@ -387,33 +599,30 @@ public class DBConnection {
         return customers;
     }
 
-    public static List<Vector<Object>> searchCustomers(String searchText) {
-        List<Vector<Object>> customers = new ArrayList<>();
+    public static List<CustomerRow> searchCustomers(String searchText) {
+        List<CustomerRow> customers = new ArrayList<>();
         if (searchText == null || searchText.trim().isEmpty()) {
             return getAllCustomers();
         }
-        String sql = "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered FROM Customers WHERE FirstName LIKE ? OR LastName LIKE ? OR Email LIKE ? OR Phone LIKE ?";
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.CUSTOMER, searchText);
+        String sql = ranked != null
+                ? "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered, OrderCount FROM Customers " +
+                        "JOIN " + SEARCH_RANKS + " ON r.ID = CustomerID ORDER BY r.SearchRank"
+                : "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered, OrderCount FROM Customers WHERE FirstName LIKE ? OR LastName LIKE ? OR Email LIKE ? OR Phone LIKE ?";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            String searchPattern = "%" + searchText.trim() + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
-            stmt.setString(4, searchPattern);
+            if (ranked != null) {
+                stmt.setString(1, searchRankIds(ranked));
+            } else {
+                String searchPattern = "%" + searchText.trim() + "%";
+                stmt.setString(1, searchPattern);
+                stmt.setString(2, searchPattern);
+                stmt.setString(3, searchPattern);
+                stmt.setString(4, searchPattern);
+            }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("CustomerID"));
-                    row.add(rs.getString("FirstName"));
-                    row.add(rs.getString("LastName"));
-                    row.add(rs.getString("Email"));
-                    row.add(rs.getString("Phone"));
-                    row.add(rs.getString("Address"));
-                    row.add(rs.getString("City"));
-                    row.add(rs.getString("State"));
-                    row.add(rs.getString("ZipCode"));
-                    row.add(rs.getDate("DateRegistered"));
-                    customers.add(row);
+                    customers.add(CustomerRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -423,29 +632,18 @@ public class DBConnection {
         return customers;
     }
 
-    public static List<Vector<Object>> filterCustomersByStatus(String status) {
-        List<Vector<Object>> customers = new ArrayList<>();
+    public static List<CustomerRow> filterCustomersByStatus(String status) {
+        List<CustomerRow> customers = new ArrayList<>();
         if (status == null || status.equals("All")) {
             return getAllCustomers();
         }
-        String sql = "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered FROM Customers WHERE Status = ?";
+        String sql = "SELECT CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered, OrderCount FROM Customers WHERE Status = ?";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, status);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("CustomerID"));
-                    row.add(rs.getString("FirstName"));
-                    row.add(rs.getString("LastName"));
-                    row.add(rs.getString("Email"));
-                    row.add(rs.getString("Phone"));
-                    row.add(rs.getString("Address"));
-                    row.add(rs.getString("City"));
-                    row.add(rs.getString("State"));
-                    row.add(rs.getString("ZipCode"));
-                    row.add(rs.getDate("DateRegistered"));
-                    customers.add(row);
+                    customers.add(CustomerRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -455,6 +653,37 @@ public class DBConnection {
         return customers;
     }
 
+    /**
+     * Customers matching the search text, read a page at a time in CustomerID
+     * order, or best match first once SearchIndex is loaded. Sortable by
+     * CustomerID, LastName (then FirstName), Email and DateRegistered.
+     */
+    public static PagedQuery<CustomerRow> pageCustomers(String searchText) {
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.CUSTOMER, searchText);
+        String columns = "CustomerID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered, OrderCount";
+        PagedQuery.Builder<CustomerRow> query = ranked != null
+                ? PagedQuery.builder("customers", columns + ", r.SearchRank",
+                        "Customers JOIN " + SEARCH_RANKS + " ON r.ID = CustomerID", CustomerRow::from)
+                        .fromParams(searchRankIds(ranked))
+                : PagedQuery.builder("customers", columns, "Customers", CustomerRow::from);
+        if (ranked == null && searchText != null && !searchText.trim().isEmpty()) {
+            String searchPattern = "%" + searchText.trim() + "%";
+            query.where("FirstName LIKE ? OR LastName LIKE ? OR Email LIKE ? OR Phone LIKE ?",
+                    searchPattern, searchPattern, searchPattern, searchPattern);
+        }
+        if (ranked != null) {
+            query.orderBy("r.SearchRank", "SearchRank", false);
+        } else {
+            query.orderBy("CustomerID", "CustomerID", false);
+        }
+        return query.sortable("CustomerID", "CustomerID", "CustomerID")
+                .sortable("LastName", "LastName", "LastName")
+                .sortable("LastName", "FirstName", "FirstName")
+                .sortable("Email", "Email", "Email")
+                .sortable("DateRegistered", "DateRegistered", "DateRegistered")
+                .build();
+    }
+
     public static boolean addCustomer(String firstName, String lastName, String email, String phone, String address, String city, String state, String zipCode, Integer userId) throws SQLException {
         try (Connection conn = getConnection()) {
             // Validate inputs
@@ -505,6 +734,7 @@ public class DBConnection {
                 if (result == 0) {
                     throw new SQLException("Failed to create customer record");
                 }
+                SearchIndex.added(SearchIndex.Kind.CUSTOMER);
 
                 System.out.println("Add customer result: " + result + " rows affected");
                 return true;
@@ -570,6 +800,7 @@ public class DBConnection {
                 if (result == 0) {
                     throw new SQLException("Failed to update customer record or customer not found");
                 }
+                SearchIndex.changed(SearchIndex.Kind.CUSTOMER, customerId);
 
                 System.out.println("Update customer result: " + result + " rows affected");
                 return true;
@@ -603,6 +834,7 @@ public class DBConnection {
                     System.err.println("Failed to delete customer record or customer not found");
                     return false;
                 }
+                SearchIndex.changed(SearchIndex.Kind.CUSTOMER, customerId);
 
                 System.out.println("Delete customer result: " + result + " rows affected");
                 return true;
@@ -640,7 +872,7 @@ public class DBConnection {
                 "WHERE c.CustomerID = ?";
         PreparedStatement stmt = conn.prepareStatement(sql);
         stmt.setInt(1, customerId);
-        return stmt.executeQuery();
+        return closingResultSet(stmt.executeQuery(), stmt, conn);
     }
     public static boolean addUser(String username, String passwordHash, String role) throws SQLException {
         try (Connection conn = getConnection()) {
@@ -671,7 +903,7 @@ public class DBConnection {
         String sql = "SELECT UserID FROM Users WHERE Username = ?";
         PreparedStatement stmt = conn.prepareStatement(sql);
         stmt.setString(1, username);
-        return stmt.executeQuery();
+        return closingResultSet(stmt.executeQuery(), stmt, conn);
     }
 
 //    public static boolean deleteCustomer(int customerId) {
@@ -696,8 +928,8 @@ public class DBConnection {
 
 
 
-    public static List<Vector<Object>> getAllSales() {
-        List<Vector<Object>> sales = new ArrayList<>();
+    public static List<SaleRow> getAllSales() {
+        List<SaleRow> sales = new ArrayList<>();
         String sql = "SELECT s.SaleID, s.InvoiceNumber, CONCAT(v.Make, ' ', v.Model, ' (', v.Year, ')') AS Vehicle, " +
                 "CONCAT(c.FirstName, ' ', c.LastName) AS Customer, " +
                 "CONCAT(e.FirstName, ' ', e.LastName) AS Employee, " +
@@ -710,18 +942,7 @@ public class DBConnection {
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("SaleID"));
-                row.add(rs.getString("InvoiceNumber"));
-                row.add(rs.getString("Vehicle"));
-                row.add(rs.getString("Customer"));
-                row.add(rs.getString("Employee"));
-                row.add(rs.getTimestamp("SaleDate"));
-                row.add(rs.getBigDecimal("SalePrice"));
-                row.add(rs.getBigDecimal("TaxAmount"));
-                row.add(rs.getBigDecimal("TotalPrice"));
-                row.add(rs.getString("SaleStatus"));
-                sales.add(row);
+                sales.add(SaleRow.from(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error fetching sales: " + e.getMessage());
@@ -730,8 +951,9 @@ public class DBConnection {
         return sales;
     }
 
-    public static List<Vector<Object>> searchSales(String searchText, String status) {
-        List<Vector<Object>> sales = new ArrayList<>();
+    public static List<SaleRow> searchSales(String searchText, String status) {
+        List<SaleRow> sales = new ArrayList<>();
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.SALE, searchText);
         StringBuilder sql = new StringBuilder(
                 "SELECT s.SaleID, s.InvoiceNumber, CONCAT(v.Make, ' ', v.Model, ' (', v.Year, ')') AS Vehicle, " +
                         "CONCAT(c.FirstName, ' ', c.LastName) AS Customer, " +
@@ -741,11 +963,14 @@ public class DBConnection {
                         "JOIN Vehicles v ON s.VehicleID = v.VehicleID " +
                         "JOIN Customers c ON s.CustomerID = c.CustomerID " +
                         "JOIN Employees e ON s.EmployeeID = e.EmployeeID " +
+                        (ranked != null ? "JOIN " + SEARCH_RANKS + " ON r.ID = s.SaleID " : "") +
                         "WHERE 1=1"
         );
         List<String> params = new ArrayList<>();
 
-        if (searchText != null && !searchText.trim().isEmpty()) {
+        if (ranked != null) {
+            params.add(searchRankIds(ranked));
+        } else if (searchText != null && !searchText.trim().isEmpty()) {
             sql.append(" AND s.InvoiceNumber LIKE ?");
             params.add("%" + searchText.trim() + "%");
         }
@@ -753,6 +978,9 @@ public class DBConnection {
             sql.append(" AND s.SaleStatus = ?");
             params.add(status);
         }
+        if (ranked != null) {
+            sql.append(" ORDER BY r.SearchRank");
+        }
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
@@ -761,18 +989,7 @@ public class DBConnection {
             }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("SaleID"));
-                    row.add(rs.getString("InvoiceNumber"));
-                    row.add(rs.getString("Vehicle"));
-                    row.add(rs.getString("Customer"));
-                    row.add(rs.getString("Employee"));
-                    row.add(rs.getTimestamp("SaleDate"));
-                    row.add(rs.getBigDecimal("SalePrice"));
-                    row.add(rs.getBigDecimal("TaxAmount"));
-                    row.add(rs.getBigDecimal("TotalPrice"));
-                    row.add(rs.getString("SaleStatus"));
-                    sales.add(row);
+                    sales.add(SaleRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -782,6 +999,50 @@ public class DBConnection {
         return sales;
     }
 
+    /**
+     * Sales matching the invoice number text and status, newest first, read a
+     * page at a time. The (SaleDate, SaleID) keyset is served by idx_sales_date,
+     * which carries the clustered SaleID key. Once SearchIndex is loaded the
+     * text also matches the customer's name and the vehicle, and the matches
+     * come best first. Sortable by SaleID, InvoiceNumber, SaleDate and
+     * TotalPrice.
+     */
+    public static PagedQuery<SaleRow> pageSales(String searchText, String status) {
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.SALE, searchText);
+        String from = "Sales s " +
+                "JOIN Vehicles v ON s.VehicleID = v.VehicleID " +
+                "JOIN Customers c ON s.CustomerID = c.CustomerID " +
+                "JOIN Employees e ON s.EmployeeID = e.EmployeeID";
+        PagedQuery.Builder<SaleRow> query = PagedQuery.builder("sales",
+                "s.SaleID, s.InvoiceNumber, CONCAT(v.Make, ' ', v.Model, ' (', v.Year, ')') AS Vehicle, " +
+                        "CONCAT(c.FirstName, ' ', c.LastName) AS Customer, " +
+                        "CONCAT(e.FirstName, ' ', e.LastName) AS Employee, " +
+                        "s.SaleDate, s.SalePrice, s.TaxAmount, s.TotalPrice, s.SaleStatus" +
+                        (ranked != null ? ", r.SearchRank" : ""),
+                ranked != null ? from + " JOIN " + SEARCH_RANKS + " ON r.ID = s.SaleID" : from,
+                SaleRow::from);
+        if (ranked != null) {
+            query.fromParams(searchRankIds(ranked));
+        }
+        if (ranked == null && searchText != null && !searchText.trim().isEmpty()) {
+            query.where("s.InvoiceNumber LIKE ?", "%" + searchText.trim() + "%");
+        }
+        if (status != null && !status.equalsIgnoreCase("All")) {
+            query.where("s.SaleStatus = ?", status);
+        }
+        if (ranked != null) {
+            query.orderBy("r.SearchRank", "SearchRank", false);
+        } else {
+            query.orderBy("s.SaleDate", "SaleDate", true, "CAST(? AS DATETIME)")
+                    .orderBy("s.SaleID", "SaleID", true);
+        }
+        return query.sortable("SaleID", "s.SaleID", "SaleID")
+                .sortable("InvoiceNumber", "s.InvoiceNumber", "InvoiceNumber")
+                .sortable("SaleDate", "s.SaleDate", "SaleDate", "CAST(? AS DATETIME)")
+                .sortable("TotalPrice", "s.TotalPrice", "TotalPrice")
+                .build();
+    }
+
     public static boolean addSale(int vehicleId, int customerId, int employeeId, String saleDate, double salePrice, double taxAmount, String invoiceNumber, String status) {
         try (Connection conn = getConnection()) {
             if (!checkExists(conn, "Vehicles", "VehicleID", vehicleId)) {
@@ -811,6 +1072,7 @@ public class DBConnection {
                 stmt.setString(9, invoiceNumber);
                 int result = stmt.executeUpdate();
                 System.out.println("Add sale result: " + result + " rows affected");
+                if (result > 0) SearchIndex.added(SearchIndex.Kind.SALE);
                 return result > 0;
             }
         } catch (SQLException e) {
@@ -850,6 +1112,7 @@ public class DBConnection {
                 stmt.setInt(10, saleId);
                 int result = stmt.executeUpdate();
                 System.out.println("Update sale result: " + result + " rows affected");
+                if (result > 0) SearchIndex.changed(SearchIndex.Kind.SALE, saleId);
                 return result > 0;
             }
         } catch (SQLException e) {
@@ -866,6 +1129,7 @@ public class DBConnection {
                 stmt.setInt(1, saleId);
                 int result = stmt.executeUpdate();
                 System.out.println("Delete sale result: " + result + " rows affected");
+                if (result > 0) SearchIndex.changed(SearchIndex.Kind.SALE, saleId);
                 return result > 0;
             }
         } catch (SQLException e) {
@@ -880,7 +1144,7 @@ public class DBConnection {
         String sql = "SELECT * FROM Sales WHERE SaleID = ?";
         PreparedStatement stmt = conn.prepareStatement(sql);
         stmt.setInt(1, saleId);
-        return stmt.executeQuery();
+        return closingResultSet(stmt.executeQuery(), stmt, conn);
     }
 
     private static boolean checkExists(Connection conn, String tableName, String columnName, int value) throws SQLException {
@@ -918,25 +1182,15 @@ public class DBConnection {
         }
     }
 
-    public static List<Vector<Object>> getAllEmployees() {
-        List<Vector<Object>> employees = new ArrayList<>();
+    public static List<EmployeeRow> getAllEmployees() {
+        List<EmployeeRow> employees = new ArrayList<>();
         String sql = "SELECT e.EmployeeID, e.FirstName, e.LastName, e.Email, e.Phone, e.Position, e.HireDate, e.Salary, u.Username " +
                 "FROM Employees e JOIN Users u ON e.UserID = u.UserID";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("EmployeeID"));
-                row.add(rs.getString("FirstName"));
-                row.add(rs.getString("LastName"));
-                row.add(rs.getString("Email"));
-                row.add(rs.getString("Phone"));
-                row.add(rs.getString("Position"));
-                row.add(rs.getDate("HireDate"));
-                row.add(rs.getObject("Salary") != null ? rs.getBigDecimal("Salary") : "");
-                row.add(rs.getString("Username"));
-                employees.add(row);
+                employees.add(EmployeeRow.from(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error fetching employees: " + e.getMessage());
@@ -945,8 +1199,8 @@ public class DBConnection {
         return employees;
     }
 
-    public static List<Vector<Object>> searchEmployees(String searchText) {
-        List<Vector<Object>> employees = new ArrayList<>();
+    public static List<EmployeeRow> searchEmployees(String searchText) {
+        List<EmployeeRow> employees = new ArrayList<>();
         if (searchText == null || searchText.trim().isEmpty()) {
             return getAllEmployees();
         }
@@ -962,17 +1216,7 @@ public class DBConnection {
             stmt.setString(4, searchPattern);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("EmployeeID"));
-                    row.add(rs.getString("FirstName"));
-                    row.add(rs.getString("LastName"));
-                    row.add(rs.getString("Email"));
-                    row.add(rs.getString("Phone"));
-                    row.add(rs.getString("Position"));
-                    row.add(rs.getDate("HireDate"));
-                    row.add(rs.getObject("Salary") != null ? rs.getBigDecimal("Salary") : "");
-                    row.add(rs.getString("Username"));
-                    employees.add(row);
+                    employees.add(EmployeeRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -982,6 +1226,27 @@ public class DBConnection {
         return employees;
     }
 
+    /**
+     * Employees matching the search text, read a page at a time in EmployeeID
+     * order. Sortable by EmployeeID, LastName (then FirstName) and Email.
+     */
+    public static PagedQuery<EmployeeRow> pageEmployees(String searchText) {
+        PagedQuery.Builder<EmployeeRow> query = PagedQuery.builder("employees",
+                "e.EmployeeID, e.FirstName, e.LastName, e.Email, e.Phone, e.Position, e.HireDate, e.Salary, u.Username",
+                "Employees e JOIN Users u ON e.UserID = u.UserID", EmployeeRow::from);
+        if (searchText != null && !searchText.trim().isEmpty()) {
+            String searchPattern = "%" + searchText.trim() + "%";
+            query.where("e.FirstName LIKE ? OR e.LastName LIKE ? OR e.Email LIKE ? OR u.Username LIKE ?",
+                    searchPattern, searchPattern, searchPattern, searchPattern);
+        }
+        return query.orderBy("e.EmployeeID", "EmployeeID", false)
+                .sortable("EmployeeID", "e.EmployeeID", "EmployeeID")
+                .sortable("LastName", "e.LastName", "LastName")
+                .sortable("LastName", "e.FirstName", "FirstName")
+                .sortable("Email", "e.Email", "Email")
+                .build();
+    }
+
     public static EmployeeResult getEmployeeById(int employeeId) {
         String sql = "SELECT e.EmployeeID, e.FirstName, e.LastName, e.Email, e.Phone, e.Position, e.HireDate, e.Salary, u.Username, u.Role, u.PasswordHash " +
                 "FROM Employees e JOIN Users u ON e.UserID = u.UserID WHERE e.EmployeeID = ?";
@@ -1068,6 +1333,7 @@ public class DBConnection {
             int empResult = empStmt.executeUpdate();
 
             conn.commit();
+            ReferenceData.invalidate(ReferenceData.Table.EMPLOYEES);
             System.out.println("Add employee result: " + empResult + " rows affected");
             return empResult > 0;
         } catch (SQLException e) {
@@ -1170,6 +1436,7 @@ public class DBConnection {
                 int empResult = empStmt.executeUpdate();
 
                 conn.commit();
+                if (empResult > 0) ReferenceData.written(ReferenceData.Table.EMPLOYEES, employeeId, firstName + " " + lastName);
                 System.out.println("Update employee result: " + empResult + " rows affected");
                 return empResult > 0;
             }
@@ -1243,6 +1510,7 @@ public class DBConnection {
                 }
 
                 conn.commit();
+                ReferenceData.removed(ReferenceData.Table.EMPLOYEES, employeeId);
                 System.out.println("Delete successful: Deleted " + empResult + " employee row(s) and " + userResult + " user row(s) for EmployeeID " + employeeId);
                 return true;
             }
@@ -1377,6 +1645,12 @@ public class DBConnection {
             stmt.setString(4, phone);
             stmt.setString(5, username);
             int result = stmt.executeUpdate();
+            if (result > 0 && "customer".equals(role)) {
+                String customerId = getCustomerIdByUsername(username);
+                if (customerId != null) SearchIndex.changed(SearchIndex.Kind.CUSTOMER, Integer.parseInt(customerId));
+            } else if (result > 0) {
+                ReferenceData.invalidate(ReferenceData.Table.EMPLOYEES);
+            }
             return result > 0;
         }
     }
@@ -1464,6 +1738,7 @@ public class DBConnection {
             stmt.setInt(2, Integer.parseInt(vehicleId));
             int rowsAffected = stmt.executeUpdate();
             System.out.println("Update vehicle status result: " + rowsAffected + " rows affected for VehicleID " + vehicleId);
+            if (rowsAffected > 0) InventoryIndex.changed();
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error updating vehicle status: " + e.getMessage());
@@ -1496,6 +1771,7 @@ public class DBConnection {
 
             int rowsAffected = stmt.executeUpdate();
             System.out.println("Add sale result: " + rowsAffected + " rows affected for VehicleID " + vehicleId);
+            if (rowsAffected > 0) SearchIndex.added(SearchIndex.Kind.SALE);
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error adding sale: " + e.getMessage());
@@ -1504,6 +1780,53 @@ public class DBConnection {
         }
     }
 
+    /**
+     * Puts an Available vehicle on hold and records its Pending sale in one
+     * round trip and one transaction. The hold is a conditional UPDATE, so when
+     * two customers race for the same vehicle exactly one of them gets it and the
+     * other sees ALREADY_TAKEN; if the insert fails the hold is rolled back too.
+     */
+    public static OrderReservation reserveAndPlaceOrder(int vehicleId, int customerId, String saleDate, double salePrice, double taxAmount, String invoiceNumber) {
+        String sql = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        BEGIN TRANSACTION;
+        UPDATE Vehicles SET Status = 'On Hold' WHERE VehicleID = ? AND Status = 'Available';
+        IF @@ROWCOUNT = 0
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SELECT CAST(0 AS INT) AS SaleID;
+            RETURN;
+        END
+        INSERT INTO Sales (VehicleID, CustomerID, EmployeeID, SaleDate, SalePrice, TaxAmount, TotalPrice, InvoiceNumber, SaleStatus)
+        VALUES (?, ?, NULL, ?, ?, ?, ?, ?, 'Pending');
+        DECLARE @SaleID INT = CAST(SCOPE_IDENTITY() AS INT);
+        COMMIT TRANSACTION;
+        SELECT @SaleID AS SaleID;
+        """;
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, vehicleId);
+            stmt.setInt(2, vehicleId);
+            stmt.setInt(3, customerId);
+            stmt.setString(4, saleDate);
+            stmt.setBigDecimal(5, BigDecimal.valueOf(salePrice));
+            stmt.setBigDecimal(6, BigDecimal.valueOf(taxAmount));
+            stmt.setBigDecimal(7, BigDecimal.valueOf(salePrice + taxAmount));
+            stmt.setString(8, invoiceNumber);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int saleId = rs.next() ? rs.getInt("SaleID") : 0;
+                if (saleId > 0) {
+                    SearchIndex.changed(SearchIndex.Kind.SALE, saleId);
+                    InventoryIndex.changed();
+                }
+                return saleId > 0 ? OrderReservation.placed(saleId) : OrderReservation.alreadyTaken();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reserving vehicle " + vehicleId + ": " + e.getMessage());
+            return OrderReservation.failed(e.getMessage());
+        }
+    }
 
     public static boolean placeOrder(String vehicleId, String customerId, String employeeId, double salePrice) {
         String query = "INSERT INTO Sales (VehicleID, CustomerID, EmployeeID, SaleDate, SalePrice, TaxAmount, TotalPrice, SaleStatus, InvoiceNumber) " +
@@ -1513,7 +1836,7 @@ public class DBConnection {
             double taxRate = 0.08; // 8% tax rate; adjust as needed
             double taxAmount = salePrice * taxRate;
             double totalPrice = salePrice + taxAmount;
-            String invoiceNumber = "INV-" + new SimpleDateFormat("yyyyMMddHHmmss").format(new java.util.Date());
+            String invoiceNumber = InvoiceSequence.getInstance().next();
 
             stmt.setInt(1, Integer.parseInt(vehicleId));
             stmt.setInt(2, Integer.parseInt(customerId));
@@ -1532,6 +1855,7 @@ public class DBConnection {
 
             int rowsAffected = stmt.executeUpdate();
             System.out.println("Place order result: " + rowsAffected + " rows affected for VehicleID " + vehicleId);
+            if (rowsAffected > 0) SearchIndex.added(SearchIndex.Kind.SALE);
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error placing order: " + e.getMessage());
@@ -1567,10 +1891,10 @@ public class DBConnection {
 
     /**
      * Get all pending orders (sales with null EmployeeID and status 'Pending')
-     * @return List of Vector objects containing order details
+     * @return List of order rows
      */
-    public static List<Vector<Object>> getPendingOrders() {
-        List<Vector<Object>> orders = new ArrayList<>();
+    public static List<PendingOrderRow> getPendingOrders() {
+        List<PendingOrderRow> orders = new ArrayList<>();
         String query = """
         SELECT 
             s.SaleID,
@@ -1596,18 +1920,7 @@ public class DBConnection {
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("SaleID"));                    // 0
-                row.add(rs.getString("InvoiceNumber"));          // 1
-                row.add(rs.getString("CustomerName"));           // 2
-                row.add(rs.getString("VehicleInfo"));            // 3
-                row.add(rs.getString("SaleDate"));               // 4
-                row.add(rs.getBigDecimal("SalePrice"));          // 5
-                row.add(rs.getBigDecimal("TaxAmount"));          // 6
-                row.add(rs.getBigDecimal("TotalPrice"));         // 7
-                row.add(rs.getString("SaleStatus"));             // 8
-                row.add(rs.getInt("VehicleID"));                 // 9 (for internal use)
-                orders.add(row);
+                orders.add(PendingOrderRow.from(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error fetching pending orders: " + e.getMessage());
@@ -1618,13 +1931,34 @@ public class DBConnection {
     }
 
     /**
-     * Search pending orders by customer name, invoice number, or vehicle info
+     * Search pending orders by customer name, invoice number, or vehicle info,
+     * best match first once SearchIndex is loaded
      * @param searchText Search criteria
-     * @return List of Vector objects containing matching order details
+     * @return List of matching order rows
      */
-    public static List<Vector<Object>> searchPendingOrders(String searchText) {
-        List<Vector<Object>> orders = new ArrayList<>();
-        String query = """
+    public static List<PendingOrderRow> searchPendingOrders(String searchText) {
+        List<PendingOrderRow> orders = new ArrayList<>();
+        List<Integer> ranked = indexedSearch(SearchIndex.Kind.SALE, searchText);
+        String query = ranked != null ? """
+        SELECT
+            s.SaleID,
+            s.InvoiceNumber,
+            CONCAT(c.FirstName, ' ', c.LastName) AS CustomerName,
+            CONCAT(v.Make, ' ', v.Model, ' (', v.Year, ')') AS VehicleInfo,
+            FORMAT(s.SaleDate, 'yyyy-MM-dd HH:mm') AS SaleDate,
+            s.SalePrice,
+            s.TaxAmount,
+            s.TotalPrice,
+            s.SaleStatus,
+            v.VehicleID
+        FROM Sales s
+        JOIN Customers c ON s.CustomerID = c.CustomerID
+        JOIN Vehicles v ON s.VehicleID = v.VehicleID
+        JOIN %s ON r.ID = s.SaleID
+        WHERE s.EmployeeID IS NULL
+        AND s.SaleStatus = 'Pending'
+        ORDER BY r.SearchRank
+    """.formatted(SEARCH_RANKS) : """
         SELECT 
             s.SaleID,
             s.InvoiceNumber,
@@ -1653,26 +1987,19 @@ public class DBConnection {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
-            String searchPattern = "%" + searchText + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            stmt.setString(3, searchPattern);
-            stmt.setString(4, searchPattern);
+            if (ranked != null) {
+                stmt.setString(1, searchRankIds(ranked));
+            } else {
+                String searchPattern = "%" + searchText + "%";
+                stmt.setString(1, searchPattern);
+                stmt.setString(2, searchPattern);
+                stmt.setString(3, searchPattern);
+                stmt.setString(4, searchPattern);
+            }
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("SaleID"));                    // 0
-                    row.add(rs.getString("InvoiceNumber"));          // 1
-                    row.add(rs.getString("CustomerName"));           // 2
-                    row.add(rs.getString("VehicleInfo"));            // 3
-                    row.add(rs.getString("SaleDate"));               // 4
-                    row.add(rs.getBigDecimal("SalePrice"));          // 5
-                    row.add(rs.getBigDecimal("TaxAmount"));          // 6
-                    row.add(rs.getBigDecimal("TotalPrice"));         // 7
-                    row.add(rs.getString("SaleStatus"));             // 8
-                    row.add(rs.getInt("VehicleID"));                 // 9 (for internal use)
-                    orders.add(row);
+                    orders.add(PendingOrderRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -1766,6 +2093,7 @@ public class DBConnection {
 
             // Commit the transaction
             conn.commit();
+            InventoryIndex.changed();
             System.out.println("Order confirmed successfully. SaleID: " + saleId + ", EmployeeID: " + employeeId);
             return true;
 
@@ -1815,12 +2143,10 @@ public class DBConnection {
             s.TaxAmount,
             s.TotalPrice,
             s.SaleStatus,
-            s.EmployeeID,
-            CONCAT(e.FirstName, ' ', e.LastName) AS EmployeeName
+            s.EmployeeID
         FROM Sales s
         JOIN Customers c ON s.CustomerID = c.CustomerID
         JOIN Vehicles v ON s.VehicleID = v.VehicleID
-        LEFT JOIN Employees e ON s.EmployeeID = e.EmployeeID
         WHERE s.SaleID = ?
     """;
 
@@ -1831,6 +2157,7 @@ public class DBConnection {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
+                    Integer employeeId = rs.getObject("EmployeeID", Integer.class);
                     Vector<Object> orderDetails = new Vector<>();
                     orderDetails.add(rs.getInt("SaleID"));                   // 0
                     orderDetails.add(rs.getString("InvoiceNumber"));         // 1
@@ -1846,8 +2173,9 @@ public class DBConnection {
                     orderDetails.add(rs.getBigDecimal("TaxAmount"));         // 11
                     orderDetails.add(rs.getBigDecimal("TotalPrice"));        // 12
                     orderDetails.add(rs.getString("SaleStatus"));            // 13
-                    orderDetails.add(rs.getObject("EmployeeID"));            // 14 (can be null)
-                    orderDetails.add(rs.getString("EmployeeName"));          // 15 (can be null)
+                    orderDetails.add(employeeId);                            // 14 (can be null)
+                    orderDetails.add(employeeId != null                      // 15 (can be null)
+                            ? ReferenceData.getInstance().name(conn, ReferenceData.Table.EMPLOYEES, employeeId) : null);
                     return orderDetails;
                 }
             }
@@ -1890,10 +2218,10 @@ public class DBConnection {
      * Get orders confirmed by a specific employee
      * @param employeeId The employee ID
      * @param limit Maximum number of records to return (0 for no limit)
-     * @return List of Vector objects containing order details
+     * @return List of order rows
      */
-    public static List<Vector<Object>> getOrdersByEmployee(int employeeId, int limit) {
-        List<Vector<Object>> orders = new ArrayList<>();
+    public static List<PendingOrderRow> getOrdersByEmployee(int employeeId, int limit) {
+        List<PendingOrderRow> orders = new ArrayList<>();
 
         // Build the query with proper SQL Server syntax for limiting results
         String query = """
@@ -1906,7 +2234,8 @@ public class DBConnection {
             s.SalePrice,
             s.TaxAmount,
             s.TotalPrice,
-            s.SaleStatus
+            s.SaleStatus,
+            v.VehicleID
         FROM Sales s
         JOIN Customers c ON s.CustomerID = c.CustomerID
         JOIN Vehicles v ON s.VehicleID = v.VehicleID
@@ -1926,17 +2255,7 @@ public class DBConnection {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("SaleID"));                    // 0
-                    row.add(rs.getString("InvoiceNumber"));          // 1
-                    row.add(rs.getString("CustomerName"));           // 2
-                    row.add(rs.getString("VehicleInfo"));            // 3
-                    row.add(rs.getString("SaleDate"));               // 4
-                    row.add(rs.getBigDecimal("SalePrice"));          // 5
-                    row.add(rs.getBigDecimal("TaxAmount"));          // 6
-                    row.add(rs.getBigDecimal("TotalPrice"));         // 7
-                    row.add(rs.getString("SaleStatus"));             // 8
-                    orders.add(row);
+                    orders.add(PendingOrderRow.from(rs));
                 }
             }
         } catch (SQLException e) {
@@ -2008,6 +2327,7 @@ public class DBConnection {
             }
 
             conn.commit();
+            InventoryIndex.changed();
             System.out.println("Order cancelled successfully. SaleID: " + saleId + ". Reason: " + reason);
             return true;
 
@@ -2035,6 +2355,15 @@ public class DBConnection {
 
     }
 //    ----------------------------------customer orders------------------------------------------------------------
+    // Columns the customer orders table may be sorted by, and the SQL each one orders by
+    private static final Map<String, String> CUSTOMER_ORDER_SORTS = Map.of(
+            "SaleID", "s.SaleID",
+            "InvoiceNumber", "s.InvoiceNumber",
+            "Make", "v.Make",
+            "SaleDate", "s.SaleDate",
+            "TotalPrice", "s.TotalPrice",
+            "SaleStatus", "s.SaleStatus");
+
     /**
      * Retrieves all orders for a specific customer from the database.
      * @param customerID The ID of the customer whose orders are to be retrieved.
@@ -2042,6 +2371,35 @@ public class DBConnection {
      * @throws SQLException If a database error occurs.
      */
     public static List<Object[]> getOrdersFromDatabase(int customerID) throws SQLException {
+        return getOrdersFromDatabase(customerID, null, null, false);
+    }
+
+    /**
+     * Retrieves a customer's orders filtered and sorted on the server.
+     * @param status     only orders with this SaleStatus, or null for all
+     * @param sortColumn SaleID, InvoiceNumber, Make, SaleDate, TotalPrice or
+     *                   SaleStatus, or null for pending first, then completed,
+     *                   newest first
+     * @throws IllegalArgumentException for any other sortColumn
+     */
+    public static List<Object[]> getOrdersFromDatabase(int customerID, String status, String sortColumn, boolean descending) throws SQLException {
+        String orderBy;
+        if (sortColumn == null) {
+            orderBy = """
+            CASE
+                WHEN s.SaleStatus = 'Pending' THEN 1
+                WHEN s.SaleStatus = 'Completed' THEN 2
+                ELSE 3
+            END,
+            s.SaleDate DESC""";
+        } else {
+            String expression = CUSTOMER_ORDER_SORTS.get(sortColumn);
+            if (expression == null) {
+                throw new IllegalArgumentException("Customer orders cannot be sorted by " + sortColumn);
+            }
+            String direction = descending ? " DESC" : " ASC";
+            orderBy = expression + direction + ", s.SaleID" + direction;
+        }
         List<Object[]> orders = new ArrayList<>();
         String query = """
         SELECT 
@@ -2061,18 +2419,14 @@ public class DBConnection {
         INNER JOIN Vehicles v ON s.VehicleID = v.VehicleID 
         LEFT JOIN Employees e ON s.EmployeeID = e.EmployeeID 
         WHERE s.CustomerID = ? 
-        ORDER BY 
-            CASE 
-                WHEN s.SaleStatus = 'Pending' THEN 1 
-                WHEN s.SaleStatus = 'Completed' THEN 2 
-                ELSE 3 
-            END, 
-            s.SaleDate DESC
-    """;
+    """ + (status != null ? "AND s.SaleStatus = ? " : "") + "ORDER BY " + orderBy;
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setInt(1, customerID);
+            if (status != null) {
+                stmt.setString(2, status);
+            }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     Object[] row = new Object[12];
@@ -2098,6 +2452,30 @@ public class DBConnection {
         }
         return orders;
     }
+
+    /**
+     * Order counts by status and total value for one customer, served by idx_sales_customer.
+     */
+    public static CustomerOrderSummary getCustomerOrderSummary(int customerID) throws SQLException {
+        String query = """
+        SELECT
+            COUNT(*) AS TotalOrders,
+            SUM(CASE WHEN SaleStatus = 'Pending' THEN 1 ELSE 0 END) AS PendingOrders,
+            SUM(CASE WHEN SaleStatus = 'Completed' THEN 1 ELSE 0 END) AS CompletedOrders,
+            SUM(CASE WHEN SaleStatus = 'Cancelled' THEN 1 ELSE 0 END) AS CancelledOrders,
+            COALESCE(SUM(TotalPrice), 0) AS TotalValue
+        FROM Sales
+        WHERE CustomerID = ?
+    """;
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, customerID);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return CustomerOrderSummary.from(rs);
+            }
+        }
+    }
     public static String getEmployeeIdByUsername(String username) {
         String query = "SELECT E.EmployeeID FROM Employees E JOIN Users u ON E.UserID = u.UserID WHERE u.Username = ?";
         try (Connection conn = getConnection();
@@ -2114,4 +2492,770 @@ public class DBConnection {
         }
         return null;
     }
+
+//    ----------------------------------service department------------------------------------------------------------
+    private static final String SERVICE_COLUMNS =
+            "sd.ServiceID, sd.VehicleID, sd.CustomerID, sd.TechnicianID, sd.ServiceType, sd.ServiceDate, sd.DurationMinutes, " +
+            "sd.Description, sd.Cost, sd.Status";
+
+    /**
+     * Service records newest first, read a page at a time. The text matches
+     * the service type or description, or any of the record's IDs when it is
+     * a number. status "All" and a null from or to leave that filter off; the
+     * date range is served by idx_service_dates. Sortable by ServiceID and
+     * ServiceDate.
+     */
+    public static PagedQuery<ServiceRow> pageServices(String searchText, String status, LocalDateTime from, LocalDateTime to) {
+        PagedQuery.Builder<ServiceRow> query = PagedQuery.builder("services", SERVICE_COLUMNS,
+                "ServiceDepartment sd", ServiceRow::from);
+        if (searchText != null && !searchText.trim().isEmpty()) {
+            String text = searchText.trim();
+            String searchPattern = "%" + text + "%";
+            if (text.matches("\\d{1,9}")) {
+                int id = Integer.parseInt(text);
+                query.where("sd.ServiceType LIKE ? OR sd.Description LIKE ? OR sd.ServiceID = ? OR sd.VehicleID = ? OR sd.CustomerID = ? OR sd.TechnicianID = ?",
+                        searchPattern, searchPattern, id, id, id, id);
+            } else {
+                query.where("sd.ServiceType LIKE ? OR sd.Description LIKE ?", searchPattern, searchPattern);
+            }
+        }
+        if (status != null && !status.equalsIgnoreCase("All")) {
+            query.where("sd.Status = ?", status);
+        }
+        if (from != null) {
+            query.where("sd.ServiceDate >= ?", Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            query.where("sd.ServiceDate < ?", Timestamp.valueOf(to));
+        }
+        return query.orderBy("sd.ServiceDate", "ServiceDate", true, "CAST(? AS DATETIME)")
+                .orderBy("sd.ServiceID", "ServiceID", true)
+                .sortable("ServiceID", "sd.ServiceID", "ServiceID")
+                .sortable("ServiceDate", "sd.ServiceDate", "ServiceDate", "CAST(? AS DATETIME)")
+                .build();
+    }
+
+    /**
+     * Every service booked in [from, to), earliest first, optionally for one
+     * technician only.
+     */
+    public static List<ServiceRow> getServicesBetween(LocalDateTime from, LocalDateTime to, Integer technicianId) throws SQLException {
+        List<ServiceRow> services = new ArrayList<>();
+        String sql = "SELECT " + SERVICE_COLUMNS + " FROM ServiceDepartment sd WHERE sd.ServiceDate >= ? AND sd.ServiceDate < ?" +
+                (technicianId != null ? " AND sd.TechnicianID = ?" : "") +
+                " ORDER BY sd.ServiceDate, sd.ServiceID";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            if (technicianId != null) {
+                stmt.setInt(3, technicianId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    services.add(ServiceRow.from(rs));
+                }
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Services booked to a technician (or to this one, when technicianId is
+     * not null) whose time overlaps [from, to), for schedule checks outside
+     * the window TechnicianSchedule keeps in memory.
+     */
+    public static List<ServiceRow> getServicesOverlapping(LocalDateTime from, LocalDateTime to, Integer technicianId) throws SQLException {
+        List<ServiceRow> services = new ArrayList<>();
+        String sql = "SELECT " + SERVICE_COLUMNS + " FROM ServiceDepartment sd WHERE sd.TechnicianID IS NOT NULL" +
+                " AND sd.ServiceDate < ? AND DATEADD(MINUTE, sd.DurationMinutes, sd.ServiceDate) > ?" +
+                (technicianId != null ? " AND sd.TechnicianID = ?" : "") +
+                " ORDER BY sd.ServiceDate, sd.ServiceID";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(to));
+            stmt.setTimestamp(2, Timestamp.valueOf(from));
+            if (technicianId != null) {
+                stmt.setInt(3, technicianId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    services.add(ServiceRow.from(rs));
+                }
+            }
+        }
+        return services;
+    }
+
+    public static ServiceRow getServiceById(int serviceId) throws SQLException {
+        String sql = "SELECT " + SERVICE_COLUMNS + " FROM ServiceDepartment sd WHERE sd.ServiceID = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, serviceId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? ServiceRow.from(rs) : null;
+            }
+        }
+    }
+
+    public static boolean addService(Integer vehicleId, Integer customerId, Integer technicianId, String serviceType,
+                                     LocalDateTime serviceDate, int durationMinutes, String description, BigDecimal cost, String status) {
+        String sql = "INSERT INTO ServiceDepartment (VehicleID, CustomerID, TechnicianID, ServiceType, ServiceDate, DurationMinutes, Description, Cost, Status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bindService(stmt, vehicleId, customerId, technicianId, serviceType, serviceDate, durationMinutes, description, cost, status);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    TechnicianSchedule.getInstance().booked(new ServiceRow(keys.getInt(1), vehicleId, customerId, technicianId,
+                            serviceType, Timestamp.valueOf(serviceDate), durationMinutes, description, cost, status));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error adding service: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public static boolean updateService(int serviceId, Integer vehicleId, Integer customerId, Integer technicianId, String serviceType,
+                                        LocalDateTime serviceDate, int durationMinutes, String description, BigDecimal cost, String status) {
+        String sql = "UPDATE ServiceDepartment SET VehicleID = ?, CustomerID = ?, TechnicianID = ?, ServiceType = ?, ServiceDate = ?, " +
+                "DurationMinutes = ?, Description = ?, Cost = ?, Status = ? WHERE ServiceID = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindService(stmt, vehicleId, customerId, technicianId, serviceType, serviceDate, durationMinutes, description, cost, status);
+            stmt.setInt(10, serviceId);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            TechnicianSchedule.getInstance().booked(new ServiceRow(serviceId, vehicleId, customerId, technicianId,
+                    serviceType, Timestamp.valueOf(serviceDate), durationMinutes, description, cost, status));
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error updating service: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public static boolean deleteService(int serviceId) {
+        String sql = "DELETE FROM ServiceDepartment WHERE ServiceID = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, serviceId);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            TechnicianSchedule.getInstance().cancelled(serviceId);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error deleting service: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static void bindService(PreparedStatement stmt, Integer vehicleId, Integer customerId, Integer technicianId, String serviceType,
+                                    LocalDateTime serviceDate, int durationMinutes, String description, BigDecimal cost,
+                                    String status) throws SQLException {
+        setNullableInt(stmt, 1, vehicleId);
+        setNullableInt(stmt, 2, customerId);
+        setNullableInt(stmt, 3, technicianId);
+        stmt.setString(4, serviceType);
+        stmt.setTimestamp(5, Timestamp.valueOf(serviceDate));
+        stmt.setInt(6, durationMinutes);
+        stmt.setString(7, description);
+        stmt.setBigDecimal(8, cost);
+        stmt.setString(9, status);
+    }
+
+    private static void setNullableInt(PreparedStatement stmt, int index, Integer value) throws SQLException {
+        if (value != null) {
+            stmt.setInt(index, value);
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Jobs per technician with a service booked in [from, to), busiest first.
+     * Technicians with no jobs in the range are not listed.
+     */
+    public static List<TechnicianWorkload> getTechnicianWorkload(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<TechnicianWorkload> workload = new ArrayList<>();
+        String sql = """
+        SELECT
+            e.EmployeeID AS TechnicianID,
+            CONCAT(e.FirstName, ' ', e.LastName) AS Technician,
+            SUM(CASE WHEN sd.Status = 'Scheduled' THEN 1 ELSE 0 END) AS Scheduled,
+            SUM(CASE WHEN sd.Status = 'In Progress' THEN 1 ELSE 0 END) AS InProgress,
+            SUM(CASE WHEN sd.Status = 'Completed' THEN 1 ELSE 0 END) AS Completed,
+            COALESCE(SUM(sd.Cost), 0) AS Billed
+        FROM ServiceDepartment sd
+        JOIN Employees e ON sd.TechnicianID = e.EmployeeID
+        WHERE sd.ServiceDate >= ? AND sd.ServiceDate < ?
+        GROUP BY e.EmployeeID, e.FirstName, e.LastName
+        ORDER BY COUNT(*) DESC, e.EmployeeID
+    """;
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    workload.add(TechnicianWorkload.from(rs));
+                }
+            }
+        }
+        return workload;
+    }
+
+    /**
+     * Employees whose position is Technician, by ID, with their full names.
+     */
+    public static Map<Integer, String> getTechnicians() throws SQLException {
+        Map<Integer, String> technicians = new LinkedHashMap<>();
+        String sql = "SELECT EmployeeID, CONCAT(FirstName, ' ', LastName) AS Name FROM Employees WHERE Position = 'Technician' ORDER BY EmployeeID";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                technicians.put(rs.getInt("EmployeeID"), rs.getString("Name"));
+            }
+        }
+        return technicians;
+    }
+
+    /**
+     * Books the planned technician and start time onto each service in one
+     * transaction. A service that was given a technician by someone else in
+     * the meantime is left alone and missing from the result.
+     * @return the assignments that were applied
+     */
+    public static List<TechnicianSchedule.Assignment> assignTechnicians(List<TechnicianSchedule.Assignment> assignments) throws SQLException {
+        List<TechnicianSchedule.Assignment> applied = new ArrayList<>();
+        if (assignments.isEmpty()) {
+            return applied;
+        }
+        String sql = "UPDATE ServiceDepartment SET TechnicianID = ?, ServiceDate = ? WHERE ServiceID = ? AND TechnicianID IS NULL";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (TechnicianSchedule.Assignment assignment : assignments) {
+                    stmt.setInt(1, assignment.technicianId());
+                    stmt.setTimestamp(2, Timestamp.valueOf(assignment.start()));
+                    stmt.setInt(3, assignment.serviceId());
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                conn.commit();
+                for (int i = 0; i < counts.length; i++) {
+                    // SUCCESS_NO_INFO (-2) is only reported when the driver cannot tell; treat it as applied
+                    if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                        applied.add(assignments.get(i));
+                    }
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        TechnicianSchedule schedule = TechnicianSchedule.getInstance();
+        for (TechnicianSchedule.Assignment assignment : applied) {
+            schedule.assigned(assignment);
+        }
+        return applied;
+    }
+
+//    ----------------------------------test drives------------------------------------------------------------
+    private static final String TEST_DRIVE_COLUMNS =
+            "td.TestDriveID, td.CustomerID, CONCAT(c.FirstName, ' ', c.LastName) AS Customer, " +
+            "td.VehicleID, CONCAT(v.Make, ' ', v.Model, ' (', v.Year, ')') AS Vehicle, " +
+            "td.EmployeeID, CONCAT(e.FirstName, ' ', e.LastName) AS Employee, td.StartTime, td.EndTime";
+    private static final String TEST_DRIVE_JOINS =
+            " JOIN Customers c ON td.CustomerID = c.CustomerID" +
+            " JOIN Vehicles v ON td.VehicleID = v.VehicleID" +
+            " JOIN Employees e ON td.EmployeeID = e.EmployeeID";
+
+    /**
+     * Test drives overlapping [from, to), earliest first. Served by
+     * idx_test_drives_start: no test drive is longer than
+     * TestDriveCalendar.MAX_MINUTES, which bounds the range scanned.
+     */
+    public static List<TestDriveRow> getTestDrivesBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<TestDriveRow> testDrives = new ArrayList<>();
+        String sql = "SELECT " + TEST_DRIVE_COLUMNS + " FROM TestDrives td" + TEST_DRIVE_JOINS +
+                " WHERE td.StartTime >= ? AND td.StartTime < ? AND td.EndTime > ? ORDER BY td.StartTime, td.TestDriveID";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from.minusMinutes(TestDriveCalendar.MAX_MINUTES)));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            stmt.setTimestamp(3, Timestamp.valueOf(from));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    testDrives.add(TestDriveRow.from(rs));
+                }
+            }
+        }
+        return testDrives;
+    }
+
+    /**
+     * Checks that the vehicle, salesperson and customer are all free for
+     * [start, end) and inserts the test drive, in one round trip and one
+     * transaction. The overlap check reads with UPDLOCK, HOLDLOCK, which
+     * holds range locks on the three resources' index ranges until commit,
+     * so a second booking for any of them waits and then sees this one.
+     * Callers go through TestDriveCalendar.book, which validates the times.
+     */
+    static TestDriveBooking bookTestDrive(int customerId, int vehicleId, int employeeId, LocalDateTime start, LocalDateTime end) {
+        String sql = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @CustomerID INT = ?, @VehicleID INT = ?, @EmployeeID INT = ?;
+        DECLARE @Start DATETIME = ?, @End DATETIME = ?, @Earliest DATETIME = ?;
+        DECLARE @Clashes TABLE (TestDriveID INT PRIMARY KEY);
+        BEGIN TRANSACTION;
+        INSERT INTO @Clashes (TestDriveID)
+        SELECT TestDriveID FROM TestDrives WITH (UPDLOCK, HOLDLOCK)
+        WHERE VehicleID = @VehicleID AND StartTime >= @Earliest AND StartTime < @End AND EndTime > @Start
+        UNION
+        SELECT TestDriveID FROM TestDrives WITH (UPDLOCK, HOLDLOCK)
+        WHERE EmployeeID = @EmployeeID AND StartTime >= @Earliest AND StartTime < @End AND EndTime > @Start
+        UNION
+        SELECT TestDriveID FROM TestDrives WITH (UPDLOCK, HOLDLOCK)
+        WHERE CustomerID = @CustomerID AND StartTime >= @Earliest AND StartTime < @End AND EndTime > @Start;
+        IF EXISTS (SELECT 1 FROM @Clashes)
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SELECT CAST(0 AS BIT) AS Booked, %1$s FROM TestDrives td%2$s
+            WHERE td.TestDriveID IN (SELECT TestDriveID FROM @Clashes) ORDER BY td.StartTime;
+            RETURN;
+        END
+        INSERT INTO TestDrives (CustomerID, VehicleID, EmployeeID, StartTime, EndTime)
+        VALUES (@CustomerID, @VehicleID, @EmployeeID, @Start, @End);
+        DECLARE @TestDriveID INT = CAST(SCOPE_IDENTITY() AS INT);
+        COMMIT TRANSACTION;
+        SELECT CAST(1 AS BIT) AS Booked, %1$s FROM TestDrives td%2$s WHERE td.TestDriveID = @TestDriveID;
+        """.formatted(TEST_DRIVE_COLUMNS, TEST_DRIVE_JOINS);
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, customerId);
+            stmt.setInt(2, vehicleId);
+            stmt.setInt(3, employeeId);
+            stmt.setTimestamp(4, Timestamp.valueOf(start));
+            stmt.setTimestamp(5, Timestamp.valueOf(end));
+            stmt.setTimestamp(6, Timestamp.valueOf(start.minusMinutes(TestDriveCalendar.MAX_MINUTES)));
+            List<TestDriveBooking.Clash> clashes = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    TestDriveRow testDrive = TestDriveRow.from(rs);
+                    if (rs.getBoolean("Booked")) {
+                        return TestDriveBooking.booked(testDrive);
+                    }
+                    if (testDrive.vehicleId() == vehicleId) {
+                        clashes.add(new TestDriveBooking.Clash(TestDriveBooking.Resource.VEHICLE, testDrive));
+                    }
+                    if (testDrive.employeeId() == employeeId) {
+                        clashes.add(new TestDriveBooking.Clash(TestDriveBooking.Resource.SALESPERSON, testDrive));
+                    }
+                    if (testDrive.customerId() == customerId) {
+                        clashes.add(new TestDriveBooking.Clash(TestDriveBooking.Resource.CUSTOMER, testDrive));
+                    }
+                }
+            }
+            return clashes.isEmpty() ? TestDriveBooking.failed("Test drive was not saved") : TestDriveBooking.conflict(clashes);
+        } catch (SQLException e) {
+            System.err.println("Error booking test drive for vehicle " + vehicleId + ": " + e.getMessage());
+            return TestDriveBooking.failed(e.getMessage());
+        }
+    }
+
+    static boolean cancelTestDrive(int testDriveId) {
+        String sql = "DELETE FROM TestDrives WHERE TestDriveID = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, testDriveId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error cancelling test drive: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+//    ----------------------------------sales analytics------------------------------------------------------------
+    /**
+     * Adds to changed every sale inserted or updated after sinceVersion, with
+     * what SalesAnalytics groups it by. Works like getVehiclesChangedSince.
+     * @return the row version to pass on the next call
+     */
+    static long getSalesChangedSince(long sinceVersion, List<SaleFact> changed) throws SQLException {
+        String sql = """
+        SELECT
+            s.SaleID, s.SaleDate, s.SaleStatus,
+            s.EmployeeID, CONCAT(e.FirstName, ' ', e.LastName) AS Employee,
+            s.CustomerID, CONCAT(c.FirstName, ' ', c.LastName) AS Customer,
+            v.CategoryID, vc.CategoryName, v.Make,
+            s.SalePrice, s.TaxAmount, s.TotalPrice, v.ListPrice, v.PurchasePrice
+        FROM Sales s
+        JOIN Vehicles v ON s.VehicleID = v.VehicleID
+        JOIN Customers c ON s.CustomerID = c.CustomerID
+        LEFT JOIN Employees e ON s.EmployeeID = e.EmployeeID
+        LEFT JOIN VehicleCategories vc ON v.CategoryID = vc.CategoryID
+        WHERE s.RowVer > CAST(? AS BINARY(8)) AND s.RowVer < CAST(? AS BINARY(8))
+    """;
+        try (Connection conn = getConnection()) {
+            long ceiling = minActiveRowVersion(conn);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, sinceVersion);
+                stmt.setLong(2, ceiling);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        changed.add(SaleFact.from(rs));
+                    }
+                }
+            }
+            return ceiling - 1;
+        }
+    }
+
+    /**
+     * IDs of every sale, used to drop deleted sales from SalesAnalytics.
+     */
+    static List<Integer> getSaleIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT SaleID FROM Sales");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    static int countSales() throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM Sales");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+//    ----------------------------------vehicle import------------------------------------------------------------
+    /**
+     * Every category name with its ID, for VehicleImport.
+     */
+    static Map<String, Integer> getCategoryIds() throws SQLException {
+        return ReferenceData.getInstance().ids(ReferenceData.Table.CATEGORIES);
+    }
+
+    /**
+     * Every supplier's ID and name, lowest ID first.
+     */
+    public static Map<Integer, String> getSupplierNames() throws SQLException {
+        return ReferenceData.getInstance().names(ReferenceData.Table.SUPPLIERS);
+    }
+
+    /**
+     * Inserts the vehicles as one batch in one transaction, skipping any
+     * whose VIN is already in Vehicles. If the batch as a whole fails, for
+     * example because a CHECK constraint rejects one row, it is rolled back
+     * and the vehicles are inserted one at a time so only the bad rows are
+     * lost.
+     * @return for each vehicle, null if it was inserted or why it was not
+     */
+    static String[] insertImportedVehicles(List<ImportedVehicle> vehicles) throws SQLException {
+        String[] problems = new String[vehicles.size()];
+        if (vehicles.isEmpty()) {
+            return problems;
+        }
+        // The range lock on the VIN index keeps a concurrent insert of the same VIN from slipping in between
+        String sql = "INSERT INTO Vehicles (VIN, Make, Model, Year, Color, Mileage, Condition, PurchasePrice, ListPrice, Status, CategoryID, DateAcquired, Description, SupplierID) " +
+                "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, 'Available', ?, ?, ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM Vehicles WITH (UPDLOCK, HOLDLOCK) WHERE VIN = ?)";
+        String previous = InstrumentedStatement.nameOperation("importVehicles");
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (ImportedVehicle vehicle : vehicles) {
+                    bindImportedVehicle(stmt, vehicle);
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                conn.commit();
+                SearchIndex.added(SearchIndex.Kind.VEHICLE);
+                InventoryIndex.changed();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) problems[i] = "VIN is already in inventory";
+                }
+                return problems;
+            } catch (SQLException e) {
+                conn.rollback();
+            }
+
+            conn.setAutoCommit(true);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < vehicles.size(); i++) {
+                    try {
+                        bindImportedVehicle(stmt, vehicles.get(i));
+                        if (stmt.executeUpdate() == 0) problems[i] = "VIN is already in inventory";
+                    } catch (SQLException e) {
+                        problems[i] = "Rejected by the database: " + e.getMessage();
+                    }
+                }
+            }
+            SearchIndex.added(SearchIndex.Kind.VEHICLE);
+            InventoryIndex.changed();
+            return problems;
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+    }
+
+    private static void bindImportedVehicle(PreparedStatement stmt, ImportedVehicle vehicle) throws SQLException {
+        stmt.setString(1, vehicle.vin());
+        stmt.setString(2, vehicle.make());
+        stmt.setString(3, vehicle.model());
+        stmt.setInt(4, vehicle.year());
+        stmt.setString(5, vehicle.color());
+        stmt.setInt(6, vehicle.mileage());
+        stmt.setString(7, vehicle.condition());
+        stmt.setBigDecimal(8, vehicle.purchasePrice());
+        stmt.setBigDecimal(9, vehicle.listPrice());
+        stmt.setInt(10, vehicle.categoryId());
+        stmt.setObject(11, vehicle.dateAcquired());
+        stmt.setString(12, vehicle.description());
+        setNullableInt(stmt, 13, vehicle.supplierId());
+        stmt.setString(14, vehicle.vin());
+    }
+
+//    ----------------------------------VIN lookup------------------------------------------------------------
+    private static final String VEHICLE_COLUMNS =
+            "v.VehicleID, v.VIN, v.Make, v.Model, v.Year, v.Color, v.Mileage, v.Condition, v.PurchasePrice, v.ListPrice, v.Status, c.CategoryName";
+
+    /**
+     * The vehicle with exactly this VIN, found through the unique index on
+     * VIN, or null.
+     */
+    public static VehicleRow getVehicleByVin(String vin) throws SQLException {
+        String sql = "SELECT " + VEHICLE_COLUMNS + " FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID WHERE v.VIN = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, Vin.normalize(vin));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? VehicleRow.from(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Up to limit vehicles whose VIN starts with the typed text, then up to
+     * limit whose VIN ends with it, in VIN order, each list read with an
+     * index seek (the unique VIN index and idx_vehicles_vin_reversed). A
+     * vehicle matching both ways is listed once. The in-memory equivalent
+     * is InventoryIndex.vinStartingWith and vinEndingWith.
+     */
+    public static List<VehicleRow> findVehiclesByVin(String typed, int limit) throws SQLException {
+        String sql = "SELECT * FROM (" +
+                "SELECT TOP (?) " + VEHICLE_COLUMNS + ", 0 AS Direction FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID WHERE v.VIN LIKE ? ORDER BY v.VIN) prefix " +
+                "UNION ALL SELECT * FROM (" +
+                "SELECT TOP (?) " + VEHICLE_COLUMNS + ", 1 AS Direction FROM Vehicles v JOIN VehicleCategories c ON v.CategoryID = c.CategoryID WHERE v.VINReversed LIKE ? ORDER BY v.VINReversed) suffix " +
+                "ORDER BY Direction, VIN";
+        List<VehicleRow> vehicles = new ArrayList<>();
+        String previous = InstrumentedStatement.nameOperation("findVehiclesByVin");
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            stmt.setString(2, vinPrefixPattern(typed));
+            stmt.setInt(3, limit);
+            stmt.setString(4, vinSuffixPattern(typed));
+            try (ResultSet rs = stmt.executeQuery()) {
+                Set<Integer> seen = new HashSet<>();
+                while (rs.next()) {
+                    VehicleRow row = VehicleRow.from(rs);
+                    if (seen.add(row.vehicleId())) vehicles.add(row);
+                }
+            }
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+        return vehicles;
+    }
+
+    private static String vinPrefixPattern(String text) {
+        return escapeLike(Vin.normalize(text)) + "%";
+    }
+
+    private static String vinSuffixPattern(String text) {
+        return escapeLike(new StringBuilder(Vin.normalize(text)).reverse().toString()) + "%";
+    }
+
+    // LIKE treats %, _ and [ as wildcards; VINs never contain them, but typed text might
+    private static String escapeLike(String text) {
+        return text.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]");
+    }
+
+//    ----------------------------------search index------------------------------------------------------------
+    // Each kind's ID followed by its fields in the order SearchIndex.Kind lists them
+    private static String searchDocumentsSql(SearchIndex.Kind kind) {
+        switch (kind) {
+            case VEHICLE:
+                return "SELECT v.VehicleID, v.VIN, v.Make, v.Model, v.Year, v.Color, v.Description FROM Vehicles v";
+            case CUSTOMER:
+                return "SELECT c.CustomerID, c.FirstName, c.LastName, c.Email, c.Phone FROM Customers c";
+            default:
+                return "SELECT s.SaleID, s.InvoiceNumber, c.FirstName, c.LastName, v.Make, v.Model, v.VIN FROM Sales s " +
+                        "JOIN Customers c ON s.CustomerID = c.CustomerID JOIN Vehicles v ON s.VehicleID = v.VehicleID";
+        }
+    }
+
+    // The column holding the ID of a by row in kind's query: a sale's own ID, or its vehicle's or customer's
+    private static String searchKeyColumn(SearchIndex.Kind kind, SearchIndex.Kind by) {
+        if (kind != by && kind != SearchIndex.Kind.SALE) {
+            throw new IllegalArgumentException(kind + " documents cannot be found by " + by);
+        }
+        switch (by) {
+            case VEHICLE:
+                return kind == SearchIndex.Kind.SALE ? "s.VehicleID" : "v.VehicleID";
+            case CUSTOMER:
+                return kind == SearchIndex.Kind.SALE ? "s.CustomerID" : "c.CustomerID";
+            default:
+                return "s.SaleID";
+        }
+    }
+
+    /**
+     * Passes the searchable text of every vehicle, customer or sale with an ID
+     * above afterId to sink, for loading SearchIndex.
+     */
+    static void scanSearchDocuments(SearchIndex.Kind kind, int afterId, Consumer<SearchDocument> sink) throws SQLException {
+        String sql = searchDocumentsSql(kind) + " WHERE " + searchKeyColumn(kind, kind) + " > ?";
+        String previous = InstrumentedStatement.nameOperation("searchIndexLoad");
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(SearchDocument.from(rs));
+                }
+            }
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+    }
+
+    /**
+     * Passes to sink the searchable text of the rows of kind whose ID, or for
+     * sales whose vehicle or customer ID when by says so, is one of ids.
+     * Deleted rows are simply not passed.
+     */
+    static void scanSearchDocuments(SearchIndex.Kind kind, SearchIndex.Kind by, Collection<Integer> ids,
+                                    Consumer<SearchDocument> sink) throws SQLException {
+        List<Integer> keys = new ArrayList<>(ids);
+        String previous = InstrumentedStatement.nameOperation("searchIndexUpdate");
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < keys.size(); from += SEARCH_UPDATE_BATCH) {
+                List<Integer> batch = keys.subList(from, Math.min(keys.size(), from + SEARCH_UPDATE_BATCH));
+                // IDs are ints, so listing them inline is safe, and one statement serves a whole batch
+                StringBuilder sql = new StringBuilder(searchDocumentsSql(kind))
+                        .append(" WHERE ").append(searchKeyColumn(kind, by)).append(" IN (");
+                for (int i = 0; i < batch.size(); i++) {
+                    sql.append(i > 0 ? ", " : "").append(batch.get(i).intValue());
+                }
+                sql.append(')');
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString());
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(SearchDocument.from(rs));
+                    }
+                }
+            }
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+    }
+
+    private static final int SEARCH_UPDATE_BATCH = 1000;
+
+    /**
+     * The ranked IDs SearchIndex finds for searchText, or null when the text
+     * is blank or the index is not loaded yet and the caller should use SQL.
+     */
+    private static List<Integer> indexedSearch(SearchIndex.Kind kind, String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return null;
+        }
+        return SearchIndex.getInstance().search(kind, searchText);
+    }
+
+    /**
+     * Search results as a derived table r(SearchRank, ID) to join on, ranked
+     * from 0. The IDs are bound as one JSON array, see searchRankIds, so every
+     * search runs the same statement text and reuses one cached plan.
+     */
+    private static final String SEARCH_RANKS =
+            "(SELECT CAST(j.[key] AS INT) AS SearchRank, CAST(j.value AS INT) AS ID FROM OPENJSON(?) j) r";
+
+    /**
+     * SEARCH_RANKS for vehicles, followed by the vehicles whose VIN starts or
+     * ends with the search text (VIN_MATCH), which the index cannot find by
+     * their last characters. Those rank after every index match, by
+     * VehicleID. Takes the JSON array, then the VIN prefix and suffix patterns.
+     */
+    private static final String VEHICLE_SEARCH_RANKS = """
+            (SELECT MIN(m.SearchRank) AS SearchRank, m.ID FROM (
+                SELECT CAST(j.[key] AS BIGINT) AS SearchRank, CAST(j.value AS INT) AS ID FROM OPENJSON(?) j
+                UNION ALL
+                SELECT CAST(2147483648 AS BIGINT) + vin.VehicleID, vin.VehicleID FROM Vehicles vin
+                WHERE vin.VIN LIKE ? OR vin.VINReversed LIKE ?
+            ) m GROUP BY m.ID) r""";
+
+    // The ranked IDs as the JSON array SEARCH_RANKS reads, e.g. [12,5,9]
+    private static String searchRankIds(List<Integer> ids) {
+        StringBuilder json = new StringBuilder(ids.size() * 8 + 2).append('[');
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(ids.get(i).intValue());
+        }
+        return json.append(']').toString();
+    }
+
+//    ----------------------------------reference data------------------------------------------------------------
+    /**
+     * Every ID and name in a ReferenceData table, lowest ID first, read on
+     * conn or, when it is null, on a connection of its own.
+     */
+    static Map<Integer, String> readReferenceNames(Connection conn, ReferenceData.Table table) throws SQLException {
+        String sql;
+        switch (table) {
+            case CATEGORIES:
+                sql = "SELECT CategoryID, CategoryName FROM VehicleCategories ORDER BY CategoryID";
+                break;
+            case SUPPLIERS:
+                sql = "SELECT SupplierID, SupplierName FROM Suppliers ORDER BY SupplierID";
+                break;
+            default:
+                sql = "SELECT EmployeeID, CONCAT(FirstName, ' ', LastName) FROM Employees ORDER BY EmployeeID";
+        }
+        if (conn == null) {
+            try (Connection own = getConnection()) {
+                return readReferenceNames(own, table);
+            }
+        }
+        Map<Integer, String> names = new LinkedHashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return names;
+    }
 }
\ No newline at end of file
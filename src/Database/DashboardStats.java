@@ -0,0 +1,31 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Counters shown on the staff dashboard, read in one query by
+ * {@link DBConnection#getDashboardStats()}. Revenue is the total price of
+ * completed sales; open services are those not yet Completed.
+ */
+public record DashboardStats(int totalVehicles, int availableVehicles, int onHoldVehicles, int soldVehicles,
+                             int totalSales, int pendingSales, int completedSales, BigDecimal revenue,
+                             int totalCustomers, int totalServices, int openServices) {
+
+    static DashboardStats from(ResultSet rs) throws SQLException {
+        return new DashboardStats(
+                rs.getInt("TotalVehicles"),
+                rs.getInt("AvailableVehicles"),
+                rs.getInt("OnHoldVehicles"),
+                rs.getInt("SoldVehicles"),
+                rs.getInt("TotalSales"),
+                rs.getInt("PendingSales"),
+                rs.getInt("CompletedSales"),
+                rs.getBigDecimal("Revenue"),
+                rs.getInt("TotalCustomers"),
+                rs.getInt("TotalServices"),
+                rs.getInt("OpenServices")
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One employee joined with their login. Salary is null when not set.
+ */
+public record EmployeeRow(int employeeId, String firstName, String lastName, String email, String phone,
+                          String position, Date hireDate, BigDecimal salary, String username) {
+
+    static EmployeeRow from(ResultSet rs) throws SQLException {
+        return new EmployeeRow(
+                rs.getInt("EmployeeID"),
+                rs.getString("FirstName"),
+                rs.getString("LastName"),
+                rs.getString("Email"),
+                rs.getString("Phone"),
+                rs.getString("Position"),
+                rs.getDate("HireDate"),
+                rs.getBigDecimal("Salary"),
+                rs.getString("Username")
+        );
+    }
+}
@@ -0,0 +1,14 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A feed record that passed validation, with its category and supplier
+ * resolved to IDs, ready for {@link DBConnection#insertImportedVehicles}.
+ * position is where it came from in the feed, for error reports.
+ */
+record ImportedVehicle(int position, String vin, String make, String model, int year, String color, int mileage,
+                       String condition, BigDecimal purchasePrice, BigDecimal listPrice, int categoryId,
+                       Integer supplierId, LocalDate dateAcquired, String description) {
+}
@@ -0,0 +1,250 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Statement proxy the pool hands out so every execution is reported to
+ * {@link QueryMetrics} and as a {@link QueryEvent}. The operation name is
+ * taken once, when the statement is created, from the first caller outside
+ * the pool: DBConnection methods by name, anything else as Class.method,
+ * unless the caller has named the operation with {@link #nameOperation}.
+ */
+final class InstrumentedStatement implements InvocationHandler {
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final ThreadLocal<String> OPERATION = new ThreadLocal<>();
+
+    private final Statement target;
+    private final String operation;
+    private final String sql;
+    private Execution open;
+
+    private InstrumentedStatement(Statement target, String operation, String sql) {
+        this.target = target;
+        this.operation = operation;
+        this.sql = sql;
+    }
+
+    /**
+     * @param type the Statement interface the caller asked for
+     * @param sql  the prepared SQL, or null for a plain Statement
+     */
+    static Statement wrap(Statement statement, Class<?> type, String sql) {
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new InstrumentedStatement(statement, callerName(), sql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "close":
+                finishOpen();
+                return forward(method, args);
+            case "getResultSet": {
+                Object result = forward(method, args);
+                return open != null && result instanceof ResultSet ? open.track((ResultSet) result) : result;
+            }
+            default:
+                if (!name.startsWith("execute")) {
+                    return forward(method, args);
+                }
+                finishOpen();
+                String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                Execution execution = new Execution(operation, text);
+                Object result;
+                try {
+                    result = forward(method, args);
+                } catch (Throwable e) {
+                    execution.finish(true);
+                    throw e;
+                }
+                if (result instanceof ResultSet) {
+                    open = execution;
+                    return execution.track((ResultSet) result);
+                }
+                if (Boolean.TRUE.equals(result)) {
+                    // execute() produced a result set; timing ends when it has been read
+                    open = execution;
+                    return result;
+                }
+                execution.rows = updatedRows(result, name);
+                execution.finish(false);
+                return result;
+        }
+    }
+
+    private Object forward(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void finishOpen() {
+        if (open != null) {
+            open.finish(false);
+            open = null;
+        }
+    }
+
+    private long updatedRows(Object result, String methodName) throws SQLException {
+        if (result instanceof Integer || result instanceof Long) {
+            return Math.max(0, ((Number) result).longValue());
+        }
+        if (result instanceof int[]) {
+            long total = 0;
+            for (int count : (int[]) result) total += Math.max(0, count);
+            return total;
+        }
+        if (result instanceof long[]) {
+            long total = 0;
+            for (long count : (long[]) result) total += Math.max(0, count);
+            return total;
+        }
+        return "execute".equals(methodName) ? Math.max(0, target.getUpdateCount()) : 0;
+    }
+
+    /**
+     * Reports statements created on this thread under the given name instead
+     * of the calling method, for shared code such as PagedQuery that runs on
+     * behalf of several screens.
+     * @return the previous name, to restore when done (null for none)
+     */
+    static String nameOperation(String operation) {
+        String previous = OPERATION.get();
+        if (operation == null) {
+            OPERATION.remove();
+        } else {
+            OPERATION.set(operation);
+        }
+        return previous;
+    }
+
+    private static String callerName() {
+        String named = OPERATION.get();
+        if (named != null) return named;
+        return WALKER.walk(frames -> frames
+                .filter(frame -> !isInfrastructure(frame.getClassName()))
+                .findFirst()
+                .map(frame -> describe(frame.getClassName(), frame.getMethodName()))
+                .orElse("unknown"));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.")
+                || className.startsWith("com.sun.proxy.")
+                || className.startsWith("Database.ConnectionPool")
+                || className.startsWith("Database.StatementCache")
+                || className.startsWith("Database.InstrumentedStatement")
+                || className.startsWith("Database.QueryCancellation");
+    }
+
+    private static String describe(String className, String methodName) {
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        int inner = simple.indexOf('$');
+        if (inner >= 0) simple = simple.substring(0, inner);
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', 7);
+            methodName = end > 7 ? methodName.substring(7, end) : methodName;
+        }
+        return "DBConnection".equals(simple) ? methodName : simple + "." + methodName;
+    }
+
+    /**
+     * One execute call and the reading of its results.
+     */
+    private static final class Execution {
+        private final String operation;
+        private final String sql;
+        private final long started = System.nanoTime();
+        private final QueryEvent event = new QueryEvent();
+        private long rows;
+        private long bytes;
+        private boolean finished;
+
+        Execution(String operation, String sql) {
+            this.operation = operation;
+            this.sql = sql;
+            event.begin();
+        }
+
+        ResultSet track(ResultSet rs) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        switch (name) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "close":
+                                finish(false);
+                                break;
+                            default:
+                                break;
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(rs, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if ("next".equals(name)) {
+                            if ((Boolean) result) {
+                                rows++;
+                            } else {
+                                finish(false);
+                            }
+                        } else if (name.startsWith("get") && args != null && args.length > 0) {
+                            bytes += estimateBytes(result);
+                        }
+                        return result;
+                    });
+        }
+
+        void finish(boolean failed) {
+            if (finished) return;
+            finished = true;
+            long elapsed = System.nanoTime() - started;
+            QueryMetrics.record(operation, sql, elapsed, rows, bytes, failed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.sql = sql;
+                event.rows = rows;
+                event.bytes = bytes;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+
+        // Roughly what SQL Server sends for the column types this schema uses
+        private static long estimateBytes(Object value) {
+            if (value == null) return 0;
+            if (value instanceof String) return ((String) value).length();
+            if (value instanceof byte[]) return ((byte[]) value).length;
+            if (value instanceof BigDecimal) return 9;
+            if (value instanceof Integer || value instanceof Float) return 4;
+            if (value instanceof java.sql.Date) return 3;
+            if (value instanceof Boolean || value instanceof Byte) return 1;
+            if (value instanceof Short) return 2;
+            return 8;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package Database;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Bookings of one resource (a technician, a vehicle, ...) ordered by start
+ * time, with a count of each booking length so the longest is known after
+ * removals too. Any booking overlapping [from, to) must start in
+ * [from - longest, to), so an overlap query is a single range scan,
+ * O(log n + k) like an interval tree.
+ *
+ * Not thread-safe; owners guard it with their own lock.
+ */
+final class IntervalCalendar<T extends IntervalCalendar.Interval> {
+    /**
+     * A booking holding its resource for [start, end). id must be unique
+     * within a calendar.
+     */
+    interface Interval {
+        int id();
+
+        LocalDateTime start();
+
+        LocalDateTime end();
+    }
+
+    private record Key(LocalDateTime start, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+    }
+
+    private final TreeMap<Key, T> bookings = new TreeMap<>();
+    private final TreeMap<Long, Integer> lengths = new TreeMap<>();
+
+    void add(T booking) {
+        if (bookings.put(key(booking), booking) == null) {
+            lengths.merge(minutes(booking), 1, Integer::sum);
+        }
+    }
+
+    void remove(T booking) {
+        if (bookings.remove(key(booking)) != null) {
+            lengths.computeIfPresent(minutes(booking), (length, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    void clear() {
+        bookings.clear();
+        lengths.clear();
+    }
+
+    boolean isEmpty() {
+        return bookings.isEmpty();
+    }
+
+    int size() {
+        return bookings.size();
+    }
+
+    /**
+     * Bookings overlapping [from, to), earliest start first.
+     */
+    List<T> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<T> result = new ArrayList<>();
+        if (bookings.isEmpty() || !from.isBefore(to)) return result;
+        LocalDateTime earliest = from.minusMinutes(lengths.lastKey());
+        // Integer.MIN_VALUE sorts the bounds before every real booking starting at the same time
+        for (T booking : bookings.subMap(new Key(earliest, Integer.MIN_VALUE), true, new Key(to, Integer.MIN_VALUE), false).values()) {
+            if (booking.start().isBefore(to) && from.isBefore(booking.end())) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    private static Key key(Interval booking) {
+        return new Key(booking.start(), booking.id());
+    }
+
+    // Rounded up, so the longest-length bound never falls short by a partial minute
+    private static long minutes(Interval booking) {
+        Duration length = Duration.between(booking.start(), booking.end());
+        long minutes = length.toMinutes();
+        return length.equals(Duration.ofMinutes(minutes)) ? minutes : minutes + 1;
+    }
+}
@@ -0,0 +1,466 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory snapshot of the vehicle inventory with secondary indexes on
+ * status, category, make/model prefix, year and list price, so browsing
+ * filters are answered without scanning Vehicles. VINs are held in two
+ * {@link VinTrie}s, one of them reversed, for exact, prefix and
+ * last-characters lookups.
+ *
+ * Callers refresh() before each browse. Within MIN_REFRESH_MILLIS of the
+ * last refresh it returns without a round trip, unless a vehicle was written
+ * through DBConnection since; otherwise it only pulls rows whose RowVer
+ * changed, so this client's reservations and new stock show up at once and
+ * other clients' within a couple of seconds. Vehicles deleted through
+ * DBConnection are dropped straight away; deletes made elsewhere are found by
+ * comparing row counts, at most every PRUNE_MILLIS. Renaming a category does
+ * not touch Vehicles.RowVer and is only seen after a restart.
+ */
+public final class InventoryIndex {
+    private static final long MIN_REFRESH_MILLIS = 2000;
+    private static final long PRUNE_MILLIS = 60_000;
+    private static volatile InventoryIndex instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, VehicleRow> byId = new HashMap<>();
+    private final Map<String, Set<Integer>> byStatus = new HashMap<>();
+    private final Map<String, Set<Integer>> byCategory = new HashMap<>();
+    private final NavigableMap<String, Set<Integer>> byPrefix = new TreeMap<>();
+    private final NavigableMap<Integer, Set<Integer>> byYear = new TreeMap<>();
+    private final NavigableMap<BigDecimal, Set<Integer>> byPrice = new TreeMap<>();
+    private final VinTrie vins = new VinTrie();
+    private final VinTrie reversedVins = new VinTrie();
+    private long version;
+    private boolean loaded;
+    private volatile boolean stale;
+    private volatile long refreshedAt;
+    private volatile long prunedAt;
+
+    public static InventoryIndex getInstance() {
+        if (instance == null) {
+            synchronized (InventoryIndex.class) {
+                if (instance == null) {
+                    instance = new InventoryIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Records that vehicles were inserted or updated, so the next refresh()
+     * reads the changes however recent the last one was.
+     */
+    static void changed() {
+        InventoryIndex index = instance;
+        if (index != null) {
+            index.stale = true;
+        }
+    }
+
+    /**
+     * Records that the vehicle was deleted and drops it from the snapshot.
+     */
+    static void removed(int vehicleId) {
+        InventoryIndex index = instance;
+        if (index != null) {
+            index.lock.writeLock().lock();
+            try {
+                VehicleRow row = index.byId.remove(vehicleId);
+                if (row != null) index.unindex(row);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Brings the snapshot up to date with the database. The first call loads
+     * the whole inventory; later calls only fetch what changed, and none at
+     * all within MIN_REFRESH_MILLIS of the last one unless a vehicle was
+     * written through DBConnection since.
+     */
+    public void refresh() throws SQLException {
+        long now = System.currentTimeMillis();
+        long since;
+        lock.readLock().lock();
+        try {
+            if (loaded && !stale && now - refreshedAt < MIN_REFRESH_MILLIS) return;
+            since = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Cleared before reading, so a write that lands during the read is picked up next time
+        stale = false;
+
+        List<VehicleRow> changed = new ArrayList<>();
+        long newVersion = DBConnection.getVehiclesChangedSince(since, changed);
+
+        lock.writeLock().lock();
+        try {
+            if (version != since) return; // another refresh got here first
+            if (loaded) {
+                for (VehicleRow row : changed) {
+                    put(row);
+                }
+            } else {
+                load(changed);
+            }
+            version = newVersion;
+            loaded = true;
+            refreshedAt = now;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (now - prunedAt >= PRUNE_MILLIS) {
+            prunedAt = now;
+            if (DBConnection.countVehicles() != size()) {
+                pruneDeleted(DBConnection.getVehicleIds());
+            }
+        }
+    }
+
+    /**
+     * Loads the snapshot if nothing has been loaded yet.
+     */
+    public void ensureLoaded() throws SQLException {
+        if (!isLoaded()) {
+            refresh();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public VehicleRow get(int vehicleId) {
+        lock.readLock().lock();
+        try {
+            return byId.get(vehicleId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct category names currently in the snapshot, sorted.
+     */
+    public List<String> getCategories() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(new TreeSet<>(byCategory.keySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The vehicle with this VIN, ignoring case, or null.
+     */
+    public VehicleRow getByVin(String vin) {
+        lock.readLock().lock();
+        try {
+            int id = vins.get(Vin.normalize(vin));
+            return id < 0 ? null : byId.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit vehicles whose VIN starts with prefix, in VIN order.
+     */
+    public List<VehicleRow> vinStartingWith(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return rows(vins.withPrefix(Vin.normalize(prefix), limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit vehicles whose VIN ends with suffix, for example the last
+     * six or eight characters read off a windshield.
+     */
+    public List<VehicleRow> vinEndingWith(String suffix, int limit) {
+        lock.readLock().lock();
+        try {
+            String normalized = Vin.normalize(suffix);
+            return rows(reversedVins.withPrefix(normalized == null ? null : reverse(normalized), limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Combined facet filter. Unset facets match everything; results are
+     * ordered by VehicleID.
+     */
+    public final class Query {
+        private String status;
+        private String category;
+        private String prefix;
+        private Integer minYear;
+        private Integer maxYear;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+
+        private Query() {
+        }
+
+        public Query status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public Query category(String category) {
+            this.category = category;
+            return this;
+        }
+
+        /**
+         * Matches the start of the make, the model, any word of the model, or
+         * "make model" as typed, ignoring case.
+         */
+        public Query prefix(String prefix) {
+            this.prefix = prefix == null || prefix.isBlank() ? null : normalize(prefix);
+            return this;
+        }
+
+        public Query years(Integer minYear, Integer maxYear) {
+            this.minYear = minYear;
+            this.maxYear = maxYear;
+            return this;
+        }
+
+        public Query listPrice(BigDecimal minPrice, BigDecimal maxPrice) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            return this;
+        }
+
+        public List<VehicleRow> run() {
+            lock.readLock().lock();
+            try {
+                Collection<Integer> candidates = narrowest();
+                List<VehicleRow> result = new ArrayList<>();
+                for (Integer id : candidates) {
+                    VehicleRow row = byId.get(id);
+                    if (matches(row)) {
+                        result.add(row);
+                    }
+                }
+                result.sort((a, b) -> Integer.compare(a.vehicleId(), b.vehicleId()));
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Start from the smallest posting list available, then check every facet per row
+        private Collection<Integer> narrowest() {
+            Collection<Integer> best = null;
+            if (status != null) best = smaller(best, byStatus.getOrDefault(status, Collections.emptySet()));
+            if (category != null) best = smaller(best, byCategory.getOrDefault(category, Collections.emptySet()));
+            if (prefix != null) best = smaller(best, union(byPrefix.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()));
+            // Range facets need a union over many keys, so only use them when nothing exact is set
+            if (best == null && (minYear != null || maxYear != null)) {
+                best = union(range(byYear, minYear, maxYear).values());
+            }
+            if (best == null && (minPrice != null || maxPrice != null)) {
+                best = union(range(byPrice, minPrice, maxPrice).values());
+            }
+            return best == null ? byId.keySet() : best;
+        }
+
+        private boolean matches(VehicleRow row) {
+            if (status != null && !status.equals(row.status())) return false;
+            if (category != null && !category.equals(row.categoryName())) return false;
+            if (minYear != null && row.year() < minYear) return false;
+            if (maxYear != null && row.year() > maxYear) return false;
+            if (minPrice != null && (row.listPrice() == null || row.listPrice().compareTo(minPrice) < 0)) return false;
+            if (maxPrice != null && (row.listPrice() == null || row.listPrice().compareTo(maxPrice) > 0)) return false;
+            if (prefix != null) {
+                for (String key : prefixKeys(row)) {
+                    if (key.startsWith(prefix)) return true;
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void put(VehicleRow row) {
+        index(row);
+        String vin = Vin.normalize(row.vin());
+        if (VinTrie.accepts(vin)) {
+            vins.put(vin, row.vehicleId());
+            reversedVins.put(reverse(vin), row.vehicleId());
+        }
+    }
+
+    // The first load fills the VIN tries in one pass each instead of key by key
+    private void load(List<VehicleRow> rows) {
+        List<String> keys = new ArrayList<>(rows.size());
+        List<String> reversedKeys = new ArrayList<>(rows.size());
+        int[] ids = new int[rows.size()];
+        for (VehicleRow row : rows) {
+            index(row);
+            String vin = Vin.normalize(row.vin());
+            if (VinTrie.accepts(vin)) {
+                ids[keys.size()] = row.vehicleId();
+                keys.add(vin);
+                reversedKeys.add(reverse(vin));
+            }
+        }
+        vins.putAll(keys, ids);
+        reversedVins.putAll(reversedKeys, ids);
+    }
+
+    // Every index but the VIN tries
+    private void index(VehicleRow row) {
+        VehicleRow old = byId.put(row.vehicleId(), row);
+        if (old != null) {
+            unindex(old);
+        }
+        int id = row.vehicleId();
+        add(byStatus, row.status(), id);
+        add(byCategory, row.categoryName(), id);
+        for (String key : prefixKeys(row)) {
+            add(byPrefix, key, id);
+        }
+        add(byYear, row.year(), id);
+        add(byPrice, row.listPrice(), id);
+    }
+
+    private void pruneDeleted(List<Integer> liveIds) {
+        Set<Integer> live = new HashSet<>(liveIds);
+        lock.writeLock().lock();
+        try {
+            List<Integer> deleted = new ArrayList<>();
+            for (Integer id : byId.keySet()) {
+                if (!live.contains(id)) deleted.add(id);
+            }
+            for (Integer id : deleted) {
+                unindex(byId.remove(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(VehicleRow row) {
+        int id = row.vehicleId();
+        remove(byStatus, row.status(), id);
+        remove(byCategory, row.categoryName(), id);
+        for (String key : prefixKeys(row)) {
+            remove(byPrefix, key, id);
+        }
+        remove(byYear, row.year(), id);
+        remove(byPrice, row.listPrice(), id);
+        String vin = Vin.normalize(row.vin());
+        if (vin != null) {
+            vins.remove(vin, id);
+            reversedVins.remove(reverse(vin), id);
+        }
+    }
+
+    private List<VehicleRow> rows(List<VinTrie.Match> matches) {
+        List<VehicleRow> rows = new ArrayList<>(matches.size());
+        for (VinTrie.Match match : matches) {
+            VehicleRow row = byId.get(match.id());
+            if (row != null) rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String reverse(String text) {
+        return new StringBuilder(text).reverse().toString();
+    }
+
+    private static Set<String> prefixKeys(VehicleRow row) {
+        Set<String> keys = new HashSet<>();
+        String make = normalize(row.make());
+        String model = normalize(row.model());
+        keys.add(make);
+        keys.add(model);
+        keys.add(make + " " + model);
+        for (String word : model.split(" ")) {
+            if (!word.isEmpty()) keys.add(word);
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static <K> void add(Map<K, Set<Integer>> index, K key, int id) {
+        if (key == null) return;
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+    }
+
+    private static <K> void remove(Map<K, Set<Integer>> index, K key, int id) {
+        if (key == null) return;
+        Set<Integer> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static <K> NavigableMap<K, Set<Integer>> range(NavigableMap<K, Set<Integer>> index, K min, K max) {
+        if (min != null && max != null) return index.subMap(min, true, max, true);
+        if (min != null) return index.tailMap(min, true);
+        return index.headMap(max, true);
+    }
+
+    private static Set<Integer> union(Collection<Set<Integer>> postings) {
+        if (postings.size() == 1) return postings.iterator().next();
+        Set<Integer> ids = new HashSet<>();
+        for (Set<Integer> posting : postings) {
+            ids.addAll(posting);
+        }
+        return ids;
+    }
+
+    private static Collection<Integer> smaller(Collection<Integer> a, Collection<Integer> b) {
+        return a == null || b.size() < a.size() ? b : a;
+    }
+}
@@ -0,0 +1,104 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Hands out invoice numbers like INV250524-1234 from the InvoiceSeq sequence.
+ * Numbers are reserved from the server in blocks with sp_sequence_get_range and
+ * then handed out locally, so most calls never touch the database and two
+ * clients can never produce the same number. A block is lost if the
+ * application exits before using it up, which leaves gaps but no collisions.
+ */
+public final class InvoiceSequence {
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private static volatile InvoiceSequence instance;
+
+    private final int blockSize;
+    private final RangeSource source;
+    private long next;
+    private long last = -1;
+    private long prefixDay = Long.MIN_VALUE;
+    private String prefix;
+
+    /**
+     * Reserves count consecutive values and returns the first one.
+     */
+    public interface RangeSource {
+        long reserve(int count) throws SQLException;
+    }
+
+    /**
+     * Reserves from dbo.InvoiceSeq on the server.
+     */
+    public static final RangeSource SERVER = InvoiceSequence::reserveFromServer;
+
+    /**
+     * A sequence with its own block cache, as a separate client would have.
+     * The application uses getInstance(); this is for load tests.
+     */
+    public InvoiceSequence(int blockSize, RangeSource source) {
+        this.blockSize = blockSize;
+        this.source = source;
+    }
+
+    public static InvoiceSequence getInstance() {
+        if (instance == null) {
+            synchronized (InvoiceSequence.class) {
+                if (instance == null) {
+                    instance = new InvoiceSequence(DEFAULT_BLOCK_SIZE, SERVER);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public synchronized String next() throws SQLException {
+        if (next > last) {
+            next = source.reserve(blockSize);
+            last = next + blockSize - 1;
+        }
+        return format(next++, LocalDate.now());
+    }
+
+    private String format(long number, LocalDate today) {
+        long day = today.toEpochDay();
+        if (day != prefixDay) {
+            StringBuilder sb = new StringBuilder(10).append("INV");
+            appendTwoDigits(sb, today.getYear() % 100);
+            appendTwoDigits(sb, today.getMonthValue());
+            appendTwoDigits(sb, today.getDayOfMonth());
+            prefix = sb.append('-').toString();
+            prefixDay = day;
+        }
+        // INV + yyMMdd + '-' + up to 10 digits still fits InvoiceNumber VARCHAR(20)
+        return new StringBuilder(20).append(prefix).append(number).toString();
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static long reserveFromServer(int count) throws SQLException {
+        String sql = """
+        SET NOCOUNT ON;
+        DECLARE @First SQL_VARIANT;
+        EXEC sp_sequence_get_range @sequence_name = N'dbo.InvoiceSeq', @range_size = ?, @range_first_value = @First OUTPUT;
+        SELECT CAST(@First AS BIGINT) AS FirstValue;
+        """;
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, count);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("sp_sequence_get_range returned no value for InvoiceSeq");
+                }
+                return rs.getLong("FirstValue");
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package Database;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size log-linear histogram of nanosecond latencies, in the style of
+ * HdrHistogram: every power of two is split into 32 linear sub-buckets, so a
+ * percentile read back is within about 3% of the recorded value whether the
+ * query took 50 microseconds or 50 seconds. Recording is lock-free.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * HALF + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    long maxNanos() {
+        return max.get();
+    }
+
+    double meanNanos() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Smallest recorded bucket value that at least the given fraction of
+     * samples fall at or below, e.g. 0.99 for p99.
+     */
+    long percentileNanos(double fraction) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / HALF - 1;
+        long subBucket = index - (long) shift * HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
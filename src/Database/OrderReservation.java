@@ -0,0 +1,27 @@
+package Database;
+
+/**
+ * Outcome of {@link DBConnection#reserveAndPlaceOrder}. ALREADY_TAKEN means the
+ * vehicle was no longer Available when the reservation ran; FAILED means the
+ * database rejected the order and nothing was changed.
+ */
+public record OrderReservation(Outcome outcome, int saleId, String error) {
+
+    public enum Outcome { PLACED, ALREADY_TAKEN, FAILED }
+
+    static OrderReservation placed(int saleId) {
+        return new OrderReservation(Outcome.PLACED, saleId, null);
+    }
+
+    static OrderReservation alreadyTaken() {
+        return new OrderReservation(Outcome.ALREADY_TAKEN, 0, null);
+    }
+
+    static OrderReservation failed(String error) {
+        return new OrderReservation(Outcome.FAILED, 0, error);
+    }
+
+    public boolean isPlaced() {
+        return outcome == Outcome.PLACED;
+    }
+}
@@ -0,0 +1,338 @@
+package Database;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A listing query that is read one window at a time instead of all at once.
+ * Rows come back in a fixed order whose last key is unique (the primary key
+ * is always the final tiebreaker), so the window after a known row is fetched
+ * by keyset, "WHERE (SaleDate, SaleID) &lt; (?, ?)", which SQL Server answers
+ * with an index seek however deep the user has scrolled. Jumping to a window
+ * whose predecessor is not known falls back to OFFSET.
+ *
+ * A query can be re-sorted with {@link #sortedBy(String, boolean)}, but only
+ * by the columns its listing method whitelisted. Each of those maps to keys
+ * an index can return in order, and the primary key is appended as the
+ * final tiebreaker, so a re-sorted query pages by keyset just the same.
+ *
+ * Instances are immutable and built by the DBConnection listing methods, for
+ * example {@link DBConnection#pageSales(String, String)}.
+ */
+public final class PagedQuery<T> {
+    // Rows the driver buffers per round trip while a whole query is scanned
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final String name;
+    private final String columns;
+    private final String from;
+    private final List<String> conditions;
+    private final List<Object> params;
+    private final RowReader<T> reader;
+    private final List<SortKey> order;
+    private final Map<String, List<SortKey>> sortable;
+
+    /**
+     * A window of rows and the sort key of its last row, to pass as the
+     * starting point of the window after it. lastKey is null for an empty page.
+     */
+    public record Page<T>(List<T> rows, Object[] lastKey) {
+    }
+
+    interface RowReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    interface ResultSetReader {
+        /**
+         * @return true if every row was read, false if the reader stopped early
+         */
+        boolean read(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * One ORDER BY term: the SQL expression, the label it is read back by
+     * from the select list, and how the key value is bound when comparing.
+     */
+    record SortKey(String expression, String label, boolean descending, String placeholder) {
+    }
+
+    private PagedQuery(Builder<T> builder) {
+        this.name = builder.name;
+        this.columns = builder.columns;
+        this.from = builder.from;
+        this.conditions = List.copyOf(builder.conditions);
+        List<Object> params = new ArrayList<>(builder.fromParams);
+        params.addAll(builder.params);
+        this.params = Collections.unmodifiableList(params);
+        this.reader = builder.reader;
+        this.order = List.copyOf(builder.order);
+        Map<String, List<SortKey>> columns = new LinkedHashMap<>();
+        builder.sortable.forEach((column, keys) -> columns.put(column, List.copyOf(keys)));
+        this.sortable = Collections.unmodifiableMap(columns);
+    }
+
+    private PagedQuery(PagedQuery<T> query, List<SortKey> order) {
+        this.name = query.name;
+        this.columns = query.columns;
+        this.from = query.from;
+        this.conditions = query.conditions;
+        this.params = query.params;
+        this.reader = query.reader;
+        this.order = order;
+        this.sortable = query.sortable;
+    }
+
+    static <T> Builder<T> builder(String name, String columns, String from, RowReader<T> reader) {
+        return new Builder<>(name, columns, from, reader);
+    }
+
+    public boolean canSortBy(String column) {
+        return sortable.containsKey(column);
+    }
+
+    /**
+     * The same rows ordered by a whitelisted column, ties broken by the
+     * primary key in the same direction.
+     * @throws IllegalArgumentException if the column is not sortable
+     */
+    public PagedQuery<T> sortedBy(String column, boolean descending) {
+        List<SortKey> keys = sortable.get(column);
+        if (keys == null) {
+            throw new IllegalArgumentException(name + " cannot be sorted by " + column);
+        }
+        SortKey tiebreaker = order.get(order.size() - 1);
+        List<SortKey> sorted = new ArrayList<>();
+        for (SortKey key : keys) {
+            sorted.add(new SortKey(key.expression(), key.label(), descending, key.placeholder()));
+        }
+        if (!keys.get(keys.size() - 1).label().equals(tiebreaker.label())) {
+            sorted.add(new SortKey(tiebreaker.expression(), tiebreaker.label(), descending, tiebreaker.placeholder()));
+        }
+        return new PagedQuery<>(this, List.copyOf(sorted));
+    }
+
+    /**
+     * Number of rows the query matches, for sizing the table.
+     */
+    public int count() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + from + where(false);
+        String previous = InstrumentedStatement.nameOperation(name + "Count");
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bind(stmt, null);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+    }
+
+    /**
+     * Reads up to limit rows. With afterKey (the lastKey of the previous
+     * page) the window starts right after that row and offset is ignored;
+     * without it the first offset rows are skipped.
+     */
+    public Page<T> fetch(Object[] afterKey, int offset, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM ").append(from)
+                .append(where(afterKey != null))
+                .append(orderBy())
+                .append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+
+        List<T> rows = new ArrayList<>(limit);
+        Object[] lastKey = null;
+        String previous = InstrumentedStatement.nameOperation(name + "Page");
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = bind(stmt, afterKey);
+            stmt.setInt(index++, afterKey != null ? 0 : offset);
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(reader.read(rs));
+                    lastKey = readKey(rs); // isLast() is not available on forward-only result sets
+                }
+            }
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+        return new Page<>(rows, lastKey);
+    }
+
+    /**
+     * Runs the query for every row in order, without paging, and hands the
+     * forward-only result set to reader, which reads it to the end or stops
+     * early. Rows are fetched as reader consumes them, so memory use does not
+     * grow with the result. When reader stops early or fails, the statement
+     * is cancelled, so the rest of the result is not read off the wire.
+     */
+    void scan(ResultSetReader reader) throws SQLException, IOException {
+        String sql = "SELECT " + columns + " FROM " + from + where(false) + orderBy();
+        String previous = InstrumentedStatement.nameOperation(name + "Scan");
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bind(stmt, null);
+            stmt.setFetchSize(SCAN_FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+            boolean complete = false;
+            try {
+                complete = reader.read(rs);
+            } finally {
+                if (complete) {
+                    rs.close();
+                } else {
+                    // Closing a result set with rows left drains them all from the server first
+                    try {
+                        stmt.cancel();
+                        rs.close();
+                    } catch (SQLException e) {
+                        // The cancel itself ends the result; nothing left to report
+                    }
+                }
+            }
+        } finally {
+            InstrumentedStatement.nameOperation(previous);
+        }
+    }
+
+    private String orderBy() {
+        StringBuilder sql = new StringBuilder(" ORDER BY ");
+        for (int i = 0; i < order.size(); i++) {
+            SortKey key = order.get(i);
+            if (i > 0) sql.append(", ");
+            sql.append(key.expression()).append(key.descending() ? " DESC" : " ASC");
+        }
+        return sql.toString();
+    }
+
+    private String where(boolean afterKey) {
+        List<String> terms = new ArrayList<>(conditions);
+        if (afterKey) terms.add(keysetPredicate());
+        return terms.isEmpty() ? "" : " WHERE " + String.join(" AND ", terms);
+    }
+
+    // (k1 > ?) OR (k1 = ? AND k2 > ?) OR ..., with < for descending keys
+    private String keysetPredicate() {
+        StringBuilder predicate = new StringBuilder("(");
+        for (int i = 0; i < order.size(); i++) {
+            if (i > 0) predicate.append(" OR ");
+            predicate.append('(');
+            for (int j = 0; j < i; j++) {
+                SortKey equal = order.get(j);
+                predicate.append(equal.expression()).append(" = ").append(equal.placeholder()).append(" AND ");
+            }
+            SortKey key = order.get(i);
+            predicate.append(key.expression()).append(key.descending() ? " < " : " > ").append(key.placeholder()).append(')');
+        }
+        return predicate.append(')').toString();
+    }
+
+    private int bind(PreparedStatement stmt, Object[] afterKey) throws SQLException {
+        int index = 1;
+        for (Object param : params) {
+            stmt.setObject(index++, param);
+        }
+        if (afterKey != null) {
+            for (int i = 0; i < order.size(); i++) {
+                for (int j = 0; j <= i; j++) {
+                    stmt.setObject(index++, afterKey[j]);
+                }
+            }
+        }
+        return index;
+    }
+
+    private Object[] readKey(ResultSet rs) throws SQLException {
+        Object[] key = new Object[order.size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = rs.getObject(order.get(i).label());
+        }
+        return key;
+    }
+
+    static final class Builder<T> {
+        private final String name;
+        private final String columns;
+        private final String from;
+        private final RowReader<T> reader;
+        private final List<Object> fromParams = new ArrayList<>();
+        private final List<String> conditions = new ArrayList<>();
+        private final List<Object> params = new ArrayList<>();
+        private final List<SortKey> order = new ArrayList<>();
+        private final Map<String, List<SortKey>> sortable = new LinkedHashMap<>();
+
+        private Builder(String name, String columns, String from, RowReader<T> reader) {
+            this.name = name;
+            this.columns = columns;
+            this.from = from;
+            this.reader = reader;
+        }
+
+        /**
+         * Values for the ? placeholders in from, for example a derived table
+         * of search results; they are bound ahead of the conditions' values.
+         */
+        Builder<T> fromParams(Object... values) {
+            Collections.addAll(fromParams, values);
+            return this;
+        }
+
+        /**
+         * Adds a condition, ANDed with the others. Each ? takes the next value.
+         */
+        Builder<T> where(String condition, Object... values) {
+            conditions.add("(" + condition + ")");
+            Collections.addAll(params, values);
+            return this;
+        }
+
+        /**
+         * Adds a sort key. The last one added must be unique per row.
+         */
+        Builder<T> orderBy(String expression, String label, boolean descending) {
+            return orderBy(expression, label, descending, "?");
+        }
+
+        /**
+         * Adds a sort key whose value is bound through placeholder, e.g.
+         * "CAST(? AS DATETIME)": the driver sends timestamps as datetime2,
+         * which does not compare equal to the DATETIME value it was read from.
+         */
+        Builder<T> orderBy(String expression, String label, boolean descending, String placeholder) {
+            order.add(new SortKey(expression, label, descending, placeholder));
+            return this;
+        }
+
+        /**
+         * Whitelists a column for {@link PagedQuery#sortedBy}. Calling it
+         * again with the same column adds a secondary key, e.g. FirstName
+         * after LastName to follow a two-column index. Keys must not be
+         * nullable, or rows with nulls would be skipped when paging.
+         */
+        Builder<T> sortable(String column, String expression, String label) {
+            return sortable(column, expression, label, "?");
+        }
+
+        Builder<T> sortable(String column, String expression, String label, String placeholder) {
+            sortable.computeIfAbsent(column, c -> new ArrayList<>())
+                    .add(new SortKey(expression, label, false, placeholder));
+            return this;
+        }
+
+        PagedQuery<T> build() {
+            if (order.isEmpty()) {
+                throw new IllegalStateException(name + " needs at least one sort key");
+            }
+            return new PagedQuery<>(this);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One order in the order queues. SaleDate is preformatted by the query
+ * as yyyy-MM-dd HH:mm.
+ */
+public record PendingOrderRow(int saleId, String invoiceNumber, String customerName, String vehicleInfo,
+                              String saleDate, BigDecimal salePrice, BigDecimal taxAmount,
+                              BigDecimal totalPrice, String saleStatus, int vehicleId) {
+
+    static PendingOrderRow from(ResultSet rs) throws SQLException {
+        return new PendingOrderRow(
+                rs.getInt("SaleID"),
+                rs.getString("InvoiceNumber"),
+                rs.getString("CustomerName"),
+                rs.getString("VehicleInfo"),
+                rs.getString("SaleDate"),
+                rs.getBigDecimal("SalePrice"),
+                rs.getBigDecimal("TaxAmount"),
+                rs.getBigDecimal("TotalPrice"),
+                rs.getString("SaleStatus"),
+                rs.getInt("VehicleID")
+        );
+    }
+}
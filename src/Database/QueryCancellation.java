@@ -0,0 +1,62 @@
+package Database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets another thread abort the JDBC work of a background query. Code running
+ * inside {@link #run} has every statement it opens through the pool registered
+ * here, and {@link #cancel} asks the server to stop the one currently running.
+ */
+public final class QueryCancellation {
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean cancelled;
+    private volatile Statement statement;
+
+    public <T> T run(Callable<T> query) throws Exception {
+        QueryCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return query.call();
+        } finally {
+            statement = null;
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        Statement running = statement;
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                // Statement already finished or closed; nothing left to stop
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a statement opened on the calling thread with the active
+     * cancellation, if any. Fails fast when the query was already cancelled.
+     */
+    static void track(Statement opened) throws SQLException {
+        QueryCancellation current = CURRENT.get();
+        if (current == null) return;
+        if (current.cancelled) {
+            opened.close();
+            throw new SQLException("Query was cancelled");
+        }
+        current.statement = opened;
+    }
+}
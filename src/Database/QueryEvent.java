@@ -0,0 +1,36 @@
+package Database;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one JDBC execution, so a recording shows which
+ * screen's queries line up with a UI stall. Enabled with the usual JFR
+ * settings, e.g. -XX:StartFlightRecording; costs nothing when disabled.
+ */
+@Name("dealership.JdbcQuery")
+@Label("JDBC Query")
+@Category({"Dealership", "Database"})
+@Description("A statement executed through the connection pool, including reading its results")
+@StackTrace(false)
+final class QueryEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytes;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,115 @@
+package Database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation JDBC statistics collected by the connection pool. An
+ * operation is the data-access method that ran the statement, for example
+ * "searchVehicles" for DBConnection.searchVehicles, so the numbers map back
+ * to the screen that caused the load. Each execution is timed from execute
+ * until its result set is drained or closed, and counted with the rows it
+ * returned (or updated) and an estimate of the bytes read.
+ *
+ * Executions slower than db.slowQueryMillis (default 500, 0 turns the log
+ * off) are written to standard error.
+ */
+public final class QueryMetrics {
+    private static final long DEFAULT_SLOW_QUERY_MILLIS = 500;
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+
+    private static volatile long slowQueryNanos = DEFAULT_SLOW_QUERY_MILLIS * 1_000_000;
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Per-operation figures at the time of {@link #snapshot()}.
+     */
+    public record OperationStats(String operation, long executions, long failures, long rows, long bytes,
+                                 double totalMillis, double meanMillis, double p50Millis, double p90Millis,
+                                 double p99Millis, double maxMillis) {
+        @Override
+        public String toString() {
+            return String.format("%-28s n=%-7d fail=%-4d rows=%-9d bytes=%-11d total=%.0fms mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                    operation, executions, failures, rows, bytes, totalMillis, meanMillis, p50Millis, p90Millis, p99Millis, maxMillis);
+        }
+    }
+
+    /**
+     * All operations seen so far, busiest (by total time) first.
+     */
+    public static List<OperationStats> snapshot() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Operation operation : OPERATIONS.values()) {
+            stats.add(operation.stats());
+        }
+        stats.sort(Comparator.comparingDouble(OperationStats::totalMillis).reversed());
+        return stats;
+    }
+
+    public static void reset() {
+        OPERATIONS.clear();
+    }
+
+    public static void setSlowQueryThresholdMillis(long millis) {
+        slowQueryNanos = millis * 1_000_000;
+    }
+
+    static void configure(Properties props) {
+        String value = props.getProperty("db.slowQueryMillis");
+        if (value == null || value.trim().isEmpty()) return;
+        try {
+            setSlowQueryThresholdMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for db.slowQueryMillis: " + value + ", using " + slowQueryNanos / 1_000_000);
+        }
+    }
+
+    static void record(String operation, String sql, long nanos, long rows, long bytes, boolean failed) {
+        OPERATIONS.computeIfAbsent(operation, Operation::new).record(nanos, rows, bytes, failed);
+        long threshold = slowQueryNanos;
+        if (threshold > 0 && nanos >= threshold) {
+            System.err.printf("Slow query in %s: %.1f ms, %d rows, %d bytes: %s%n",
+                    operation, nanos / 1_000_000.0, rows, bytes, abbreviate(sql));
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) return "";
+        String flat = sql.trim().replaceAll("\\s+", " ");
+        return flat.length() <= 200 ? flat : flat.substring(0, 200) + "...";
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long rowCount, long byteCount, boolean failed) {
+            latency.record(nanos);
+            rows.add(rowCount);
+            bytes.add(byteCount);
+            if (failed) failures.increment();
+        }
+
+        OperationStats stats() {
+            long count = latency.count();
+            return new OperationStats(name, count, failures.sum(), rows.sum(), bytes.sum(),
+                    latency.meanNanos() * count / 1_000_000.0, latency.meanNanos() / 1_000_000.0,
+                    latency.percentileNanos(0.50) / 1_000_000.0, latency.percentileNanos(0.90) / 1_000_000.0,
+                    latency.percentileNanos(0.99) / 1_000_000.0, latency.maxNanos() / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process cache of the small lookup tables every form and listing
+ * resolves IDs against: vehicle categories, suppliers and employee names.
+ * Each table is read whole on first use and kept as an immutable snapshot,
+ * so lookups cost a map probe and callers may hold on to what they get.
+ *
+ * Writes made through DBConnection are written through: the snapshot is
+ * updated in place, or dropped when the new row's ID is not known, and the
+ * table's version is bumped. A load that started before a write is still
+ * returned to its caller but not kept, so it cannot put back what the write
+ * replaced. Writes made by other clients are picked up once a snapshot is
+ * MAX_AGE_MILLIS old, or after invalidateAll().
+ */
+public final class ReferenceData {
+    private static final long MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+    public enum Table {
+        CATEGORIES, SUPPLIERS, EMPLOYEES
+    }
+
+    /**
+     * One table's names by ID, lowest ID first, and IDs by name; where two
+     * rows share a name the lower ID wins.
+     */
+    private record Names(Map<Integer, String> byId, Map<String, Integer> byName, long loadedAt) {
+
+        static Names of(Map<Integer, String> byId, long loadedAt) {
+            Map<String, Integer> byName = new HashMap<>();
+            for (Map.Entry<Integer, String> entry : byId.entrySet()) {
+                byName.putIfAbsent(entry.getValue(), entry.getKey());
+            }
+            return new Names(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byName), loadedAt);
+        }
+
+        Names with(int id, String name) {
+            Map<Integer, String> copy = new LinkedHashMap<>(byId);
+            if (name == null) {
+                copy.remove(id);
+            } else {
+                copy.put(id, name);
+            }
+            return of(copy, loadedAt);
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() - loadedAt > MAX_AGE_MILLIS;
+        }
+    }
+
+    private static volatile ReferenceData instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Table, Names> cached = new EnumMap<>(Table.class);
+    private final Map<Table, Long> versions = new EnumMap<>(Table.class);
+
+    public static ReferenceData getInstance() {
+        if (instance == null) {
+            synchronized (ReferenceData.class) {
+                if (instance == null) {
+                    instance = new ReferenceData();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Every ID and name in the table, lowest ID first. Unmodifiable.
+     */
+    public Map<Integer, String> names(Table table) throws SQLException {
+        return snapshot(table, null).byId();
+    }
+
+    /**
+     * Every name in the table with its ID. Unmodifiable.
+     */
+    public Map<String, Integer> ids(Table table) throws SQLException {
+        return snapshot(table, null).byName();
+    }
+
+    /**
+     * The name of the row with this ID, or null.
+     */
+    public String name(Table table, int id) throws SQLException {
+        return snapshot(table, null).byId().get(id);
+    }
+
+    /**
+     * The ID of the row with this name, or null.
+     */
+    public Integer id(Table table, String name) throws SQLException {
+        return snapshot(table, null).byName().get(name);
+    }
+
+    // For DBConnection methods that already hold a connection, so a miss does not take a second one
+    String name(Connection conn, Table table, int id) throws SQLException {
+        return snapshot(table, conn).byId().get(id);
+    }
+
+    Integer id(Connection conn, Table table, String name) throws SQLException {
+        return snapshot(table, conn).byName().get(name);
+    }
+
+    /**
+     * Drops every snapshot, for code that writes the tables directly rather
+     * than through DBConnection.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            for (Table table : Table.values()) {
+                versions.merge(table, 1L, Long::sum);
+            }
+            cached.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that the row with this ID was inserted or renamed.
+     */
+    static void written(Table table, int id, String name) {
+        getInstance().update(table, id, name);
+    }
+
+    /**
+     * Records that the row with this ID was deleted.
+     */
+    static void removed(Table table, int id) {
+        getInstance().update(table, id, null);
+    }
+
+    /**
+     * Records that the table changed in a way the caller cannot describe,
+     * such as an insert whose ID it does not know.
+     */
+    static void invalidate(Table table) {
+        ReferenceData data = getInstance();
+        data.lock.writeLock().lock();
+        try {
+            data.versions.merge(table, 1L, Long::sum);
+            data.cached.remove(table);
+        } finally {
+            data.lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Table table, int id, String name) {
+        lock.writeLock().lock();
+        try {
+            versions.merge(table, 1L, Long::sum);
+            Names names = cached.get(table);
+            if (names != null) {
+                cached.put(table, names.with(id, name));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Names snapshot(Table table, Connection conn) throws SQLException {
+        long version;
+        lock.readLock().lock();
+        try {
+            Names names = cached.get(table);
+            if (names != null && !names.isStale()) {
+                return names;
+            }
+            version = versions.getOrDefault(table, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Names loaded = Names.of(DBConnection.readReferenceNames(conn, table), System.currentTimeMillis());
+        lock.writeLock().lock();
+        try {
+            if (versions.getOrDefault(table, 0L) == version) {
+                cached.put(table, loaded);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return loaded;
+    }
+}
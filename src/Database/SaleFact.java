@@ -0,0 +1,37 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * One sale with what SalesAnalytics groups and sums it by. The employee and
+ * category are null when the sale or vehicle has none; the prices of the
+ * vehicle are as they were when the sale last changed.
+ */
+record SaleFact(int saleId, LocalDate saleDate, String status, Integer employeeId, String employee,
+                int customerId, String customer, Integer categoryId, String category, String make,
+                BigDecimal salePrice, BigDecimal taxAmount, BigDecimal totalPrice,
+                BigDecimal listPrice, BigDecimal purchasePrice) {
+
+    static SaleFact from(ResultSet rs) throws SQLException {
+        return new SaleFact(
+                rs.getInt("SaleID"),
+                rs.getTimestamp("SaleDate").toLocalDateTime().toLocalDate(),
+                rs.getString("SaleStatus"),
+                rs.getObject("EmployeeID", Integer.class),
+                rs.getString("Employee"),
+                rs.getInt("CustomerID"),
+                rs.getString("Customer"),
+                rs.getObject("CategoryID", Integer.class),
+                rs.getString("CategoryName"),
+                rs.getString("Make"),
+                rs.getBigDecimal("SalePrice"),
+                rs.getBigDecimal("TaxAmount"),
+                rs.getBigDecimal("TotalPrice"),
+                rs.getBigDecimal("ListPrice"),
+                rs.getBigDecimal("PurchasePrice")
+        );
+    }
+}
@@ -0,0 +1,29 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * One sale with the vehicle, customer and employee names resolved for display.
+ */
+public record SaleRow(int saleId, String invoiceNumber, String vehicle, String customer, String employee,
+                      Timestamp saleDate, BigDecimal salePrice, BigDecimal taxAmount, BigDecimal totalPrice,
+                      String saleStatus) {
+
+    static SaleRow from(ResultSet rs) throws SQLException {
+        return new SaleRow(
+                rs.getInt("SaleID"),
+                rs.getString("InvoiceNumber"),
+                rs.getString("Vehicle"),
+                rs.getString("Customer"),
+                rs.getString("Employee"),
+                rs.getTimestamp("SaleDate"),
+                rs.getBigDecimal("SalePrice"),
+                rs.getBigDecimal("TaxAmount"),
+                rs.getBigDecimal("TotalPrice"),
+                rs.getString("SaleStatus")
+        );
+    }
+}
@@ -0,0 +1,313 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Daily, weekly and monthly totals of completed sales, overall and by
+ * employee, category, make and customer, held in memory so reports read one
+ * pre-summed bucket instead of scanning Sales.
+ *
+ * refresh() only pulls sales whose RowVer changed since the last call. The
+ * previous version of each changed sale is subtracted from its buckets and
+ * the new one added, so a sale moving from Pending to Completed, being
+ * repriced or being deleted updates the totals without recomputing them.
+ * Vehicle prices are taken when the sale last changed; repricing a vehicle
+ * afterwards does not touch Sales.RowVer and is not reflected.
+ */
+public final class SalesAnalytics {
+    private static final String COUNTED_STATUS = "Completed";
+
+    public enum Period {
+        DAY, WEEK, MONTH;
+
+        /**
+         * First day of the period containing day; weeks start on Monday.
+         */
+        public LocalDate start(LocalDate day) {
+            switch (this) {
+                case WEEK: return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH: return day.withDayOfMonth(1);
+                default: return day;
+            }
+        }
+
+        LocalDate next(LocalDate start) {
+            switch (this) {
+                case WEEK: return start.plusWeeks(1);
+                case MONTH: return start.plusMonths(1);
+                default: return start.plusDays(1);
+            }
+        }
+    }
+
+    /**
+     * What a rollup is grouped by. Keys are the employee, category or
+     * customer ID as text, the make as stored, or "" for TOTAL and for sales
+     * with no employee or category.
+     */
+    public enum Dimension { TOTAL, EMPLOYEE, CATEGORY, MAKE, CUSTOMER }
+
+    private record Bucket(Period period, Dimension dimension, LocalDate start) {
+    }
+
+    private static volatile SalesAnalytics instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, SaleFact> facts = new HashMap<>();
+    private final Map<Bucket, Map<String, Totals>> rollups = new HashMap<>();
+    private final Map<Dimension, Map<String, String>> labels = new EnumMap<>(Dimension.class);
+    private long version;
+    private boolean loaded;
+
+    public static SalesAnalytics getInstance() {
+        if (instance == null) {
+            synchronized (SalesAnalytics.class) {
+                if (instance == null) {
+                    instance = new SalesAnalytics();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Brings the totals up to date with the database. The first call reads
+     * every sale; later calls only fetch what changed.
+     */
+    public void refresh() throws SQLException {
+        long since;
+        lock.readLock().lock();
+        try {
+            since = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SaleFact> changed = new ArrayList<>();
+        long newVersion = DBConnection.getSalesChangedSince(since, changed);
+        int total = DBConnection.countSales();
+
+        lock.writeLock().lock();
+        try {
+            if (version != since) return; // another refresh got here first
+            for (SaleFact fact : changed) {
+                apply(fact.saleId(), fact);
+            }
+            version = newVersion;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (total != size()) {
+            pruneDeleted(DBConnection.getSaleIds());
+        }
+    }
+
+    /**
+     * Loads the totals if nothing has been loaded yet.
+     */
+    public void ensureLoaded() throws SQLException {
+        if (!isLoaded()) {
+            refresh();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of sales seen, of any status.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return facts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Totals for one key over the period containing day; all zero when
+     * nothing was sold.
+     */
+    public SalesRollup get(Period period, Dimension dimension, String key, LocalDate day) {
+        lock.readLock().lock();
+        try {
+            return rollup(new Bucket(period, dimension, period.start(day)), key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SalesRollup total(Period period, LocalDate day) {
+        return get(period, Dimension.TOTAL, "", day);
+    }
+
+    /**
+     * Every key with sales in the period containing day, highest total
+     * price first.
+     */
+    public List<SalesRollup> breakdown(Period period, Dimension dimension, LocalDate day) {
+        lock.readLock().lock();
+        try {
+            Bucket bucket = new Bucket(period, dimension, period.start(day));
+            List<SalesRollup> result = new ArrayList<>();
+            for (String key : rollups.getOrDefault(bucket, Collections.emptyMap()).keySet()) {
+                result.add(rollup(bucket, key));
+            }
+            result.sort((a, b) -> b.totalPrice().compareTo(a.totalPrice()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One rollup per period from the one containing from to the one
+     * containing to, oldest first, including periods with no sales.
+     */
+    public List<SalesRollup> series(Period period, Dimension dimension, String key, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<SalesRollup> result = new ArrayList<>();
+            LocalDate last = period.start(to);
+            for (LocalDate start = period.start(from); !start.isAfter(last); start = period.next(start)) {
+                result.add(rollup(new Bucket(period, dimension, start), key));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Replaces what the sale contributed before, if anything, with what it contributes now
+    private void apply(int saleId, SaleFact fact) {
+        SaleFact old = fact != null ? facts.put(saleId, fact) : facts.remove(saleId);
+        if (old != null && COUNTED_STATUS.equals(old.status())) {
+            add(old, -1);
+        }
+        if (fact != null && COUNTED_STATUS.equals(fact.status())) {
+            add(fact, 1);
+        }
+    }
+
+    private void add(SaleFact fact, int sign) {
+        for (Dimension dimension : Dimension.values()) {
+            String key = keyOf(fact, dimension);
+            if (sign > 0) {
+                labels.computeIfAbsent(dimension, d -> new HashMap<>()).put(key, labelOf(fact, dimension));
+            }
+            for (Period period : Period.values()) {
+                Bucket bucket = new Bucket(period, dimension, period.start(fact.saleDate()));
+                Map<String, Totals> keys = rollups.computeIfAbsent(bucket, b -> new HashMap<>());
+                Totals totals = keys.computeIfAbsent(key, k -> new Totals());
+                totals.add(fact, sign);
+                if (totals.sales == 0) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) rollups.remove(bucket);
+                }
+            }
+        }
+    }
+
+    private void pruneDeleted(List<Integer> liveIds) {
+        Set<Integer> live = new HashSet<>(liveIds);
+        lock.writeLock().lock();
+        try {
+            List<Integer> deleted = new ArrayList<>();
+            for (Integer id : facts.keySet()) {
+                if (!live.contains(id)) deleted.add(id);
+            }
+            for (Integer id : deleted) {
+                apply(id, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private SalesRollup rollup(Bucket bucket, String key) {
+        Totals totals = rollups.getOrDefault(bucket, Collections.emptyMap()).get(key);
+        String label = labels.getOrDefault(bucket.dimension(), Collections.emptyMap()).getOrDefault(key, key);
+        if (totals == null) {
+            return new SalesRollup(bucket.period(), bucket.start(), bucket.dimension(), key, label, 0,
+                    BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+        return new SalesRollup(bucket.period(), bucket.start(), bucket.dimension(), key, label, totals.sales,
+                totals.salePrice, totals.taxAmount, totals.totalPrice, totals.margin, totals.grossProfit);
+    }
+
+    private static String keyOf(SaleFact fact, Dimension dimension) {
+        switch (dimension) {
+            case EMPLOYEE: return fact.employeeId() != null ? String.valueOf(fact.employeeId()) : "";
+            case CATEGORY: return fact.categoryId() != null ? String.valueOf(fact.categoryId()) : "";
+            case MAKE: return fact.make() != null ? fact.make().trim() : "";
+            case CUSTOMER: return String.valueOf(fact.customerId());
+            default: return "";
+        }
+    }
+
+    private static String labelOf(SaleFact fact, Dimension dimension) {
+        switch (dimension) {
+            case EMPLOYEE: return fact.employeeId() != null ? fact.employee() : "Unassigned";
+            case CATEGORY: return fact.categoryId() != null ? fact.category() : "Uncategorized";
+            case MAKE: return fact.make() != null ? fact.make().trim() : "";
+            case CUSTOMER: return fact.customer();
+            default: return "All sales";
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    /**
+     * Running sums for one bucket and key. Amounts are exact, so subtracting
+     * a sale leaves the totals as if it had never been added.
+     */
+    private static final class Totals {
+        private int sales;
+        private BigDecimal salePrice = BigDecimal.ZERO;
+        private BigDecimal taxAmount = BigDecimal.ZERO;
+        private BigDecimal totalPrice = BigDecimal.ZERO;
+        private BigDecimal margin = BigDecimal.ZERO;
+        private BigDecimal grossProfit = BigDecimal.ZERO;
+
+        void add(SaleFact fact, int sign) {
+            BigDecimal purchasePrice = orZero(fact.purchasePrice());
+            sales += sign;
+            salePrice = salePrice.add(signed(fact.salePrice(), sign));
+            taxAmount = taxAmount.add(signed(fact.taxAmount(), sign));
+            totalPrice = totalPrice.add(signed(fact.totalPrice(), sign));
+            margin = margin.add(signed(orZero(fact.listPrice()).subtract(purchasePrice), sign));
+            grossProfit = grossProfit.add(signed(orZero(fact.salePrice()).subtract(purchasePrice), sign));
+        }
+
+        private static BigDecimal signed(BigDecimal value, int sign) {
+            BigDecimal amount = orZero(value);
+            return sign < 0 ? amount.negate() : amount;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Completed sales summed over one period for one employee, category, make or
+ * customer (or for all of them, under Dimension.TOTAL). margin is the list
+ * price less the purchase price of the vehicles sold; grossProfit is the sale
+ * price less the purchase price.
+ */
+public record SalesRollup(SalesAnalytics.Period period, LocalDate periodStart, SalesAnalytics.Dimension dimension,
+                          String key, String label, int sales, BigDecimal salePrice, BigDecimal taxAmount,
+                          BigDecimal totalPrice, BigDecimal margin, BigDecimal grossProfit) {
+}
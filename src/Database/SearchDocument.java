@@ -0,0 +1,23 @@
+package Database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The text SearchIndex keeps for one vehicle, customer or sale: its ID and
+ * the searchable columns in the order its {@link SearchIndex.Kind} lists
+ * them. Fields are null where the column is.
+ */
+record SearchDocument(int id, String[] fields) {
+
+    // The ID comes first; every column after it is a field
+    static SearchDocument from(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        String[] fields = new String[meta.getColumnCount() - 1];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = rs.getString(i + 2);
+        }
+        return new SearchDocument(rs.getInt(1), fields);
+    }
+}
@@ -0,0 +1,496 @@
+package Database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the text people search by: make, model, VIN
+ * and description of vehicles; names, email and phone of customers; invoice
+ * number, customer name and vehicle of sales. Every word of a search must
+ * match a word of the document exactly, as the start of a longer word, or
+ * with one typo (a letter missing, extra, wrong or swapped), and results are
+ * ranked BM25-style: rarer words count for more, and the field they were
+ * found in and how closely they matched weight them.
+ *
+ * The index loads in the background on first use; until then search()
+ * returns null and callers keep using SQL. DBConnection reports each write
+ * with changed() or added(), and a single background thread re-reads only
+ * those rows, so a search never waits on the database. Writes made by other
+ * clients are only seen after a restart.
+ */
+public final class SearchIndex {
+    private static final int MAX_QUERY_WORDS = 8;
+    private static final int MAX_FIELD_WORDS = 200;
+    // Shorter words only match exactly, so "a" does not expand to half the vocabulary
+    private static final int MIN_PREFIX = 2;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MIN_TYPO = 4;
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.7f;
+    private static final float TYPO = 0.5f;
+    // BM25 term frequency saturation: repeating a word helps, but less each time
+    private static final float K1 = 1.2f;
+    // Inserts that took an identity just below the newest one seen may commit after it
+    private static final int INSERT_LOOKBACK = 100;
+    private static final String TYPO_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    /**
+     * What is searched, and the fields DBConnection reads for it, in order.
+     */
+    public enum Kind {
+        // VIN, Make, Model, Year, Color, Description
+        VEHICLE(code(3f), text(2f), text(2f), text(1f), text(1f), text(0.5f)),
+        // FirstName, LastName, Email, Phone
+        CUSTOMER(text(2f), text(2.5f), text(2f), phone(2f)),
+        // InvoiceNumber, customer FirstName, LastName, vehicle Make, Model, VIN
+        SALE(code(3f), text(1.5f), text(1.5f), text(1f), text(1f), code(1.5f));
+
+        private final Field[] fields;
+
+        Kind(Field... fields) {
+            this.fields = fields;
+        }
+    }
+
+    private enum Analyzer {
+        TEXT,
+        // VINs and invoice numbers: also the whole code without its separators
+        CODE,
+        // Also all the digits, and the last seven without an area code
+        PHONE
+    }
+
+    private record Field(Analyzer analyzer, float boost) {
+    }
+
+    private static volatile SearchIndex instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Kind, Corpus> corpora = new EnumMap<>(Kind.class);
+    private boolean loaded;
+
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search-index");
+        t.setDaemon(true);
+        return t;
+    });
+    // Writes not yet applied; guarded by changedIds
+    private final Map<Kind, Set<Integer>> changedIds = new EnumMap<>(Kind.class);
+    private final Set<Kind> inserted = EnumSet.noneOf(Kind.class);
+    private boolean loading;
+    private boolean flushQueued;
+
+    public static SearchIndex getInstance() {
+        if (instance == null) {
+            synchronized (SearchIndex.class) {
+                if (instance == null) {
+                    instance = new SearchIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Records that a row of kind was updated or deleted.
+     */
+    static void changed(Kind kind, int id) {
+        SearchIndex index = instance;
+        if (index != null) {
+            index.queue(kind, id);
+        }
+    }
+
+    /**
+     * Records that rows of kind were inserted, without knowing their IDs.
+     */
+    static void added(Kind kind) {
+        SearchIndex index = instance;
+        if (index != null) {
+            index.queue(kind, null);
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts loading the index on the background thread, unless it is loaded
+     * or already loading.
+     */
+    public void loadInBackground() {
+        synchronized (changedIds) {
+            if (loading) return;
+            loading = true;
+        }
+        updater.execute(this::load);
+    }
+
+    /**
+     * IDs of every document of kind matching every word of text, best match
+     * first, newest first among equals. Nothing is cut off, so callers can
+     * filter, count and page the matches in SQL. Null while the index is
+     * loading, which the first call starts; empty if text has no words.
+     */
+    public List<Integer> search(Kind kind, String text) {
+        if (!isLoaded()) {
+            loadInBackground();
+            return null;
+        }
+        Set<String> words = new LinkedHashSet<>(words(text));
+        Map<Integer, Float> scores = null;
+        lock.readLock().lock();
+        try {
+            Corpus corpus = corpora.get(kind);
+            int matched = 0;
+            for (String word : words) {
+                if (matched++ == MAX_QUERY_WORDS) break;
+                Map<Integer, Float> wordScores = match(corpus, word);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    Map<Integer, Float> both = new HashMap<>();
+                    for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                        Float score = wordScores.get(entry.getKey());
+                        if (score != null) both.put(entry.getKey(), entry.getValue() + score);
+                    }
+                    scores = both;
+                }
+                if (scores.isEmpty()) break;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (scores == null) return new ArrayList<>();
+
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Float>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+        List<Integer> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Float> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    // Best score per document for one search word, over every term it matches
+    private static Map<Integer, Float> match(Corpus corpus, String word) {
+        Map<Integer, Float> scores = new HashMap<>();
+        Postings exact = corpus.terms.get(word);
+        if (exact != null) {
+            score(corpus, exact, EXACT, scores);
+        }
+        if (word.length() >= MIN_PREFIX) {
+            int expanded = 0;
+            for (Postings postings : corpus.terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                if (expanded++ == MAX_PREFIX_TERMS) break;
+                // The less is left to type, the closer the match
+                score(corpus, postings, PREFIX * (0.5f + 0.5f * word.length() / postings.term.length()), scores);
+            }
+        }
+        if (word.length() >= MIN_TYPO) {
+            for (String variant : oneEditAway(word)) {
+                Postings postings = corpus.terms.get(variant);
+                if (postings != null) {
+                    score(corpus, postings, TYPO, scores);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void score(Corpus corpus, Postings postings, float quality, Map<Integer, Float> scores) {
+        double documents = corpus.documents.size();
+        float idf = (float) Math.log(1 + (documents - postings.size + 0.5) / (postings.size + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            float weight = postings.weights[i];
+            float score = quality * idf * weight * (K1 + 1) / (weight + K1);
+            scores.merge(postings.ids[i], score, Math::max);
+        }
+    }
+
+    /**
+     * Every string one deletion, transposition, substitution or insertion
+     * away from word. Looking these up costs a few hundred map probes and no
+     * memory, unlike keeping a deletion dictionary for the whole vocabulary.
+     */
+    private static Set<String> oneEditAway(String word) {
+        StringBuilder alphabet = new StringBuilder(TYPO_ALPHABET);
+        for (int i = 0; i < word.length(); i++) {
+            if (alphabet.indexOf(String.valueOf(word.charAt(i))) < 0) alphabet.append(word.charAt(i));
+        }
+        Set<String> variants = new HashSet<>();
+        for (int i = 0; i <= word.length(); i++) {
+            String head = word.substring(0, i);
+            String tail = word.substring(i);
+            if (!tail.isEmpty()) {
+                variants.add(head + tail.substring(1));
+            }
+            if (tail.length() > 1) {
+                variants.add(head + tail.charAt(1) + tail.charAt(0) + tail.substring(2));
+            }
+            for (int c = 0; c < alphabet.length(); c++) {
+                char letter = alphabet.charAt(c);
+                if (!tail.isEmpty()) variants.add(head + letter + tail.substring(1));
+                variants.add(head + letter + tail);
+            }
+        }
+        variants.remove(word);
+        return variants;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits in text, up to MAX_FIELD_WORDS.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length() && words.size() < MAX_FIELD_WORDS; i++) {
+            boolean inWord = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static List<String> terms(Analyzer analyzer, String value) {
+        List<String> terms = words(value);
+        if (analyzer == Analyzer.CODE && terms.size() > 1) {
+            terms.add(String.join("", terms));
+        } else if (analyzer == Analyzer.PHONE && value != null) {
+            String digits = value.replaceAll("\\D", "");
+            if (!digits.isEmpty()) terms.add(digits);
+            if (digits.length() > 7) terms.add(digits.substring(digits.length() - 7));
+        }
+        return terms;
+    }
+
+    private static Field text(float boost) {
+        return new Field(Analyzer.TEXT, boost);
+    }
+
+    private static Field code(float boost) {
+        return new Field(Analyzer.CODE, boost);
+    }
+
+    private static Field phone(float boost) {
+        return new Field(Analyzer.PHONE, boost);
+    }
+
+    private void load() {
+        Map<Kind, Corpus> fresh = new EnumMap<>(Kind.class);
+        try {
+            for (Kind kind : Kind.values()) {
+                Corpus corpus = new Corpus();
+                DBConnection.scanSearchDocuments(kind, 0, document -> corpus.put(kind, document));
+                fresh.put(kind, corpus);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Any failure leaves the index unloaded, so the next search can start the load again
+            System.err.println("Error loading search index: " + e.getMessage());
+            synchronized (changedIds) {
+                loading = false;
+                changedIds.clear();
+                inserted.clear();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            corpora.putAll(fresh);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void queue(Kind kind, Integer id) {
+        synchronized (changedIds) {
+            // Before the load starts there is nothing to update; during it, the flush runs after it
+            if (!loading) return;
+            if (id == null) {
+                inserted.add(kind);
+            } else {
+                changedIds.computeIfAbsent(kind, k -> new HashSet<>()).add(id);
+            }
+            if (flushQueued) return;
+            flushQueued = true;
+        }
+        updater.execute(this::flush);
+    }
+
+    private void flush() {
+        Map<Kind, Set<Integer>> changed;
+        Set<Kind> added;
+        synchronized (changedIds) {
+            changed = new EnumMap<>(changedIds);
+            added = EnumSet.copyOf(inserted);
+            changedIds.clear();
+            inserted.clear();
+            flushQueued = false;
+        }
+        if (!isLoaded()) return;
+
+        try {
+            for (Kind kind : Kind.values()) {
+                Set<Integer> ids = changed.getOrDefault(kind, Set.of());
+                List<SearchDocument> documents = new ArrayList<>();
+                if (added.contains(kind)) {
+                    DBConnection.scanSearchDocuments(kind, Math.max(0, maxId(kind) - INSERT_LOOKBACK), documents::add);
+                }
+                if (!ids.isEmpty()) {
+                    DBConnection.scanSearchDocuments(kind, kind, ids, documents::add);
+                }
+                if (kind == Kind.SALE) {
+                    // Sales are found by their customer's name and their vehicle, so follow changes to those
+                    for (Kind related : List.of(Kind.VEHICLE, Kind.CUSTOMER)) {
+                        Set<Integer> relatedIds = changed.get(related);
+                        if (relatedIds != null) {
+                            DBConnection.scanSearchDocuments(kind, related, relatedIds, documents::add);
+                        }
+                    }
+                }
+                apply(kind, ids, documents);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error updating search index: " + e.getMessage());
+            // Try again with the next write; re-applying what did get through is harmless
+            synchronized (changedIds) {
+                changed.forEach((kind, ids) -> changedIds.computeIfAbsent(kind, k -> new HashSet<>()).addAll(ids));
+                inserted.addAll(added);
+            }
+        }
+    }
+
+    private int maxId(Kind kind) {
+        lock.readLock().lock();
+        try {
+            return corpora.get(kind).maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Changed IDs that were not read back were deleted
+    private void apply(Kind kind, Set<Integer> changed, List<SearchDocument> documents) {
+        if (changed.isEmpty() && documents.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            Corpus corpus = corpora.get(kind);
+            for (int id : changed) {
+                corpus.remove(id);
+            }
+            for (SearchDocument document : documents) {
+                corpus.put(kind, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The index of one kind: each term with the documents containing it, and
+     * each document with its terms so it can be taken out again.
+     */
+    private static final class Corpus {
+        final NavigableMap<String, Postings> terms = new TreeMap<>();
+        final Map<Integer, String[]> documents = new HashMap<>();
+        int maxId;
+
+        void put(Kind kind, SearchDocument document) {
+            remove(document.id());
+            Map<String, Float> weights = new HashMap<>();
+            for (int i = 0; i < kind.fields.length && i < document.fields().length; i++) {
+                Field field = kind.fields[i];
+                for (String term : terms(field.analyzer(), document.fields()[i])) {
+                    weights.merge(term, field.boost(), Float::sum);
+                }
+            }
+            String[] keys = new String[weights.size()];
+            int n = 0;
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                Postings postings = terms.computeIfAbsent(entry.getKey(), Postings::new);
+                postings.add(document.id(), entry.getValue());
+                // Share one copy of each term between the dictionary and its documents
+                keys[n++] = postings.term;
+            }
+            documents.put(document.id(), keys);
+            maxId = Math.max(maxId, document.id());
+        }
+
+        void remove(int id) {
+            String[] keys = documents.remove(id);
+            if (keys == null) return;
+            for (String key : keys) {
+                Postings postings = terms.get(key);
+                postings.remove(id);
+                if (postings.size == 0) terms.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Documents containing one term and its weight in each, unordered.
+     */
+    private static final class Postings {
+        final String term;
+        int[] ids = new int[2];
+        float[] weights = new float[2];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int id, float weight) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+}
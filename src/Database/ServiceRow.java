@@ -0,0 +1,31 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * One ServiceDepartment record. The vehicle, customer, technician and cost
+ * are optional in the schema and null when not set. The job occupies its
+ * technician from serviceDate for durationMinutes.
+ */
+public record ServiceRow(int serviceId, Integer vehicleId, Integer customerId, Integer technicianId,
+                         String serviceType, Timestamp serviceDate, int durationMinutes, String description,
+                         BigDecimal cost, String status) {
+
+    static ServiceRow from(ResultSet rs) throws SQLException {
+        return new ServiceRow(
+                rs.getInt("ServiceID"),
+                rs.getObject("VehicleID", Integer.class),
+                rs.getObject("CustomerID", Integer.class),
+                rs.getObject("TechnicianID", Integer.class),
+                rs.getString("ServiceType"),
+                rs.getTimestamp("ServiceDate"),
+                rs.getInt("DurationMinutes"),
+                rs.getString("Description"),
+                rs.getBigDecimal("Cost"),
+                rs.getString("Status")
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package Database;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes a table one row at a time, for TableExport. Nothing is held back
+ * between rows beyond the underlying stream's buffer; close() finishes the
+ * file but leaves the stream it was given open.
+ */
+interface SheetWriter extends Closeable {
+    void header(String[] names) throws IOException;
+
+    /**
+     * One row of values as read from JDBC: strings, numbers, booleans,
+     * dates and timestamps, or null for an empty cell.
+     */
+    void row(Object[] values) throws IOException;
+}
@@ -0,0 +1,203 @@
+package Database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL
+ * text. Callers get a handle whose close() puts the statement back in the
+ * cache, so the server-side handle is reused by the next prepare of the same SQL.
+ * A statement going back has its parameters and batch cleared and its fetch
+ * size, max rows and query timeout put back to what the driver gave it, so
+ * one caller's settings do not carry over to the next.
+ */
+class StatementCache {
+    private final Connection connection;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, CachedStatement> cache;
+    private int generation;
+
+    StatementCache(Connection connection, int maxSize, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                CachedStatement evicted = eldest.getValue();
+                evicted.evicted = true;
+                if (!evicted.inUse) {
+                    closeQuietly(evicted.statement);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached statement for the SQL, preparing it on a miss.
+     * @param autoGeneratedKeys the Statement key flag, or -1 for a plain prepare
+     */
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            return doPrepare(sql, autoGeneratedKeys);
+        }
+        String key = autoGeneratedKeys < 0 ? sql : autoGeneratedKeys + "|" + sql;
+        CachedStatement cached = cache.get(key);
+        if (cached != null && !cached.inUse) {
+            if (!cached.statement.isClosed()) {
+                hits.increment();
+                cached.inUse = true;
+                return cached.newHandle();
+            }
+            cache.remove(key);
+            cached = null;
+        }
+
+        misses.increment();
+        PreparedStatement statement = doPrepare(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Same SQL is already open on this connection; hand out an uncached statement
+            return statement;
+        }
+        CachedStatement entry;
+        try {
+            entry = new CachedStatement(key, statement, statement.getFetchSize(),
+                    statement.getMaxRows(), statement.getQueryTimeout());
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            throw e;
+        }
+        entry.inUse = true;
+        cache.put(key, entry);
+        return entry.newHandle();
+    }
+
+    private PreparedStatement doPrepare(String sql, int autoGeneratedKeys) throws SQLException {
+        return autoGeneratedKeys < 0 ? connection.prepareStatement(sql) : connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    /**
+     * Called when the connection goes back to the pool. Handles the borrower
+     * forgot to close stop working and their statements become reusable.
+     */
+    synchronized void reset() {
+        generation++;
+        List<String> broken = new ArrayList<>();
+        for (CachedStatement cached : cache.values()) {
+            if (cached.inUse) {
+                cached.inUse = false;
+                if (!cached.restore()) broken.add(cached.key);
+            }
+        }
+        for (String key : broken) {
+            closeQuietly(cache.remove(key).statement);
+        }
+    }
+
+    synchronized void closeAll() {
+        for (CachedStatement cached : cache.values()) {
+            closeQuietly(cached.statement);
+        }
+        cache.clear();
+    }
+
+    synchronized int size() {
+        return cache.size();
+    }
+
+    private synchronized void release(CachedStatement cached, int handleGeneration) {
+        if (handleGeneration != generation || !cached.inUse) return;
+        cached.inUse = false;
+        if (cached.evicted || !cached.restore()) {
+            closeQuietly(cached.statement);
+            cache.remove(cached.key, cached);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    private class CachedStatement {
+        private final String key;
+        private final PreparedStatement statement;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(String key, PreparedStatement statement, int fetchSize, int maxRows, int queryTimeout) {
+            this.key = key;
+            this.statement = statement;
+            this.fetchSize = fetchSize;
+            this.maxRows = maxRows;
+            this.queryTimeout = queryTimeout;
+        }
+
+        // False when the statement could not be reset and should not be reused
+        boolean restore() {
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                statement.setFetchSize(fetchSize);
+                statement.setMaxRows(maxRows);
+                statement.setQueryTimeout(queryTimeout);
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        PreparedStatement newHandle() {
+            int handleGeneration = generation;
+            boolean[] closed = {false};
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!closed[0]) {
+                                    closed[0] = true;
+                                    release(this, handleGeneration);
+                                }
+                                return null;
+                            case "isClosed":
+                                return closed[0] || statement.isClosed();
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                if (closed[0] || handleGeneration != generation) {
+                                    throw new SQLException("Statement has already been closed");
+                                }
+                                try {
+                                    return method.invoke(statement, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package Database;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Writes every row of a {@link PagedQuery} to a CSV file or an XLSX
+ * workbook, in the query's current filter and sort order. Rows are streamed
+ * from a forward-only result set straight into the file, so exporting
+ * millions of sales takes no more memory than exporting ten. Column headers
+ * are the labels of the query's select list.
+ */
+public final class TableExport {
+    // How often progress is reported and cancellation checked
+    private static final int PROGRESS_EVERY = 1000;
+
+    public enum Format {
+        CSV("csv"), XLSX("xlsx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Told how far an export has got, from the exporting thread.
+     */
+    public interface Progress {
+        /**
+         * total is the row count taken before the export began; rows
+         * added meanwhile can take written past it.
+         */
+        void rows(long written, long total);
+
+        boolean isCancelled();
+    }
+
+    private TableExport() {
+    }
+
+    /**
+     * Exports the query to out, which is left open. Returns the number of
+     * rows written, or -1 if progress reported cancellation, in which case
+     * the output is incomplete and should be discarded.
+     */
+    public static long export(PagedQuery<?> query, Format format, String title, OutputStream out,
+                              Progress progress) throws SQLException, IOException {
+        long total = query.count();
+        progress.rows(0, total);
+        long[] written = {0};
+        boolean[] cancelled = {false};
+        try (SheetWriter writer = format == Format.XLSX ? new XlsxSheetWriter(out, title) : new CsvSheetWriter(out)) {
+            query.scan(rs -> {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                String[] header = new String[columns];
+                for (int i = 0; i < columns; i++) {
+                    header[i] = meta.getColumnLabel(i + 1);
+                }
+                writer.header(header);
+
+                Object[] values = new Object[columns];
+                while (rs.next()) {
+                    readRow(rs, values);
+                    writer.row(values);
+                    if (++written[0] % PROGRESS_EVERY == 0) {
+                        progress.rows(written[0], total);
+                        if (progress.isCancelled()) {
+                            cancelled[0] = true;
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            });
+        }
+        if (cancelled[0]) return -1;
+        progress.rows(written[0], Math.max(total, written[0]));
+        return written[0];
+    }
+
+    private static void readRow(ResultSet rs, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+    }
+}
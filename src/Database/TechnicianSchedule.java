@@ -0,0 +1,455 @@
+package Database;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory calendar of service jobs per technician, so double bookings and
+ * free slots are found without a database round trip.
+ *
+ * Each technician's jobs are kept in an {@link IntervalCalendar}, so an
+ * overlap query is a single range scan, O(log n + k) like an interval tree.
+ *
+ * The calendar covers services from LOOKBACK_DAYS ago to HORIZON_DAYS ahead of
+ * the day it was loaded, and is loaded on first use. Queries about times
+ * outside that window read the jobs they need from the database instead.
+ * DBConnection's service writes update it once they succeed; changes made
+ * from other machines are only seen after reload().
+ */
+public final class TechnicianSchedule {
+    public static final LocalTime SHOP_OPENS = LocalTime.of(8, 0);
+    public static final LocalTime SHOP_CLOSES = LocalTime.of(18, 0);
+    // Free slots start on this grid, so a job ending 10:05 frees the technician at 10:15
+    private static final int SLOT_MINUTES = 15;
+    private static final int LOOKBACK_DAYS = 30;
+    private static final int HORIZON_DAYS = 365;
+    // How far a free-slot search reads ahead when it starts outside the loaded window
+    private static final int OUTSIDE_SEARCH_DAYS = 30;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private static final IntervalCalendar<Booking> EMPTY = new IntervalCalendar<>();
+
+    private static volatile TechnicianSchedule instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, String> technicians = new LinkedHashMap<>();
+    private final Map<Integer, IntervalCalendar<Booking>> calendars = new HashMap<>();
+    private final Map<Integer, Booking> byService = new HashMap<>();
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private long writes;
+    private boolean loaded;
+
+    /**
+     * A job holding its technician for [start, end).
+     */
+    public record Booking(int serviceId, int technicianId, LocalDateTime start, LocalDateTime end)
+            implements IntervalCalendar.Interval {
+        @Override
+        public int id() {
+            return serviceId;
+        }
+
+        long minutes() {
+            return Duration.between(start, end).toMinutes();
+        }
+    }
+
+    public record Slot(int technicianId, LocalDateTime start) {
+    }
+
+    public record Assignment(int serviceId, int technicianId, LocalDateTime start, int durationMinutes) {
+    }
+
+    /**
+     * Outcome of {@link #autoAssign(LocalDate)}: the jobs that were booked,
+     * and the ones no technician had room for that day.
+     */
+    public record AutoAssignResult(List<Assignment> assigned, List<ServiceRow> unassigned) {
+    }
+
+    /**
+     * A question asked of the technicians' calendars, answered with jobs up to
+     * limit in view.
+     */
+    private interface CalendarQuery<T> {
+        T apply(Map<Integer, IntervalCalendar<Booking>> calendars, LocalDateTime limit);
+    }
+
+    public static TechnicianSchedule getInstance() {
+        if (instance == null) {
+            synchronized (TechnicianSchedule.class) {
+                if (instance == null) {
+                    instance = new TechnicianSchedule();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the technicians and their jobs from the database, replacing
+     * whatever was held before.
+     */
+    public void reload() throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            long seen;
+            lock.readLock().lock();
+            try {
+                seen = writes;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            LocalDate today = LocalDate.now();
+            LocalDateTime from = today.minusDays(LOOKBACK_DAYS).atStartOfDay();
+            LocalDateTime to = today.plusDays(HORIZON_DAYS).atStartOfDay();
+            Map<Integer, String> staff = DBConnection.getTechnicians();
+            List<ServiceRow> services = DBConnection.getServicesBetween(from, to, null);
+
+            lock.writeLock().lock();
+            try {
+                // A write that landed while we were reading may be missing from what we read
+                if (writes != seen && attempt < MAX_LOAD_ATTEMPTS) continue;
+                technicians.clear();
+                technicians.putAll(staff);
+                calendars.clear();
+                byService.clear();
+                for (ServiceRow row : services) {
+                    put(row);
+                }
+                windowStart = from;
+                windowEnd = to;
+                loaded = true;
+                return;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Loads the calendar if nothing has been loaded yet.
+     */
+    public void ensureLoaded() throws SQLException {
+        if (!isLoaded()) {
+            reload();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Technicians by employee ID, with their full names.
+     */
+    public Map<Integer, String> getTechnicians() {
+        lock.readLock().lock();
+        try {
+            return new LinkedHashMap<>(technicians);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The technician's jobs overlapping [start, start + minutes), earliest
+     * first, not counting ignoreServiceId (the job being edited, or null).
+     */
+    public List<Booking> conflicts(int technicianId, LocalDateTime start, int minutes, Integer ignoreServiceId) throws SQLException {
+        LocalDateTime end = start.plusMinutes(minutes);
+        List<Booking> overlapping = query(start, end, technicianId,
+                (calendars, limit) -> calendars.getOrDefault(technicianId, EMPTY).overlapping(start, end));
+        if (ignoreServiceId != null) {
+            overlapping.removeIf(booking -> booking.serviceId() == ignoreServiceId);
+        }
+        return overlapping;
+    }
+
+    public boolean isFree(int technicianId, LocalDateTime start, int minutes) throws SQLException {
+        return conflicts(technicianId, start, minutes, null).isEmpty();
+    }
+
+    /**
+     * Technicians with nothing booked in [start, start + minutes).
+     */
+    public List<Integer> freeTechnicians(LocalDateTime start, int minutes) throws SQLException {
+        LocalDateTime end = start.plusMinutes(minutes);
+        Set<Integer> staff = staff();
+        return query(start, end, null, (calendars, limit) -> {
+            List<Integer> free = new ArrayList<>();
+            for (Integer technicianId : staff) {
+                if (calendars.getOrDefault(technicianId, EMPTY).overlapping(start, end).isEmpty()) {
+                    free.add(technicianId);
+                }
+            }
+            return free;
+        });
+    }
+
+    /**
+     * Earliest start at or after the given time, within shop hours, when the
+     * technician is free for the whole job; null if there is none before the
+     * end of the loaded calendar, or within OUTSIDE_SEARCH_DAYS when the
+     * search starts outside it.
+     */
+    public LocalDateTime nextFreeSlot(int technicianId, LocalDateTime after, int minutes) throws SQLException {
+        return query(after, null, technicianId,
+                (calendars, limit) -> nextFree(calendars.getOrDefault(technicianId, EMPTY), after, minutes, limit));
+    }
+
+    /**
+     * Earliest slot with any technician free for the whole job. Ties go to
+     * the technician listed first.
+     */
+    public Slot nextFreeSlot(LocalDateTime after, int minutes) throws SQLException {
+        Set<Integer> staff = staff();
+        return query(after, null, null, (calendars, windowLimit) -> {
+            Slot best = null;
+            for (Integer technicianId : staff) {
+                LocalDateTime limit = best != null ? best.start().plusMinutes(1) : windowLimit;
+                LocalDateTime start = nextFree(calendars.getOrDefault(technicianId, EMPTY), after, minutes, limit);
+                if (start != null && (best == null || start.isBefore(best.start()))) {
+                    best = new Slot(technicianId, start);
+                }
+            }
+            return best;
+        });
+    }
+
+    /**
+     * Books every unassigned, not yet completed job of the day onto a
+     * technician. Jobs are placed in order of requested time, longest first
+     * on ties, each with the technician who can start it soonest at or after
+     * its requested time; ties go to whoever has the least booked that day.
+     * The plan is written in one transaction, see
+     * {@link DBConnection#assignTechnicians(List)}.
+     */
+    public AutoAssignResult autoAssign(LocalDate day) throws SQLException {
+        ensureLoaded();
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+
+        List<ServiceRow> queue = new ArrayList<>();
+        for (ServiceRow row : DBConnection.getServicesBetween(dayStart, dayEnd, null)) {
+            if (row.technicianId() == null && !"Completed".equals(row.status())) {
+                queue.add(row);
+            }
+        }
+        queue.sort(Comparator.comparing(ServiceRow::serviceDate)
+                .thenComparing(Comparator.comparingInt(ServiceRow::durationMinutes).reversed())
+                .thenComparingInt(ServiceRow::serviceId));
+
+        // Plan against a copy of the day so nothing changes until the plan is saved
+        Map<Integer, IntervalCalendar<Booking>> plan = new LinkedHashMap<>();
+        Map<Integer, Long> bookedMinutes = new HashMap<>();
+        Set<Integer> staff = staff();
+        query(dayStart, dayEnd, null, (calendars, limit) -> {
+            for (Integer technicianId : staff) {
+                IntervalCalendar<Booking> copy = new IntervalCalendar<>();
+                long minutes = 0;
+                for (Booking booking : calendars.getOrDefault(technicianId, EMPTY).overlapping(dayStart, dayEnd)) {
+                    copy.add(booking);
+                    minutes += booking.minutes();
+                }
+                plan.put(technicianId, copy);
+                bookedMinutes.put(technicianId, minutes);
+            }
+            return null;
+        });
+
+        List<Assignment> assignments = new ArrayList<>();
+        for (ServiceRow row : queue) {
+            LocalDateTime requested = row.serviceDate().toLocalDateTime();
+            Integer bestTechnician = null;
+            LocalDateTime bestStart = null;
+            for (Map.Entry<Integer, IntervalCalendar<Booking>> entry : plan.entrySet()) {
+                LocalDateTime start = nextFree(entry.getValue(), requested, row.durationMinutes(), dayEnd);
+                if (start == null) continue;
+                if (bestStart == null || start.isBefore(bestStart)
+                        || (start.equals(bestStart) && bookedMinutes.get(entry.getKey()) < bookedMinutes.get(bestTechnician))) {
+                    bestTechnician = entry.getKey();
+                    bestStart = start;
+                }
+            }
+            if (bestTechnician != null) {
+                Assignment assignment = new Assignment(row.serviceId(), bestTechnician, bestStart, row.durationMinutes());
+                plan.get(bestTechnician).add(toBooking(assignment));
+                bookedMinutes.merge(bestTechnician, (long) row.durationMinutes(), Long::sum);
+                assignments.add(assignment);
+            }
+        }
+
+        List<Assignment> applied = DBConnection.assignTechnicians(assignments);
+        Set<Integer> assignedIds = new HashSet<>();
+        for (Assignment assignment : applied) {
+            assignedIds.add(assignment.serviceId());
+        }
+        List<ServiceRow> unassigned = new ArrayList<>();
+        for (ServiceRow row : queue) {
+            if (!assignedIds.contains(row.serviceId())) {
+                unassigned.add(row);
+            }
+        }
+        return new AutoAssignResult(applied, unassigned);
+    }
+
+    /**
+     * Called by DBConnection after a service was saved.
+     */
+    void booked(ServiceRow row) {
+        lock.writeLock().lock();
+        try {
+            writes++;
+            if (loaded) put(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called by DBConnection after a service was deleted.
+     */
+    void cancelled(int serviceId) {
+        lock.writeLock().lock();
+        try {
+            writes++;
+            if (loaded) unbook(serviceId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called by DBConnection after an auto-assigned technician was saved.
+     */
+    void assigned(Assignment assignment) {
+        lock.writeLock().lock();
+        try {
+            writes++;
+            if (loaded) {
+                unbook(assignment.serviceId());
+                book(toBooking(assignment));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the query over the loaded calendars, with the end of the window as
+     * its limit, when they cover [from, to); a null to means as far ahead as
+     * the query needs. Otherwise the jobs overlapping [from, to), or the next
+     * OUTSIDE_SEARCH_DAYS when to is null, are read from the database for
+     * this one query.
+     */
+    private <T> T query(LocalDateTime from, LocalDateTime to, Integer technicianId, CalendarQuery<T> query) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            if (!from.isBefore(windowStart) && from.isBefore(windowEnd) && (to == null || !to.isAfter(windowEnd))) {
+                return query.apply(calendars, windowEnd);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        LocalDateTime limit = to != null ? to : from.plusDays(OUTSIDE_SEARCH_DAYS);
+        Map<Integer, IntervalCalendar<Booking>> read = new HashMap<>();
+        for (ServiceRow row : DBConnection.getServicesOverlapping(from, limit, technicianId)) {
+            Booking booking = toBooking(row);
+            if (booking != null) {
+                read.computeIfAbsent(booking.technicianId(), id -> new IntervalCalendar<>()).add(booking);
+            }
+        }
+        return query.apply(read, limit);
+    }
+
+    private Set<Integer> staff() throws SQLException {
+        ensureLoaded();
+        return getTechnicians().keySet();
+    }
+
+    private void put(ServiceRow row) {
+        unbook(row.serviceId());
+        Booking booking = toBooking(row);
+        if (booking != null) book(booking);
+    }
+
+    private void book(Booking booking) {
+        byService.put(booking.serviceId(), booking);
+        calendars.computeIfAbsent(booking.technicianId(), id -> new IntervalCalendar<>()).add(booking);
+    }
+
+    private void unbook(int serviceId) {
+        Booking old = byService.remove(serviceId);
+        if (old != null) {
+            IntervalCalendar<Booking> calendar = calendars.get(old.technicianId());
+            calendar.remove(old);
+            if (calendar.isEmpty()) calendars.remove(old.technicianId());
+        }
+    }
+
+    // Null for a job with no technician or date, which holds nobody's time
+    private static Booking toBooking(ServiceRow row) {
+        if (row.technicianId() == null || row.serviceDate() == null) return null;
+        LocalDateTime start = row.serviceDate().toLocalDateTime();
+        return new Booking(row.serviceId(), row.technicianId(), start, start.plusMinutes(Math.max(1, row.durationMinutes())));
+    }
+
+    private static Booking toBooking(Assignment assignment) {
+        return new Booking(assignment.serviceId(), assignment.technicianId(), assignment.start(),
+                assignment.start().plusMinutes(assignment.durationMinutes()));
+    }
+
+    // Steps past whatever is in the way until the job fits, moving to the next morning when it runs past closing
+    private static LocalDateTime nextFree(IntervalCalendar<Booking> calendar, LocalDateTime after, int minutes, LocalDateTime limit) {
+        if (limit == null || minutes > ChronoUnit.MINUTES.between(SHOP_OPENS, SHOP_CLOSES)) return null;
+        LocalDateTime candidate = roundUp(after);
+        while (candidate.isBefore(limit)) {
+            LocalDate day = candidate.toLocalDate();
+            if (candidate.toLocalTime().isBefore(SHOP_OPENS)) {
+                candidate = day.atTime(SHOP_OPENS);
+            }
+            LocalDateTime end = candidate.plusMinutes(minutes);
+            if (end.isAfter(day.atTime(SHOP_CLOSES))) {
+                candidate = day.plusDays(1).atTime(SHOP_OPENS);
+                continue;
+            }
+            LocalDateTime busyUntil = null;
+            for (Booking booking : calendar.overlapping(candidate, end)) {
+                if (busyUntil == null || booking.end().isAfter(busyUntil)) busyUntil = booking.end();
+            }
+            if (busyUntil == null) return candidate;
+            candidate = roundUp(busyUntil);
+        }
+        return null;
+    }
+
+    private static LocalDateTime roundUp(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        if (minute.isBefore(time)) minute = minute.plusMinutes(1);
+        int past = minute.getMinute() % SLOT_MINUTES;
+        return past == 0 ? minute : minute.plusMinutes(SLOT_MINUTES - past);
+    }
+}
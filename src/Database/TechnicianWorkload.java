@@ -0,0 +1,29 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Service jobs assigned to one technician in a date range, by status, with
+ * the total cost billed for them. Read by
+ * {@link DBConnection#getTechnicianWorkload(java.time.LocalDateTime, java.time.LocalDateTime)}.
+ */
+public record TechnicianWorkload(int technicianId, String technician, int scheduled, int inProgress,
+                                 int completed, BigDecimal billed) {
+
+    public int totalJobs() {
+        return scheduled + inProgress + completed;
+    }
+
+    static TechnicianWorkload from(ResultSet rs) throws SQLException {
+        return new TechnicianWorkload(
+                rs.getInt("TechnicianID"),
+                rs.getString("Technician"),
+                rs.getInt("Scheduled"),
+                rs.getInt("InProgress"),
+                rs.getInt("Completed"),
+                rs.getBigDecimal("Billed")
+        );
+    }
+}
@@ -0,0 +1,38 @@
+package Database;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link TestDriveCalendar#book}. CONFLICT means the vehicle, the
+ * salesperson or the customer already has a test drive overlapping the
+ * requested time, listed in clashes; FAILED means the request was invalid or
+ * the database rejected it. Only BOOKED changes anything.
+ */
+public record TestDriveBooking(Outcome outcome, TestDriveRow testDrive, List<Clash> clashes, String error) {
+
+    public enum Outcome { BOOKED, CONFLICT, FAILED }
+
+    public enum Resource { VEHICLE, SALESPERSON, CUSTOMER }
+
+    /**
+     * An existing test drive that takes one of the requested resources.
+     */
+    public record Clash(Resource resource, TestDriveRow testDrive) {
+    }
+
+    static TestDriveBooking booked(TestDriveRow testDrive) {
+        return new TestDriveBooking(Outcome.BOOKED, testDrive, List.of(), null);
+    }
+
+    static TestDriveBooking conflict(List<Clash> clashes) {
+        return new TestDriveBooking(Outcome.CONFLICT, null, List.copyOf(clashes), null);
+    }
+
+    static TestDriveBooking failed(String error) {
+        return new TestDriveBooking(Outcome.FAILED, null, List.of(), error);
+    }
+
+    public boolean isBooked() {
+        return outcome == Outcome.BOOKED;
+    }
+}
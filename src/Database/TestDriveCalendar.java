@@ -0,0 +1,298 @@
+package Database;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory calendar of test drives, indexed by vehicle, salesperson and
+ * customer, so availability is checked without a database round trip and a
+ * day or week view is a range scan however busy the showroom is.
+ *
+ * The calendar covers test drives from LOOKBACK_DAYS ago to HORIZON_DAYS
+ * ahead of the day it was loaded, and is loaded on first use. Views outside
+ * that window are read from the database. Bookings made through
+ * {@link #book} update it as they commit; bookings from other machines are
+ * seen after reload(), or as soon as one of them blocks a booking here.
+ * A clash found in memory is always confirmed by the database before a
+ * booking is turned away, so a test drive cancelled on another machine does
+ * not keep blocking its slot here.
+ */
+public final class TestDriveCalendar {
+    /** Longest test drive that can be booked; also bounds the overlap lookups in SQL. */
+    public static final int MAX_MINUTES = 240;
+    private static final int LOOKBACK_DAYS = 7;
+    private static final int HORIZON_DAYS = 180;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private static final IntervalCalendar<TestDriveRow> EMPTY = new IntervalCalendar<>();
+
+    private static volatile TestDriveCalendar instance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, TestDriveRow> byId = new HashMap<>();
+    private final IntervalCalendar<TestDriveRow> all = new IntervalCalendar<>();
+    private final Map<Integer, IntervalCalendar<TestDriveRow>> byVehicle = new HashMap<>();
+    private final Map<Integer, IntervalCalendar<TestDriveRow>> byEmployee = new HashMap<>();
+    private final Map<Integer, IntervalCalendar<TestDriveRow>> byCustomer = new HashMap<>();
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private long writes;
+    private boolean loaded;
+
+    public static TestDriveCalendar getInstance() {
+        if (instance == null) {
+            synchronized (TestDriveCalendar.class) {
+                if (instance == null) {
+                    instance = new TestDriveCalendar();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the test drives in the window from the database, replacing
+     * whatever was held before.
+     */
+    public void reload() throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            long seen;
+            lock.readLock().lock();
+            try {
+                seen = writes;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            LocalDate today = LocalDate.now();
+            LocalDateTime from = today.minusDays(LOOKBACK_DAYS).atStartOfDay();
+            LocalDateTime to = today.plusDays(HORIZON_DAYS).atStartOfDay();
+            List<TestDriveRow> testDrives = DBConnection.getTestDrivesBetween(from, to);
+
+            lock.writeLock().lock();
+            try {
+                // A booking or cancel that landed while we were reading may be missing from what we read
+                if (writes != seen && attempt < MAX_LOAD_ATTEMPTS) continue;
+                byId.clear();
+                all.clear();
+                byVehicle.clear();
+                byEmployee.clear();
+                byCustomer.clear();
+                for (TestDriveRow testDrive : testDrives) {
+                    put(testDrive);
+                }
+                windowStart = from;
+                windowEnd = to;
+                loaded = true;
+                return;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Loads the calendar if nothing has been loaded yet.
+     */
+    public void ensureLoaded() throws SQLException {
+        if (!isLoaded()) {
+            reload();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Test drives that would clash with a booking of the customer, vehicle
+     * and salesperson for [start, end), not counting ignoreTestDriveId (the
+     * one being moved, or null). A test drive taking several of them is
+     * listed once per resource.
+     */
+    public List<TestDriveBooking.Clash> clashes(int customerId, int vehicleId, int employeeId,
+                                                LocalDateTime start, LocalDateTime end, Integer ignoreTestDriveId) {
+        lock.readLock().lock();
+        try {
+            List<TestDriveBooking.Clash> clashes = new ArrayList<>();
+            addClashes(clashes, TestDriveBooking.Resource.VEHICLE, byVehicle.getOrDefault(vehicleId, EMPTY), start, end, ignoreTestDriveId);
+            addClashes(clashes, TestDriveBooking.Resource.SALESPERSON, byEmployee.getOrDefault(employeeId, EMPTY), start, end, ignoreTestDriveId);
+            addClashes(clashes, TestDriveBooking.Resource.CUSTOMER, byCustomer.getOrDefault(customerId, EMPTY), start, end, ignoreTestDriveId);
+            return clashes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isVehicleFree(int vehicleId, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            return byVehicle.getOrDefault(vehicleId, EMPTY).overlapping(start, end).isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isSalespersonFree(int employeeId, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            return byEmployee.getOrDefault(employeeId, EMPTY).overlapping(start, end).isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books a test drive. The clash check and the insert run in one
+     * transaction in {@link DBConnection#bookTestDrive}, so two people
+     * booking the same slot cannot both succeed. Clashes the in-memory
+     * calendar knows of are not trusted on their own: the database has the
+     * final word, and any it no longer confirms are dropped from memory.
+     */
+    public TestDriveBooking book(int customerId, int vehicleId, int employeeId, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end) || Duration.between(start, end).toMinutes() > MAX_MINUTES) {
+            return TestDriveBooking.failed("A test drive must end after it starts and last at most " + MAX_MINUTES + " minutes.");
+        }
+        try {
+            ensureLoaded();
+        } catch (SQLException e) {
+            return TestDriveBooking.failed(e.getMessage());
+        }
+        List<TestDriveBooking.Clash> remembered = clashes(customerId, vehicleId, employeeId, start, end, null);
+
+        TestDriveBooking booking = DBConnection.bookTestDrive(customerId, vehicleId, employeeId, start, end);
+        if (booking.outcome() == TestDriveBooking.Outcome.FAILED) {
+            return booking;
+        }
+        lock.writeLock().lock();
+        try {
+            writes++;
+            // What the database reports is current; a remembered clash it did not report was cancelled or moved elsewhere
+            Set<Integer> confirmed = new HashSet<>();
+            for (TestDriveBooking.Clash clash : booking.clashes()) {
+                confirmed.add(clash.testDrive().testDriveId());
+            }
+            for (TestDriveBooking.Clash clash : remembered) {
+                if (!confirmed.contains(clash.testDrive().testDriveId())) {
+                    remove(clash.testDrive().testDriveId());
+                }
+            }
+            if (booking.isBooked()) {
+                put(booking.testDrive());
+            }
+            // Another machine got there first; remember its booking so the next check catches it here
+            for (TestDriveBooking.Clash clash : booking.clashes()) {
+                put(clash.testDrive());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return booking;
+    }
+
+    public boolean cancel(int testDriveId) {
+        if (!DBConnection.cancelTestDrive(testDriveId)) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            writes++;
+            remove(testDriveId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Test drives overlapping [from, to), earliest first.
+     */
+    public List<TestDriveRow> between(LocalDateTime from, LocalDateTime to) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            if (!from.isBefore(windowStart) && !to.isAfter(windowEnd)) {
+                return all.overlapping(from, to);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return DBConnection.getTestDrivesBetween(from, to);
+    }
+
+    public List<TestDriveRow> day(LocalDate day) throws SQLException {
+        return between(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * The Monday-to-Sunday week containing the given day, every day listed
+     * even when empty. A test drive running past midnight is listed on the
+     * day it starts.
+     */
+    public Map<LocalDate, List<TestDriveRow>> week(LocalDate anyDay) throws SQLException {
+        LocalDate monday = anyDay.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        Map<LocalDate, List<TestDriveRow>> week = new LinkedHashMap<>();
+        for (int d = 0; d < 7; d++) {
+            week.put(monday.plusDays(d), new ArrayList<>());
+        }
+        for (TestDriveRow testDrive : between(monday.atStartOfDay(), monday.plusDays(7).atStartOfDay())) {
+            List<TestDriveRow> day = week.get(testDrive.start().toLocalDate());
+            if (day != null) day.add(testDrive);
+        }
+        return week;
+    }
+
+    private void put(TestDriveRow testDrive) {
+        remove(testDrive.testDriveId());
+        byId.put(testDrive.testDriveId(), testDrive);
+        all.add(testDrive);
+        byVehicle.computeIfAbsent(testDrive.vehicleId(), id -> new IntervalCalendar<>()).add(testDrive);
+        byEmployee.computeIfAbsent(testDrive.employeeId(), id -> new IntervalCalendar<>()).add(testDrive);
+        byCustomer.computeIfAbsent(testDrive.customerId(), id -> new IntervalCalendar<>()).add(testDrive);
+    }
+
+    private void remove(int testDriveId) {
+        TestDriveRow old = byId.remove(testDriveId);
+        if (old == null) return;
+        all.remove(old);
+        remove(byVehicle, old.vehicleId(), old);
+        remove(byEmployee, old.employeeId(), old);
+        remove(byCustomer, old.customerId(), old);
+    }
+
+    private static void remove(Map<Integer, IntervalCalendar<TestDriveRow>> index, int key, TestDriveRow testDrive) {
+        IntervalCalendar<TestDriveRow> calendar = index.get(key);
+        if (calendar != null) {
+            calendar.remove(testDrive);
+            if (calendar.isEmpty()) index.remove(key);
+        }
+    }
+
+    private static void addClashes(List<TestDriveBooking.Clash> clashes, TestDriveBooking.Resource resource,
+                                   IntervalCalendar<TestDriveRow> calendar, LocalDateTime start, LocalDateTime end,
+                                   Integer ignoreTestDriveId) {
+        for (TestDriveRow testDrive : calendar.overlapping(start, end)) {
+            if (ignoreTestDriveId == null || testDrive.testDriveId() != ignoreTestDriveId) {
+                clashes.add(new TestDriveBooking.Clash(resource, testDrive));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package Database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * One test drive with the customer, vehicle and salesperson names resolved
+ * for display. The customer, vehicle and salesperson are all taken for
+ * [start, end).
+ */
+public record TestDriveRow(int testDriveId, int customerId, String customer, int vehicleId, String vehicle,
+                           int employeeId, String employee, LocalDateTime start, LocalDateTime end)
+        implements IntervalCalendar.Interval {
+
+    @Override
+    public int id() {
+        return testDriveId;
+    }
+
+    static TestDriveRow from(ResultSet rs) throws SQLException {
+        return new TestDriveRow(
+                rs.getInt("TestDriveID"),
+                rs.getInt("CustomerID"),
+                rs.getString("Customer"),
+                rs.getInt("VehicleID"),
+                rs.getString("Vehicle"),
+                rs.getInt("EmployeeID"),
+                rs.getString("Employee"),
+                rs.getTimestamp("StartTime").toLocalDateTime(),
+                rs.getTimestamp("EndTime").toLocalDateTime()
+        );
+    }
+}
@@ -0,0 +1,268 @@
+package Database;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a supplier's vehicle feed one record at a time, so a feed of any
+ * size is parsed in constant memory. Two layouts are understood:
+ *
+ * CSV with a header row naming the columns, quoted per RFC 4180, and JSON
+ * holding an array of flat objects (or objects one after another). Field
+ * names are matched case-insensitively, ignoring spaces, dashes and
+ * underscores, so "List Price", "list_price" and "ListPrice" are the same
+ * field. Values are kept as text for {@link VehicleImport} to validate.
+ */
+final class VehicleFeed implements AutoCloseable {
+    enum Format { CSV, JSON }
+
+    /**
+     * One record of the feed. position is the CSV line the record starts on,
+     * or the JSON object's index counting from 1. problem says why the
+     * record is unusable as read, or is null.
+     */
+    record Record(int position, Map<String, String> fields, String problem) {
+        String get(String field) {
+            String value = fields.get(field);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+
+    private final PushbackReader in;
+    private final Format format;
+    private List<String> header;
+    private int line = 1;
+    private int objects;
+    private boolean started;
+
+    VehicleFeed(Reader reader, Format format) {
+        this.in = new PushbackReader(reader, 2);
+        this.format = format;
+    }
+
+    static Format formatOf(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? Format.JSON : Format.CSV;
+    }
+
+    /**
+     * Field name as looked up in a record: lower case without spaces, dashes
+     * or underscores.
+     */
+    static String key(String name) {
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '\uFEFF' || c == ' ' || c == '-' || c == '_') continue;
+            key.append(Character.toLowerCase(c));
+        }
+        return key.toString();
+    }
+
+    /**
+     * The next record, or null at the end of the feed.
+     *
+     * @throws IOException if the feed cannot be read or is malformed badly
+     *                     enough that the records after this point cannot
+     *                     be trusted
+     */
+    Record next() throws IOException {
+        return format == Format.JSON ? nextObject() : nextCsvRecord();
+    }
+
+    /**
+     * Where the reader is: the current CSV line, or the index of the JSON
+     * object being read.
+     */
+    int position() {
+        return format == Format.JSON ? objects + 1 : line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+//    ----------------------------------CSV------------------------------------------------------------
+
+    private Record nextCsvRecord() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvFields();
+            if (names == null) return null;
+            header = new ArrayList<>(names.size());
+            for (String name : names) {
+                header.add(key(name));
+            }
+        }
+        while (true) {
+            int start = line;
+            List<String> values = readCsvFields();
+            if (values == null) return null;
+            if (values.size() == 1 && values.get(0).isEmpty()) continue; // blank line
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size() && i < header.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            String problem = values.size() > header.size()
+                    ? "Record has " + values.size() + " fields but the header names " + header.size() : null;
+            return new Record(start, fields, problem);
+        }
+    }
+
+    // Fields of one record, which may span lines inside quotes, or null at end of input
+    private List<String> readCsvFields() throws IOException {
+        int c = in.read();
+        if (c < 0) return null;
+        in.unread(c);
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            c = in.read();
+            if (quoted) {
+                if (c < 0) throw new IOException("Unterminated quoted field at line " + line);
+                if (c == '"') {
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        if (next >= 0) in.unread(next);
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    int next = in.read();
+                    if (next != '\n' && next >= 0) in.unread(next);
+                }
+                if (c >= 0) line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+//    ----------------------------------JSON------------------------------------------------------------
+
+    private Record nextObject() throws IOException {
+        int c = skipWhitespace();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') c = skipWhitespace();
+            if (c == '[') {
+                c = skipWhitespace();
+                if (c == ']') return null;
+            }
+        } else if (c == ',') {
+            c = skipWhitespace();
+        }
+        if (c < 0 || c == ']') return null;
+        if (c != '{') throw error("expected '{'", c);
+
+        objects++;
+        Map<String, String> fields = new HashMap<>();
+        c = skipWhitespace();
+        if (c == '}') return new Record(objects, fields, null);
+        while (true) {
+            if (c != '"') throw error("expected a field name", c);
+            String name = readString();
+            c = skipWhitespace();
+            if (c != ':') throw error("expected ':'", c);
+            fields.put(key(name), readValue());
+            c = skipWhitespace();
+            if (c == '}') return new Record(objects, fields, null);
+            if (c != ',') throw error("expected ',' or '}'", c);
+            c = skipWhitespace();
+        }
+    }
+
+    // A scalar value as text; null for JSON null. Nested objects and arrays are not vehicle fields.
+    private String readValue() throws IOException {
+        int c = skipWhitespace();
+        if (c == '"') return readString();
+        if (c == '{' || c == '[') throw error("nested values are not supported", c);
+        StringBuilder literal = new StringBuilder();
+        while (c >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            literal.append((char) c);
+            c = in.read();
+        }
+        if (c >= 0) in.unread(c);
+        String text = literal.toString();
+        switch (text) {
+            case "null": return null;
+            case "true": case "false": return text;
+            default:
+                try {
+                    return new BigDecimal(text).toPlainString();
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid value '" + text + "' in object " + objects);
+                }
+        }
+    }
+
+    private String readString() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c < 0) throw new IOException("Unterminated string in object " + objects);
+            if (c == '"') return text.toString();
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            c = in.read();
+            switch (c) {
+                case 'b': text.append('\b'); break;
+                case 'f': text.append('\f'); break;
+                case 'n': text.append('\n'); break;
+                case 'r': text.append('\r'); break;
+                case 't': text.append('\t'); break;
+                case 'u':
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        int h = in.read();
+                        if (Character.digit(h, 16) < 0) throw new IOException("Invalid \\u escape in object " + objects);
+                        hex[i] = (char) h;
+                    }
+                    text.append((char) Integer.parseInt(new String(hex), 16));
+                    break;
+                default:
+                    if (c < 0) throw new IOException("Unterminated string in object " + objects);
+                    text.append((char) c); // \" \\ \/
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = in.read();
+        } while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+        return c;
+    }
+
+    private IOException error(String expected, int found) {
+        String what = found < 0 ? "end of file" : "'" + (char) found + "'";
+        return new IOException("Malformed JSON after object " + objects + ": " + expected + ", found " + what);
+    }
+}
@@ -0,0 +1,426 @@
+package Database;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports a supplier's vehicle feed (see {@link VehicleFeed}) into
+ * Vehicles. The calling thread parses the file and hands records to a few
+ * worker threads, which validate each one, resolve its category and
+ * supplier against lookup tables read once at the start, and insert the
+ * valid ones in batches of {@link #BATCH_SIZE}, one transaction per batch.
+ *
+ * A record that fails any check is reported with its position and skipped;
+ * the rest of the feed still goes in. Vehicles whose VIN is already in
+ * inventory, or repeats another record of the feed, are reported rather
+ * than inserted twice. Rows inserted before a cancellation or a malformed
+ * stretch of the file stay inserted.
+ *
+ * Fields, by header or JSON name: VIN, Make, Model, Year, Color, Mileage,
+ * Condition, PurchasePrice, ListPrice and Category are required;
+ * Supplier (an ID or a supplier name), DateAcquired (yyyy-mm-dd, default
+ * today) and Description are optional.
+ */
+public final class VehicleImport {
+    static final int BATCH_SIZE = 500;
+    // Kept well below the connection pool size, each worker holding one connection while it flushes
+    private static final int MAX_WORKERS = 4;
+    private static final int QUEUE_CAPACITY = 2_000;
+    private static final int PROGRESS_EVERY = 100;
+    // How long the parser waits on a full queue before checking whether the workers are still alive
+    private static final long OFFER_WAIT_MILLIS = 200;
+    // Errors kept for the report; further ones are only counted
+    private static final int MAX_REPORTED_ERRORS = 10_000;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99"); // DECIMAL(10, 2)
+    private static final int FIRST_MODEL_YEAR = 1900;
+
+    private static final VehicleFeed.Record END = new VehicleFeed.Record(-1, Map.of(), null);
+
+    /**
+     * Why the record at position (a CSV line, or a JSON object's index) was
+     * not imported. vin is as given in the feed, or null.
+     */
+    public record RowError(int position, String vin, String message) {
+    }
+
+    /**
+     * errors is sorted by position and holds at most MAX_REPORTED_ERRORS
+     * entries; failed counts them all.
+     */
+    public record Result(int read, int inserted, int failed, List<RowError> errors, boolean cancelled) {
+    }
+
+    /**
+     * Told how far an import has got, from the importing threads.
+     */
+    public interface Progress {
+        /**
+         * percentRead is how much of the file has been parsed, 0 to 100.
+         */
+        void rows(int read, int inserted, int failed, int percentRead);
+
+        boolean isCancelled();
+    }
+
+    private final Progress progress;
+    private final Integer defaultSupplierId;
+    private final Map<String, Integer> categories = new HashMap<>();
+    private final Map<String, Integer> suppliers = new HashMap<>();
+    private final Set<Integer> supplierIds;
+    private final Set<String> seenVins = ConcurrentHashMap.newKeySet();
+    private final Queue<RowError> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger read = new AtomicInteger();
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable workerFailure;
+    private CountingReader source;
+
+    private VehicleImport(Integer defaultSupplierId, Progress progress) throws SQLException {
+        this.progress = progress;
+        this.defaultSupplierId = defaultSupplierId;
+        for (Map.Entry<String, Integer> category : DBConnection.getCategoryIds().entrySet()) {
+            categories.put(VehicleFeed.key(category.getKey()), category.getValue());
+        }
+        Map<Integer, String> supplierNames = DBConnection.getSupplierNames();
+        supplierIds = supplierNames.keySet();
+        for (Map.Entry<Integer, String> supplier : supplierNames.entrySet()) {
+            // With duplicate names the lowest ID wins, so re-running an import links the same supplier
+            suppliers.merge(VehicleFeed.key(supplier.getValue()), supplier.getKey(), Math::min);
+        }
+        if (defaultSupplierId != null && !supplierIds.contains(defaultSupplierId)) {
+            throw new SQLException("Supplier not found: " + defaultSupplierId);
+        }
+    }
+
+    /**
+     * Imports the feed in file, read as UTF-8; a name ending in .json is
+     * read as JSON and anything else as CSV. Records without a supplier are
+     * linked to defaultSupplierId, which may be null.
+     *
+     * @throws SQLException if the lookup tables cannot be read or
+     *                      defaultSupplierId does not exist; nothing has been
+     *                      imported then
+     */
+    public static Result run(Path file, Integer defaultSupplierId, Progress progress) throws IOException, SQLException {
+        VehicleImport importer = new VehicleImport(defaultSupplierId, progress);
+        try (CountingReader reader = new CountingReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), Files.size(file))) {
+            importer.source = reader;
+            return importer.run(new VehicleFeed(reader, VehicleFeed.formatOf(file.getFileName().toString())));
+        }
+    }
+
+    private Result run(VehicleFeed feed) throws IOException {
+        int workers = Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+        BlockingQueue<VehicleFeed.Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "vehicle-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                running.add(executor.submit(() -> work(queue)));
+            }
+            try {
+                parse(feed, queue);
+            } finally {
+                int ends = 0;
+                while (ends < workers) {
+                    if (queue.offer(END, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        ends++;
+                    } else if (workerFailure != null) {
+                        // A dead worker takes nothing, so make room and send every marker again
+                        cancelled = true;
+                        queue.clear();
+                        ends = 0;
+                    }
+                }
+            }
+            for (Future<?> worker : running) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Import worker failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        progress.rows(read.get(), inserted.get(), failed.get(), 100);
+        List<RowError> report = new ArrayList<>(errors);
+        report.sort(Comparator.comparingInt(RowError::position));
+        return new Result(read.get(), inserted.get(), failed.get(), report, cancelled);
+    }
+
+    // Stage 1: parse, on the calling thread
+    private void parse(VehicleFeed feed, BlockingQueue<VehicleFeed.Record> queue) throws InterruptedException {
+        while (true) {
+            if (progress.isCancelled()) {
+                cancelled = true;
+                return;
+            }
+            VehicleFeed.Record record;
+            try {
+                record = feed.next();
+            } catch (IOException e) {
+                // The rest of the file cannot be split into records reliably
+                fail(feed.position(), null, e.getMessage());
+                return;
+            }
+            if (record == null) return;
+            while (!queue.offer(record, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (workerFailure != null) return; // reported by run() once the other workers stop
+                if (progress.isCancelled()) {
+                    cancelled = true;
+                    return;
+                }
+            }
+            if (read.incrementAndGet() % PROGRESS_EVERY == 0) {
+                progress.rows(read.get(), inserted.get(), failed.get(), source.percent());
+            }
+        }
+    }
+
+    // Stages 2-4: validate, resolve and insert, on each worker
+    private Void work(BlockingQueue<VehicleFeed.Record> queue) throws InterruptedException {
+        try {
+            List<ImportedVehicle> batch = new ArrayList<>(BATCH_SIZE);
+            while (true) {
+                VehicleFeed.Record record = queue.take();
+                if (record == END) break;
+                if (cancelled) continue; // drain without importing
+                ImportedVehicle vehicle;
+                try {
+                    vehicle = validate(record);
+                } catch (RuntimeException e) {
+                    // Keep the worker alive so the parser never blocks on a full queue
+                    fail(record.position(), record.get("vin"), "Unexpected error: " + e);
+                    continue;
+                }
+                if (vehicle != null) {
+                    batch.add(vehicle);
+                    if (batch.size() == BATCH_SIZE) {
+                        flush(batch);
+                    }
+                }
+            }
+            flush(batch);
+            return null;
+        } catch (RuntimeException | Error e) {
+            // Lets the parser stop instead of waiting on a queue nobody empties
+            workerFailure = e;
+            throw e;
+        }
+    }
+
+    private void flush(List<ImportedVehicle> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            String[] problems = DBConnection.insertImportedVehicles(batch);
+            for (int i = 0; i < problems.length; i++) {
+                if (problems[i] == null) {
+                    inserted.incrementAndGet();
+                } else {
+                    fail(batch.get(i).position(), batch.get(i).vin(), problems[i]);
+                }
+            }
+        } catch (SQLException e) {
+            for (ImportedVehicle vehicle : batch) {
+                fail(vehicle.position(), vehicle.vin(), "Not saved: " + e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            // For example a value the batch binder cannot convert; the worker carries on with the next batch
+            for (ImportedVehicle vehicle : batch) {
+                fail(vehicle.position(), vehicle.vin(), "Not saved, unexpected error: " + e);
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * The record as a vehicle ready to insert, or null after reporting why
+     * it cannot be imported.
+     */
+    private ImportedVehicle validate(VehicleFeed.Record record) {
+        String vin = Vin.normalize(record.get("vin"));
+        try {
+            if (record.problem() != null) throw new IllegalArgumentException(record.problem());
+            String vinProblem = Vin.problem(vin);
+            if (vinProblem != null) throw new IllegalArgumentException(vinProblem);
+
+            String make = text(record, "make", 50);
+            String model = text(record, "model", 50);
+            String color = text(record, "color", 30);
+            String condition = text(record, "condition", 20);
+            int year = integer(record, "year");
+            int latestYear = LocalDate.now().getYear() + 1;
+            if (year < FIRST_MODEL_YEAR || year > latestYear) {
+                throw new IllegalArgumentException("Year must be between " + FIRST_MODEL_YEAR + " and " + latestYear);
+            }
+            int mileage = integer(record, "mileage");
+            if (mileage < 0) throw new IllegalArgumentException("Mileage cannot be negative");
+            BigDecimal purchasePrice = price(record, "purchaseprice");
+            BigDecimal listPrice = price(record, "listprice");
+            int categoryId = category(record);
+            Integer supplierId = supplier(record);
+            LocalDate acquired = dateAcquired(record);
+            String description = record.get("description");
+
+            if (!seenVins.add(vin)) throw new IllegalArgumentException("VIN repeats another record of the feed");
+            return new ImportedVehicle(record.position(), vin, make, model, year, color, mileage, condition,
+                    purchasePrice, listPrice, categoryId, supplierId, acquired, description);
+        } catch (IllegalArgumentException e) {
+            fail(record.position(), vin, e.getMessage());
+            return null;
+        }
+    }
+
+    private int category(VehicleFeed.Record record) {
+        String name = required(record, "category");
+        Integer id = categories.get(VehicleFeed.key(name));
+        if (id == null) throw new IllegalArgumentException("Unknown category: " + name);
+        return id;
+    }
+
+    private Integer supplier(VehicleFeed.Record record) {
+        String supplier = record.get("supplier");
+        if (supplier == null) supplier = record.get("supplierid");
+        if (supplier == null) return defaultSupplierId;
+        Integer id = suppliers.get(VehicleFeed.key(supplier));
+        if (id == null && supplier.chars().allMatch(Character::isDigit) && supplier.length() < 10) {
+            int number = Integer.parseInt(supplier);
+            if (supplierIds.contains(number)) id = number;
+        }
+        if (id == null) throw new IllegalArgumentException("Unknown supplier: " + supplier);
+        return id;
+    }
+
+    private static LocalDate dateAcquired(VehicleFeed.Record record) {
+        String date = record.get("dateacquired");
+        if (date == null) return LocalDate.now();
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("DateAcquired must be yyyy-mm-dd: " + date);
+        }
+    }
+
+    private static String required(VehicleFeed.Record record, String field) {
+        String value = record.get(field);
+        if (value == null) throw new IllegalArgumentException(label(field) + " is missing");
+        return value;
+    }
+
+    private static String text(VehicleFeed.Record record, String field, int maxLength) {
+        String value = required(record, field);
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(label(field) + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static int integer(VehicleFeed.Record record, String field) {
+        String value = required(record, field).replace(",", "");
+        try {
+            return new BigDecimal(value).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException(label(field) + " is not a whole number: " + value);
+        }
+    }
+
+    private static BigDecimal price(VehicleFeed.Record record, String field) {
+        String value = required(record, field).replace(",", "").replace("$", "");
+        BigDecimal price;
+        try {
+            price = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label(field) + " is not a number: " + value);
+        }
+        if (price.signum() <= 0) throw new IllegalArgumentException(label(field) + " must be positive");
+        if (price.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException(label(field) + " has more than two decimal places: " + value);
+        }
+        if (price.compareTo(MAX_PRICE) > 0) throw new IllegalArgumentException(label(field) + " is too large: " + value);
+        return price.setScale(2);
+    }
+
+    private static String label(String field) {
+        switch (field) {
+            case "purchaseprice": return "PurchasePrice";
+            case "listprice": return "ListPrice";
+            case "dateacquired": return "DateAcquired";
+            default: return Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        }
+    }
+
+    private void fail(int position, String vin, String message) {
+        if (failed.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(position, vin, message));
+        }
+    }
+
+    /**
+     * Counts the characters read so far, to estimate how much of the file
+     * is done. Characters and bytes only match for ASCII, which is close
+     * enough for a progress bar.
+     */
+    private static final class CountingReader extends FilterReader {
+        private final long size;
+        private volatile long count;
+
+        CountingReader(Reader in, long size) {
+            super(in);
+            this.size = Math.max(1, size);
+        }
+
+        int percent() {
+            return (int) Math.min(100, count * 100 / size);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) count++;
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
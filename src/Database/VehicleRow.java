@@ -0,0 +1,30 @@
+package Database;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One vehicle as listed by the inventory queries, with its category name joined in.
+ */
+public record VehicleRow(int vehicleId, String vin, String make, String model, int year, String color,
+                         int mileage, String condition, BigDecimal purchasePrice, BigDecimal listPrice,
+                         String status, String categoryName) {
+
+    static VehicleRow from(ResultSet rs) throws SQLException {
+        return new VehicleRow(
+                rs.getInt("VehicleID"),
+                rs.getString("VIN"),
+                rs.getString("Make"),
+                rs.getString("Model"),
+                rs.getInt("Year"),
+                rs.getString("Color"),
+                rs.getInt("Mileage"),
+                rs.getString("Condition"),
+                rs.getBigDecimal("PurchasePrice"),
+                rs.getBigDecimal("ListPrice"),
+                rs.getString("Status"),
+                rs.getString("CategoryName")
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package Database;
+
+/**
+ * Vehicle identification number checks. A VIN is 17 characters from the
+ * digits and the letters other than I, O and Q. For vehicles built for North
+ * America, whose VINs start with 1 to 5, the ninth is a check digit computed
+ * from the other sixteen (49 CFR 565); ISO 3779 does not require one, so
+ * European and most Asian VINs carry something else there.
+ */
+public final class Vin {
+    public static final int LENGTH = 17;
+    private static final int[] WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+    // Letter values by position in the alphabet; '.' marks I, O and Q, which never appear
+    private static final String LETTER_VALUES = "12345678.12345.7.923456789";
+
+    private Vin() {
+    }
+
+    /**
+     * The VIN as stored: trimmed and upper case, or null for null.
+     */
+    public static String normalize(String vin) {
+        return vin == null ? null : vin.trim().toUpperCase();
+    }
+
+    /**
+     * Why vin is not a valid VIN, or null if it is. The check digit is only
+     * checked where {@link #requiresCheckDigit} says it applies. vin should
+     * already be normalized.
+     */
+    public static String problem(String vin) {
+        if (vin == null || vin.isEmpty()) return "VIN is missing";
+        if (vin.length() != LENGTH) return "VIN must be " + LENGTH + " characters, not " + vin.length();
+        for (int i = 0; i < LENGTH; i++) {
+            if (value(vin.charAt(i)) < 0) return "VIN contains invalid character '" + vin.charAt(i) + "'";
+        }
+        if (requiresCheckDigit(vin)) {
+            char expected = checkDigit(vin);
+            if (vin.charAt(8) != expected) return "VIN check digit is " + vin.charAt(8) + ", expected " + expected;
+        }
+        return null;
+    }
+
+    /**
+     * Whether the ninth character of vin must be its check digit: true for
+     * the North American world manufacturer identifiers, which start with 1
+     * to 5.
+     */
+    public static boolean requiresCheckDigit(CharSequence vin) {
+        char region = vin.charAt(0);
+        return region >= '1' && region <= '5';
+    }
+
+    public static boolean isValid(String vin) {
+        return problem(vin) == null;
+    }
+
+    /**
+     * The check digit for a 17-character VIN, '0'-'9' or 'X'. Whatever is
+     * in the ninth position is ignored.
+     */
+    public static char checkDigit(CharSequence vin) {
+        int sum = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            sum += Math.max(0, value(vin.charAt(i))) * WEIGHTS[i];
+        }
+        int check = sum % 11;
+        return check == 10 ? 'X' : (char) ('0' + check);
+    }
+
+    // Transliterated value of a VIN character, or -1 if it may not appear in one
+    private static int value(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c < 'A' || c > 'Z') return -1;
+        char value = LETTER_VALUES.charAt(c - 'A');
+        return value == '.' ? -1 : value - '0';
+    }
+}
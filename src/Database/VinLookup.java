@@ -0,0 +1,66 @@
+package Database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds vehicles by full or partial VIN, as typed or scanned on the lot.
+ * Lookups are answered from {@link InventoryIndex} when it is loaded and
+ * from the indexed VIN columns otherwise; neither path scans Vehicles. The
+ * index is refreshed first, which reads at most the vehicles changed since
+ * the last refresh, so stock added here is found at once and stock added
+ * elsewhere within a couple of seconds.
+ */
+public final class VinLookup {
+    /** Shortest partial VIN worth suggesting for. */
+    public static final int MIN_CHARS = 3;
+
+    private VinLookup() {
+    }
+
+    /**
+     * The vehicle with exactly this VIN, ignoring case and surrounding
+     * spaces, or null.
+     */
+    public static VehicleRow find(String vin) throws SQLException {
+        InventoryIndex inventory = InventoryIndex.getInstance();
+        if (!inventory.isLoaded()) {
+            return DBConnection.getVehicleByVin(vin);
+        }
+        inventory.refresh();
+        VehicleRow row = inventory.getByVin(vin);
+        // A vehicle written after the refresh read its changes is still found
+        return row != null ? row : DBConnection.getVehicleByVin(vin);
+    }
+
+    /**
+     * Up to limit vehicles whose VIN starts with the typed text, followed by
+     * those whose VIN ends with it. Empty for text shorter than MIN_CHARS or
+     * with characters no VIN has.
+     */
+    public static List<VehicleRow> suggest(String typed, int limit) throws SQLException {
+        String text = Vin.normalize(typed);
+        if (text == null || text.length() < MIN_CHARS || !VinTrie.accepts(text)) return new ArrayList<>();
+
+        InventoryIndex inventory = InventoryIndex.getInstance();
+        if (!inventory.isLoaded()) {
+            List<VehicleRow> rows = DBConnection.findVehiclesByVin(text, limit);
+            return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        }
+
+        inventory.refresh();
+        List<VehicleRow> result = new ArrayList<>(inventory.vinStartingWith(text, limit));
+        Set<Integer> seen = new HashSet<>();
+        for (VehicleRow row : result) {
+            seen.add(row.vehicleId());
+        }
+        for (VehicleRow row : inventory.vinEndingWith(text, limit)) {
+            if (result.size() >= limit) break;
+            if (seen.add(row.vehicleId())) result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,313 @@
+package Database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact prefix index over VIN-like keys: up to 17 characters from 0-9 and
+ * A-Z, each mapped to one ID. It is a burst trie: the first two characters
+ * pick one of 37 x 37 buckets, and each bucket holds the rest of its keys
+ * packed six bits a character into a long and an int, sorted. A key costs
+ * 16 bytes however many there are, a lookup is a bucket index plus a binary
+ * search, and every key with a given prefix is one contiguous run.
+ *
+ * put() shifts its bucket to keep it sorted, so filling a trie key by key
+ * costs time quadratic in the bucket sizes; putAll() sorts each bucket's new
+ * keys once and merges them in, and is the way to load many keys.
+ *
+ * Not thread-safe; owners guard it with their own lock.
+ */
+final class VinTrie {
+    static final int MAX_LENGTH = 17;
+    // Character codes: 0 ends a shorter key, 1-10 are '0'-'9', 11-36 are 'A'-'Z'
+    private static final int RADIX = 37;
+    private static final int HIGHEST_CODE = 63;
+    private static final int HI_CHARS = 10;
+    private static final int LO_CHARS = 5;
+
+    record Match(String key, int id) {
+    }
+
+    private final Bucket[] buckets = new Bucket[RADIX * RADIX];
+    private int size;
+
+    /**
+     * Whether key can be stored: 1 to 17 characters, digits and upper case
+     * letters only.
+     */
+    static boolean accepts(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_LENGTH) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (code(key.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(buckets, null);
+        size = 0;
+    }
+
+    /**
+     * Maps key to id, replacing what it mapped to before. key must be
+     * accepted.
+     */
+    void put(String key, int id) {
+        int b = bucketOf(key);
+        Bucket bucket = buckets[b];
+        if (bucket == null) bucket = buckets[b] = new Bucket();
+        if (bucket.put(hi(key, 0), lo(key, 0), id)) size++;
+    }
+
+    /**
+     * Maps keys[i] to ids[i] for each i, as put() would in that order, so a
+     * later duplicate wins. Every key must be accepted.
+     */
+    void putAll(List<String> keys, int[] ids) {
+        int count = keys.size();
+        int[] bucketOf = new int[count];
+        int[] starts = new int[buckets.length + 1];
+        for (int i = 0; i < count; i++) {
+            bucketOf[i] = bucketOf(keys.get(i));
+            starts[bucketOf[i] + 1]++;
+        }
+        for (int b = 0; b < buckets.length; b++) {
+            starts[b + 1] += starts[b];
+        }
+        // Counting sort by bucket, keeping the keys' order within each
+        int[] byBucket = new int[count];
+        int[] next = Arrays.copyOf(starts, buckets.length);
+        for (int i = 0; i < count; i++) {
+            byBucket[next[bucketOf[i]]++] = i;
+        }
+        for (int b = 0; b < buckets.length; b++) {
+            int n = starts[b + 1] - starts[b];
+            if (n == 0) continue;
+            long[] h = new long[n];
+            int[] l = new int[n];
+            int[] id = new int[n];
+            for (int j = 0; j < n; j++) {
+                int i = byBucket[starts[b] + j];
+                String key = keys.get(i);
+                h[j] = hi(key, 0);
+                l[j] = lo(key, 0);
+                id[j] = ids[i];
+            }
+            Bucket bucket = buckets[b];
+            if (bucket == null) bucket = buckets[b] = new Bucket();
+            size += bucket.putAll(h, l, id);
+        }
+    }
+
+    /**
+     * Removes key if it maps to id, and leaves it alone if it was reused
+     * for another ID in the meantime.
+     */
+    void remove(String key, int id) {
+        if (!accepts(key)) return;
+        Bucket bucket = buckets[bucketOf(key)];
+        if (bucket != null && bucket.remove(hi(key, 0), lo(key, 0), id)) size--;
+    }
+
+    /**
+     * The ID key maps to, or -1.
+     */
+    int get(String key) {
+        if (!accepts(key)) return -1;
+        Bucket bucket = buckets[bucketOf(key)];
+        if (bucket == null) return -1;
+        int i = bucket.find(hi(key, 0), lo(key, 0));
+        return i >= 0 ? bucket.ids[i] : -1;
+    }
+
+    /**
+     * Up to limit keys starting with prefix, in key order.
+     */
+    List<Match> withPrefix(String prefix, int limit) {
+        List<Match> matches = new ArrayList<>();
+        if (!accepts(prefix) || limit <= 0) return matches;
+        int first = code(prefix.charAt(0)) * RADIX;
+        int from = prefix.length() == 1 ? first : first + code(prefix.charAt(1));
+        int to = prefix.length() == 1 ? first + RADIX - 1 : from;
+        long lowHi = hi(prefix, 0);
+        int lowLo = lo(prefix, 0);
+        long highHi = hi(prefix, HIGHEST_CODE);
+        int highLo = lo(prefix, HIGHEST_CODE);
+        for (int b = from; b <= to && matches.size() < limit; b++) {
+            Bucket bucket = buckets[b];
+            if (bucket == null) continue;
+            int start = insertionPoint(bucket.find(lowHi, lowLo));
+            int end = insertionPoint(bucket.find(highHi, highLo));
+            for (int i = start; i < end && matches.size() < limit; i++) {
+                matches.add(new Match(decode(b, bucket.hi[i], bucket.lo[i]), bucket.ids[i]));
+            }
+        }
+        return matches;
+    }
+
+    private static int insertionPoint(int found) {
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private static int code(char c) {
+        if (c >= '0' && c <= '9') return 1 + (c - '0');
+        if (c >= 'A' && c <= 'Z') return 11 + (c - 'A');
+        return -1;
+    }
+
+    private static char character(int code) {
+        return code <= 10 ? (char) ('0' + code - 1) : (char) ('A' + code - 11);
+    }
+
+    private static int bucketOf(String key) {
+        return code(key.charAt(0)) * RADIX + (key.length() > 1 ? code(key.charAt(1)) : 0);
+    }
+
+    // Characters 2-11, six bits each; pad stands in for characters past the end of key
+    private static long hi(String key, int pad) {
+        long packed = 0;
+        for (int i = 2; i < 2 + HI_CHARS; i++) {
+            packed = packed << 6 | (i < key.length() ? code(key.charAt(i)) : pad);
+        }
+        return packed;
+    }
+
+    // Characters 12-16
+    private static int lo(String key, int pad) {
+        int packed = 0;
+        for (int i = 2 + HI_CHARS; i < MAX_LENGTH; i++) {
+            packed = packed << 6 | (i < key.length() ? code(key.charAt(i)) : pad);
+        }
+        return packed;
+    }
+
+    private static String decode(int bucket, long hi, int lo) {
+        StringBuilder key = new StringBuilder(MAX_LENGTH);
+        key.append(character(bucket / RADIX));
+        if (bucket % RADIX == 0) return key.toString();
+        key.append(character(bucket % RADIX));
+        for (int shift = 6 * (HI_CHARS - 1); shift >= 0; shift -= 6) {
+            int code = (int) (hi >>> shift) & HIGHEST_CODE;
+            if (code == 0) return key.toString();
+            key.append(character(code));
+        }
+        for (int shift = 6 * (LO_CHARS - 1); shift >= 0; shift -= 6) {
+            int code = lo >>> shift & HIGHEST_CODE;
+            if (code == 0) return key.toString();
+            key.append(character(code));
+        }
+        return key.toString();
+    }
+
+    /**
+     * The keys sharing their first two characters, as parallel arrays sorted
+     * by (hi, lo). Both halves stay below 2^60 and 2^30, so signed
+     * comparison orders them correctly.
+     */
+    private static final class Bucket {
+        long[] hi = new long[4];
+        int[] lo = new int[4];
+        int[] ids = new int[4];
+        int size;
+
+        int find(long h, int l) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = hi[mid] != h ? Long.compare(hi[mid], h) : Integer.compare(lo[mid], l);
+                if (cmp < 0) low = mid + 1;
+                else if (cmp > 0) high = mid - 1;
+                else return mid;
+            }
+            return -(low + 1);
+        }
+
+        // true if the key is new
+        boolean put(long h, int l, int id) {
+            int i = find(h, l);
+            if (i >= 0) {
+                ids[i] = id;
+                return false;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                hi = Arrays.copyOf(hi, capacity);
+                lo = Arrays.copyOf(lo, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            System.arraycopy(hi, i, hi, i + 1, size - i);
+            System.arraycopy(lo, i, lo, i + 1, size - i);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            hi[i] = h;
+            lo[i] = l;
+            ids[i] = id;
+            size++;
+            return true;
+        }
+
+        // Merges in the given keys, unsorted and possibly repeated; returns how many were new
+        int putAll(long[] h, int[] l, int[] id) {
+            int n = id.length;
+            Integer[] order = new Integer[n];
+            for (int j = 0; j < n; j++) {
+                order[j] = j;
+            }
+            // Stable, so the last of equal keys stays last
+            Arrays.sort(order, (a, b) -> h[a] != h[b] ? Long.compare(h[a], h[b]) : Integer.compare(l[a], l[b]));
+
+            long[] mergedHi = new long[size + n];
+            int[] mergedLo = new int[size + n];
+            int[] mergedIds = new int[size + n];
+            int added = 0;
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < size || j < n) {
+                if (j + 1 < n && h[order[j]] == h[order[j + 1]] && l[order[j]] == l[order[j + 1]]) {
+                    j++; // superseded by a later duplicate
+                    continue;
+                }
+                int cmp;
+                if (j == n) cmp = -1;
+                else if (i == size) cmp = 1;
+                else cmp = hi[i] != h[order[j]] ? Long.compare(hi[i], h[order[j]]) : Integer.compare(lo[i], l[order[j]]);
+                if (cmp < 0) {
+                    mergedHi[k] = hi[i];
+                    mergedLo[k] = lo[i];
+                    mergedIds[k] = ids[i];
+                    i++;
+                } else {
+                    int o = order[j++];
+                    mergedHi[k] = h[o];
+                    mergedLo[k] = l[o];
+                    mergedIds[k] = id[o];
+                    if (cmp == 0) i++;
+                    else added++;
+                }
+                k++;
+            }
+            hi = mergedHi;
+            lo = mergedLo;
+            ids = mergedIds;
+            size = k;
+            return added;
+        }
+
+        boolean remove(long h, int l, int id) {
+            int i = find(h, l);
+            if (i < 0 || ids[i] != id) return false;
+            System.arraycopy(hi, i + 1, hi, i, size - i - 1);
+            System.arraycopy(lo, i + 1, lo, i, size - i - 1);
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package Database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal Office Open XML workbook written straight into a zip stream, so a
+ * spreadsheet of any length is produced in constant memory without a
+ * spreadsheet library. Text goes in inline strings rather than a shared
+ * string table, numbers and booleans as typed cells, and dates as serial
+ * numbers with a date format. A sheet holds at most Excel's 1,048,576 rows;
+ * longer exports continue on further sheets, each repeating the header.
+ */
+final class XlsxSheetWriter implements SheetWriter {
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+    private static final LocalDateTime EXCEL_EPOCH = LocalDateTime.of(1899, 12, 30, 0, 0);
+    // Cell styles defined in styles.xml: 0 general, 1 date, 2 date and time
+    private static final int DATE_STYLE = 1;
+    private static final int DATE_TIME_STYLE = 2;
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final String sheetName;
+    private String[] header;
+    private int sheets;
+    private int rowsInSheet;
+
+    XlsxSheetWriter(OutputStream stream, String sheetName) {
+        this.zip = new ZipOutputStream(stream, StandardCharsets.UTF_8);
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public void header(String[] names) throws IOException {
+        header = names.clone();
+        startSheet();
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        if (sheets == 0 || rowsInSheet == MAX_ROWS_PER_SHEET) {
+            if (sheets > 0) endSheet();
+            startSheet();
+        }
+        writeRow(values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sheets == 0) startSheet();
+        endSheet();
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+                </Relationships>""");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels());
+        writeEntry("xl/styles.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <styleSheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+                <numFmts count="1"><numFmt numFmtId="164" formatCode="yyyy-mm-dd hh:mm:ss"/></numFmts>\
+                <fonts count="2"><font><sz val="11"/><name val="Calibri"/></font><font><b/><sz val="11"/><name val="Calibri"/></font></fonts>\
+                <fills count="2"><fill><patternFill patternType="none"/></fill><fill><patternFill patternType="gray125"/></fill></fills>\
+                <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>\
+                <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>\
+                <cellXfs count="4"><xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/>\
+                <xf numFmtId="14" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+                <xf numFmtId="164" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+                <xf numFmtId="0" fontId="1" fillId="0" borderId="0" xfId="0" applyFont="1"/></cellXfs>\
+                </styleSheet>""");
+        out.flush();
+        zip.finish();
+    }
+
+    private void startSheet() throws IOException {
+        sheets++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+        // Keep the header in view while scrolling
+        out.write("<sheetViews><sheetView workbookViewId=\"0\"><pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/></sheetView></sheetViews>");
+        out.write("<sheetData>");
+        if (header != null) {
+            out.write("<row>");
+            for (String name : header) {
+                out.write("<c t=\"inlineStr\" s=\"3\"><is><t>");
+                escape(name);
+                out.write("</t></is></c>");
+            }
+            out.write("</row>");
+            rowsInSheet++;
+        }
+    }
+
+    private void endSheet() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void writeRow(Object[] values) throws IOException {
+        out.write("<row>");
+        for (Object value : values) {
+            writeCell(value);
+        }
+        out.write("</row>");
+        rowsInSheet++;
+    }
+
+    private void writeCell(Object value) throws IOException {
+        if (value == null) {
+            out.write("<c/>");
+        } else if (value instanceof BigDecimal) {
+            out.write("<c><v>");
+            out.write(((BigDecimal) value).toPlainString());
+            out.write("</v></c>");
+        } else if (value instanceof Number) {
+            out.write("<c><v>");
+            out.write(value.toString());
+            out.write("</v></c>");
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? "<c t=\"b\"><v>1</v></c>" : "<c t=\"b\"><v>0</v></c>");
+        } else if (value instanceof Timestamp) {
+            writeDate(((Timestamp) value).toLocalDateTime(), DATE_TIME_STYLE);
+        } else if (value instanceof java.sql.Date) {
+            writeDate(((java.sql.Date) value).toLocalDate().atStartOfDay(), DATE_STYLE);
+        } else if (value instanceof LocalDateTime) {
+            writeDate((LocalDateTime) value, DATE_TIME_STYLE);
+        } else if (value instanceof LocalDate) {
+            writeDate(((LocalDate) value).atStartOfDay(), DATE_STYLE);
+        } else {
+            out.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            escape(value.toString());
+            out.write("</t></is></c>");
+        }
+    }
+
+    // Days since 1899-12-30, the fraction being the time of day
+    private void writeDate(LocalDateTime time, int style) throws IOException {
+        double serial = ChronoUnit.MILLIS.between(EXCEL_EPOCH, time) / 86_400_000d;
+        out.write("<c s=\"" + style + "\"><v>");
+        out.write(Double.toString(serial));
+        out.write("</v></c>");
+    }
+
+    // Characters XML 1.0 cannot carry at all are dropped
+    private void escape(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': out.write("&amp;"); break;
+                case '<': out.write("&lt;"); break;
+                case '>': out.write("&gt;"); break;
+                case '"': out.write("&quot;"); break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') out.write(c);
+            }
+        }
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 1; i <= sheets; i++) {
+            String name = sheets == 1 ? sheetName : sheetName + " " + i;
+            xml.append("<sheet name=\"").append(name.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;"))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheets + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Minimal micro-benchmark harness: runs an operation for a number of warmup
+ * calls, then times each measured call individually so both throughput and
+ * tail latency can be reported. Operations run one at a time on the calling
+ * thread, which is what a single Swing client does against the database.
+ */
+final class Bench {
+    private final int warmupOps;
+    private final int measuredOps;
+
+    /**
+     * One call of the operation under test. i counts up from 0 across warmup
+     * and measurement, so operations can pick distinct rows.
+     */
+    interface Op {
+        void run(int i) throws Exception;
+    }
+
+    Bench(int warmupOps, int measuredOps) {
+        this.warmupOps = warmupOps;
+        this.measuredOps = measuredOps;
+    }
+
+    Result run(String name, Op op) throws Exception {
+        return run(name, null, op);
+    }
+
+    /**
+     * Like {@link #run(String, Op)}, calling setup before each op outside the
+     * timed region, for operations that consume a row (confirming an order).
+     */
+    Result run(String name, Op setup, Op op) throws Exception {
+        int i = 0;
+        for (int w = 0; w < warmupOps; w++, i++) {
+            if (setup != null) setup.run(i);
+            op.run(i);
+        }
+        long[] samples = new long[measuredOps];
+        long totalNanos = 0;
+        for (int m = 0; m < measuredOps; m++, i++) {
+            if (setup != null) setup.run(i);
+            long start = System.nanoTime();
+            op.run(i);
+            samples[m] = System.nanoTime() - start;
+            totalNanos += samples[m];
+        }
+        Arrays.sort(samples);
+        return new Result(name, measuredOps, totalNanos, samples);
+    }
+
+    static final class Result {
+        final String name;
+        final int ops;
+        final double opsPerSecond;
+        final double p50Millis;
+        final double p99Millis;
+        final double maxMillis;
+
+        private Result(String name, int ops, long totalNanos, long[] sortedSamples) {
+            this.name = name;
+            this.ops = ops;
+            this.opsPerSecond = totalNanos == 0 ? 0 : ops / (totalNanos / 1_000_000_000.0);
+            this.p50Millis = percentile(sortedSamples, 0.50);
+            this.p99Millis = percentile(sortedSamples, 0.99);
+            this.maxMillis = sortedSamples.length == 0 ? 0 : sortedSamples[sortedSamples.length - 1] / 1_000_000.0;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s %8d ops %12.2f ops/s  p50 %9.3f ms  p99 %9.3f ms  max %9.3f ms",
+                    name, ops, opsPerSecond, p50Millis, p99Millis, maxMillis);
+        }
+    }
+}
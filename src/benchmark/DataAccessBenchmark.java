@@ -0,0 +1,144 @@
+package benchmark;
+
+import Database.DBConnection;
+import Database.InvoiceSequence;
+import Database.OrderReservation;
+import Database.ReferenceData;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times the DBConnection calls behind the busiest screens (getAllVehicles,
+ * searchVehicles, getPendingOrders, confirmOrder and addCustomer) at several
+ * inventory sizes and prints throughput and p50/p99 latency for each.
+ *
+ * The benchmark empties and reseeds the tables it touches, so it refuses to
+ * run unless -Dbench.db names the database the pool is connected to. Point
+ * the pool at a scratch copy of the schema with -Ddb.config=bench.properties.
+ *
+ * Options (system properties):
+ *   bench.db       required, name of the scratch database
+ *   bench.sizes    vehicle counts to test, default 1000,100000,1000000
+ *   bench.warmup   warmup calls per operation, default 10
+ *   bench.ops      measured calls per operation, default 50
+ */
+public class DataAccessBenchmark {
+    private static final String[] SEARCHES = {"Toy", "Civic", "Ford Fo", "bmw", "Spor"};
+
+    public static void main(String[] args) throws Exception {
+        String database = System.getProperty("bench.db");
+        int[] sizes = parseSizes(System.getProperty("bench.sizes", "1000,100000,1000000"));
+        int warmup = Integer.getInteger("bench.warmup", 10);
+        int ops = Integer.getInteger("bench.ops", 50);
+
+        DataGenerator.requireDatabase(database, "bench.db");
+        Bench bench = new Bench(warmup, ops);
+        try {
+            for (int size : sizes) {
+                System.out.println("== " + size + " vehicles ==");
+                long seedStart = System.nanoTime();
+                Fixture fixture = seed(size, warmup + ops);
+                System.out.printf("seeded in %.1f s%n", (System.nanoTime() - seedStart) / 1_000_000_000.0);
+
+                List<Bench.Result> results = new ArrayList<>();
+                results.add(bench.run("getAllVehicles", i -> DBConnection.getAllVehicles()));
+                results.add(bench.run("searchVehicles", i -> DBConnection.searchVehicles(SEARCHES[i % SEARCHES.length])));
+                results.add(bench.run("getPendingOrders", i -> DBConnection.getPendingOrders()));
+                int[] pendingSale = new int[1];
+                results.add(bench.run("confirmOrder",
+                        i -> pendingSale[0] = placePendingOrder(fixture, i),
+                        i -> check(DBConnection.confirmOrder(pendingSale[0], fixture.employeeId), "confirmOrder " + pendingSale[0])));
+                results.add(bench.run("addCustomer", i -> check(DBConnection.addCustomer("Bench", "Customer" + i,
+                        "bench" + size + "." + i + "@example.com", "555-0100", "", "", "", "", null), "addCustomer " + i)));
+
+                for (Bench.Result result : results) {
+                    System.out.println(result);
+                }
+            }
+        } finally {
+            DBConnection.shutdownPool();
+        }
+    }
+
+    private static final class Fixture {
+        int employeeId;
+        int[] customerIds;
+        int[] availableVehicleIds;
+    }
+
+    // Empties the tables and refills them with the data generator, scaled to the vehicle count
+    private static Fixture seed(int vehicles, int ordersNeeded) throws SQLException {
+        DataGenerator.Config config = new DataGenerator.Config();
+        config.seed = vehicles;
+        config.vehicles = vehicles;
+        config.customers = Math.max(1_000, vehicles / 10);
+        config.services = vehicles / 5;
+        config.testDrives = vehicles / 20;
+
+        Fixture fixture = new Fixture();
+        try (Connection conn = DBConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM TestDrives");
+                stmt.executeUpdate("DELETE FROM ServiceDepartment");
+                stmt.executeUpdate("DELETE FROM Sales");
+                stmt.executeUpdate("DELETE FROM Vehicles");
+                stmt.executeUpdate("DELETE FROM Suppliers");
+                stmt.executeUpdate("DELETE FROM Customers");
+                stmt.executeUpdate("DELETE FROM Employees");
+                stmt.executeUpdate("DELETE FROM Users");
+            }
+            new DataGenerator(config).generate(conn);
+            ReferenceData.getInstance().invalidateAll();
+
+            fixture.employeeId = ids(conn, "SELECT TOP 1 EmployeeID FROM Employees ORDER BY EmployeeID", 1)[0];
+            fixture.customerIds = ids(conn, "SELECT TOP 100 CustomerID FROM Customers ORDER BY CustomerID", 100);
+            fixture.availableVehicleIds = ids(conn, "SELECT TOP " + ordersNeeded + " VehicleID FROM Vehicles WHERE Status = 'Available' ORDER BY VehicleID", ordersNeeded);
+        }
+        return fixture;
+    }
+
+    private static int placePendingOrder(Fixture fixture, int i) throws SQLException {
+        int vehicleId = fixture.availableVehicleIds[i];
+        int customerId = fixture.customerIds[i % fixture.customerIds.length];
+        OrderReservation reservation = DBConnection.reserveAndPlaceOrder(vehicleId, customerId,
+                LocalDate.now().toString(), 20_000, 1_600, InvoiceSequence.getInstance().next());
+        if (!reservation.isPlaced()) {
+            throw new IllegalStateException("Could not place order for vehicle " + vehicleId + ": " + reservation.outcome());
+        }
+        return reservation.saleId();
+    }
+
+    private static int[] ids(Connection conn, String sql, int expected) throws SQLException {
+        int[] ids = new int[expected];
+        int count = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next() && count < expected) {
+                ids[count++] = rs.getInt(1);
+            }
+        }
+        if (count < expected) {
+            throw new IllegalStateException("Seeded data has only " + count + " rows for: " + sql);
+        }
+        return ids;
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException(what + " failed");
+    }
+
+    private static int[] parseSizes(String sizes) {
+        String[] parts = sizes.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+}
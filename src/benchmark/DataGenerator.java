@@ -0,0 +1,672 @@
+package benchmark;
+
+import Database.DBConnection;
+import Database.Vin;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the schema with synthetic dealership data at whatever scale a load
+ * test needs. Rows are streamed table by table in foreign key order (Users,
+ * Employees, Customers, VehicleCategories, Suppliers, Vehicles, Sales,
+ * ServiceDepartment, TestDrives) with JDBC batches.
+ *
+ * The same seed and config always produce the same rows; only the identity
+ * values depend on what is already in the database. Data is skewed the way a
+ * real lot is: a few makes dominate the inventory, some customers buy again
+ * and again, and sales follow the season (spring and December peaks,
+ * Saturdays busiest). Generated usernames and emails carry the seed, so a
+ * second run needs a different seed or an empty database.
+ *
+ * Generated IDs are read back by range after each table, so nothing else
+ * should write to the database while the generator runs.
+ */
+public class DataGenerator {
+    private static final String[][] MAKES = {
+            // make, then model:category:base price pairs
+            {"Toyota", "Corolla:Sedan:24000", "Camry:Sedan:29000", "RAV4:SUV:31000", "Tacoma:Truck:36000", "Highlander:SUV:41000"},
+            {"Honda", "Civic:Sedan:25000", "Accord:Sedan:30000", "CR-V:SUV:32000", "Pilot:SUV:42000", "Fit:Hatchback:19000"},
+            {"Ford", "F-150:Truck:45000", "Escape:SUV:30000", "Mustang:Coupe:38000", "Explorer:SUV:40000", "Focus:Hatchback:21000"},
+            {"Chevrolet", "Silverado:Truck:44000", "Equinox:SUV:29000", "Malibu:Sedan:26000", "Camaro:Coupe:37000", "Tahoe:SUV:58000"},
+            {"Nissan", "Altima:Sedan:27000", "Rogue:SUV:30000", "Sentra:Sedan:21000", "Frontier:Truck:33000"},
+            {"Hyundai", "Elantra:Sedan:22000", "Tucson:SUV:29000", "Santa Fe:SUV:33000", "Sonata:Sedan:27000"},
+            {"Kia", "Sportage:SUV:28000", "Sorento:SUV:33000", "Forte:Sedan:21000", "Soul:Hatchback:21000"},
+            {"BMW", "3 Series:Sedan:46000", "X3:SUV:50000", "X5:SUV:66000", "4 Series:Coupe:52000"},
+            {"Mercedes-Benz", "C-Class:Sedan:48000", "GLC:SUV:50000", "E-Class:Sedan:60000"},
+            {"Audi", "A4:Sedan:43000", "Q5:SUV:48000", "A3:Sedan:36000"},
+            {"Tesla", "Model 3:Sedan:42000", "Model Y:SUV:48000"},
+            {"Subaru", "Outback:SUV:32000", "Forester:SUV:30000", "Impreza:Hatchback:24000"},
+            {"Jeep", "Wrangler:SUV:38000", "Grand Cherokee:SUV:45000", "Gladiator:Truck:42000"},
+            {"Volkswagen", "Jetta:Sedan:23000", "Tiguan:SUV:30000", "Golf:Hatchback:25000"},
+            {"Mazda", "Mazda3:Sedan:24000", "CX-5:SUV:30000", "MX-5:Coupe:31000"},
+            {"Porsche", "911:Coupe:115000", "Cayenne:SUV:85000"},
+    };
+    // World manufacturer identifiers, in MAKES order
+    private static final String[] WMI = {"JT2", "1HG", "1FA", "1G1", "1N4", "KMH", "KNA", "WBA", "WDD", "WAU", "5YJ", "JF1", "1C4", "3VW", "JM1", "WP0"};
+    private static final String[] CATEGORIES = {"Sedan", "SUV", "Truck", "Coupe", "Hatchback"};
+    private static final String[] COLORS = {"White", "Black", "Gray", "Silver", "Blue", "Red", "Green", "Brown", "Beige", "Orange"};
+    private static final double[] COLOR_WEIGHTS = {25, 22, 18, 12, 10, 8, 2, 1.5, 1, 0.5};
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Ahmed", "Fatima", "Wei", "Mei", "Carlos", "Maria",
+            "Ali", "Aisha", "Hiroshi", "Yuki", "Ivan", "Olga", "Kwame", "Amara", "Raj", "Priya", "Lucas", "Sofia"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Khan", "Saleem", "Chen", "Wang",
+            "Kim", "Nguyen", "Patel", "Singh", "Okafor", "Ivanova", "Tanaka", "Silva"};
+    private static final String[][] CITIES = {
+            {"Houston", "TX"}, {"Dallas", "TX"}, {"Austin", "TX"}, {"Phoenix", "AZ"}, {"Chicago", "IL"}, {"Atlanta", "GA"},
+            {"Denver", "CO"}, {"Seattle", "WA"}, {"Miami", "FL"}, {"Orlando", "FL"}, {"Columbus", "OH"}, {"Charlotte", "NC"}};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Elm St", "Park Blvd", "Lakeview Rd", "Hillcrest Ave"};
+    private static final String[] SUPPLIERS = {"Auction", "Wholesale Motors", "Fleet Remarketing", "Trade-In Partners", "Lease Returns", "Auto Exchange"};
+    private static final String[] SERVICE_TYPES = {"Oil Change", "Tire Rotation", "Brake Repair", "Engine Diagnostic", "Battery Replace", "Inspection", "Transmission", "AC Repair"};
+    private static final double[] SERVICE_WEIGHTS = {40, 20, 10, 10, 6, 8, 2, 4};
+    private static final int[] SERVICE_BASE_COST = {60, 80, 300, 150, 180, 50, 1800, 400};
+    // Relative sales by month, January first: slow winter, spring peak, year-end push
+    private static final double[] MONTH_SEASON = {-0.6, -0.5, 0.3, 0.6, 0.9, 0.6, 0.4, 0.4, -0.1, -0.3, -0.4, 0.6};
+    private static final char[] VIN_CHARS = "0123456789ABCDEFGHJKLMNPRSTUVWXYZ".toCharArray();
+
+    private final Config config;
+    private final SplittableRandom random;
+    private final Zipf makes;
+    private final Zipf colors;
+    private final Zipf serviceTypes;
+    private final String tag;
+
+    private int[] employeeIds;
+    private int[] salesStaffIds;
+    private int[] technicianIds;
+    private int[] customerIds;
+    private int[] supplierIds;
+    private int[] categoryIds;
+    private int[] vehicleIds;
+    // Per generated vehicle: index of its buyer (-1 if unsold) and the sale day
+    private int[] vehicleBuyer;
+    private long[] vehicleSaleDay;
+    private BitSet vehiclePending;
+    private BigDecimal[] vehicleListPrice;
+
+    /**
+     * Row counts and skew. Every field can be set from a gen.* system
+     * property of the same name when running {@link #main(String[])}.
+     */
+    static final class Config {
+        long seed = 42;
+        int customers = 10_000;
+        int employees = 60;
+        int suppliers = 30;
+        int vehicles = 100_000;
+        int services = 20_000;
+        int testDrives = 5_000;
+        /** Share of vehicles that have been sold or are on hold for a buyer. */
+        double soldShare = 0.6;
+        /** Share of those sales still waiting for an employee to confirm them. */
+        double pendingShare = 0.03;
+        /** Share of customers with a login. */
+        double accountShare = 0.7;
+        /** Zipf exponent for make popularity; 0 makes every make equally common. */
+        double makeSkew = 1.0;
+        /** Zipf exponent for how often the same customer buys or books again. */
+        double customerSkew = 0.6;
+        /** How strongly sales follow MONTH_SEASON, from 0 (flat) to 1. */
+        double seasonality = 0.5;
+        int historyYears = 3;
+        int batchSize = 1000;
+        /** The generator's "today"; fix it to make dates reproducible across days. */
+        LocalDate today = LocalDate.now();
+
+        static Config fromSystemProperties() {
+            Config config = new Config();
+            config.seed = Long.getLong("gen.seed", config.seed);
+            config.customers = Integer.getInteger("gen.customers", config.customers);
+            config.employees = Integer.getInteger("gen.employees", config.employees);
+            config.suppliers = Integer.getInteger("gen.suppliers", config.suppliers);
+            config.vehicles = Integer.getInteger("gen.vehicles", config.vehicles);
+            config.services = Integer.getInteger("gen.services", config.services);
+            config.testDrives = Integer.getInteger("gen.testDrives", config.testDrives);
+            config.soldShare = doubleProperty("gen.soldShare", config.soldShare);
+            config.pendingShare = doubleProperty("gen.pendingShare", config.pendingShare);
+            config.accountShare = doubleProperty("gen.accountShare", config.accountShare);
+            config.makeSkew = doubleProperty("gen.makeSkew", config.makeSkew);
+            config.customerSkew = doubleProperty("gen.customerSkew", config.customerSkew);
+            config.seasonality = doubleProperty("gen.seasonality", config.seasonality);
+            config.historyYears = Integer.getInteger("gen.historyYears", config.historyYears);
+            config.batchSize = Integer.getInteger("gen.batchSize", config.batchSize);
+            String today = System.getProperty("gen.today");
+            if (today != null) {
+                config.today = LocalDate.parse(today);
+            }
+            return config;
+        }
+
+        private static double doubleProperty(String key, double defaultValue) {
+            String value = System.getProperty(key);
+            return value == null ? defaultValue : Double.parseDouble(value);
+        }
+    }
+
+    DataGenerator(Config config) {
+        if (config.employees < 3) {
+            throw new IllegalArgumentException("Need at least 3 employees (a manager, sales staff and a technician)");
+        }
+        if (config.customers < 1) {
+            throw new IllegalArgumentException("Need at least one customer");
+        }
+        this.config = config;
+        this.random = new SplittableRandom(config.seed);
+        this.makes = new Zipf(MAKES.length, config.makeSkew);
+        this.colors = new Zipf(COLOR_WEIGHTS);
+        this.serviceTypes = new Zipf(SERVICE_WEIGHTS);
+        // Short enough that tagged invoice numbers fit Sales.InvoiceNumber VARCHAR(20)
+        this.tag = "g" + Long.toString(Math.floorMod(config.seed, 36L * 36 * 36 * 36), 36);
+    }
+
+    /**
+     * Usage: java -Ddb.config=scratch.properties -Dgen.db=CarDealershipLoad
+     * [-Dgen.vehicles=500000 ...] benchmark.DataGenerator
+     */
+    public static void main(String[] args) throws SQLException {
+        requireDatabase(System.getProperty("gen.db"), "gen.db");
+        Config config = Config.fromSystemProperties();
+        try (Connection conn = DBConnection.getConnection()) {
+            new DataGenerator(config).generate(conn);
+        } finally {
+            DBConnection.shutdownPool();
+        }
+    }
+
+    /**
+     * Refuses to go on unless the pool is connected to the named database, so
+     * tools that bulk-insert or delete cannot be pointed at the real one by a
+     * stray db.properties.
+     */
+    static void requireDatabase(String expected, String property) throws SQLException {
+        if (expected == null || expected.isBlank()) {
+            throw new IllegalStateException("Set -D" + property + " to the name of a scratch database");
+        }
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DB_NAME()")) {
+            String actual = rs.next() ? rs.getString(1) : null;
+            if (!expected.equalsIgnoreCase(actual)) {
+                throw new IllegalStateException("Connected to " + actual + ", not " + expected + "; refusing to write to it");
+            }
+        }
+    }
+
+    void generate(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            long start = System.nanoTime();
+            BitSet accounts = insertUsersAndPeople(conn);
+            insertCategories(conn);
+            insertSuppliers(conn);
+            insertVehicles(conn);
+            insertSales(conn);
+            insertServices(conn);
+            insertTestDrives(conn);
+            System.out.printf("Generated data for seed %d in %.1f s (%d customer logins)%n",
+                    config.seed, (System.nanoTime() - start) / 1_000_000_000.0, accounts.cardinality());
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Users first, since Employees and Customers point at them
+    private BitSet insertUsersAndPeople(Connection conn) throws SQLException {
+        BitSet accounts = new BitSet(config.customers);
+        for (int c = 0; c < config.customers; c++) {
+            if (random.nextDouble() < config.accountShare) accounts.set(c);
+        }
+
+        long before = maxId(conn, "Users", "UserID");
+        try (Batch batch = new Batch(conn, "INSERT INTO Users (Username, PasswordHash, Role, CreatedAt) VALUES (?, ?, ?, ?)")) {
+            for (int e = 0; e < config.employees; e++) {
+                batch.stmt.setString(1, tag + "_emp" + e);
+                batch.stmt.setString(2, "password");
+                batch.stmt.setString(3, e == 0 ? "admin" : "employee");
+                batch.stmt.setObject(4, randomPastDateTime(config.historyYears * 365 + 365));
+                batch.add();
+            }
+            for (int c = accounts.nextSetBit(0); c >= 0; c = accounts.nextSetBit(c + 1)) {
+                batch.stmt.setString(1, tag + "_cust" + c);
+                batch.stmt.setString(2, "password");
+                batch.stmt.setString(3, "customer");
+                batch.stmt.setObject(4, randomPastDateTime(config.historyYears * 365));
+                batch.add();
+            }
+        }
+        int[] userIds = idsAfter(conn, "Users", "UserID", before, config.employees + accounts.cardinality());
+
+        // Employees: one manager, then roughly two salespeople for every technician
+        int salesStaff = 0;
+        int technicians = 0;
+        String[] positions = new String[config.employees];
+        for (int e = 0; e < config.employees; e++) {
+            positions[e] = e == 0 ? "Manager" : e == 1 ? "Technician" : e == 2 ? "Sales Associate"
+                    : e % 3 == 0 ? "Technician" : e % 10 == 5 ? "Manager" : "Sales Associate";
+            if (positions[e].equals("Technician")) technicians++;
+            if (positions[e].equals("Sales Associate")) salesStaff++;
+        }
+        before = maxId(conn, "Employees", "EmployeeID");
+        try (Batch batch = new Batch(conn, "INSERT INTO Employees (UserID, FirstName, LastName, Email, Phone, Position, HireDate, Salary) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int e = 0; e < config.employees; e++) {
+                String first = pick(FIRST_NAMES);
+                String last = pick(LAST_NAMES);
+                batch.stmt.setInt(1, userIds[e]);
+                batch.stmt.setString(2, first);
+                batch.stmt.setString(3, last);
+                batch.stmt.setString(4, email(first, last, "emp" + e));
+                batch.stmt.setString(5, phone());
+                batch.stmt.setString(6, positions[e]);
+                batch.stmt.setObject(7, config.today.minusDays(30 + random.nextInt(365 * 10)));
+                int baseSalary = positions[e].equals("Manager") ? 85_000 : positions[e].equals("Technician") ? 55_000 : 45_000;
+                batch.stmt.setBigDecimal(8, BigDecimal.valueOf(baseSalary + random.nextInt(20_000)));
+                batch.add();
+            }
+        }
+        employeeIds = idsAfter(conn, "Employees", "EmployeeID", before, config.employees);
+        salesStaffIds = new int[salesStaff];
+        technicianIds = new int[technicians];
+        for (int e = 0, s = 0, t = 0; e < config.employees; e++) {
+            if (positions[e].equals("Sales Associate")) salesStaffIds[s++] = employeeIds[e];
+            if (positions[e].equals("Technician")) technicianIds[t++] = employeeIds[e];
+        }
+
+        before = maxId(conn, "Customers", "CustomerID");
+        try (Batch batch = new Batch(conn, "INSERT INTO Customers (UserID, FirstName, LastName, Email, Phone, Address, City, State, ZipCode, DateRegistered) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int account = config.employees;
+            for (int c = 0; c < config.customers; c++) {
+                String first = pick(FIRST_NAMES);
+                String last = pick(LAST_NAMES);
+                String[] city = pick(CITIES);
+                batch.stmt.setObject(1, accounts.get(c) ? userIds[account++] : null);
+                batch.stmt.setString(2, first);
+                batch.stmt.setString(3, last);
+                batch.stmt.setString(4, email(first, last, "c" + c));
+                batch.stmt.setString(5, phone());
+                batch.stmt.setString(6, (100 + random.nextInt(9900)) + " " + pick(STREETS));
+                batch.stmt.setString(7, city[0]);
+                batch.stmt.setString(8, city[1]);
+                batch.stmt.setString(9, String.format("%05d", 10_000 + random.nextInt(89_999)));
+                batch.stmt.setObject(10, config.today.minusDays(random.nextInt(config.historyYears * 365 + 1)));
+                batch.add();
+            }
+        }
+        customerIds = idsAfter(conn, "Customers", "CustomerID", before, config.customers);
+        report("Users", userIds.length);
+        report("Employees", employeeIds.length);
+        report("Customers", customerIds.length);
+        return accounts;
+    }
+
+    // Categories are looked up by name across the app, so reuse existing ones
+    private void insertCategories(Connection conn) throws SQLException {
+        categoryIds = new int[CATEGORIES.length];
+        try (PreparedStatement find = conn.prepareStatement("SELECT CategoryID FROM VehicleCategories WHERE CategoryName = ?");
+             PreparedStatement insert = conn.prepareStatement("INSERT INTO VehicleCategories (CategoryName, Description) VALUES (?, ?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                find.setString(1, CATEGORIES[i]);
+                try (ResultSet rs = find.executeQuery()) {
+                    if (rs.next()) {
+                        categoryIds[i] = rs.getInt(1);
+                        continue;
+                    }
+                }
+                insert.setString(1, CATEGORIES[i]);
+                insert.setString(2, CATEGORIES[i] + " vehicles");
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    categoryIds[i] = keys.getInt(1);
+                }
+            }
+        }
+        conn.commit();
+    }
+
+    private void insertSuppliers(Connection conn) throws SQLException {
+        long before = maxId(conn, "Suppliers", "SupplierID");
+        try (Batch batch = new Batch(conn, "INSERT INTO Suppliers (SupplierName, ContactPerson, Email, Phone, Address) VALUES (?, ?, ?, ?, ?)")) {
+            for (int s = 0; s < config.suppliers; s++) {
+                String[] city = pick(CITIES);
+                String first = pick(FIRST_NAMES);
+                String last = pick(LAST_NAMES);
+                batch.stmt.setString(1, city[0] + " " + pick(SUPPLIERS) + " " + (s + 1));
+                batch.stmt.setString(2, first + " " + last);
+                batch.stmt.setString(3, email(first, last, "sup" + s));
+                batch.stmt.setString(4, phone());
+                batch.stmt.setString(5, (100 + random.nextInt(9900)) + " " + pick(STREETS) + ", " + city[0] + ", " + city[1]);
+                batch.add();
+            }
+        }
+        supplierIds = idsAfter(conn, "Suppliers", "SupplierID", before, config.suppliers);
+        report("Suppliers", supplierIds.length);
+    }
+
+    private void insertVehicles(Connection conn) throws SQLException {
+        int count = config.vehicles;
+        vehicleBuyer = new int[count];
+        vehicleSaleDay = new long[count];
+        vehicleListPrice = new BigDecimal[count];
+        vehiclePending = new BitSet(count);
+        Zipf buyers = new Zipf(config.customers, config.customerSkew);
+        int currentYear = config.today.getYear();
+
+        long before = maxId(conn, "Vehicles", "VehicleID");
+        try (Batch batch = new Batch(conn, "INSERT INTO Vehicles (VIN, Make, Model, Year, Color, Mileage, Condition, PurchasePrice, ListPrice, Status, CategoryID, DateAcquired, Description, FeaturedVehicle, SupplierID) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int v = 0; v < count; v++) {
+                int makeIndex = makes.sample(random);
+                String[] make = MAKES[makeIndex];
+                String[] model = make[1 + random.nextInt(make.length - 1)].split(":");
+                // Mostly late-model stock; the chance of an older car falls off with age
+                int age = Math.min(15, (int) (-Math.log(1 - random.nextDouble()) * 3));
+                int year = currentYear - age;
+                int mileage = age == 0 && random.nextInt(3) > 0 ? random.nextInt(50) : (int) ((age + random.nextDouble()) * (8_000 + random.nextInt(8_000)));
+                String condition = mileage < 100 ? "New" : age <= 5 && random.nextInt(4) == 0 ? "Certified" : "Used";
+                double listPrice = Integer.parseInt(model[2]) * Math.pow(0.86, age) * (0.9 + random.nextDouble() * 0.2);
+                BigDecimal list = BigDecimal.valueOf(Math.round(listPrice / 100) * 100L).setScale(2);
+                BigDecimal purchase = BigDecimal.valueOf(Math.round(listPrice * (0.8 + random.nextDouble() * 0.1))).setScale(2);
+
+                String status = "Available";
+                LocalDate acquired;
+                vehicleBuyer[v] = -1;
+                vehicleListPrice[v] = list;
+                if (random.nextDouble() < config.soldShare) {
+                    // Orders waiting for confirmation were all placed in the last two weeks
+                    boolean pending = random.nextDouble() < config.pendingShare;
+                    LocalDate saleDay = pending ? config.today.minusDays(random.nextInt(14)) : seasonalSaleDay();
+                    vehicleSaleDay[v] = saleDay.toEpochDay();
+                    vehicleBuyer[v] = buyers.sample(random);
+                    if (pending) vehiclePending.set(v);
+                    status = pending ? "On Hold" : "Sold";
+                    acquired = saleDay.minusDays(5 + random.nextInt(120));
+                } else {
+                    acquired = config.today.minusDays(random.nextInt(180));
+                }
+
+                batch.stmt.setString(1, vin(makeIndex, year, v));
+                batch.stmt.setString(2, make[0]);
+                batch.stmt.setString(3, model[0]);
+                batch.stmt.setInt(4, year);
+                batch.stmt.setString(5, COLORS[colors.sample(random)]);
+                batch.stmt.setInt(6, mileage);
+                batch.stmt.setString(7, condition);
+                batch.stmt.setBigDecimal(8, purchase);
+                batch.stmt.setBigDecimal(9, list);
+                batch.stmt.setString(10, status);
+                batch.stmt.setInt(11, categoryIds[Arrays.asList(CATEGORIES).indexOf(model[1])]);
+                batch.stmt.setObject(12, acquired);
+                batch.stmt.setString(13, year + " " + make[0] + " " + model[0] + ", " + condition.toLowerCase() + ", " + mileage + " miles");
+                batch.stmt.setBoolean(14, random.nextInt(50) == 0);
+                batch.stmt.setObject(15, supplierIds.length == 0 ? null : supplierIds[random.nextInt(supplierIds.length)]);
+                batch.add();
+            }
+        }
+        vehicleIds = idsAfter(conn, "Vehicles", "VehicleID", before, count);
+        report("Vehicles", vehicleIds.length);
+    }
+
+    private void insertSales(Connection conn) throws SQLException {
+        int sales = 0;
+        try (Batch batch = new Batch(conn, "INSERT INTO Sales (VehicleID, CustomerID, EmployeeID, SaleDate, SalePrice, TaxAmount, TotalPrice, SaleStatus, InvoiceNumber) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int v = 0; v < vehicleIds.length; v++) {
+                if (vehicleBuyer[v] < 0) continue;
+                // Buyers negotiate a little off the list price
+                BigDecimal price = vehicleListPrice[v].multiply(BigDecimal.valueOf(0.92 + random.nextDouble() * 0.08)).setScale(2, RoundingMode.HALF_UP);
+                BigDecimal tax = price.multiply(BigDecimal.valueOf(0.0825)).setScale(2, RoundingMode.HALF_UP);
+                boolean pending = vehiclePending.get(v);
+                LocalDateTime saleTime = LocalDate.ofEpochDay(vehicleSaleDay[v]).atTime(9 + random.nextInt(10), random.nextInt(60));
+                batch.stmt.setInt(1, vehicleIds[v]);
+                batch.stmt.setInt(2, customerIds[vehicleBuyer[v]]);
+                batch.stmt.setObject(3, pending ? null : salesStaffIds[random.nextInt(salesStaffIds.length)]);
+                batch.stmt.setObject(4, saleTime);
+                batch.stmt.setBigDecimal(5, price);
+                batch.stmt.setBigDecimal(6, tax);
+                batch.stmt.setBigDecimal(7, price.add(tax));
+                batch.stmt.setString(8, pending ? "Pending" : "Completed");
+                // Kept apart from InvoiceSeq numbers (INVyyMMdd-n) so the two can never collide
+                batch.stmt.setString(9, "GEN-" + tag + "-" + v);
+                batch.add();
+                sales++;
+            }
+        }
+        report("Sales", sales);
+    }
+
+    private void insertServices(Connection conn) throws SQLException {
+        int[] sold = soldVehicles();
+        if (sold.length == 0 || technicianIds.length == 0) return;
+        try (Batch batch = new Batch(conn, "INSERT INTO ServiceDepartment (CustomerID, VehicleID, ServiceType, ServiceDate, TechnicianID, Description, Cost, Status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            long today = config.today.toEpochDay();
+            for (int s = 0; s < config.services; s++) {
+                // Service visits come from owners, after the car was bought here
+                int v = sold[random.nextInt(sold.length)];
+                long earliest = vehicleSaleDay[v] + 7;
+                long day = earliest + (long) (random.nextDouble() * Math.max(1, today + 30 - earliest));
+                int type = serviceTypes.sample(random);
+                String status = day > today ? "Scheduled" : day > today - 3 ? "In Progress" : "Completed";
+                batch.stmt.setInt(1, customerIds[vehicleBuyer[v]]);
+                batch.stmt.setInt(2, vehicleIds[v]);
+                batch.stmt.setString(3, SERVICE_TYPES[type]);
+                batch.stmt.setObject(4, LocalDate.ofEpochDay(day).atTime(8 + random.nextInt(9), random.nextInt(4) * 15));
+                batch.stmt.setInt(5, technicianIds[random.nextInt(technicianIds.length)]);
+                batch.stmt.setString(6, SERVICE_TYPES[type] + " requested by owner");
+                batch.stmt.setBigDecimal(7, BigDecimal.valueOf(SERVICE_BASE_COST[type] * (0.8 + random.nextDouble() * 0.6)).setScale(2, RoundingMode.HALF_UP));
+                batch.stmt.setString(8, status);
+                batch.add();
+            }
+        }
+        report("ServiceDepartment", config.services);
+    }
+
+    private void insertTestDrives(Connection conn) throws SQLException {
+        if (vehicleIds.length == 0 || customerIds.length == 0) return;
+        Zipf drivers = new Zipf(config.customers, config.customerSkew);
+        try (Batch batch = new Batch(conn, "INSERT INTO TestDrives (CustomerID, VehicleID, EmployeeID, StartTime, EndTime) VALUES (?, ?, ?, ?, ?)")) {
+            for (int t = 0; t < config.testDrives; t++) {
+                // Past 90 days plus two weeks of upcoming bookings, on the half hour during opening hours
+                LocalDateTime start = config.today.minusDays(90 - random.nextInt(105)).atTime(9 + random.nextInt(9), random.nextInt(2) * 30);
+                batch.stmt.setInt(1, customerIds[drivers.sample(random)]);
+                batch.stmt.setInt(2, vehicleIds[random.nextInt(vehicleIds.length)]);
+                batch.stmt.setInt(3, salesStaffIds[random.nextInt(salesStaffIds.length)]);
+                batch.stmt.setObject(4, start);
+                batch.stmt.setObject(5, start.plusMinutes(30 + random.nextInt(3) * 15));
+                batch.add();
+            }
+        }
+        report("TestDrives", config.testDrives);
+    }
+
+    private int[] soldVehicles() {
+        int count = 0;
+        for (int v = 0; v < vehicleBuyer.length; v++) {
+            if (vehicleBuyer[v] >= 0 && !vehiclePending.get(v)) count++;
+        }
+        int[] sold = new int[count];
+        for (int v = 0, i = 0; v < vehicleBuyer.length; v++) {
+            if (vehicleBuyer[v] >= 0 && !vehiclePending.get(v)) sold[i++] = v;
+        }
+        return sold;
+    }
+
+    // Rejection-samples a day in the history window, weighted by month and weekday
+    private LocalDate seasonalSaleDay() {
+        int window = config.historyYears * 365;
+        double max = (1 + config.seasonality) * 1.4;
+        while (true) {
+            LocalDate day = config.today.minusDays(random.nextInt(window + 1));
+            double weight = 1 + config.seasonality * MONTH_SEASON[day.getMonthValue() - 1];
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY) weight *= 1.4;
+            else if (day.getDayOfWeek() == DayOfWeek.SUNDAY) weight *= 0.6;
+            if (random.nextDouble() * max < weight) return day;
+        }
+    }
+
+    private LocalDateTime randomPastDateTime(int maxDays) {
+        return config.today.minusDays(random.nextInt(maxDays + 1)).atTime(random.nextInt(24), random.nextInt(60));
+    }
+
+    /**
+     * A well-formed 17-character VIN: manufacturer code, five random
+     * descriptor characters, the check digit, model year code, and a plant
+     * and serial number derived from the vehicle's index so VINs never
+     * repeat within a run.
+     */
+    private String vin(int makeIndex, int year, int index) {
+        char[] vin = new char[17];
+        WMI[makeIndex].getChars(0, 3, vin, 0);
+        for (int i = 3; i < 8; i++) {
+            vin[i] = VIN_CHARS[random.nextInt(VIN_CHARS.length)];
+        }
+        vin[9] = yearCode(year);
+        long serial = Math.floorMod(config.seed * 7_919 + index, 33L * 1_000_000);
+        vin[10] = VIN_CHARS[(int) (serial / 1_000_000)];
+        String digits = String.format("%06d", serial % 1_000_000);
+        digits.getChars(0, 6, vin, 11);
+        vin[8] = Vin.checkDigit(new String(vin));
+        return new String(vin);
+    }
+
+    // Model year codes cycle every 30 years; 2010 is 'A', 2001-2009 are '1'-'9'
+    private static char yearCode(int year) {
+        String codes = "ABCDEFGHJKLMNPRSTVWXY123456789";
+        return codes.charAt(Math.floorMod(year - 2010, 30));
+    }
+
+    private String email(String first, String last, String unique) {
+        return (first + "." + last + "." + unique + "." + tag + "@example.com").toLowerCase();
+    }
+
+    private String phone() {
+        return String.format("(%03d) 555-%04d", 200 + random.nextInt(800), random.nextInt(10_000));
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void report(String table, int rows) {
+        System.out.printf("%-18s %,10d rows%n", table, rows);
+    }
+
+    private static long maxId(Connection conn, String table, String idColumn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT ISNULL(MAX(" + idColumn + "), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // Identity values are handed out in insert order, so the rows we just added are the ones above the old maximum
+    private static int[] idsAfter(Connection conn, String table, String idColumn, long after, int expected) throws SQLException {
+        int[] ids = new int[expected];
+        int count = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT " + idColumn + " FROM " + table + " WHERE " + idColumn + " > ? ORDER BY " + idColumn)) {
+            stmt.setLong(1, after);
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (count == expected) {
+                        throw new SQLException(table + " gained rows from another writer while generating");
+                    }
+                    ids[count++] = rs.getInt(1);
+                }
+            }
+        }
+        if (count != expected) {
+            throw new SQLException("Expected " + expected + " new rows in " + table + " but found " + count);
+        }
+        return ids;
+    }
+
+    /**
+     * A prepared insert that sends and commits every batchSize rows, and the
+     * remainder on close.
+     */
+    private final class Batch implements AutoCloseable {
+        final PreparedStatement stmt;
+        private final Connection conn;
+        private int pending;
+
+        Batch(Connection conn, String sql) throws SQLException {
+            this.conn = conn;
+            this.stmt = conn.prepareStatement(sql);
+        }
+
+        void add() throws SQLException {
+            stmt.addBatch();
+            if (++pending == config.batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                stmt.executeBatch();
+                conn.commit();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                stmt.close();
+            }
+        }
+    }
+
+    /**
+     * Samples indexes 0..n-1 with probability proportional to the given
+     * weights, or to 1/(i+1)^exponent for a Zipf distribution.
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            this(zipfWeights(n, exponent));
+        }
+
+        Zipf(double[] weights) {
+            cumulative = new double[weights.length];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                total += weights[i];
+                cumulative[i] = total;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+
+        private static double[] zipfWeights(int n, double exponent) {
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                weights[i] = 1 / Math.pow(i + 1, exponent);
+            }
+            return weights;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import Database.DBConnection;
+import Database.InvoiceSequence;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for InvoiceSequence: several threads spread over several
+ * clients, each client with its own block cache, draw invoice numbers as
+ * fast as they can. Fails if any number repeats or is too long for
+ * InvoiceNumber VARCHAR(20), and prints the rate and how many ranges were
+ * reserved.
+ *
+ * By default the ranges come from an in-memory stand-in for the sequence, so
+ * the test needs no database and measures the client side alone. With
+ * bench.source=server they come from dbo.InvoiceSeq, which consumes real
+ * sequence values, so it refuses to run unless -Dbench.db names the database
+ * the pool is connected to.
+ *
+ * Options (system properties):
+ *   bench.source   stub or server, default stub
+ *   bench.db       required for server, name of the scratch database
+ *   bench.clients  separate sequence instances, default 2
+ *   bench.threads  threads drawing numbers, default 8
+ *   bench.numbers  numbers drawn in total, default 400000
+ *   bench.block    values reserved per range, default InvoiceSequence.DEFAULT_BLOCK_SIZE
+ */
+public class InvoiceSequenceBenchmark {
+    private static final int MAX_LENGTH = 20;
+
+    public static void main(String[] args) throws Exception {
+        String source = System.getProperty("bench.source", "stub");
+        int clients = Integer.getInteger("bench.clients", 2);
+        int threads = Integer.getInteger("bench.threads", 8);
+        int numbers = Integer.getInteger("bench.numbers", 400_000);
+        int block = Integer.getInteger("bench.block", InvoiceSequence.DEFAULT_BLOCK_SIZE);
+
+        InvoiceSequence.RangeSource ranges;
+        if (source.equals("server")) {
+            DataGenerator.requireDatabase(System.getProperty("bench.db"), "bench.db");
+            ranges = InvoiceSequence.SERVER;
+        } else if (source.equals("stub")) {
+            AtomicLong sequence = new AtomicLong(1);
+            ranges = count -> sequence.getAndAdd(count);
+        } else {
+            throw new IllegalArgumentException("bench.source must be stub or server, not " + source);
+        }
+
+        AtomicLong rangeCalls = new AtomicLong();
+        InvoiceSequence.RangeSource counted = count -> {
+            rangeCalls.incrementAndGet();
+            return ranges.reserve(count);
+        };
+        InvoiceSequence[] sequences = new InvoiceSequence[clients];
+        for (int c = 0; c < clients; c++) {
+            sequences[c] = new InvoiceSequence(block, counted);
+        }
+
+        try {
+            String[][] drawn = new String[threads][];
+            Exception[] failures = new Exception[threads];
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                int share = numbers / threads + (t < numbers % threads ? 1 : 0);
+                InvoiceSequence sequence = sequences[t % clients];
+                Thread worker = new Thread(() -> {
+                    String[] mine = new String[share];
+                    try {
+                        start.await();
+                        for (int i = 0; i < share; i++) {
+                            mine[i] = sequence.next();
+                        }
+                    } catch (Exception e) {
+                        failures[thread] = e;
+                    }
+                    drawn[thread] = mine;
+                }, "invoice-" + t);
+                workers.add(worker);
+                worker.start();
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            for (Exception failure : failures) {
+                if (failure != null) throw failure;
+            }
+            Set<String> seen = new HashSet<>(numbers * 2);
+            for (String[] mine : drawn) {
+                for (String number : mine) {
+                    if (number.length() > MAX_LENGTH) {
+                        throw new IllegalStateException(number + " is longer than " + MAX_LENGTH + " characters");
+                    }
+                    if (!seen.add(number)) {
+                        throw new IllegalStateException("Duplicate invoice number " + number);
+                    }
+                }
+            }
+
+            System.out.printf("%s source, %d clients, %d threads, block %d%n", source, clients, threads, block);
+            System.out.printf("%d unique numbers in %.2f s (%.0f/s), %d range calls%n",
+                    seen.size(), seconds, seen.size() / seconds, rangeCalls.get());
+        } finally {
+            if (source.equals("server")) {
+                DBConnection.shutdownPool();
+            }
+        }
+    }
+}
@@ -9,6 +9,12 @@ import java.awt.event.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class MainDashboard extends JFrame {
     private JPanel contentPanel;
@@ -20,10 +26,19 @@ public class MainDashboard extends JFrame {
     private Timer timeTimer;
     private JLabel timeLabel;
     private JLabel dateLabel;
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private Color currentBackground;
 
+    // Pages are built the first time they are shown (or prefetched once the
+    // dashboard is up) and dropped again after sitting hidden for a while
+    private final Map<String, Supplier<JComponent>> panelFactories = new LinkedHashMap<>();
+    private final Map<String, JComponent> panels = new HashMap<>();
+    private final Map<String, Long> hiddenSince = new HashMap<>();
+    private final Set<String> suspendedPanels = new HashSet<>();
+    private String visiblePanel;
+    private Timer prefetchTimer;
+    private Timer releaseTimer;
+
     // Menu buttons
     private JButton dashboardButton;
     private JButton inventoryButton;
@@ -47,6 +62,12 @@ public class MainDashboard extends JFrame {
     // Valid roles
     private static final String[] VALID_ROLES = {"admin", "employee", "customer"};
 
+    private static final boolean PREFETCH_PANELS = Boolean.parseBoolean(System.getProperty("dashboard.prefetch", "true"));
+    private static final int PREFETCH_DELAY_MILLIS = 1000;
+    private static final int PREFETCH_INTERVAL_MILLIS = 250;
+    private static final long RELEASE_AFTER_MILLIS = Long.getLong("dashboard.releaseAfterSeconds", 300) * 1000;
+    private static final int RELEASE_CHECK_MILLIS = 60_000;
+
     public MainDashboard(String username, String role) {
         if (username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Username cannot be null or empty");
@@ -77,14 +98,15 @@ public class MainDashboard extends JFrame {
 
         // Add window listener to clean up timers
         addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                startPanelPrefetch();
+                startPanelRelease();
+            }
+
             @Override
             public void windowClosing(WindowEvent e) {
-                if (timeTimer != null) {
-                    timeTimer.stop();
-                }
-                if (animationTimer != null) {
-                    animationTimer.stop();
-                }
+                stopTimers();
             }
         });
 
@@ -117,25 +139,26 @@ public class MainDashboard extends JFrame {
         mainContentPanel.setBackground(BACKGROUND_BASE);
         mainContentPanel.setOpaque(false);
 
-        // Create panels based on role
+        // Only the dashboard is built up front; the other pages are built when first shown
         DashboardPanel dashboardPanel = new DashboardPanel(currentUser, userRole);
         mainContentPanel.add(dashboardPanel, "dashboard");
+        panels.put("dashboard", dashboardPanel);
 
         if (userRole.equals("admin") || userRole.equals("employee")) {
-            createVehiclePanel();
-            createProfilePanel();
-            createOrdersPanel();
+            panelFactories.put("vehicles", this::createVehiclePanel);
+            panelFactories.put("profile", this::createProfilePanel);
+            panelFactories.put("orders", this::createOrdersPanel);
             if (userRole.equals("admin")) {
-                createEmployeePanel();
+                panelFactories.put("employees", this::createEmployeePanel);
             }
-            createCustomerPanel();
-            createSalesPanel();
-            createServicePanel();
+            panelFactories.put("customers", this::createCustomerPanel);
+            panelFactories.put("sales", this::createSalesPanel);
+            panelFactories.put("service", this::createServicePanel);
         }
         if (userRole.equals("customer")) {
-            createProfilePanel();
-            createCustomerOrdersPanel();
-            createCustomerVehiclePanel();
+            panelFactories.put("profile", this::createProfilePanel);
+            panelFactories.put("orders", this::createCustomerOrdersPanel);
+            panelFactories.put("vehicles", this::createCustomerVehiclePanel);
         }
     }
 
@@ -384,60 +407,50 @@ public class MainDashboard extends JFrame {
         activeButton.repaint();
     }
 
-    private void createVehiclePanel() {
-        VehiclePanel vehiclePanel = new VehiclePanel();
-        mainContentPanel.add(vehiclePanel, "vehicles");
+    private JComponent createVehiclePanel() {
+        return new VehiclePanel();
     }
 
-    private void createEmployeePanel() {
-        EmployeePanel employees = new EmployeePanel();
-        mainContentPanel.add(employees, "employees");
+    private JComponent createEmployeePanel() {
+        return new EmployeePanel();
     }
 
-    private void createCustomerPanel() {
-        JPanel customer = new CustomerPanel();
-        mainContentPanel.add(customer, "customers");
+    private JComponent createCustomerPanel() {
+        return new CustomerPanel();
     }
 
-    private void createSalesPanel() {
-        JPanel panel = new SalesPanel();
-        mainContentPanel.add(panel, "sales");
+    private JComponent createSalesPanel() {
+        return new SalesPanel();
     }
 
-    private void createServicePanel() {
-        ServicePanel panel = new ServicePanel();
-        mainContentPanel.add(panel, "service");
+    private JComponent createServicePanel() {
+        return new ServicePanel();
     }
 
-    private void createProfilePanel() {
-        Profile panel = new Profile(currentUser);
-        mainContentPanel.add(panel, "profile");
+    private JComponent createProfilePanel() {
+        return new Profile(currentUser);
     }
 
-    private void createCustomerVehiclePanel() {
-        CustomerVehiclesPanel customerVehicle = new CustomerVehiclesPanel(DBConnection.getCustomerIdByUsername(currentUser));
-        mainContentPanel.add(customerVehicle, "vehicles");
+    private JComponent createCustomerVehiclePanel() {
+        return new CustomerVehiclesPanel(DBConnection.getCustomerIdByUsername(currentUser));
     }
 
     // Fix for the createOrdersPanel method in MainDashboard class
-    private void createOrdersPanel() {
+    private JComponent createOrdersPanel() {
         if (userRole.equals("customer")) {
             // For customers, show their own orders using their customer ID
             int customerId = Integer.valueOf(DBConnection.getCustomerIdByUsername(currentUser));
-            CustomerOrdersPanel panel = new CustomerOrdersPanel(customerId);
-            mainContentPanel.add(panel, "orders");
+            return new CustomerOrdersPanel(customerId);
         } else {
             // For admin/employee, show pending orders panel
-            PendingOrdersPanel panel = new PendingOrdersPanel(currentUser);
-            mainContentPanel.add(panel, "orders");
+            return new PendingOrdersPanel(currentUser);
         }
     }
     // Also fix the createCustomerOrdersPanel method (this seems to be duplicate functionality)
-    private void createCustomerOrdersPanel() {
+    private JComponent createCustomerOrdersPanel() {
         // Get the customer ID for the logged-in customer
         int customerId = Integer.valueOf(DBConnection.getCustomerIdByUsername(currentUser));
-        CustomerOrdersPanel panel = new CustomerOrdersPanel(customerId);
-        mainContentPanel.add(panel, "orders");
+        return new CustomerOrdersPanel(customerId);
     }
 
 
@@ -509,7 +522,86 @@ public class MainDashboard extends JFrame {
 //            setActiveButton(dashboardButton);
 //            return;
 //        }
+        JComponent panel = getOrCreatePanel(panelName);
+        if (panel == null) return;
+        if (visiblePanel != null && !visiblePanel.equals(panelName)) {
+            hidePanel(visiblePanel);
+        }
         cardLayout.show(mainContentPanel, panelName);
+        visiblePanel = panelName;
+        hiddenSince.remove(panelName);
+        if (suspendedPanels.remove(panelName) && panel instanceof Suspendable) {
+            ((Suspendable) panel).resume();
+        }
+    }
+
+    private JComponent getOrCreatePanel(String panelName) {
+        JComponent panel = panels.get(panelName);
+        if (panel == null) {
+            Supplier<JComponent> factory = panelFactories.get(panelName);
+            if (factory == null) return null;
+            panel = factory.get();
+            mainContentPanel.add(panel, panelName);
+            panels.put(panelName, panel);
+            hiddenSince.put(panelName, System.currentTimeMillis());
+        }
+        return panel;
+    }
+
+    private void hidePanel(String panelName) {
+        JComponent panel = panels.get(panelName);
+        if (panel instanceof Suspendable && suspendedPanels.add(panelName)) {
+            ((Suspendable) panel).suspend();
+        }
+        hiddenSince.put(panelName, System.currentTimeMillis());
+    }
+
+    // Builds the remaining pages one per tick once the dashboard is on screen,
+    // so switching to them later does not wait for construction
+    private void startPanelPrefetch() {
+        if (!PREFETCH_PANELS) return;
+        prefetchTimer = new Timer(PREFETCH_INTERVAL_MILLIS, e -> {
+            for (String panelName : panelFactories.keySet()) {
+                if (!panels.containsKey(panelName)) {
+                    getOrCreatePanel(panelName);
+                    return;
+                }
+            }
+            prefetchTimer.stop();
+        });
+        prefetchTimer.setInitialDelay(PREFETCH_DELAY_MILLIS);
+        prefetchTimer.start();
+    }
+
+    // Drops pages that have been hidden longer than RELEASE_AFTER_MILLIS along
+    // with their table data; they are rebuilt the next time they are shown
+    private void startPanelRelease() {
+        releaseTimer = new Timer(RELEASE_CHECK_MILLIS, e -> releaseHiddenPanels());
+        releaseTimer.start();
+    }
+
+    private void releaseHiddenPanels() {
+        long cutoff = System.currentTimeMillis() - RELEASE_AFTER_MILLIS;
+        for (String panelName : new java.util.ArrayList<>(hiddenSince.keySet())) {
+            if (hiddenSince.get(panelName) > cutoff || !panelFactories.containsKey(panelName)) continue;
+            hidePanel(panelName);
+            mainContentPanel.remove(panels.remove(panelName));
+            hiddenSince.remove(panelName);
+            suspendedPanels.remove(panelName);
+        }
+    }
+
+    private void stopTimers() {
+        if (timeTimer != null) {
+            timeTimer.stop();
+        }
+        if (prefetchTimer != null) {
+            prefetchTimer.stop();
+        }
+        if (releaseTimer != null) {
+            releaseTimer.stop();
+        }
+        AnimationClock.getInstance().unregister(contentPanel);
     }
 
     private void startTimeUpdater() {
@@ -530,12 +622,7 @@ public class MainDashboard extends JFrame {
         boolean confirm = CustomLogoutDialog.showLogoutDialog(this);
 
         if (confirm) {
-            if (timeTimer != null) {
-                timeTimer.stop();
-            }
-            if (animationTimer != null) {
-                animationTimer.stop();
-            }
+            stopTimers();
             new LoginPage();
             dispose();
         }
@@ -543,15 +630,13 @@ public class MainDashboard extends JFrame {
 
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            contentPanel.repaint();
+        AnimationClock.getInstance().register(contentPanel, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                contentPanel.repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private JLabel createGlowingLabel(String text, Font font, Color textColor, Color glowColor) {
@@ -1,6 +1,7 @@
 package loginPanel;
 
 import Database.DBConnection;
+import panels.AnimationClock;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -19,7 +20,6 @@ public class SignUpPanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
     private final Color INPUT_BG = new Color(21, 21, 24, 230); // Dark gray (#151518, 90% opacity)
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private Runnable loginCallback; // Callback to switch to login panel
 
@@ -225,15 +225,13 @@ public class SignUpPanel extends JPanel {
 
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     @Override
@@ -0,0 +1,206 @@
+package panels;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One frame clock for every animated component in the app. Components
+ * register a frame callback; the clock only calls it while the component is
+ * showing in an active, non-minimized window, and stops ticking altogether
+ * when no registered component is visible. Frame rate is capped by the
+ * animation.fps system property (default 30, 0 turns animations off).
+ *
+ * All methods must be called on the event dispatch thread.
+ */
+public final class AnimationClock {
+    public static final int DEFAULT_FPS = 30;
+
+    private static final Color[] AMBIENT_CACHE = new Color[5 * 5 * 5];
+    private static AnimationClock instance;
+
+    private final Map<JComponent, FrameListener> listeners = new LinkedHashMap<>();
+    private final Timer timer;
+    private int fps;
+    private long frames;
+    private long busyNanos;
+    private long maxFrameNanos;
+
+    /**
+     * Called once per frame with the clock's current time in milliseconds.
+     */
+    public interface FrameListener {
+        void onFrame(long nowMillis);
+    }
+
+    private AnimationClock(int fps) {
+        this.fps = fps;
+        this.timer = new Timer(fps > 0 ? 1000 / fps : 1000, e -> tick());
+        this.timer.setCoalesce(true);
+        Toolkit.getDefaultToolkit().addAWTEventListener(event -> {
+            int id = event.getID();
+            if (id == WindowEvent.WINDOW_ACTIVATED || id == WindowEvent.WINDOW_DEACTIVATED
+                    || id == WindowEvent.WINDOW_ICONIFIED || id == WindowEvent.WINDOW_DEICONIFIED
+                    || id == WindowEvent.WINDOW_CLOSED) {
+                updateRunning();
+            }
+        }, AWTEvent.WINDOW_EVENT_MASK);
+    }
+
+    public static AnimationClock getInstance() {
+        if (instance == null) {
+            instance = new AnimationClock(Integer.getInteger("animation.fps", DEFAULT_FPS));
+        }
+        return instance;
+    }
+
+    /**
+     * Drives listener while component is visible. The clock lets go of the
+     * component while it is removed from its window, so discarded panels can
+     * be garbage collected, and picks it up again if it is added back.
+     */
+    public void register(JComponent component, FrameListener listener) {
+        if (component.getClientProperty(FrameListener.class) == null) {
+            component.addHierarchyListener(e -> {
+                FrameListener registered = (FrameListener) component.getClientProperty(FrameListener.class);
+                if (registered == null) return;
+                if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0) {
+                    if (component.isDisplayable()) {
+                        listeners.put(component, registered);
+                    } else {
+                        listeners.remove(component);
+                    }
+                }
+                updateRunning();
+            });
+        }
+        component.putClientProperty(FrameListener.class, listener);
+        listeners.put(component, listener);
+        updateRunning();
+    }
+
+    public void unregister(JComponent component) {
+        component.putClientProperty(FrameListener.class, null);
+        if (listeners.remove(component) != null) {
+            updateRunning();
+        }
+    }
+
+    /**
+     * Changes the frame cap at runtime; 0 stops all animation.
+     */
+    public void setFrameCap(int fps) {
+        this.fps = fps;
+        if (fps > 0) {
+            timer.setDelay(1000 / fps);
+        }
+        updateRunning();
+    }
+
+    public int getFrameCap() {
+        return fps;
+    }
+
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    /**
+     * Average time spent in frame callbacks as a share of the frame interval.
+     */
+    public double getFrameBudgetUsed() {
+        if (frames == 0 || fps <= 0) return 0;
+        double averageNanos = (double) busyNanos / frames;
+        return averageNanos / (1_000_000_000.0 / fps);
+    }
+
+    public double getAverageFrameMillis() {
+        return frames == 0 ? 0 : busyNanos / 1_000_000.0 / frames;
+    }
+
+    public double getMaxFrameMillis() {
+        return maxFrameNanos / 1_000_000.0;
+    }
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AnimationClock[fps=%d, running=%s, listeners=%d, frames=%d, avg=%.3fms, max=%.3fms, budget=%.1f%%]",
+                fps, isRunning(), listeners.size(), frames, getAverageFrameMillis(), getMaxFrameMillis(), getFrameBudgetUsed() * 100);
+    }
+
+    /**
+     * The slowly shifting near-black background every panel paints behind its
+     * content. Colors come from a small cache, so calling this every frame does
+     * not allocate.
+     */
+    public static Color ambientColor(long nowMillis) {
+        float phase = (float) (nowMillis % 5000) / 5000;
+        int r = (int) (5 + 2 * Math.sin(phase));
+        int g = (int) (5 + 2 * Math.sin(phase + 2));
+        int b = (int) (6 + 2 * Math.sin(phase + 4));
+        // Each channel stays within 2 of its base value
+        int index = ((r - 3) * 5 + (g - 3)) * 5 + (b - 4);
+        if (index < 0 || index >= AMBIENT_CACHE.length) {
+            return new Color(r, g, b);
+        }
+        Color color = AMBIENT_CACHE[index];
+        if (color == null) {
+            color = new Color(r, g, b);
+            AMBIENT_CACHE[index] = color;
+        }
+        return color;
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        boolean anyVisible = false;
+        for (Map.Entry<JComponent, FrameListener> entry : new ArrayList<>(listeners.entrySet())) {
+            if (isVisible(entry.getKey())) {
+                anyVisible = true;
+                entry.getValue().onFrame(now);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        frames++;
+        busyNanos += elapsed;
+        maxFrameNanos = Math.max(maxFrameNanos, elapsed);
+        if (!anyVisible) {
+            timer.stop();
+        }
+    }
+
+    private void updateRunning() {
+        boolean shouldRun = false;
+        if (fps > 0) {
+            List<JComponent> components = new ArrayList<>(listeners.keySet());
+            for (JComponent component : components) {
+                if (isVisible(component)) {
+                    shouldRun = true;
+                    break;
+                }
+            }
+        }
+        if (shouldRun && !timer.isRunning()) {
+            timer.start();
+        } else if (!shouldRun && timer.isRunning()) {
+            timer.stop();
+        }
+    }
+
+    private static boolean isVisible(JComponent component) {
+        if (!component.isShowing()) return false;
+        Window window = SwingUtilities.getWindowAncestor(component);
+        if (window == null || !window.isActive()) return false;
+        return !(window instanceof Frame) || (((Frame) window).getExtendedState() & Frame.ICONIFIED) == 0;
+    }
+}
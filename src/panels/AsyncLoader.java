@@ -0,0 +1,166 @@
+package panels;
+
+import Database.QueryCancellation;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database queries off the Swing event thread and delivers the result
+ * back on it. A loader keeps at most one request in flight: starting a new
+ * load cancels the previous one, including its running JDBC statement, and a
+ * result that arrives after it was superseded is dropped. The owner shows a
+ * wait cursor while a request runs.
+ * Time from start until the result is handed over, before the callback runs,
+ * is recorded in {@link QueryLatency} under the loader's operation name.
+ * A loader can be suspended while its panel is hidden; a request it cut
+ * short is started again on resume.
+ *
+ * All methods must be called on the event dispatch thread.
+ */
+final class AsyncLoader<T> {
+    // Kept well below the connection pool size so background loads never starve the UI's own queries
+    private static final int WORKER_THREADS = 4;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final Component owner;
+    private final QueryLatency latency;
+    private Future<?> current;
+    private QueryCancellation cancellation;
+    private Runnable currentRequest;
+    private Runnable interruptedRequest;
+    private int generation;
+
+    /**
+     * @param operation what the loader runs, for example "searchVehicles";
+     *                  loaders with the same name share one latency entry
+     */
+    AsyncLoader(Component owner, String operation) {
+        this.owner = owner;
+        this.latency = QueryLatency.named(operation);
+    }
+
+    /**
+     * Starts a query, replacing any request still in flight. Failures are
+     * reported to the user with an error dialog.
+     */
+    void load(Callable<? extends T> query, Consumer<? super T> onResult) {
+        load(query, onResult, this::showError);
+    }
+
+    void load(Callable<? extends T> query, Consumer<? super T> onResult, Consumer<? super Exception> onError) {
+        cancel();
+        interruptedRequest = null;
+        int requestGeneration = generation;
+        QueryCancellation requestCancellation = new QueryCancellation();
+        long started = System.nanoTime();
+        setLoading(true);
+        try {
+            current = EXECUTOR.submit(() -> {
+                T result = null;
+                Exception failure = null;
+                try {
+                    result = requestCancellation.run(query);
+                } catch (Exception e) {
+                    failure = e;
+                }
+                T finalResult = result;
+                Exception finalFailure = failure;
+                SwingUtilities.invokeLater(() -> {
+                    if (requestGeneration != generation) return; // superseded or cancelled
+                    current = null;
+                    cancellation = null;
+                    currentRequest = null;
+                    setLoading(false);
+                    if (finalFailure != null) {
+                        onError.accept(finalFailure);
+                    } else {
+                        latency.record(System.nanoTime() - started);
+                        onResult.accept(finalResult);
+                    }
+                });
+            });
+            cancellation = requestCancellation;
+            currentRequest = () -> load(query, onResult, onError);
+        } catch (RejectedExecutionException e) {
+            setLoading(false);
+            onError.accept(e);
+        }
+    }
+
+    /**
+     * Abandons the request in flight, if any. Its result will not be delivered.
+     */
+    void cancel() {
+        generation++;
+        if (current != null) {
+            latency.recordSuperseded();
+            cancellation.cancel();
+            current.cancel(true);
+            current = null;
+            cancellation = null;
+            currentRequest = null;
+            setLoading(false);
+        }
+    }
+
+    /**
+     * Cancels the request in flight and remembers it for {@link #resume()}.
+     */
+    void suspend() {
+        Runnable request = currentRequest;
+        cancel();
+        if (request != null) {
+            interruptedRequest = request;
+        }
+    }
+
+    /**
+     * Restarts the request that {@link #suspend()} cut short, if any.
+     */
+    void resume() {
+        Runnable request = interruptedRequest;
+        interruptedRequest = null;
+        if (request != null) {
+            request.run();
+        }
+    }
+
+    boolean isLoading() {
+        return current != null;
+    }
+
+    private void setLoading(boolean loading) {
+        owner.setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
+    void showError(Exception e) {
+        System.err.println("Background load failed: " + e.getMessage());
+        JOptionPane.showMessageDialog(owner, "Failed to load data: " + e.getMessage(),
+                "Database Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "db-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
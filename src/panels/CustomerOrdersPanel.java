@@ -1,5 +1,6 @@
 package panels;
 
+import Database.CustomerOrderSummary;
 import Database.DBConnection;
 
 import javax.swing.*;
@@ -8,19 +9,20 @@ import java.awt.*;
 import java.awt.event.*;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class CustomerOrdersPanel extends JPanel {
+public class CustomerOrdersPanel extends JPanel implements Suspendable {
     private JTable ordersTable;
     private DefaultTableModel tableModel;
-    private TableRowSorter<DefaultTableModel> sorter;
     private final int customerID;
+    private final AsyncLoader<CustomerOrders> ordersLoader = new AsyncLoader<>(this, "customerOrders");
+    private CustomerOrderSummary summary;
+    private String sortColumn;
+    private boolean sortDescending;
     private JComboBox<String> statusFilter;
     private JLabel statusLabel;
     private JLabel summaryLabel;
-    private Timer animationTimer;
     private float tableOpacity = 0f;
     private boolean animationsEnabled = true;
 
@@ -42,6 +44,10 @@ public class CustomerOrdersPanel extends JPanel {
 
     private boolean isInitialLoad = true; // Flag to track initial load vs. refresh
 
+    // One status filter's worth of rows, and the customer's totals across all statuses
+    private record CustomerOrders(List<Object[]> orders, CustomerOrderSummary summary) {
+    }
+
     public CustomerOrdersPanel(int customerID) {
         this.customerID = customerID;
 
@@ -159,8 +165,7 @@ public class CustomerOrdersPanel extends JPanel {
         ordersTable.setSelectionForeground(TEXT_COLOR);
         ordersTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
-        sorter = new TableRowSorter<>(tableModel);
-        ordersTable.setRowSorter(sorter);
+        HeaderSort.install(ordersTable, this::sortOrders);
 
         // Center-align cell contents and apply custom rendering
         DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer() {
@@ -240,17 +245,25 @@ public class CustomerOrdersPanel extends JPanel {
         add(summaryPanel, BorderLayout.SOUTH);
     }
 
+    @Override
+    public void suspend() {
+        ordersLoader.suspend();
+    }
+
+    @Override
+    public void resume() {
+        ordersLoader.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -358,46 +371,45 @@ public class CustomerOrdersPanel extends JPanel {
         return label;
     }
 
+    // The status filter is applied by the query, not by hiding rows
     private void applyFilter() {
+        loadOrdersAsync();
+    }
+
+    private String selectedStatus() {
         String selectedFilter = (String) statusFilter.getSelectedItem();
-        if ("All Orders".equals(selectedFilter)) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + selectedFilter, 10));
+        return "All Orders".equals(selectedFilter) ? null : selectedFilter;
+    }
+
+    private boolean sortOrders(int column, boolean descending) {
+        String name;
+        switch (column) {
+            case 0: name = "SaleID"; break;
+            case 1: name = "InvoiceNumber"; break;
+            case 3: name = "Make"; break;
+            case 6: name = "SaleDate"; break;
+            case 9: name = "TotalPrice"; break;
+            case 10: name = "SaleStatus"; break;
+            default: return false;
         }
-        updateSummaryInfo();
+        sortColumn = name;
+        sortDescending = descending;
+        loadOrdersAsync();
+        return true;
     }
 
     private void updateSummaryInfo() {
-        int totalRows = tableModel.getRowCount();
-        int visibleRows = ordersTable.getRowCount();
+        int totalRows = summary != null ? summary.totalOrders() : 0;
+        int visibleRows = tableModel.getRowCount();
 
         if (totalRows == 0) {
             summaryLabel.setText("");
             return;
         }
 
-        double totalAmount = 0;
-        int completedOrders = 0;
-        int pendingOrders = 0;
-        int cancelledOrders = 0;
-
-        for (int i = 0; i < totalRows; i++) {
-            Object priceObj = tableModel.getValueAt(i, 9);
-            if (priceObj instanceof java.math.BigDecimal) {
-                totalAmount += ((java.math.BigDecimal) priceObj).doubleValue();
-            }
-
-            String status = tableModel.getValueAt(i, 10).toString().toLowerCase();
-            switch (status) {
-                case "completed": completedOrders++; break;
-                case "pending": pendingOrders++; break;
-                case "cancelled": cancelledOrders++; break;
-            }
-        }
-
         String summaryText = String.format("Total: %d orders | Completed: %d | Pending: %d | Cancelled: %d | Total Value: %s",
-                totalRows, completedOrders, pendingOrders, cancelledOrders, CURRENCY_FORMAT.format(totalAmount));
+                totalRows, summary.completedOrders(), summary.pendingOrders(), summary.cancelledOrders(),
+                CURRENCY_FORMAT.format(summary.totalValue()));
 
         if (visibleRows != totalRows) {
             summaryText = String.format("Showing: %d of %d orders | %s",
@@ -408,40 +420,42 @@ public class CustomerOrdersPanel extends JPanel {
     }
 
     private void loadOrdersAsync() {
-        SwingUtilities.invokeLater(() -> {
-            Component[] components = findRefreshButton(this);
-            for (Component comp : components) {
-                if (comp instanceof JButton && ((JButton) comp).getText().equals("Refresh Orders")) {
-                    comp.setEnabled(false);
-                    break;
-                }
-            }
-            statusLabel.setText("Loading orders...");
-            summaryLabel.setText("");
+        setRefreshEnabled(false);
+        statusLabel.setText("Loading orders...");
+        summaryLabel.setText("");
+        tableModel.setRowCount(0);
+
+        String status = selectedStatus();
+        String sort = sortColumn;
+        boolean descending = sortDescending;
+        ordersLoader.load(() -> new CustomerOrders(
+                DBConnection.getOrdersFromDatabase(customerID, status, sort, descending),
+                DBConnection.getCustomerOrderSummary(customerID)), result -> {
+            List<Object[]> orders = result.orders();
+            System.out.println("Orders retrieved: " + (orders != null ? orders.size() : "null")); // Debug output
+            summary = result.summary();
+            showOrders(orders, status);
+            setRefreshEnabled(true);
+            updateSummaryInfo();
+        }, e -> {
+            statusLabel.setText("Error loading orders.");
+            setRefreshEnabled(true);
+            updateSummaryInfo();
+            JOptionPane.showMessageDialog(this,
+                    "Failed to load orders: " + e.getMessage(),
+                    "Database Error",
+                    JOptionPane.ERROR_MESSAGE);
         });
+    }
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                loadOrders();
-                return null;
+    private void setRefreshEnabled(boolean enabled) {
+        Component[] components = findRefreshButton(this);
+        for (Component comp : components) {
+            if (comp instanceof JButton && ((JButton) comp).getText().equals("Refresh Orders")) {
+                comp.setEnabled(enabled);
+                break;
             }
-
-            @Override
-            protected void done() {
-                SwingUtilities.invokeLater(() -> {
-                    Component[] components = findRefreshButton(CustomerOrdersPanel.this);
-                    for (Component comp : components) {
-                        if (comp instanceof JButton && ((JButton) comp).getText().equals("Refresh Orders")) {
-                            comp.setEnabled(true);
-                            break;
-                        }
-                    }
-                    updateSummaryInfo();
-                });
-            }
-        };
-        worker.execute();
+        }
     }
 
     private Component[] findRefreshButton(Container container) {
@@ -459,44 +473,24 @@ public class CustomerOrdersPanel extends JPanel {
         }
     }
 
-    private void loadOrders() {
-        SwingUtilities.invokeLater(() -> {
-            tableModel.setRowCount(0);
-            statusLabel.setText("Loading orders...");
-        });
-
-        List<Object[]> orders;
-        try {
-            orders = DBConnection.getOrdersFromDatabase(customerID);
-            System.out.println("Orders retrieved: " + (orders != null ? orders.size() : "null")); // Debug output
-        } catch (SQLException e) {
-            SwingUtilities.invokeLater(() -> {
-                statusLabel.setText("Error loading orders.");
-                JOptionPane.showMessageDialog(this,
-                        "Failed to load orders: " + e.getMessage(),
-                        "Database Error",
-                        JOptionPane.ERROR_MESSAGE);
-            });
-            return;
-        }
-
-        SwingUtilities.invokeLater(() -> {
-            if (!isInitialLoad && (orders == null || orders.isEmpty())) {
-                statusLabel.setText("No orders found for this customer.");
-                JOptionPane.showMessageDialog(this,
-                        "No orders found for this customer.",
-                        "Information",
-                        JOptionPane.INFORMATION_MESSAGE);
-            } else if (orders != null && !orders.isEmpty()) {
-                for (Object[] row : orders) {
-                    tableModel.addRow(row);
-                }
-                int rowCount = orders.size();
-                statusLabel.setText(rowCount + " order(s) loaded successfully.");
-            } else if (isInitialLoad) {
-                statusLabel.setText("No orders loaded yet. Try refreshing.");
+    private void showOrders(List<Object[]> orders, String status) {
+        if (status != null && (orders == null || orders.isEmpty())) {
+            statusLabel.setText("No " + status.toLowerCase() + " orders found.");
+        } else if (!isInitialLoad && (orders == null || orders.isEmpty())) {
+            statusLabel.setText("No orders found for this customer.");
+            JOptionPane.showMessageDialog(this,
+                    "No orders found for this customer.",
+                    "Information",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } else if (orders != null && !orders.isEmpty()) {
+            for (Object[] row : orders) {
+                tableModel.addRow(row);
             }
-        });
+            int rowCount = orders.size();
+            statusLabel.setText(rowCount + " order(s) loaded successfully.");
+        } else if (isInitialLoad) {
+            statusLabel.setText("No orders loaded yet. Try refreshing.");
+        }
     }
 
     public static void main(String[] args) {
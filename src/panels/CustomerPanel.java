@@ -1,24 +1,23 @@
 package panels;
 
+import Database.CustomerRow;
 import Database.DBConnection;
+import Database.SearchIndex;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.RoundRectangle2D;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Vector;
 
-public class CustomerPanel extends JPanel {
+public class CustomerPanel extends JPanel implements Suspendable {
     private JTable customerTable;
-    private DefaultTableModel tableModel;
+    private CustomerTableModel tableModel;
     private JTextField searchField;
-    private JButton addButton, editButton, deleteButton;
+    private JButton addButton, editButton, deleteButton, exportButton;
     private final Color BACKGROUND_BASE = new Color(5, 5, 6); // Near-black (#050506)
     private Color currentBackground = BACKGROUND_BASE;
     private final Color TABLE_BG = new Color(21, 21, 24, 230); // Dark gray (#151518, 90% opacity)
@@ -27,7 +26,6 @@ public class CustomerPanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
     private final Color INPUT_BG = new Color(21, 21, 24, 230); // Matches table
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
 
@@ -37,6 +35,7 @@ public class CustomerPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(30, 30, 30, 30));
         setOpaque(false);
 
+        SearchIndex.getInstance().loadInBackground();
         initComponents();
         startAnimation();
         startFadeInAnimation();
@@ -84,28 +83,13 @@ public class CustomerPanel extends JPanel {
         searchField.setCaretColor(TEXT_COLOR);
         searchField.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
         searchField.setFont(new Font("Inter", Font.PLAIN, 14));
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchCustomers(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchCustomers(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchCustomers(); }
-        });
+        new DebouncedSearch(searchField, text -> searchCustomers());
         searchPanel.add(searchField);
 
         centerPanel.add(searchPanel, BorderLayout.NORTH);
 
         // Table
-        String[] columnNames = {"ID", "First Name", "Last Name", "Email", "Phone", "Address", "City", "State", "ZipCode", "Date Registered", "Order Count"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-            @Override
-            public Object getValueAt(int row, int col) {
-                Object value = super.getValueAt(row, col);
-                return value != null ? value : ""; // Handle NULL values in table display
-            }
-        };
+        tableModel = new CustomerTableModel(this);
         customerTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -132,6 +116,7 @@ public class CustomerPanel extends JPanel {
         // Center align table header text as well
         ((DefaultTableCellRenderer)customerTable.getTableHeader().getDefaultRenderer()).setHorizontalAlignment(JLabel.CENTER);
 
+        tableModel.installSorting(customerTable);
         customerTable.setOpaque(false);
         customerTable.setShowGrid(false);
         customerTable.setRowHeight(30);
@@ -169,9 +154,9 @@ public class CustomerPanel extends JPanel {
         editButton = createStyledButton("Edit Customer", GLOW_COLOR_START, GLOW_COLOR_END);
         editButton.addActionListener(e -> {
             int selectedRow = customerTable.getSelectedRow();
-            if (selectedRow != -1) {
-                int customerId = (int) tableModel.getValueAt(selectedRow, 0);
-                showCustomerForm(customerId);
+            CustomerRow customer = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+            if (customer != null) {
+                showCustomerForm(customer.customerId());
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a customer to edit.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -182,6 +167,10 @@ public class CustomerPanel extends JPanel {
         deleteButton.addActionListener(e -> deleteCustomer());
         buttonPanel.add(deleteButton);
 
+        exportButton = createStyledButton("Export", GLOW_COLOR_START, GLOW_COLOR_END);
+        exportButton.addActionListener(e -> ExportAction.export(this, tableModel.currentQuery(), "Customers"));
+        buttonPanel.add(exportButton);
+
         centerPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(centerPanel, BorderLayout.CENTER);
@@ -229,17 +218,25 @@ public class CustomerPanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void suspend() {
+        tableModel.suspend();
+    }
+
+    @Override
+    public void resume() {
+        tableModel.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -307,26 +304,19 @@ public class CustomerPanel extends JPanel {
     }
 
     private void loadCustomers() {
-        List<Vector<Object>> customers = DBConnection.getAllCustomers();
-        tableModel.setRowCount(0);
-        for (Vector<Object> customer : customers) {
-            tableModel.addRow(customer);
-        }
+        tableModel.setQuery(DBConnection.pageCustomers(null));
     }
 
     private void searchCustomers() {
         String searchText = searchField.getText().trim();
-        List<Vector<Object>> customers = DBConnection.searchCustomers(searchText);
-        tableModel.setRowCount(0);
-        for (Vector<Object> customer : customers) {
-            tableModel.addRow(customer);
-        }
+        tableModel.setQuery(DBConnection.pageCustomers(searchText));
     }
 
     private void deleteCustomer() {
         int selectedRow = customerTable.getSelectedRow();
-        if (selectedRow != -1) {
-            int customerId = (int) tableModel.getValueAt(selectedRow, 0);
+        CustomerRow customer = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (customer != null) {
+            int customerId = customer.customerId();
             int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete this customer?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
                 try {
@@ -522,4 +512,41 @@ public class CustomerPanel extends JPanel {
         formDialog.setLocationRelativeTo(this);
         formDialog.setVisible(true);
     }
-}
\ No newline at end of file
+
+    private static class CustomerTableModel extends PagedTableModel<CustomerRow> {
+        CustomerTableModel(Component owner) {
+            super(owner, "ID", "First Name", "Last Name", "Email", "Phone", "Address", "City", "State", "ZipCode", "Date Registered", "Order Count");
+        }
+
+        @Override
+        protected String sortColumn(int column) {
+            switch (column) {
+                case 0: return "CustomerID";
+                case 2: return "LastName";
+                case 3: return "Email";
+                case 9: return "DateRegistered";
+                default: return null;
+            }
+        }
+
+        @Override
+        protected Object valueAt(CustomerRow row, int column) {
+            Object value;
+            switch (column) {
+                case 0: value = row.customerId(); break;
+                case 1: value = row.firstName(); break;
+                case 2: value = row.lastName(); break;
+                case 3: value = row.email(); break;
+                case 4: value = row.phone(); break;
+                case 5: value = row.address(); break;
+                case 6: value = row.city(); break;
+                case 7: value = row.state(); break;
+                case 8: value = row.zipCode(); break;
+                case 9: value = row.dateRegistered(); break;
+                case 10: value = row.orderCount(); break;
+                default: value = null;
+            }
+            return value != null ? value : ""; // Handle NULL values in table display
+        }
+    }
+}
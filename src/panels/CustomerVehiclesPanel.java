@@ -1,10 +1,13 @@
 package panels;
 
 import Database.DBConnection;
+import Database.InventoryIndex;
+import Database.InvoiceSequence;
+import Database.OrderReservation;
+import Database.VehicleRow;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
@@ -13,12 +16,14 @@ import java.awt.event.MouseEvent;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.List;
-import java.util.Vector;
-import java.util.stream.Collectors;
 
-public class CustomerVehiclesPanel extends JPanel {
+public class CustomerVehiclesPanel extends JPanel implements Suspendable {
     private JTable vehicleTable;
-    private DefaultTableModel tableModel;
+    private AvailableVehicleTableModel tableModel;
+    private final AsyncLoader<List<VehicleRow>> rowLoader = new AsyncLoader<>(this, "availableVehicles");
+    // Buy is disabled while a purchase request is on its way, which is never cancelled
+    private boolean purchasing;
+    private final InventoryIndex inventory = InventoryIndex.getInstance();
     private JTextField searchField;
     private JComboBox<String> categoryComboBox;
     private JButton searchButton, refreshButton;
@@ -32,7 +37,6 @@ public class CustomerVehiclesPanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255);
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192);
     private final Color INPUT_BG = new Color(21, 21, 24, 230);
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
 
@@ -130,22 +134,8 @@ public class CustomerVehiclesPanel extends JPanel {
         topPanel.add(searchPanel, BorderLayout.WEST);
         topPanel.add(buttonPanel, BorderLayout.EAST);
 
-        String[] columns = {"VehicleID", "Make", "Model", "Year", "Color", "Mileage", "Condition", "List Price", "Category", "Buy"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 9; // Only the "Buy" button column is editable
-            }
+        tableModel = new AvailableVehicleTableModel();
 
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 0) return Integer.class; // VehicleID
-                if (columnIndex == 3) return Integer.class; // Year
-                if (columnIndex == 5) return Integer.class; // Mileage
-                if (columnIndex == 7) return BigDecimal.class; // List Price
-                return String.class;
-            }
-        };
         vehicleTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -244,17 +234,25 @@ public class CustomerVehiclesPanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void suspend() {
+        rowLoader.suspend();
+    }
+
+    @Override
+    public void resume() {
+        rowLoader.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -322,81 +320,84 @@ public class CustomerVehiclesPanel extends JPanel {
     }
 
     private void loadAvailableVehicles() {
-        tableModel.setRowCount(0);
-        List<Vector<Object>> vehicles = DBConnection.filterVehiclesByStatus("Available");
-        for (Vector<Object> row : vehicles) {
-            tableModel.addRow(new Object[]{
-                    row.get(0), // VehicleID
-                    row.get(2), // Make
-                    row.get(3), // Model
-                    row.get(4), // Year
-                    row.get(5), // Color
-                    row.get(6), // Mileage
-                    row.get(7), // Condition
-                    row.get(9), // ListPrice
-                    row.get(11), // CategoryName
-                    "Buy" // Buy button
-            });
-        }
-        if (tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, "No available vehicles found.",
-                    "Information", JOptionPane.INFORMATION_MESSAGE);
-        }
+        rowLoader.load(() -> {
+            inventory.refresh(); // Pulls only the vehicles changed since the last refresh
+            return inventory.query().status("Available").run();
+        }, vehicles -> showVehicles(vehicles, "No available vehicles found."));
     }
 
     private void searchVehicles() {
         String searchText = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        List<Vector<Object>> vehicles = searchText.isEmpty() ?
-                DBConnection.filterVehiclesByStatus("Available") :
-                DBConnection.searchVehicles(searchText).stream()
-                        .filter(row -> "Available".equals(row.get(10))) // Filter for Status = 'Available'
-                        .collect(Collectors.toList());
-        for (Vector<Object> row : vehicles) {
-            tableModel.addRow(new Object[]{
-                    row.get(0), // VehicleID
-                    row.get(2), // Make
-                    row.get(3), // Model
-                    row.get(4), // Year
-                    row.get(5), // Color
-                    row.get(6), // Mileage
-                    row.get(7), // Condition
-                    row.get(9), // ListPrice
-                    row.get(11), // CategoryName
-                    "Buy" // Buy button
-            });
-        }
-        if (tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, "No matching available vehicles found.",
-                    "Information", JOptionPane.INFORMATION_MESSAGE);
-        }
+        rowLoader.load(() -> {
+            inventory.refresh(); // Reservations and new stock since the last load
+            return inventory.query().status("Available").prefix(searchText).run();
+        }, vehicles -> showVehicles(vehicles, "No matching available vehicles found."));
     }
 
     private void filterByCategory() {
         String selectedCategory = (String) categoryComboBox.getSelectedItem();
-        tableModel.setRowCount(0);
-        List<Vector<Object>> vehicles = DBConnection.filterVehiclesByStatus("Available");
-        if (!"All".equals(selectedCategory)) {
-            vehicles = vehicles.stream()
-                    .filter(row -> selectedCategory.equals(row.get(11))) // Filter for CategoryName
-                    .collect(Collectors.toList());
-        }
-        for (Vector<Object> row : vehicles) {
-            tableModel.addRow(new Object[]{
-                    row.get(0), // VehicleID
-                    row.get(2), // Make
-                    row.get(3), // Model
-                    row.get(4), // Year
-                    row.get(5), // Color
-                    row.get(6), // Mileage
-                    row.get(7), // Condition
-                    row.get(9), // ListPrice
-                    row.get(11), // CategoryName
-                    "Buy" // Buy button
-            });
+        rowLoader.load(() -> {
+            inventory.refresh();
+            return inventory.query()
+                    .status("Available")
+                    .category("All".equals(selectedCategory) ? null : selectedCategory)
+                    .run();
+        }, vehicles -> showVehicles(vehicles, "No available vehicles found in this category."));
+    }
+
+    private record Purchase(OrderReservation reservation, String invoiceNumber) {
+    }
+
+    private void setPurchasing(boolean purchasing) {
+        this.purchasing = purchasing;
+        setCursor(purchasing ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+        vehicleTable.repaint();
+    }
+
+    // Either way the list is reloaded, which refreshes the inventory index and drops the vehicle
+    private void showPurchase(Purchase purchase, String make, String model, int year,
+                              double salePrice, double taxAmount, double totalPrice) {
+        OrderReservation reservation = purchase.reservation();
+        switch (reservation.outcome()) {
+            case PLACED:
+                JOptionPane.showMessageDialog(
+                        this,
+                        String.format("Purchase request submitted!\n\n" +
+                                        "Vehicle: %s %s (%d)\n" +
+                                        "Price: rs %.2f\n" +
+                                        "Tax: rs %.2f\n" +
+                                        "Total: rs %.2f\n" +
+                                        "Invoice: %s\n" +
+                                        "The vehicle is now on hold. A sales representative will contact you to finalize the purchase.",
+                                make, model, year, salePrice, taxAmount, totalPrice, purchase.invoiceNumber()),
+                        "Request Submitted",
+                        JOptionPane.INFORMATION_MESSAGE
+                );
+                loadAvailableVehicles();
+                break;
+            case ALREADY_TAKEN:
+                JOptionPane.showMessageDialog(
+                        this,
+                        "This vehicle is no longer available for purchase. Please refresh the list.",
+                        "Vehicle Unavailable",
+                        JOptionPane.ERROR_MESSAGE
+                );
+                loadAvailableVehicles();
+                break;
+            default:
+                JOptionPane.showMessageDialog(
+                        this,
+                        "Failed to submit the purchase request. Please try again or refresh the list.\n" + reservation.error(),
+                        "Request Failed",
+                        JOptionPane.ERROR_MESSAGE
+                );
         }
-        if (tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, "No available vehicles found in this category.",
+    }
+
+    private void showVehicles(List<VehicleRow> vehicles, String emptyMessage) {
+        tableModel.setRows(vehicles);
+        if (vehicles.isEmpty()) {
+            JOptionPane.showMessageDialog(this, emptyMessage,
                     "Information", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -425,6 +426,7 @@ public class CustomerVehiclesPanel extends JPanel {
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             setText((value == null) ? "Buy" : value.toString());
+            setEnabled(!purchasing);
             if (isSelected) {
                 setBackground(new Color(60, 80, 120, 200));
             } else {
@@ -462,27 +464,12 @@ public class CustomerVehiclesPanel extends JPanel {
 
         @Override
         public Object getCellEditorValue() {
-            if (isPushed) {
-                String vehicleId = String.valueOf(tableModel.getValueAt(clickedRow, 0)); // VehicleID
-                String make = (String) tableModel.getValueAt(clickedRow, 1);
-                String model = (String) tableModel.getValueAt(clickedRow, 2);
-                int year = (Integer) tableModel.getValueAt(clickedRow, 3);
-                BigDecimal listPrice = (BigDecimal) tableModel.getValueAt(clickedRow, 7);
-
-                // Verify vehicle is still available
-                List<Vector<Object>> vehicleCheck = DBConnection.filterVehiclesByStatus("Available").stream()
-                        .filter(row -> String.valueOf(row.get(0)).equals(vehicleId))
-                        .collect(Collectors.toList());
-                if (vehicleCheck.isEmpty()) {
-                    JOptionPane.showMessageDialog(
-                            CustomerVehiclesPanel.this,
-                            "This vehicle is no longer available for purchase. Please refresh the list.",
-                            "Vehicle Unavailable",
-                            JOptionPane.ERROR_MESSAGE
-                    );
-                    loadAvailableVehicles(); // Refresh the table
-                    return label;
-                }
+            if (isPushed && !purchasing) {
+                VehicleRow vehicle = tableModel.getRow(clickedRow);
+                String make = vehicle.make();
+                String model = vehicle.model();
+                int year = vehicle.year();
+                BigDecimal listPrice = vehicle.listPrice();
 
                 // Show confirmation dialog with purchase details
                 SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -491,8 +478,6 @@ public class CustomerVehiclesPanel extends JPanel {
                 double taxRate = 0.08; // 8% tax rate
                 double taxAmount = salePrice * taxRate;
                 double totalPrice = salePrice + taxAmount;
-                // Shortened InvoiceNumber to fit within 15 characters (e.g., "INV250524-1")
-                String invoiceNumber = "INV" + new SimpleDateFormat("yyMMdd").format(new java.util.Date()) + "-" + vehicleId;
 
                 int confirm = JOptionPane.showConfirmDialog(
                         CustomerVehiclesPanel.this,
@@ -511,11 +496,6 @@ public class CustomerVehiclesPanel extends JPanel {
                 );
 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    // Update vehicle status to "On Hold" using the existing method
-                    boolean statusUpdated = DBConnection.updateVehicleStatus(vehicleId, "On Hold");
-                    System.out.println("Status update result for vehicle " + vehicleId + ": " + statusUpdated);
-
-                    // Record the sale with "Pending" status and no EmployeeID
                     int custId;
                     try {
                         custId = Integer.parseInt(customerId);
@@ -528,46 +508,37 @@ public class CustomerVehiclesPanel extends JPanel {
                         );
                         return label;
                     }
-                    boolean saleRecorded = DBConnection.addSale(
-                            Integer.parseInt(vehicleId),
-                            custId,
-                            null, // No employee involved
-                            saleDate,
-                            salePrice,
-                            taxAmount,
-                            invoiceNumber,
-                            "Pending"
-                    );
-                    System.out.println("Sale record result for vehicle " + vehicleId + ": " + saleRecorded);
-
-                    if (statusUpdated && saleRecorded) {
-                        JOptionPane.showMessageDialog(
-                                CustomerVehiclesPanel.this,
-                                String.format("Purchase request submitted!\n\n" +
-                                                "Vehicle: %s %s (%d)\n" +
-                                                "Price: rs %.2f\n" +
-                                                "Tax: rs %.2f\n" +
-                                                "Total: rs %.2f\n" +
-                                                "Invoice: %s\n" +
-                                                "The vehicle is now on hold. A sales representative will contact you to finalize the purchase.",
-                                        make, model, year, salePrice, taxAmount, totalPrice, invoiceNumber),
-                                "Request Submitted",
-                                JOptionPane.INFORMATION_MESSAGE
-                        );
-                        tableModel.removeRow(clickedRow);
-                    } else {
-                        // Rollback status if sale fails
-                        if (statusUpdated) {
-                            DBConnection.updateVehicleStatus(vehicleId, "Available");
-                            System.out.println("Rolled back status for vehicle " + vehicleId + " to Available");
+
+                    // Allocate the invoice, put the vehicle on hold and record the Pending sale off the event thread.
+                    // A half-sent reservation must not be cancelled, so this is not a superseding AsyncLoader.
+                    setPurchasing(true);
+                    new SwingWorker<Purchase, Void>() {
+                        @Override
+                        protected Purchase doInBackground() throws Exception {
+                            String invoiceNumber = InvoiceSequence.getInstance().next();
+                            return new Purchase(DBConnection.reserveAndPlaceOrder(
+                                    vehicle.vehicleId(), custId, saleDate, salePrice, taxAmount, invoiceNumber), invoiceNumber);
                         }
-                        JOptionPane.showMessageDialog(
-                                CustomerVehiclesPanel.this,
-                                "Failed to submit the purchase request. Please try again or refresh the list. (Debug: Status=" + statusUpdated + ", Sale=" + saleRecorded + ")",
-                                "Request Failed",
-                                JOptionPane.ERROR_MESSAGE
-                        );
-                    }
+
+                        @Override
+                        protected void done() {
+                            setPurchasing(false);
+                            Purchase purchase;
+                            try {
+                                purchase = get();
+                            } catch (Exception e) {
+                                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                                JOptionPane.showMessageDialog(
+                                        CustomerVehiclesPanel.this,
+                                        "Failed to submit the purchase request: " + cause.getMessage(),
+                                        "Request Failed",
+                                        JOptionPane.ERROR_MESSAGE
+                                );
+                                return;
+                            }
+                            showPurchase(purchase, make, model, year, salePrice, taxAmount, totalPrice);
+                        }
+                    }.execute();
                 }
             }
             isPushed = false;
@@ -586,6 +557,43 @@ public class CustomerVehiclesPanel extends JPanel {
         }
     }
 
+    private static class AvailableVehicleTableModel extends RowTableModel<VehicleRow> {
+        AvailableVehicleTableModel() {
+            super("VehicleID", "Make", "Model", "Year", "Color", "Mileage", "Condition", "List Price", "Category", "Buy");
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 9; // Only the "Buy" button column is editable
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            if (columnIndex == 0) return Integer.class; // VehicleID
+            if (columnIndex == 3) return Integer.class; // Year
+            if (columnIndex == 5) return Integer.class; // Mileage
+            if (columnIndex == 7) return BigDecimal.class; // List Price
+            return String.class;
+        }
+
+        @Override
+        protected Object valueAt(VehicleRow row, int column) {
+            switch (column) {
+                case 0: return row.vehicleId();
+                case 1: return row.make();
+                case 2: return row.model();
+                case 3: return row.year();
+                case 4: return row.color();
+                case 5: return row.mileage();
+                case 6: return row.condition();
+                case 7: return row.listPrice();
+                case 8: return row.categoryName();
+                case 9: return "Buy"; // Buy button
+                default: return null;
+            }
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Available Vehicles");
@@ -595,4 +603,4 @@ public class CustomerVehiclesPanel extends JPanel {
             frame.setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
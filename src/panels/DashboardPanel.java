@@ -1,10 +1,16 @@
 package panels;
 
 import Database.DBConnection;
+import Database.DashboardStats;
+import Database.QueryMetrics;
+import Database.SalesAnalytics;
+import Database.SalesRollup;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.Arrays;
 
 import static Database.DBConnection.getCustomerOrderCount;
@@ -19,9 +25,16 @@ public class DashboardPanel extends JPanel {
     private final Color GLOW_COLOR_END = new Color(123, 104, 238); // Purple (#7B68EE)
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color TITLE_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
-    private Timer animationTimer;
     private boolean animationsEnabled = true; // Toggle for low-end systems
     private float[] cardOpacities;
+    private Timer fadeTimer;
+    private final AsyncLoader<DashboardStats> statsLoader = new AsyncLoader<>(this, "getDashboardStats");
+    private final AsyncLoader<MonthSales> salesLoader = new AsyncLoader<>(this, "loadMonthSales");
+    // What the staff cards show; the placeholder stands in until each load returns
+    private DashboardStats stats;
+    private String statsMissing = "…";
+    private MonthSales monthSales;
+    private String salesMissing = "…";
 
     public DashboardPanel(String currentUser, String userRole) {
         this.currentUser = currentUser;
@@ -33,7 +46,7 @@ public class DashboardPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(50, 50, 50, 50)); // Generous padding
 
         // Initialize card opacities based on role
-        int cardCount = this.userRole.equals("customer") ? 2 : 4;
+        int cardCount = this.userRole.equals("customer") ? 2 : 6;
         cardOpacities = new float[cardCount];
         for (int i = 0; i < cardOpacities.length; i++) {
             cardOpacities[i] = 0f;
@@ -72,14 +85,22 @@ public class DashboardPanel extends JPanel {
         gbc.weighty = 1.0;
 
         if (this.userRole.equals("admin") || this.userRole.equals("employee")) {
-            gbc.gridx = 0; gbc.gridy = 0;
-            statsPanel.add(createStatCard("Vehicles", String.valueOf(DBConnection.getTotalCount("Vehicles")), "🚗"), gbc);
-            gbc.gridx = 1;
-            statsPanel.add(createStatCard("Sales", String.valueOf(DBConnection.getTotalCount("Sales")), "💰"), gbc);
-            gbc.gridx = 0; gbc.gridy = 1;
-            statsPanel.add(createStatCard("Customers", String.valueOf(DBConnection.getTotalCount("Customers")), "👥"), gbc);
-            gbc.gridx = 1;
-            statsPanel.add(createStatCard("Services", String.valueOf(DBConnection.getTotalCount("Services")), "🔧"), gbc);
+            // Show the cards straight away and fill in the counts as each query returns
+            showStaffStats(statsPanel, gbc);
+            statsLoader.load(DBConnection::getDashboardStats, loaded -> {
+                stats = loaded;
+                statsMissing = "N/A";
+                showStaffStats(statsPanel, gbc);
+                startFadeInAnimation();
+            });
+            salesLoader.load(DashboardPanel::loadMonthSales, loaded -> {
+                monthSales = loaded;
+                showStaffStats(statsPanel, gbc);
+            }, e -> {
+                System.err.println("Failed to load sales rollups: " + e.getMessage());
+                salesMissing = "N/A";
+                showStaffStats(statsPanel, gbc);
+            });
         } else if (this.userRole.equals("customer")) {
             // Fetch order count with error handling
             String orderText;
@@ -118,6 +139,12 @@ public class DashboardPanel extends JPanel {
         headerPanel.add(welcomeLabel);
         headerPanel.add(Box.createRigidArea(new Dimension(0, 20)));
         headerPanel.add(underline);
+        if (this.userRole.equals("admin")) {
+            JButton queryStatsButton = new JButton("Query Stats");
+            queryStatsButton.addActionListener(e -> showQueryStats());
+            headerPanel.add(Box.createRigidArea(new Dimension(0, 15)));
+            headerPanel.add(queryStatsButton);
+        }
         headerPanel.add(Box.createRigidArea(new Dimension(0, 50)));
 
         // Main content panel
@@ -135,6 +162,69 @@ public class DashboardPanel extends JPanel {
         setOpaque(false);
     }
 
+    /**
+     * This month's completed sales and the employee who sold the most by
+     * total price, or null when nobody has sold anything yet.
+     */
+    private record MonthSales(SalesRollup total, SalesRollup topSeller) {
+    }
+
+    // Brings the rollups up to date (only changed sales are read after the first call) and reads two buckets
+    private static MonthSales loadMonthSales() throws SQLException {
+        SalesAnalytics analytics = SalesAnalytics.getInstance();
+        analytics.refresh();
+        LocalDate today = LocalDate.now();
+        SalesRollup topSeller = null;
+        for (SalesRollup seller : analytics.breakdown(SalesAnalytics.Period.MONTH, SalesAnalytics.Dimension.EMPLOYEE, today)) {
+            if (!seller.key().isEmpty()) {
+                topSeller = seller;
+                break;
+            }
+        }
+        return new MonthSales(analytics.total(SalesAnalytics.Period.MONTH, today), topSeller);
+    }
+
+    private void showStaffStats(JPanel statsPanel, GridBagConstraints gbc) {
+        statsPanel.removeAll();
+        gbc.gridx = 0; gbc.gridy = 0;
+        statsPanel.add(createStatCard("Vehicles", stats == null ? statsMissing : String.valueOf(stats.totalVehicles()), "🚗",
+                stats == null ? null : stats.availableVehicles() + " available · " + stats.onHoldVehicles() + " on hold · " + stats.soldVehicles() + " sold"), gbc);
+        gbc.gridx = 1;
+        statsPanel.add(createStatCard("Sales", stats == null ? statsMissing : String.valueOf(stats.totalSales()), "💰",
+                stats == null ? null : String.format("%d pending · rs %,.2f revenue", stats.pendingSales(), stats.revenue())), gbc);
+        gbc.gridx = 0; gbc.gridy = 1;
+        statsPanel.add(createStatCard("Customers", stats == null ? statsMissing : String.valueOf(stats.totalCustomers()), "👥"), gbc);
+        gbc.gridx = 1;
+        statsPanel.add(createStatCard("Services", stats == null ? statsMissing : String.valueOf(stats.totalServices()), "🔧",
+                stats == null ? null : stats.openServices() + " open"), gbc);
+        SalesRollup month = monthSales == null ? null : monthSales.total();
+        gbc.gridx = 0; gbc.gridy = 2;
+        statsPanel.add(createStatCard("Sold This Month", month == null ? salesMissing : String.valueOf(month.sales()), "📈",
+                month == null ? null : String.format("rs %,.2f sales · rs %,.2f profit", month.totalPrice(), month.grossProfit())), gbc);
+        SalesRollup top = monthSales == null ? null : monthSales.topSeller();
+        gbc.gridx = 1;
+        statsPanel.add(createStatCard("Top Seller", top == null ? (monthSales == null ? salesMissing : "-") : String.valueOf(top.sales()), "🏆",
+                top == null ? null : String.format("%s · rs %,.2f", top.label(), top.totalPrice())), gbc);
+        statsPanel.revalidate();
+        statsPanel.repaint();
+    }
+
+    // Time spent in the database per data-access method, then time until each background load reached the screen
+    private void showQueryStats() {
+        StringBuilder report = new StringBuilder("Database time per data-access method:\n");
+        for (QueryMetrics.OperationStats operation : DBConnection.getQueryStats()) {
+            report.append(operation).append('\n');
+        }
+        report.append("\nTime until results reached the screen, per background load:\n");
+        for (QueryLatency latency : QueryLatency.all()) {
+            report.append(latency).append('\n');
+        }
+        JTextArea reportArea = new JTextArea(report.toString(), 20, 110);
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JOptionPane.showMessageDialog(this, new JScrollPane(reportArea), "Query Stats", JOptionPane.PLAIN_MESSAGE);
+    }
+
     private Font getFontWithFallback(String fontName, int style, int size) {
         if (Arrays.asList(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames()).contains(fontName)) {
             return new Font(fontName, style, size);
@@ -144,20 +234,18 @@ public class DashboardPanel extends JPanel {
 
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
+        // Repaint every frame: the stat cards advance their glow on each paint
+        AnimationClock.getInstance().register(this, now -> {
+            currentBackground = AnimationClock.ambientColor(now);
             repaint();
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
         if (!animationsEnabled) return;
-        Timer fadeTimer = new Timer(50, e -> {
+        if (fadeTimer != null) fadeTimer.stop();
+        Arrays.fill(cardOpacities, 0f);
+        fadeTimer = new Timer(50, e -> {
             boolean allFaded = true;
             for (int i = 0; i < cardOpacities.length; i++) {
                 if (cardOpacities[i] < 1f) {
@@ -185,6 +273,10 @@ public class DashboardPanel extends JPanel {
     }
 
     private JPanel createStatCard(String title, String value, String icon) {
+        return createStatCard(title, value, icon, null);
+    }
+
+    private JPanel createStatCard(String title, String value, String icon, String detail) {
         JPanel panel = new JPanel(new BorderLayout(25, 25)) {
             private float glowPhase = 0f;
 
@@ -245,11 +337,18 @@ public class DashboardPanel extends JPanel {
         JLabel valueLabel = createGlowingLabel(value, valueFont, TEXT_COLOR, GLOW_COLOR_START);
         valueLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
-        // Layout for title and value
-        JPanel textPanel = new JPanel(new GridLayout(2, 1, 0, 20));
+        // Layout for title, value and optional breakdown
+        JPanel textPanel = new JPanel(new GridLayout(detail == null ? 2 : 3, 1, 0, 20));
         textPanel.setOpaque(false);
         textPanel.add(titleLabel);
         textPanel.add(valueLabel);
+        if (detail != null) {
+            JLabel detailLabel = new JLabel(detail);
+            detailLabel.setFont(getFontWithFallback("Inter", Font.PLAIN, 14));
+            detailLabel.setForeground(TITLE_COLOR);
+            detailLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            textPanel.add(detailLabel);
+        }
 
         // Combine icon and text
         JPanel contentPanel = new JPanel(new BorderLayout(25, 0));
@@ -0,0 +1,50 @@
+package panels;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type for a text field. Keystrokes restart a short timer and
+ * the search only runs once typing pauses. Text shorter than the minimum
+ * prefix is ignored, except that clearing the field searches for "" so the
+ * full list comes back.
+ */
+final class DebouncedSearch {
+    static final int DEFAULT_DELAY_MILLIS = 250;
+    static final int DEFAULT_MIN_PREFIX = 2;
+
+    private final JTextComponent field;
+    private final int minPrefix;
+    private final Consumer<String> search;
+    private final Timer timer;
+
+    DebouncedSearch(JTextComponent field, Consumer<String> search) {
+        this(field, DEFAULT_DELAY_MILLIS, DEFAULT_MIN_PREFIX, search);
+    }
+
+    DebouncedSearch(JTextComponent field, int delayMillis, int minPrefix, Consumer<String> search) {
+        this.field = field;
+        this.minPrefix = minPrefix;
+        this.search = search;
+        this.timer = new Timer(delayMillis, e -> fire());
+        this.timer.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { timer.restart(); }
+            public void removeUpdate(DocumentEvent e) { timer.restart(); }
+            public void changedUpdate(DocumentEvent e) { timer.restart(); }
+        });
+    }
+
+    void cancel() {
+        timer.stop();
+    }
+
+    private void fire() {
+        String text = field.getText().trim();
+        if (!text.isEmpty() && text.length() < minPrefix) return;
+        search.accept(text);
+    }
+}
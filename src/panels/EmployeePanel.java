@@ -1,21 +1,19 @@
 package panels;
 
 import Database.DBConnection;
+import Database.EmployeeRow;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Vector;
 
-public class EmployeePanel extends JPanel {
+public class EmployeePanel extends JPanel implements Suspendable {
     private JTable employeeTable;
-    private DefaultTableModel tableModel;
+    private EmployeeTableModel tableModel;
     private JTextField searchField;
     private JButton addButton, editButton, deleteButton;
     private final Color BACKGROUND_BASE = new Color(5, 5, 6); // Near-black (#050506)
@@ -26,7 +24,6 @@ public class EmployeePanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
     private final Color INPUT_BG = new Color(21, 21, 24, 230); // Matches table
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
 
@@ -83,23 +80,13 @@ public class EmployeePanel extends JPanel {
         searchField.setCaretColor(TEXT_COLOR);
         searchField.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
         searchField.setFont(new Font("Inter", Font.PLAIN, 14));
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchEmployees(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchEmployees(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchEmployees(); }
-        });
+        new DebouncedSearch(searchField, text -> searchEmployees());
         searchPanel.add(searchField);
 
         centerPanel.add(searchPanel, BorderLayout.NORTH);
 
         // Table
-        String[] columnNames = {"ID", "First Name", "Last Name", "Email", "Phone", "Position", "Hire Date", "Salary", "Username"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new EmployeeTableModel(this);
         employeeTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -113,6 +100,7 @@ public class EmployeePanel extends JPanel {
                 return c;
             }
         };
+        tableModel.installSorting(employeeTable);
         employeeTable.setOpaque(false);
         employeeTable.setShowGrid(false);
         employeeTable.setRowHeight(30);
@@ -157,19 +145,9 @@ public class EmployeePanel extends JPanel {
         editButton = createStyledButton("Edit Employee", GLOW_COLOR_START, GLOW_COLOR_END);
         editButton.addActionListener(e -> {
             int selectedRow = employeeTable.getSelectedRow();
-            if (selectedRow != -1) {
-                try {
-                    Object idValue = tableModel.getValueAt(selectedRow, 0);
-                    if (idValue == null) {
-                        throw new IllegalArgumentException("EmployeeID is null");
-                    }
-                    int employeeId = Integer.parseInt(idValue.toString());
-                    showEmployeeForm(employeeId);
-                } catch (NumberFormatException ex) {
-                    JOptionPane.showMessageDialog(this, "Invalid Employee ID format.", "Error", JOptionPane.ERROR_MESSAGE);
-                } catch (IllegalArgumentException ex) {
-                    JOptionPane.showMessageDialog(this, "Employee ID is missing.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+            EmployeeRow employee = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+            if (employee != null) {
+                showEmployeeForm(employee.employeeId());
             } else {
                 JOptionPane.showMessageDialog(this, "Please select an employee to edit.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -227,17 +205,25 @@ public class EmployeePanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void suspend() {
+        tableModel.suspend();
+    }
+
+    @Override
+    public void resume() {
+        tableModel.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -305,26 +291,19 @@ public class EmployeePanel extends JPanel {
     }
 
     private void loadEmployees() {
-        List<Vector<Object>> employees = DBConnection.getAllEmployees();
-        tableModel.setRowCount(0);
-        for (Vector<Object> employee : employees) {
-            tableModel.addRow(employee);
-        }
+        tableModel.setQuery(DBConnection.pageEmployees(null));
     }
 
     private void searchEmployees() {
         String searchText = searchField.getText().trim();
-        List<Vector<Object>> employees = DBConnection.searchEmployees(searchText);
-        tableModel.setRowCount(0);
-        for (Vector<Object> employee : employees) {
-            tableModel.addRow(employee);
-        }
+        tableModel.setQuery(DBConnection.pageEmployees(searchText));
     }
 
     private void deleteEmployee() {
         int selectedRow = employeeTable.getSelectedRow();
-        if (selectedRow != -1) {
-            int employeeId = (int) tableModel.getValueAt(selectedRow, 0);
+        EmployeeRow employee = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (employee != null) {
+            int employeeId = employee.employeeId();
             int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete this employee?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
                 boolean success = DBConnection.deleteEmployee(employeeId);
@@ -526,6 +505,38 @@ public class EmployeePanel extends JPanel {
         formDialog.setLocationRelativeTo(this);
         formDialog.setVisible(true);
     }
+
+    private static class EmployeeTableModel extends PagedTableModel<EmployeeRow> {
+        EmployeeTableModel(Component owner) {
+            super(owner, "ID", "First Name", "Last Name", "Email", "Phone", "Position", "Hire Date", "Salary", "Username");
+        }
+
+        @Override
+        protected String sortColumn(int column) {
+            switch (column) {
+                case 0: return "EmployeeID";
+                case 2: return "LastName";
+                case 3: return "Email";
+                default: return null;
+            }
+        }
+
+        @Override
+        protected Object valueAt(EmployeeRow row, int column) {
+            switch (column) {
+                case 0: return row.employeeId();
+                case 1: return row.firstName();
+                case 2: return row.lastName();
+                case 3: return row.email();
+                case 4: return row.phone();
+                case 5: return row.position();
+                case 6: return row.hireDate();
+                case 7: return row.salary() != null ? row.salary() : "";
+                case 8: return row.username();
+                default: return null;
+            }
+        }
+    }
 }
 
 //package panels;
@@ -877,4 +888,4 @@ public class EmployeePanel extends JPanel {
 //        formDialog.setLocationRelativeTo(this);
 //        formDialog.setVisible(true);
 //    }
-//}
\ No newline at end of file
+//}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package panels;
+
+import Database.PagedQuery;
+import Database.TableExport;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Asks where to save a table and exports it in the background as CSV or
+ * XLSX, following the filter and sort currently on screen. The file is
+ * written next to the chosen one under a temporary name and only moved into
+ * place once complete, so a failed or cancelled export leaves nothing
+ * half-written behind. A progress dialog shows how many rows are done and
+ * can cancel the export.
+ */
+final class ExportAction {
+    private ExportAction() {
+    }
+
+    /**
+     * name is used for the suggested file name and the worksheet name, for
+     * example "Sales".
+     */
+    static void export(Component owner, PagedQuery<?> query, String name) {
+        if (query == null) {
+            JOptionPane.showMessageDialog(owner, "Nothing to export yet.", "Export", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        FileNameExtensionFilter csv = new FileNameExtensionFilter("CSV (*.csv)", "csv");
+        FileNameExtensionFilter xlsx = new FileNameExtensionFilter("Excel workbook (*.xlsx)", "xlsx");
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export " + name);
+        chooser.setAcceptAllFileFilterUsed(false);
+        chooser.addChoosableFileFilter(csv);
+        chooser.addChoosableFileFilter(xlsx);
+        chooser.setFileFilter(csv);
+        chooser.setSelectedFile(new File(name.toLowerCase() + "-" + LocalDate.now() + ".csv"));
+        if (chooser.showSaveDialog(owner) != JFileChooser.APPROVE_OPTION) return;
+
+        File chosen = chooser.getSelectedFile();
+        TableExport.Format format = chooser.getFileFilter() == xlsx || chosen.getName().toLowerCase().endsWith(".xlsx")
+                ? TableExport.Format.XLSX : TableExport.Format.CSV;
+        if (!chosen.getName().toLowerCase().endsWith("." + format.extension())) {
+            chosen = new File(chosen.getParentFile(), chosen.getName() + "." + format.extension());
+        }
+        if (chosen.exists() && JOptionPane.showConfirmDialog(owner, chosen.getName() + " already exists. Replace it?",
+                "Export", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        ProgressMonitor monitor = new ProgressMonitor(owner, "Exporting " + name.toLowerCase() + " to " + chosen.getName(),
+                "Counting rows...", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        new Worker(owner, query, name, format, chosen.toPath(), monitor).execute();
+    }
+
+    private static final class Worker extends SwingWorker<Long, long[]> {
+        private final Component owner;
+        private final PagedQuery<?> query;
+        private final String name;
+        private final TableExport.Format format;
+        private final Path target;
+        private final ProgressMonitor monitor;
+
+        Worker(Component owner, PagedQuery<?> query, String name, TableExport.Format format, Path target,
+               ProgressMonitor monitor) {
+            this.owner = owner;
+            this.query = query;
+            this.name = name;
+            this.format = format;
+            this.target = target;
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected Long doInBackground() throws Exception {
+            Path parent = target.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, ".export-", "." + format.extension() + ".part");
+            try {
+                long rows;
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                    rows = TableExport.export(query, format, name, out, new TableExport.Progress() {
+                        @Override
+                        public void rows(long written, long total) {
+                            publish(new long[]{written, total});
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return Worker.this.isCancelled() || monitor.isCanceled();
+                        }
+                    });
+                }
+                if (rows < 0) return rows;
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                return rows;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        @Override
+        protected void process(List<long[]> chunks) {
+            long[] latest = chunks.get(chunks.size() - 1);
+            long written = latest[0];
+            long total = latest[1];
+            monitor.setProgress(total > 0 ? (int) Math.min(99, written * 100 / total) : 0);
+            monitor.setNote(String.format("%,d of %,d rows", written, total));
+        }
+
+        @Override
+        protected void done() {
+            monitor.close();
+            try {
+                long rows = get();
+                if (rows >= 0) {
+                    JOptionPane.showMessageDialog(owner, String.format("Exported %,d rows to %s.", rows, target.getFileName()),
+                            "Export", JOptionPane.INFORMATION_MESSAGE);
+                }
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("Export failed: " + cause.getMessage());
+                JOptionPane.showMessageDialog(owner, "Failed to export " + name.toLowerCase() + ": " + cause.getMessage(),
+                        "Export Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package panels;
+
+import javax.swing.*;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Enumeration;
+
+/**
+ * Turns clicks on a table header into sort requests that the panel runs on
+ * the server, instead of a TableRowSorter that can only sort the rows it
+ * already has. Clicking a column sorts it ascending, clicking it again
+ * flips the direction. The sorted column is marked with an arrow.
+ */
+final class HeaderSort {
+    interface Handler {
+        /**
+         * Re-runs the table's query sorted by a model column.
+         * @return false if the column is not sortable, leaving the order as it was
+         */
+        boolean sort(int column, boolean descending);
+    }
+
+    private final JTable table;
+    private final Handler handler;
+    private int sortedColumn = -1;
+    private boolean descending;
+
+    private HeaderSort(JTable table, Handler handler) {
+        this.table = table;
+        this.handler = handler;
+    }
+
+    static HeaderSort install(JTable table, Handler handler) {
+        HeaderSort sort = new HeaderSort(table, handler);
+        JTableHeader header = table.getTableHeader();
+        header.setReorderingAllowed(false);
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) return;
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn >= 0) {
+                    sort.clicked(table.convertColumnIndexToModel(viewColumn));
+                }
+            }
+        });
+        return sort;
+    }
+
+    private void clicked(int column) {
+        boolean newDescending = column == sortedColumn && !descending;
+        if (handler.sort(column, newDescending)) {
+            sortedColumn = column;
+            descending = newDescending;
+            updateHeaders();
+        }
+    }
+
+    private void updateHeaders() {
+        Enumeration<TableColumn> columns = table.getColumnModel().getColumns();
+        while (columns.hasMoreElements()) {
+            TableColumn column = columns.nextElement();
+            String name = table.getModel().getColumnName(column.getModelIndex());
+            column.setHeaderValue(column.getModelIndex() == sortedColumn ? name + (descending ? " \u25BC" : " \u25B2") : name);
+        }
+        table.getTableHeader().repaint();
+    }
+}
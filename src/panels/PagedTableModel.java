@@ -0,0 +1,223 @@
+package panels;
+
+import Database.PagedQuery;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-only table model over a {@link PagedQuery}. The row count is the
+ * query's true total, but only the pages around what the table has painted
+ * are held in memory: rows are fetched in pages of {@link #PAGE_SIZE} as the
+ * user scrolls, the next page is requested once the user is halfway through
+ * the current one, and the least recently used pages are dropped beyond
+ * {@link #MAX_CACHED_PAGES}. A row that is not loaded yet shows as blank.
+ *
+ * Pages are read one at a time through the model's own {@link AsyncLoader};
+ * while one is in flight further requests wait, newest first, and the oldest
+ * are forgotten when the user scrolls past faster than pages arrive.
+ *
+ * Once {@link #installSorting(JTable)} is called, header clicks re-run the
+ * query sorted by the clicked column if the query whitelists the name that
+ * {@link #sortColumn(int)} gives it. The sort is kept across setQuery calls.
+ *
+ * All methods must be called on the event dispatch thread.
+ */
+abstract class PagedTableModel<T> extends AbstractTableModel {
+    static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 8;
+    private static final int MAX_WAITING_PAGES = 3;
+
+    private final String[] columns;
+    private final AsyncLoader<Window<T>> loader;
+    private final Map<Integer, PagedQuery.Page<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, PagedQuery.Page<T>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Deque<Integer> waiting = new ArrayDeque<>();
+    private PagedQuery<T> baseQuery;
+    private PagedQuery<T> query;
+    private String sortColumn;
+    private boolean sortDescending;
+    private Consumer<? super Exception> onError;
+    private int rowCount;
+    private int loadingPage = -1;
+    private boolean failed;
+
+    // total is -1 for a page read on its own, or the row count when the query was (re)started
+    private record Window<T>(int page, int total, PagedQuery.Page<T> rows) {
+    }
+
+    protected PagedTableModel(Component owner, String... columns) {
+        this.columns = columns;
+        this.loader = new AsyncLoader<>(owner, getClass().getSimpleName());
+    }
+
+    protected abstract Object valueAt(T row, int column);
+
+    /**
+     * The query column a table column sorts by, or null if it cannot be sorted.
+     */
+    protected String sortColumn(int column) {
+        return null;
+    }
+
+    void installSorting(JTable table) {
+        HeaderSort.install(table, this::sortBy);
+    }
+
+    /**
+     * Shows the rows of a new query. The current rows stay on screen until
+     * the count and first page of the new one arrive. Failures are reported
+     * with the loader's error dialog.
+     */
+    void setQuery(PagedQuery<T> query) {
+        setQuery(query, loader::showError);
+    }
+
+    void setQuery(PagedQuery<T> query, Consumer<? super Exception> onError) {
+        this.baseQuery = query;
+        this.onError = onError;
+        start(sortColumn != null && query.canSortBy(sortColumn) ? query.sortedBy(sortColumn, sortDescending) : query);
+    }
+
+    private boolean sortBy(int column, boolean descending) {
+        String name = sortColumn(column);
+        if (name == null || baseQuery == null || !baseQuery.canSortBy(name)) return false;
+        sortColumn = name;
+        sortDescending = descending;
+        start(baseQuery.sortedBy(name, descending));
+        return true;
+    }
+
+    private void start(PagedQuery<T> query) {
+        this.query = query;
+        waiting.clear();
+        loadingPage = -1;
+        loader.load(() -> new Window<>(0, query.count(), query.fetch(null, 0, PAGE_SIZE)), this::deliver, this::fail);
+    }
+
+    /**
+     * The row at rowIndex, or null if its page has not been loaded yet, in
+     * which case it is requested.
+     */
+    public T getRow(int rowIndex) {
+        int page = rowIndex / PAGE_SIZE;
+        int offset = rowIndex % PAGE_SIZE;
+        PagedQuery.Page<T> loaded = pages.get(page);
+        if (loaded == null) {
+            requestPage(page);
+            return null;
+        }
+        if (offset >= PAGE_SIZE / 2 && !pages.containsKey(page + 1)) {
+            requestPage(page + 1);
+        }
+        return offset < loaded.rows().size() ? loaded.rows().get(offset) : null;
+    }
+
+    /**
+     * The query behind the rows on screen, sorted as the table is, or null
+     * before the first setQuery.
+     */
+    PagedQuery<T> currentQuery() {
+        return query;
+    }
+
+    void suspend() {
+        loader.suspend();
+    }
+
+    void resume() {
+        loader.resume();
+    }
+
+    private void requestPage(int page) {
+        if (query == null || failed || page < 0 || (long) page * PAGE_SIZE >= rowCount) return;
+        if (page == loadingPage) return;
+        waiting.remove(page);
+        waiting.addFirst(page);
+        while (waiting.size() > MAX_WAITING_PAGES) {
+            waiting.removeLast();
+        }
+        loadNext();
+    }
+
+    private void loadNext() {
+        if (loader.isLoading()) return;
+        Integer next;
+        do {
+            next = waiting.pollFirst();
+        } while (next != null && pages.containsKey(next));
+        if (next == null) return;
+
+        int page = next;
+        PagedQuery<T> pageQuery = query;
+        PagedQuery.Page<T> previous = page > 0 ? pages.get(page - 1) : null;
+        Object[] after = previous != null ? previous.lastKey() : null;
+        loadingPage = page;
+        loader.load(() -> new Window<>(page, -1, pageQuery.fetch(after, page * PAGE_SIZE, PAGE_SIZE)),
+                this::deliver, this::fail);
+    }
+
+    private void deliver(Window<T> window) {
+        loadingPage = -1;
+        boolean restarted = window.total() >= 0;
+        if (restarted) {
+            pages.clear();
+            waiting.clear(); // requested against the old rows; the repaint asks again
+            rowCount = window.total();
+            failed = false;
+        }
+        pages.put(window.page(), window.rows());
+
+        int first = window.page() * PAGE_SIZE;
+        int end = first + window.rows().rows().size();
+        if (window.rows().rows().size() < PAGE_SIZE && end < rowCount) {
+            // rows were deleted since the count was taken
+            rowCount = end;
+            restarted = true;
+        }
+        if (restarted) {
+            fireTableDataChanged();
+        } else if (end > first) {
+            fireTableRowsUpdated(first, end - 1);
+        }
+        loadNext();
+    }
+
+    private void fail(Exception e) {
+        loadingPage = -1;
+        failed = true;
+        waiting.clear();
+        if (onError != null) onError.accept(e);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row == null ? null : valueAt(row, columnIndex);
+    }
+}
@@ -1,10 +1,11 @@
 package panels;
 
 import Database.DBConnection;
+import Database.PendingOrderRow;
+import Database.SearchIndex;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
@@ -12,13 +13,13 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Vector;
 
 import static Database.DBConnection.getEmployeeIdByUsername;
 
-public class PendingOrdersPanel extends JPanel {
+public class PendingOrdersPanel extends JPanel implements Suspendable {
     private JTable ordersTable;
-    private DefaultTableModel tableModel;
+    private PendingOrderTableModel tableModel;
+    private final AsyncLoader<List<PendingOrderRow>> rowLoader = new AsyncLoader<>(this, "pendingOrders");
     private JTextField searchField;
     private JButton searchButton, refreshButton;
     private final String employeeId; // Logged-in employee's ID
@@ -32,7 +33,6 @@ public class PendingOrdersPanel extends JPanel {
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192);
     private final Color INPUT_BG = new Color(21, 21, 24, 230);
     private final Color SUCCESS_COLOR = new Color(34, 197, 94);
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
 
@@ -48,6 +48,7 @@ public class PendingOrdersPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(30, 30, 30, 30));
         setOpaque(false);
 
+        SearchIndex.getInstance().loadInBackground();
         initializeComponents();
         startAnimation();
         startFadeInAnimation();
@@ -104,32 +105,14 @@ public class PendingOrdersPanel extends JPanel {
         buttonPanel.setOpaque(false);
 
         refreshButton = createStyledButton("Refresh", GLOW_COLOR_START, GLOW_COLOR_END);
-        refreshButton.addActionListener(e -> {
-            loadPendingOrders();
-            if (tableModel.getRowCount() == 0) {
-                JOptionPane.showMessageDialog(this, "No pending orders found.",
-                        "Information", JOptionPane.INFORMATION_MESSAGE);
-            }
-        });
+        refreshButton.addActionListener(e -> rowLoader.load(DBConnection::getPendingOrders,
+                orders -> showOrders(orders, "No pending orders found.")));
         buttonPanel.add(refreshButton);
 
         topPanel.add(searchPanel, BorderLayout.WEST);
         topPanel.add(buttonPanel, BorderLayout.EAST);
 
-        String[] columns = {"SaleID", "Invoice#", "Customer", "Vehicle", "Sale Date", "Sale Price", "Tax", "Total", "Status", "Confirm"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 9; // Only the "Confirm" button column is editable
-            }
-
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 0) return Integer.class; // SaleID
-                if (columnIndex == 5 || columnIndex == 6 || columnIndex == 7) return BigDecimal.class; // Prices
-                return String.class;
-            }
-        };
+        tableModel = new PendingOrderTableModel();
 
         ordersTable = new JTable(tableModel) {
             @Override
@@ -241,17 +224,25 @@ public class PendingOrdersPanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void suspend() {
+        rowLoader.suspend();
+    }
+
+    @Override
+    public void resume() {
+        rowLoader.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -319,46 +310,21 @@ public class PendingOrdersPanel extends JPanel {
     }
 
     private void loadPendingOrders() {
-        tableModel.setRowCount(0);
-        List<Vector<Object>> orders = DBConnection.getPendingOrders();
-        for (Vector<Object> row : orders) {
-            tableModel.addRow(new Object[]{
-                    row.get(0), // SaleID
-                    row.get(1), // InvoiceNumber
-                    row.get(2), // Customer Name
-                    row.get(3), // Vehicle Info
-                    row.get(4), // SaleDate
-                    row.get(5), // SalePrice
-                    row.get(6), // TaxAmount
-                    row.get(7), // TotalPrice
-                    row.get(8), // SaleStatus
-                    "Confirm" // Confirm button
-            });
-        }
+        rowLoader.load(DBConnection::getPendingOrders, tableModel::setRows);
     }
 
     private void searchOrders() {
         String searchText = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        List<Vector<Object>> orders = searchText.isEmpty() ?
-                DBConnection.getPendingOrders() :
-                DBConnection.searchPendingOrders(searchText);
-        for (Vector<Object> row : orders) {
-            tableModel.addRow(new Object[]{
-                    row.get(0), // SaleID
-                    row.get(1), // InvoiceNumber
-                    row.get(2), // Customer Name
-                    row.get(3), // Vehicle Info
-                    row.get(4), // SaleDate
-                    row.get(5), // SalePrice
-                    row.get(6), // TaxAmount
-                    row.get(7), // TotalPrice
-                    row.get(8), // SaleStatus
-                    "Confirm" // Confirm button
-            });
-        }
-        if (tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, "No matching pending orders found.",
+        rowLoader.load(() -> searchText.isEmpty() ?
+                        DBConnection.getPendingOrders() :
+                        DBConnection.searchPendingOrders(searchText),
+                orders -> showOrders(orders, "No matching pending orders found."));
+    }
+
+    private void showOrders(List<PendingOrderRow> orders, String emptyMessage) {
+        tableModel.setRows(orders);
+        if (orders.isEmpty()) {
+            JOptionPane.showMessageDialog(this, emptyMessage,
                     "Information", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -415,11 +381,12 @@ public class PendingOrdersPanel extends JPanel {
         @Override
         public Object getCellEditorValue() {
             if (isPushed) {
-                int saleId = (Integer) tableModel.getValueAt(clickedRow, 0);
-                String invoiceNumber = (String) tableModel.getValueAt(clickedRow, 1);
-                String customerName = (String) tableModel.getValueAt(clickedRow, 2);
-                String vehicleInfo = (String) tableModel.getValueAt(clickedRow, 3);
-                BigDecimal totalPrice = (BigDecimal) tableModel.getValueAt(clickedRow, 7);
+                PendingOrderRow order = tableModel.getRow(clickedRow);
+                int saleId = order.saleId();
+                String invoiceNumber = order.invoiceNumber();
+                String customerName = order.customerName();
+                String vehicleInfo = order.vehicleInfo();
+                BigDecimal totalPrice = order.totalPrice();
 
                 int confirm = JOptionPane.showConfirmDialog(
                         PendingOrdersPanel.this,
@@ -497,6 +464,41 @@ public class PendingOrdersPanel extends JPanel {
         }
     }
 
+    private static class PendingOrderTableModel extends RowTableModel<PendingOrderRow> {
+        PendingOrderTableModel() {
+            super("SaleID", "Invoice#", "Customer", "Vehicle", "Sale Date", "Sale Price", "Tax", "Total", "Status", "Confirm");
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 9; // Only the "Confirm" button column is editable
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            if (columnIndex == 0) return Integer.class; // SaleID
+            if (columnIndex == 5 || columnIndex == 6 || columnIndex == 7) return BigDecimal.class; // Prices
+            return String.class;
+        }
+
+        @Override
+        protected Object valueAt(PendingOrderRow row, int column) {
+            switch (column) {
+                case 0: return row.saleId();
+                case 1: return row.invoiceNumber();
+                case 2: return row.customerName();
+                case 3: return row.vehicleInfo();
+                case 4: return row.saleDate();
+                case 5: return row.salePrice();
+                case 6: return row.taxAmount();
+                case 7: return row.totalPrice();
+                case 8: return row.saleStatus();
+                case 9: return "Confirm"; // Confirm button
+                default: return null;
+            }
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Orders Management");
@@ -506,4 +508,4 @@ public class PendingOrdersPanel extends JPanel {
             frame.setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package panels;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency of background queries as the user sees it: from the moment a load
+ * is started until its rows are applied on the event thread. One instance per
+ * named query, shared by every panel that runs it.
+ */
+final class QueryLatency {
+    private static final Map<String, QueryLatency> BY_NAME = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private volatile long lastNanos;
+
+    private QueryLatency(String name) {
+        this.name = name;
+    }
+
+    static QueryLatency named(String name) {
+        return BY_NAME.computeIfAbsent(name, QueryLatency::new);
+    }
+
+    /**
+     * Every query seen so far, by name.
+     */
+    static List<QueryLatency> all() {
+        List<QueryLatency> all = new ArrayList<>(BY_NAME.values());
+        all.sort(Comparator.comparing(QueryLatency::getName));
+        return all;
+    }
+
+    void record(long nanos) {
+        completed.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        lastNanos = nanos;
+    }
+
+    void recordSuperseded() {
+        superseded.increment();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getCompleted() {
+        return completed.sum();
+    }
+
+    long getSuperseded() {
+        return superseded.sum();
+    }
+
+    double getAverageMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+    }
+
+    double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    double getLastMillis() {
+        return lastNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-28s completed=%d superseded=%d last=%.1fms avg=%.1fms max=%.1fms",
+                name, getCompleted(), getSuperseded(), getLastMillis(), getAverageMillis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,61 @@
+package panels;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only table model backed directly by a list of row records.
+ * Subclasses map a record to the value shown in each column.
+ */
+abstract class RowTableModel<T> extends AbstractTableModel {
+    private final String[] columns;
+    private List<T> rows = new ArrayList<>();
+
+    protected RowTableModel(String... columns) {
+        this.columns = columns;
+    }
+
+    protected abstract Object valueAt(T row, int column);
+
+    /**
+     * Replaces the table contents. The model takes ownership of the list.
+     */
+    public void setRows(List<T> rows) {
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    public T getRow(int rowIndex) {
+        return rows.get(rowIndex);
+    }
+
+    public List<T> getRows() {
+        return rows;
+    }
+
+    public void removeRow(int rowIndex) {
+        rows.remove(rowIndex);
+        fireTableRowsDeleted(rowIndex, rowIndex);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return valueAt(rows.get(rowIndex), columnIndex);
+    }
+}
@@ -1,24 +1,23 @@
 package panels;
 
 import Database.DBConnection;
+import Database.SaleRow;
+import Database.SearchIndex;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Vector;
 
-public class SalesPanel extends JPanel {
+public class SalesPanel extends JPanel implements Suspendable {
     private JTable salesTable;
-    private DefaultTableModel tableModel;
+    private SaleTableModel tableModel;
     private JTextField searchField;
     private JComboBox<String> statusCombo;
-    private JButton addButton, editButton, deleteButton, refreshButton;
+    private JButton addButton, editButton, deleteButton, refreshButton, exportButton;
     private final Color BACKGROUND_BASE = new Color(5, 5, 6); // Near-black (#050506)
     private Color currentBackground = BACKGROUND_BASE;
     private final Color TABLE_BG = new Color(21, 21, 24, 230); // Dark gray (#151518, 90% opacity)
@@ -27,7 +26,6 @@ public class SalesPanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
     private final Color INPUT_BG = new Color(21, 21, 24, 230); // Matches table
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
 
@@ -37,14 +35,11 @@ public class SalesPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(30, 30, 30, 30));
         setOpaque(false);
 
+        SearchIndex.getInstance().loadInBackground();
         initComponents();
         startAnimation();
         startFadeInAnimation();
-        try {
-            loadSales();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Failed to load sales data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        loadSales();
     }
 
     private void initComponents() {
@@ -89,11 +84,7 @@ public class SalesPanel extends JPanel {
         searchField.setCaretColor(TEXT_COLOR);
         searchField.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
         searchField.setFont(new Font("Inter", Font.PLAIN, 14));
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchSales(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchSales(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchSales(); }
-        });
+        new DebouncedSearch(searchField, text -> searchSales());
         controlPanel.add(searchField);
 
         JLabel statusLabel = new JLabel("Status:");
@@ -120,13 +111,7 @@ public class SalesPanel extends JPanel {
         centerPanel.add(controlPanel, BorderLayout.NORTH);
 
         // Table
-        String[] columnNames = {"ID", "Invoice Number", "Vehicle", "Customer", "Employee", "Sale Date", "Sale Price", "Tax Amount", "Total Price", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new SaleTableModel(this);
         salesTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -140,6 +125,7 @@ public class SalesPanel extends JPanel {
                 return c;
             }
         };
+        tableModel.installSorting(salesTable);
         salesTable.setOpaque(false);
         salesTable.setShowGrid(false);
         salesTable.setRowHeight(30);
@@ -184,9 +170,9 @@ public class SalesPanel extends JPanel {
         editButton = createStyledButton("Edit Sale", GLOW_COLOR_START, GLOW_COLOR_END);
         editButton.addActionListener(e -> {
             int selectedRow = salesTable.getSelectedRow();
-            if (selectedRow != -1) {
-                int saleId = (int) tableModel.getValueAt(selectedRow, 0);
-                showSaleForm(saleId);
+            SaleRow sale = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+            if (sale != null) {
+                showSaleForm(sale.saleId());
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a sale to edit.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -207,6 +193,10 @@ public class SalesPanel extends JPanel {
         });
         buttonPanel.add(refreshButton);
 
+        exportButton = createStyledButton("Export", GLOW_COLOR_START, GLOW_COLOR_END);
+        exportButton.addActionListener(e -> ExportAction.export(this, tableModel.currentQuery(), "Sales"));
+        buttonPanel.add(exportButton);
+
         centerPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(centerPanel, BorderLayout.CENTER);
@@ -252,17 +242,25 @@ public class SalesPanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void suspend() {
+        tableModel.suspend();
+    }
+
+    @Override
+    public void resume() {
+        tableModel.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -330,35 +328,22 @@ public class SalesPanel extends JPanel {
     }
 
     private void loadSales() {
-        try {
-            List<Vector<Object>> sales = DBConnection.getAllSales();
-            tableModel.setRowCount(0);
-            for (Vector<Object> sale : sales) {
-                tableModel.addRow(sale);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading sales: " + e.getMessage(), e);
-        }
+        tableModel.setQuery(DBConnection.pageSales(null, null),
+                e -> JOptionPane.showMessageDialog(this, "Failed to load sales data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     private void searchSales() {
-        try {
-            String searchText = searchField.getText().trim();
-            String status = (String) statusCombo.getSelectedItem();
-            List<Vector<Object>> sales = DBConnection.searchSales(searchText, status);
-            tableModel.setRowCount(0);
-            for (Vector<Object> sale : sales) {
-                tableModel.addRow(sale);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Failed to search sales: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        String searchText = searchField.getText().trim();
+        String status = (String) statusCombo.getSelectedItem();
+        tableModel.setQuery(DBConnection.pageSales(searchText, status),
+                e -> JOptionPane.showMessageDialog(this, "Failed to search sales: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     private void deleteSale() {
         int selectedRow = salesTable.getSelectedRow();
-        if (selectedRow != -1) {
-            int saleId = (int) tableModel.getValueAt(selectedRow, 0);
+        SaleRow sale = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (sale != null) {
+            int saleId = sale.saleId();
             int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete this sale?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
                 try {
@@ -439,8 +424,7 @@ public class SalesPanel extends JPanel {
         }
 
         if (saleId != null) {
-            try {
-                ResultSet rs = DBConnection.getSaleById(saleId);
+            try (ResultSet rs = DBConnection.getSaleById(saleId)) {
                 if (rs.next()) {
                     fields[0].setText(String.valueOf(rs.getInt("VehicleID")));
                     fields[1].setText(String.valueOf(rs.getInt("CustomerID")));
@@ -527,6 +511,40 @@ public class SalesPanel extends JPanel {
         formDialog.setVisible(true);
     }
 
+    private static class SaleTableModel extends PagedTableModel<SaleRow> {
+        SaleTableModel(Component owner) {
+            super(owner, "ID", "Invoice Number", "Vehicle", "Customer", "Employee", "Sale Date", "Sale Price", "Tax Amount", "Total Price", "Status");
+        }
+
+        @Override
+        protected String sortColumn(int column) {
+            switch (column) {
+                case 0: return "SaleID";
+                case 1: return "InvoiceNumber";
+                case 5: return "SaleDate";
+                case 8: return "TotalPrice";
+                default: return null;
+            }
+        }
+
+        @Override
+        protected Object valueAt(SaleRow row, int column) {
+            switch (column) {
+                case 0: return row.saleId();
+                case 1: return row.invoiceNumber();
+                case 2: return row.vehicle();
+                case 3: return row.customer();
+                case 4: return row.employee();
+                case 5: return row.saleDate();
+                case 6: return row.salePrice();
+                case 7: return row.taxAmount();
+                case 8: return row.totalPrice();
+                case 9: return row.saleStatus();
+                default: return null;
+            }
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Sales Panel Test");
@@ -1,22 +1,36 @@
 package panels;
 
+import Database.DBConnection;
+import Database.ServiceRow;
+import Database.TechnicianSchedule;
+import Database.TechnicianWorkload;
+
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.Vector;
-// import Database.DBConnection;
 
-public class ServicePanel extends JPanel {
+public class ServicePanel extends JPanel implements Suspendable {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+
     private JTable serviceTable;
-    private DefaultTableModel tableModel;
+    private ServiceTableModel tableModel;
     private JTextField searchField;
     private JComboBox<String> statusCombo;
-    private JButton addButton, editButton, deleteButton, refreshButton;
+    private JComboBox<String> rangeCombo;
+    private JButton addButton, editButton, deleteButton, refreshButton, assignButton, workloadButton;
+    private final AsyncLoader<TechnicianSchedule.AutoAssignResult> assignLoader = new AsyncLoader<>(this, "autoAssign");
+    private final AsyncLoader<TechnicianSchedule.Slot> slotLoader = new AsyncLoader<>(this, "nextFreeSlot");
+    private final AsyncLoader<Clash> clashLoader = new AsyncLoader<>(this, "serviceConflicts");
+    private final AsyncLoader<List<TechnicianWorkload>> workloadLoader = new AsyncLoader<>(this, "getTechnicianWorkload");
     private final Color BACKGROUND_BASE = new Color(5, 5, 6); // Near-black (#050506)
     private Color currentBackground = BACKGROUND_BASE;
     private final Color TABLE_BG = new Color(21, 21, 24, 230); // Dark gray (#151518, 90% opacity)
@@ -25,10 +39,8 @@ public class ServicePanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
     private final Color INPUT_BG = new Color(21, 21, 24, 230); // Matches table
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
-    private List<Vector<Object>> dummyServices; // In-memory service data
 
     public ServicePanel() {
         setLayout(new BorderLayout());
@@ -36,26 +48,10 @@ public class ServicePanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(30, 30, 30, 30));
         setOpaque(false);
 
-        // Initialize dummy data
-        initializeDummyData();
-
         initComponents();
         startAnimation();
         startFadeInAnimation();
-        try {
-            loadServices();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Failed to load service data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    private void initializeDummyData() {
-        dummyServices = new ArrayList<>();
-        // Dummy service records
-        dummyServices.add(new Vector<>(List.of(1, 101, 201, 301, "2025-01-15", "Oil Change", 59.99, "Completed")));
-        dummyServices.add(new Vector<>(List.of(2, 102, 202, 302, "2025-02-20", "Brake Repair", 299.99, "In Progress")));
-        dummyServices.add(new Vector<>(List.of(3, 103, 203, 303, "2025-03-10", "Tire Rotation", 79.99, "Scheduled")));
-        dummyServices.add(new Vector<>(List.of(4, 104, 204, 304, "2025-04-05", "Engine Diagnostic", 149.99, "Completed")));
+        loadServices();
     }
 
     private void initComponents() {
@@ -100,11 +96,7 @@ public class ServicePanel extends JPanel {
         searchField.setCaretColor(TEXT_COLOR);
         searchField.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
         searchField.setFont(new Font("Inter", Font.PLAIN, 14));
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchServices(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchServices(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchServices(); }
-        });
+        new DebouncedSearch(searchField, text -> loadServices());
         controlPanel.add(searchField);
 
         JLabel statusLabel = new JLabel("Status:");
@@ -125,19 +117,34 @@ public class ServicePanel extends JPanel {
         statusCombo.setBackground(INPUT_BG);
         statusCombo.setForeground(TEXT_COLOR);
         statusCombo.setFont(new Font("Inter", Font.PLAIN, 14));
-        statusCombo.addActionListener(e -> searchServices());
+        statusCombo.addActionListener(e -> loadServices());
         controlPanel.add(statusCombo);
 
-        centerPanel.add(controlPanel, BorderLayout.NORTH);
+        JLabel rangeLabel = new JLabel("When:");
+        rangeLabel.setForeground(SECONDARY_TEXT_COLOR);
+        rangeLabel.setFont(new Font("Inter", Font.PLAIN, 16));
+        controlPanel.add(rangeLabel);
 
-        // Table
-        String[] columnNames = {"ID", "Vehicle ID", "Customer ID", "Employee ID", "Service Date", "Description", "Cost", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        rangeCombo = new JComboBox<>(new String[]{"Any Time", "Today", "Next 7 Days", "Last 30 Days", "This Year"}) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setColor(INPUT_BG);
+                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 10, 10);
+                super.paintComponent(g);
             }
         };
+        rangeCombo.setBackground(INPUT_BG);
+        rangeCombo.setForeground(TEXT_COLOR);
+        rangeCombo.setFont(new Font("Inter", Font.PLAIN, 14));
+        rangeCombo.addActionListener(e -> loadServices());
+        controlPanel.add(rangeCombo);
+
+        centerPanel.add(controlPanel, BorderLayout.NORTH);
+
+        // Table
+        tableModel = new ServiceTableModel(this);
         serviceTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -151,6 +158,7 @@ public class ServicePanel extends JPanel {
                 return c;
             }
         };
+        tableModel.installSorting(serviceTable);
         serviceTable.setOpaque(false);
         serviceTable.setShowGrid(false);
         serviceTable.setRowHeight(30);
@@ -195,9 +203,9 @@ public class ServicePanel extends JPanel {
         editButton = createStyledButton("Edit Service", GLOW_COLOR_START, GLOW_COLOR_END);
         editButton.addActionListener(e -> {
             int selectedRow = serviceTable.getSelectedRow();
-            if (selectedRow != -1) {
-                int serviceId = (int) tableModel.getValueAt(selectedRow, 0);
-                showServiceForm(serviceId);
+            ServiceRow service = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+            if (service != null) {
+                showServiceForm(service.serviceId());
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a service to edit.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -209,15 +217,17 @@ public class ServicePanel extends JPanel {
         buttonPanel.add(deleteButton);
 
         refreshButton = createStyledButton("Refresh", GLOW_COLOR_START, GLOW_COLOR_END);
-        refreshButton.addActionListener(e -> {
-            try {
-                loadServices();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Failed to refresh services: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        });
+        refreshButton.addActionListener(e -> loadServices());
         buttonPanel.add(refreshButton);
 
+        assignButton = createStyledButton("Auto-Assign Today", GLOW_COLOR_START, GLOW_COLOR_END);
+        assignButton.addActionListener(e -> autoAssignToday());
+        buttonPanel.add(assignButton);
+
+        workloadButton = createStyledButton("Workload", GLOW_COLOR_START, GLOW_COLOR_END);
+        workloadButton.addActionListener(e -> showWorkload());
+        buttonPanel.add(workloadButton);
+
         centerPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(centerPanel, BorderLayout.CENTER);
@@ -265,15 +275,13 @@ public class ServicePanel extends JPanel {
 
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -340,41 +348,95 @@ public class ServicePanel extends JPanel {
         return label;
     }
 
+    @Override
+    public void suspend() {
+        tableModel.suspend();
+    }
+
+    @Override
+    public void resume() {
+        tableModel.resume();
+    }
+
+    // Reloads with the current search text, status and date range
     private void loadServices() {
-        tableModel.setRowCount(0);
-        for (Vector<Object> service : dummyServices) {
-            tableModel.addRow(service);
+        LocalDateTime[] range = selectedRange();
+        tableModel.setQuery(DBConnection.pageServices(searchField.getText().trim(), (String) statusCombo.getSelectedItem(),
+                        range == null ? null : range[0], range == null ? null : range[1]),
+                e -> JOptionPane.showMessageDialog(this, "Failed to load service data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    // The [from, to) of the date range picked above the table, or null for Any Time
+    private LocalDateTime[] selectedRange() {
+        LocalDate today = LocalDate.now();
+        switch ((String) rangeCombo.getSelectedItem()) {
+            case "Today": return new LocalDateTime[]{today.atStartOfDay(), today.plusDays(1).atStartOfDay()};
+            case "Next 7 Days": return new LocalDateTime[]{today.atStartOfDay(), today.plusDays(7).atStartOfDay()};
+            case "Last 30 Days": return new LocalDateTime[]{today.minusDays(30).atStartOfDay(), today.plusDays(1).atStartOfDay()};
+            case "This Year": return new LocalDateTime[]{today.withDayOfYear(1).atStartOfDay(), today.withDayOfYear(1).plusYears(1).atStartOfDay()};
+            default: return null;
         }
     }
 
-    private void searchServices() {
-        String searchText = searchField.getText().trim().toLowerCase();
-        String status = (String) statusCombo.getSelectedItem();
-        tableModel.setRowCount(0);
-        for (Vector<Object> service : dummyServices) {
-            String description = ((String) service.get(5)).toLowerCase();
-            String serviceStatus = (String) service.get(7);
-            boolean matchesSearch = searchText.isEmpty() || description.contains(searchText) ||
-                    service.get(0).toString().contains(searchText) ||
-                    service.get(1).toString().contains(searchText) ||
-                    service.get(2).toString().contains(searchText) ||
-                    service.get(3).toString().contains(searchText);
-            boolean matchesStatus = status.equals("All") || serviceStatus.equals(status);
-            if (matchesSearch && matchesStatus) {
-                tableModel.addRow(service);
+    // Jobs per technician in the selected date range, or the next 7 days when Any Time is selected
+    private void showWorkload() {
+        LocalDateTime[] range = selectedRange();
+        String rangeName = range == null ? "Next 7 Days" : (String) rangeCombo.getSelectedItem();
+        LocalDateTime from = range == null ? LocalDate.now().atStartOfDay() : range[0];
+        LocalDateTime to = range == null ? LocalDate.now().plusDays(7).atStartOfDay() : range[1];
+        workloadButton.setEnabled(false);
+        workloadLoader.load(() -> DBConnection.getTechnicianWorkload(from, to), workload -> {
+            workloadButton.setEnabled(true);
+            if (workload.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No technician has a job booked in this range.", "Workload: " + rangeName, JOptionPane.INFORMATION_MESSAGE);
+                return;
             }
-        }
+            WorkloadTableModel workloadModel = new WorkloadTableModel();
+            workloadModel.setRows(workload);
+            JTable workloadTable = new JTable(workloadModel);
+            JScrollPane scrollPane = new JScrollPane(workloadTable);
+            scrollPane.setPreferredSize(new Dimension(700, Math.min(400, 40 + workload.size() * workloadTable.getRowHeight())));
+            JOptionPane.showMessageDialog(this, scrollPane, "Workload: " + rangeName, JOptionPane.PLAIN_MESSAGE);
+        }, e -> {
+            workloadButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Failed to load technician workload: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    // Books today's jobs without a technician onto whoever can take them soonest
+    private void autoAssignToday() {
+        assignButton.setEnabled(false);
+        assignLoader.load(() -> TechnicianSchedule.getInstance().autoAssign(LocalDate.now()), result -> {
+            assignButton.setEnabled(true);
+            loadServices();
+            StringBuilder message = new StringBuilder("Assigned " + result.assigned().size() + " of "
+                    + (result.assigned().size() + result.unassigned().size()) + " unassigned services for today.");
+            if (!result.unassigned().isEmpty()) {
+                message.append("\nNo technician has room for:");
+                for (ServiceRow service : result.unassigned()) {
+                    message.append("\n  #").append(service.serviceId()).append(" ").append(service.serviceType())
+                            .append(" (").append(service.durationMinutes()).append(" min)");
+                }
+            }
+            JOptionPane.showMessageDialog(this, message.toString(), "Auto-Assign", JOptionPane.INFORMATION_MESSAGE);
+        }, e -> {
+            assignButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Failed to assign technicians: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
 
     private void deleteService() {
         int selectedRow = serviceTable.getSelectedRow();
-        if (selectedRow != -1) {
-            int serviceId = (int) tableModel.getValueAt(selectedRow, 0);
+        ServiceRow service = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (service != null) {
             int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete this service?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                dummyServices.removeIf(service -> (int) service.get(0) == serviceId);
-                loadServices();
-                JOptionPane.showMessageDialog(this, "Service deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                if (DBConnection.deleteService(service.serviceId())) {
+                    loadServices();
+                    JOptionPane.showMessageDialog(this, "Service deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to delete service.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
         } else {
             JOptionPane.showMessageDialog(this, "Please select a service to delete.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -408,7 +470,7 @@ public class ServicePanel extends JPanel {
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(15, 15, 15, 15);
 
-        String[] labels = {"Vehicle ID:", "Customer ID:", "Employee ID:", "Service Date (YYYY-MM-DD):", "Description:", "Cost:", "Status:"};
+        String[] labels = {"Vehicle ID:", "Customer ID:", "Technician ID:", "Service Type:", "Service Date (YYYY-MM-DD HH:MM):", "Duration (minutes):", "Description:", "Cost:", "Status:"};
         JTextField[] fields = new JTextField[labels.length - 1];
         JComboBox<String> statusComboBox = new JComboBox<>(new String[]{"Scheduled", "In Progress", "Completed"});
 
@@ -442,82 +504,187 @@ public class ServicePanel extends JPanel {
         }
 
         if (serviceId != null) {
-            Vector<Object> service = dummyServices.stream()
-                    .filter(s -> (int) s.get(0) == serviceId)
-                    .findFirst()
-                    .orElse(null);
+            ServiceRow service;
+            try {
+                service = DBConnection.getServiceById(serviceId);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(formDialog, "Failed to load service: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                formDialog.dispose();
+                return;
+            }
             if (service != null) {
-                fields[0].setText(String.valueOf(service.get(1))); // VehicleID
-                fields[1].setText(String.valueOf(service.get(2))); // CustomerID
-                fields[2].setText(String.valueOf(service.get(3))); // EmployeeID
-                fields[3].setText((String) service.get(4)); // ServiceDate
-                fields[4].setText((String) service.get(5)); // Description
-                fields[5].setText(String.valueOf(service.get(6))); // Cost
-                statusComboBox.setSelectedItem(service.get(7)); // Status
+                fields[0].setText(service.vehicleId() != null ? String.valueOf(service.vehicleId()) : "");
+                fields[1].setText(service.customerId() != null ? String.valueOf(service.customerId()) : "");
+                fields[2].setText(service.technicianId() != null ? String.valueOf(service.technicianId()) : "");
+                fields[3].setText(service.serviceType());
+                fields[4].setText(service.serviceDate().toLocalDateTime().format(DATE_TIME_FORMAT));
+                fields[5].setText(String.valueOf(service.durationMinutes()));
+                fields[6].setText(service.description());
+                fields[7].setText(service.cost() != null ? service.cost().toPlainString() : "");
+                statusComboBox.setSelectedItem(service.status());
             } else {
                 JOptionPane.showMessageDialog(formDialog, "Service record not found.", "Error", JOptionPane.ERROR_MESSAGE);
                 formDialog.dispose();
                 return;
             }
+        } else {
+            fields[5].setText(String.valueOf(DEFAULT_DURATION_MINUTES));
         }
 
+        JButton slotButton = createStyledButton("Find Free Slot", GLOW_COLOR_START, GLOW_COLOR_END);
         JButton saveButton = createStyledButton(serviceId == null ? "Add" : "Update", GLOW_COLOR_START, GLOW_COLOR_END);
+        JPanel formButtons = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        formButtons.setOpaque(false);
+        formButtons.add(slotButton);
+        formButtons.add(saveButton);
         gbc.gridx = 0;
         gbc.gridy = labels.length;
         gbc.gridwidth = 2;
         gbc.anchor = GridBagConstraints.CENTER;
-        contentPanel.add(saveButton, gbc);
+        contentPanel.add(formButtons, gbc);
+
+        // Fills in the earliest slot from the entered date (or now), with the entered technician or anyone free
+        slotButton.addActionListener(e -> {
+            Integer technicianId;
+            int durationMinutes;
+            LocalDateTime after;
+            try {
+                String technicianIdStr = fields[2].getText().trim();
+                String serviceDateStr = fields[4].getText().trim();
+                technicianId = technicianIdStr.isEmpty() ? null : Integer.parseInt(technicianIdStr);
+                durationMinutes = Integer.parseInt(fields[5].getText().trim());
+                after = serviceDateStr.isEmpty() ? LocalDateTime.now() : parseServiceDate(serviceDateStr);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(formDialog, "Please enter a valid technician ID and duration.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(formDialog, "Please enter a valid date in YYYY-MM-DD or YYYY-MM-DD HH:MM format.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            // The first search loads the schedule, so it runs off the event thread
+            slotButton.setEnabled(false);
+            slotLoader.load(() -> {
+                TechnicianSchedule schedule = TechnicianSchedule.getInstance();
+                schedule.ensureLoaded();
+                if (technicianId == null) {
+                    return schedule.nextFreeSlot(after, durationMinutes);
+                }
+                LocalDateTime start = schedule.nextFreeSlot(technicianId, after, durationMinutes);
+                return start != null ? new TechnicianSchedule.Slot(technicianId, start) : null;
+            }, slot -> {
+                slotButton.setEnabled(true);
+                if (slot == null) {
+                    JOptionPane.showMessageDialog(formDialog, "No free slot found for a " + durationMinutes + " minute job.", "Schedule", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                fields[2].setText(String.valueOf(slot.technicianId()));
+                fields[4].setText(slot.start().format(DATE_TIME_FORMAT));
+            }, ex -> {
+                slotButton.setEnabled(true);
+                JOptionPane.showMessageDialog(formDialog, "Failed to search the schedule: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            });
+        });
 
         saveButton.addActionListener(e -> {
             try {
                 String vehicleIdStr = fields[0].getText().trim();
                 String customerIdStr = fields[1].getText().trim();
-                String employeeIdStr = fields[2].getText().trim();
-                String serviceDate = fields[3].getText().trim();
-                String description = fields[4].getText().trim();
-                String costStr = fields[5].getText().trim();
+                String technicianIdStr = fields[2].getText().trim();
+                String serviceType = fields[3].getText().trim();
+                String serviceDateStr = fields[4].getText().trim();
+                String durationStr = fields[5].getText().trim();
+                String description = fields[6].getText().trim();
+                String costStr = fields[7].getText().trim();
                 String status = (String) statusComboBox.getSelectedItem();
 
-                if (vehicleIdStr.isEmpty() || customerIdStr.isEmpty() || employeeIdStr.isEmpty() || serviceDate.isEmpty() || description.isEmpty() || costStr.isEmpty()) {
+                // The technician may be left empty for Auto-Assign to fill in
+                if (vehicleIdStr.isEmpty() || customerIdStr.isEmpty() || serviceType.isEmpty() || serviceDateStr.isEmpty() || durationStr.isEmpty() || description.isEmpty() || costStr.isEmpty()) {
                     JOptionPane.showMessageDialog(formDialog, "Please fill in all required fields.", "Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
 
-                if (!serviceDate.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                    JOptionPane.showMessageDialog(formDialog, "Please enter a valid date in YYYY-MM-DD format.", "Error", JOptionPane.ERROR_MESSAGE);
+                if (serviceType.length() > 20) {
+                    JOptionPane.showMessageDialog(formDialog, "Service type must be at most 20 characters.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                LocalDateTime serviceDate;
+                try {
+                    serviceDate = parseServiceDate(serviceDateStr);
+                } catch (DateTimeParseException ex) {
+                    JOptionPane.showMessageDialog(formDialog, "Please enter a valid date in YYYY-MM-DD or YYYY-MM-DD HH:MM format.", "Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
 
                 int vehicleId = Integer.parseInt(vehicleIdStr);
                 int customerId = Integer.parseInt(customerIdStr);
-                int employeeId = Integer.parseInt(employeeIdStr);
-                double cost = Double.parseDouble(costStr);
+                Integer technicianId = technicianIdStr.isEmpty() ? null : Integer.parseInt(technicianIdStr);
+                int durationMinutes = Integer.parseInt(durationStr);
+                BigDecimal cost = new BigDecimal(costStr);
 
-                if (cost <= 0) {
-                    JOptionPane.showMessageDialog(formDialog, "Cost must be positive.", "Error", JOptionPane.ERROR_MESSAGE);
+                if (durationMinutes <= 0) {
+                    JOptionPane.showMessageDialog(formDialog, "Duration must be positive.", "Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
 
-                boolean success;
-                if (serviceId == null) {
-                    int newId = dummyServices.stream().mapToInt(s -> (int) s.get(0)).max().orElse(0) + 1;
-                    dummyServices.add(new Vector<>(List.of(newId, vehicleId, customerId, employeeId, serviceDate, description, cost, status)));
-                    success = true;
-                } else {
-                    dummyServices.removeIf(s -> (int) s.get(0) == serviceId);
-                    dummyServices.add(new Vector<>(List.of(serviceId, vehicleId, customerId, employeeId, serviceDate, description, cost, status)));
-                    success = true;
+                if (cost.signum() <= 0) {
+                    JOptionPane.showMessageDialog(formDialog, "Cost must be positive.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
 
-                if (success) {
-                    loadServices();
-                    JOptionPane.showMessageDialog(formDialog, serviceId == null ? "Service added successfully." : "Service updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    formDialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(formDialog, "Failed to " + (serviceId == null ? "add" : "update") + " service. Check console for details.", "Error", JOptionPane.ERROR_MESSAGE);
+                Runnable saveService = () -> {
+                    boolean success;
+                    if (serviceId == null) {
+                        success = DBConnection.addService(vehicleId, customerId, technicianId, serviceType, serviceDate, durationMinutes, description, cost, status);
+                    } else {
+                        success = DBConnection.updateService(serviceId, vehicleId, customerId, technicianId, serviceType, serviceDate, durationMinutes, description, cost, status);
+                    }
+
+                    if (success) {
+                        loadServices();
+                        JOptionPane.showMessageDialog(formDialog, serviceId == null ? "Service added successfully." : "Service updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        formDialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(formDialog, "Failed to " + (serviceId == null ? "add" : "update") + " service. Check console for details.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                };
+
+                if (technicianId == null || "Completed".equals(status)) {
+                    saveService.run();
+                    return;
                 }
+
+                // Check the technician's calendar off the event thread, then confirm any clash before saving
+                saveButton.setEnabled(false);
+                clashLoader.load(() -> {
+                    TechnicianSchedule schedule = TechnicianSchedule.getInstance();
+                    schedule.ensureLoaded();
+                    List<TechnicianSchedule.Booking> clashes = schedule.conflicts(technicianId, serviceDate, durationMinutes, serviceId);
+                    if (clashes.isEmpty()) {
+                        return null;
+                    }
+                    return new Clash(clashes.get(0), schedule.nextFreeSlot(technicianId, serviceDate, durationMinutes));
+                }, clash -> {
+                    saveButton.setEnabled(true);
+                    if (clash != null) {
+                        TechnicianSchedule.Booking booking = clash.booking();
+                        String message = "Technician " + technicianId + " is already booked for service #" + booking.serviceId()
+                                + " from " + booking.start().format(DATE_TIME_FORMAT) + " to " + booking.end().format(DATE_TIME_FORMAT) + "."
+                                + (clash.nextFree() != null ? "\nTheir next free slot is " + clash.nextFree().format(DATE_TIME_FORMAT) + "." : "")
+                                + "\nSave anyway?";
+                        int confirm = JOptionPane.showConfirmDialog(formDialog, message, "Schedule Conflict", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                        if (confirm != JOptionPane.YES_OPTION) {
+                            return;
+                        }
+                    }
+                    saveService.run();
+                }, ex -> {
+                    saveButton.setEnabled(true);
+                    JOptionPane.showMessageDialog(formDialog, "Failed to check the technician's schedule: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                });
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(formDialog, "Please enter valid numeric values for IDs and Cost.", "Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(formDialog, "Please enter valid numeric values for IDs, Duration and Cost.", "Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(formDialog, "Error saving service: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -528,6 +695,68 @@ public class ServicePanel extends JPanel {
         formDialog.setVisible(true);
     }
 
+    // The first job a technician is already booked for, and when they are next free
+    private record Clash(TechnicianSchedule.Booking booking, LocalDateTime nextFree) {
+    }
+
+    // Accepts a bare date (midnight) or a date and time
+    private static LocalDateTime parseServiceDate(String text) {
+        return text.matches("\\d{4}-\\d{2}-\\d{2}")
+                ? LocalDate.parse(text).atStartOfDay()
+                : LocalDateTime.parse(text, DATE_TIME_FORMAT);
+    }
+
+    private static class WorkloadTableModel extends RowTableModel<TechnicianWorkload> {
+        WorkloadTableModel() {
+            super("Technician ID", "Technician", "Scheduled", "In Progress", "Completed", "Total Jobs", "Billed");
+        }
+
+        @Override
+        protected Object valueAt(TechnicianWorkload row, int column) {
+            switch (column) {
+                case 0: return row.technicianId();
+                case 1: return row.technician();
+                case 2: return row.scheduled();
+                case 3: return row.inProgress();
+                case 4: return row.completed();
+                case 5: return row.totalJobs();
+                case 6: return row.billed();
+                default: return null;
+            }
+        }
+    }
+
+    private static class ServiceTableModel extends PagedTableModel<ServiceRow> {
+        ServiceTableModel(Component owner) {
+            super(owner, "ID", "Vehicle ID", "Customer ID", "Technician ID", "Service Type", "Service Date", "Description", "Cost", "Status");
+        }
+
+        @Override
+        protected String sortColumn(int column) {
+            switch (column) {
+                case 0: return "ServiceID";
+                case 5: return "ServiceDate";
+                default: return null;
+            }
+        }
+
+        @Override
+        protected Object valueAt(ServiceRow row, int column) {
+            switch (column) {
+                case 0: return row.serviceId();
+                case 1: return row.vehicleId();
+                case 2: return row.customerId();
+                case 3: return row.technicianId();
+                case 4: return row.serviceType();
+                case 5: return row.serviceDate();
+                case 6: return row.description();
+                case 7: return row.cost();
+                case 8: return row.status();
+                default: return null;
+            }
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Service Panel Test");
@@ -0,0 +1,12 @@
+package panels;
+
+/**
+ * A dashboard page that wants to know when it is hidden. MainDashboard calls
+ * suspend() when another page replaces it and resume() when it is shown
+ * again, so the page can stop background work nobody is looking at.
+ */
+public interface Suspendable {
+    void suspend();
+
+    void resume();
+}
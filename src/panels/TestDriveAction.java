@@ -0,0 +1,235 @@
+package panels;
+
+import Database.TestDriveBooking;
+import Database.TestDriveCalendar;
+import Database.TestDriveRow;
+import Database.VehicleRow;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Test drives from the inventory screen. book() takes the customer,
+ * salesperson and time for the selected vehicle and books it through
+ * TestDriveCalendar, which turns away a time when any of the three is
+ * already taken; the form comes back with the clashes listed so another time
+ * can be tried. showDay() lists a day's test drives and cancels the selected
+ * one. Bookings and lookups run in the background; a booking or cancel once
+ * sent is never cut short, and the button that started it stays disabled
+ * until it returns.
+ */
+final class TestDriveAction {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int DEFAULT_MINUTES = 30;
+
+    private TestDriveAction() {
+    }
+
+    static void book(Component owner, AbstractButton button, VehicleRow vehicle) {
+        LocalDateTime nextHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        book(owner, button, vehicle, "", "", nextHour.format(DATE_TIME_FORMAT), String.valueOf(DEFAULT_MINUTES), null);
+    }
+
+    // Shows the form filled with what was entered before, and why it was turned away
+    private static void book(Component owner, AbstractButton button, VehicleRow vehicle, String customer, String salesperson,
+                             String start, String minutes, String problem) {
+        JTextField customerField = new JTextField(customer, 10);
+        JTextField employeeField = new JTextField(salesperson, 10);
+        JTextField startField = new JTextField(start, 16);
+        JTextField minutesField = new JTextField(minutes, 5);
+        Object[] message = {
+                vehicle.make() + " " + vehicle.model() + " (" + vehicle.year() + "), VIN " + vehicle.vin(),
+                "Customer ID:", customerField,
+                "Salesperson (employee) ID:", employeeField,
+                "Start (YYYY-MM-DD HH:MM):", startField,
+                "Minutes (at most " + TestDriveCalendar.MAX_MINUTES + "):", minutesField,
+                problem != null ? problem : ""
+        };
+        if (JOptionPane.showConfirmDialog(owner, message, "Book Test Drive",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        int customerId;
+        int employeeId;
+        LocalDateTime startTime;
+        LocalDateTime endTime;
+        try {
+            customerId = Integer.parseInt(customerField.getText().trim());
+            employeeId = Integer.parseInt(employeeField.getText().trim());
+            startTime = LocalDateTime.parse(startField.getText().trim(), DATE_TIME_FORMAT);
+            endTime = startTime.plusMinutes(Integer.parseInt(minutesField.getText().trim()));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            book(owner, button, vehicle, customerField.getText(), employeeField.getText(), startField.getText(), minutesField.getText(),
+                    "Please enter numeric IDs and minutes, and a start like 2025-05-24 10:30.");
+            return;
+        }
+
+        button.setEnabled(false);
+        owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<TestDriveBooking, Void>() {
+            @Override
+            protected TestDriveBooking doInBackground() throws Exception {
+                return TestDriveCalendar.getInstance().book(customerId, vehicle.vehicleId(), employeeId, startTime, endTime);
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                owner.setCursor(null);
+                TestDriveBooking booking;
+                try {
+                    booking = get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    book(owner, button, vehicle, customerField.getText(), employeeField.getText(), startField.getText(), minutesField.getText(),
+                            "Could not book the test drive: " + cause.getMessage());
+                    return;
+                }
+                showBooking(owner, button, vehicle, booking, customerField.getText(), employeeField.getText(),
+                        startField.getText(), minutesField.getText());
+            }
+        }.execute();
+    }
+
+    private static void showBooking(Component owner, AbstractButton button, VehicleRow vehicle, TestDriveBooking booking,
+                                    String customer, String salesperson, String start, String minutes) {
+        switch (booking.outcome()) {
+            case BOOKED:
+                TestDriveRow testDrive = booking.testDrive();
+                JOptionPane.showMessageDialog(owner, "Test drive #" + testDrive.testDriveId() + " booked for "
+                                + testDrive.customer() + " with " + testDrive.employee() + ", "
+                                + testDrive.start().format(DATE_TIME_FORMAT) + " to " + testDrive.end().format(TIME_FORMAT) + ".",
+                        "Test Drive Booked", JOptionPane.INFORMATION_MESSAGE);
+                break;
+            case CONFLICT:
+                StringBuilder clashes = new StringBuilder("That time is taken:");
+                for (TestDriveBooking.Clash clash : booking.clashes()) {
+                    clashes.append("\n").append(describe(clash));
+                }
+                book(owner, button, vehicle, customer, salesperson, start, minutes, clashes.toString());
+                break;
+            default:
+                book(owner, button, vehicle, customer, salesperson, start, minutes, "Could not book the test drive: " + booking.error());
+        }
+    }
+
+    /**
+     * A dialog listing the test drives of one day, today to start with, with
+     * a button to cancel the selected one.
+     */
+    static void showDay(Component owner) {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(owner), "Test Drives", Dialog.ModalityType.APPLICATION_MODAL);
+        TestDriveTableModel tableModel = new TestDriveTableModel();
+        JTable table = new JTable(tableModel);
+        JTextField dayField = new JTextField(LocalDate.now().toString(), 10);
+        JButton showButton = new JButton("Show");
+        JButton cancelButton = new JButton("Cancel Test Drive");
+        AsyncLoader<List<TestDriveRow>> dayLoader = new AsyncLoader<>(owner, "testDriveDay");
+
+        Runnable loadDay = () -> {
+            LocalDate day;
+            try {
+                day = LocalDate.parse(dayField.getText().trim());
+            } catch (DateTimeParseException e) {
+                JOptionPane.showMessageDialog(dialog, "Please enter a date in YYYY-MM-DD format.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            dayLoader.load(() -> TestDriveCalendar.getInstance().day(day), tableModel::setRows);
+        };
+        showButton.addActionListener(e -> loadDay.run());
+        dayField.addActionListener(e -> loadDay.run());
+        cancelButton.addActionListener(e -> {
+            int selectedRow = table.getSelectedRow();
+            if (selectedRow == -1) {
+                JOptionPane.showMessageDialog(dialog, "Please select a test drive to cancel.", "Selection Error", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            TestDriveRow testDrive = tableModel.getRow(selectedRow);
+            if (JOptionPane.showConfirmDialog(dialog, "Cancel test drive #" + testDrive.testDriveId() + " for " + testDrive.customer() + "?",
+                    "Confirm Cancel", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+                return;
+            }
+            cancelButton.setEnabled(false);
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() throws Exception {
+                    return TestDriveCalendar.getInstance().cancel(testDrive.testDriveId());
+                }
+
+                @Override
+                protected void done() {
+                    cancelButton.setEnabled(true);
+                    boolean cancelled;
+                    try {
+                        cancelled = get();
+                    } catch (Exception ex) {
+                        System.err.println("Failed to cancel test drive: " + (ex.getCause() != null ? ex.getCause() : ex).getMessage());
+                        cancelled = false;
+                    }
+                    if (cancelled) {
+                        loadDay.run();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to cancel the test drive. Check console for details.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
+        });
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        top.add(new JLabel("Day:"));
+        top.add(dayField);
+        top.add(showButton);
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        bottom.add(cancelButton);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(top, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.add(bottom, BorderLayout.SOUTH);
+        dialog.setSize(800, 450);
+        dialog.setLocationRelativeTo(owner);
+
+        loadDay.run();
+        dialog.setVisible(true);
+        dayLoader.cancel();
+    }
+
+    private static String describe(TestDriveBooking.Clash clash) {
+        TestDriveRow testDrive = clash.testDrive();
+        String taken;
+        switch (clash.resource()) {
+            case VEHICLE: taken = "The vehicle"; break;
+            case SALESPERSON: taken = "The salesperson"; break;
+            default: taken = "The customer"; break;
+        }
+        return taken + " is booked " + testDrive.start().format(DATE_TIME_FORMAT) + " to " + testDrive.end().format(TIME_FORMAT)
+                + " (#" + testDrive.testDriveId() + ", " + testDrive.customer() + " in the " + testDrive.vehicle()
+                + " with " + testDrive.employee() + ")";
+    }
+
+    private static class TestDriveTableModel extends RowTableModel<TestDriveRow> {
+        TestDriveTableModel() {
+            super("ID", "Start", "End", "Vehicle", "Customer", "Salesperson");
+        }
+
+        @Override
+        protected Object valueAt(TestDriveRow row, int column) {
+            switch (column) {
+                case 0: return row.testDriveId();
+                case 1: return row.start().format(DATE_TIME_FORMAT);
+                case 2: return row.end().format(TIME_FORMAT);
+                case 3: return row.vehicle();
+                case 4: return row.customer();
+                case 5: return row.employee();
+                default: return null;
+            }
+        }
+    }
+}
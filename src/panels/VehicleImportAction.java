@@ -0,0 +1,131 @@
+package panels;
+
+import Database.DBConnection;
+import Database.VehicleImport;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.File;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asks for a supplier feed and the supplier it came from, imports it in the
+ * background with a cancellable progress dialog, and then lists the rows
+ * that were not imported and why.
+ */
+final class VehicleImportAction {
+    // Rows listed in the summary; the full count is always shown
+    private static final int MAX_LISTED_ERRORS = 1_000;
+
+    private VehicleImportAction() {
+    }
+
+    /**
+     * onImported runs on the event dispatch thread once anything was
+     * imported, to reload the table.
+     */
+    static void importFeed(Component owner, Runnable onImported) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Vehicles");
+        chooser.setFileFilter(new FileNameExtensionFilter("Supplier feeds (*.csv, *.json)", "csv", "json"));
+        if (chooser.showOpenDialog(owner) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+
+        Map<Integer, String> suppliers;
+        try {
+            suppliers = DBConnection.getSupplierNames();
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(owner, "Failed to load suppliers: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JComboBox<Object> supplierBox = new JComboBox<>();
+        supplierBox.addItem("(none)");
+        for (Map.Entry<Integer, String> supplier : suppliers.entrySet()) {
+            supplierBox.addItem(new SupplierItem(supplier.getKey(), supplier.getValue()));
+        }
+        Object[] message = {"Supplier for rows that do not name one:", supplierBox};
+        if (JOptionPane.showConfirmDialog(owner, message, "Import " + file.getName(),
+                JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        Integer supplierId = supplierBox.getSelectedItem() instanceof SupplierItem item ? item.id() : null;
+
+        ProgressMonitor monitor = new ProgressMonitor(owner, "Importing " + file.getName(), "Reading...", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        new SwingWorker<VehicleImport.Result, int[]>() {
+            @Override
+            protected VehicleImport.Result doInBackground() throws Exception {
+                return VehicleImport.run(file.toPath(), supplierId, new VehicleImport.Progress() {
+                    @Override
+                    public void rows(int read, int inserted, int failed, int percentRead) {
+                        publish(new int[]{read, inserted, failed, percentRead});
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return monitor.isCanceled();
+                    }
+                });
+            }
+
+            @Override
+            protected void process(List<int[]> chunks) {
+                int[] latest = chunks.get(chunks.size() - 1);
+                monitor.setNote(String.format("%,d read, %,d imported, %,d rejected", latest[0], latest[1], latest[2]));
+                monitor.setProgress(Math.min(99, latest[3]));
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                VehicleImport.Result result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("Vehicle import failed: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(owner, "Failed to import " + file.getName() + ": " + cause.getMessage(),
+                            "Import Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (result.inserted() > 0) onImported.run();
+                showSummary(owner, file, result);
+            }
+        }.execute();
+    }
+
+    private static void showSummary(Component owner, File file, VehicleImport.Result result) {
+        String summary = String.format("%s%,d of %,d rows imported from %s, %,d rejected.",
+                result.cancelled() ? "Import cancelled. " : "", result.inserted(), result.read(), file.getName(), result.failed());
+        if (result.errors().isEmpty()) {
+            JOptionPane.showMessageDialog(owner, summary, "Import", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        int listed = 0;
+        for (VehicleImport.RowError error : result.errors()) {
+            if (listed++ == MAX_LISTED_ERRORS) {
+                report.append(String.format("... and %,d more%n", result.failed() - MAX_LISTED_ERRORS));
+                break;
+            }
+            report.append("Row ").append(error.position());
+            if (error.vin() != null) report.append(" (").append(error.vin()).append(')');
+            report.append(": ").append(error.message()).append('\n');
+        }
+        JTextArea errors = new JTextArea(report.toString(), 15, 70);
+        errors.setEditable(false);
+        errors.setCaretPosition(0);
+        Object[] message = {summary, new JScrollPane(errors)};
+        JOptionPane.showMessageDialog(owner, message, "Import", JOptionPane.WARNING_MESSAGE);
+    }
+
+    private record SupplierItem(int id, String name) {
+        @Override
+        public String toString() {
+            return name + " (#" + id + ")";
+        }
+    }
+}
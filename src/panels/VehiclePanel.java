@@ -1,10 +1,11 @@
 package panels;
 
 import Database.DBConnection;
+import Database.SearchIndex;
+import Database.VehicleRow;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
@@ -13,15 +14,14 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Vector;
 import java.math.BigDecimal;
 
-public class VehiclePanel extends JPanel {
+public class VehiclePanel extends JPanel implements Suspendable {
     private JTable vehicleTable;
-    private DefaultTableModel tableModel;
+    private VehicleTableModel tableModel;
     private JTextField searchField;
     private JComboBox<String> statusComboBox;
-    private JButton addButton, editButton, deleteButton, refreshButton;
+    private JButton addButton, editButton, deleteButton, refreshButton, importButton, exportButton, testDriveButton, testDrivesButton;
     private final Color BACKGROUND_BASE = new Color(5, 5, 6); // Near-black (#050506)
     private Color currentBackground = BACKGROUND_BASE;
     private final Color TABLE_BG = new Color(21, 21, 24, 230); // Dark gray (#151518, 90% opacity)
@@ -30,7 +30,6 @@ public class VehiclePanel extends JPanel {
     private final Color TEXT_COLOR = new Color(255, 255, 255); // Pure white (#FFFFFF)
     private final Color SECONDARY_TEXT_COLOR = new Color(160, 174, 192); // Soft gray (#A0AEC0)
     private final Color INPUT_BG = new Color(21, 21, 24, 230); // Matches table
-    private Timer animationTimer;
     private boolean animationsEnabled = true;
     private float tableOpacity = 0f;
 
@@ -40,6 +39,7 @@ public class VehiclePanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(30, 30, 30, 30));
         setOpaque(false);
 
+        SearchIndex.getInstance().loadInBackground();
         initializeComponents();
         startAnimation();
         startFadeInAnimation();
@@ -115,6 +115,21 @@ public class VehiclePanel extends JPanel {
         statusComboBox.addActionListener(e -> filterByStatus());
         searchPanel.add(statusComboBox);
 
+        JLabel vinLabel = new JLabel("VIN:");
+        vinLabel.setForeground(SECONDARY_TEXT_COLOR);
+        vinLabel.setFont(new Font("Inter", Font.PLAIN, 16));
+        searchPanel.add(vinLabel);
+
+        // Full VIN, its start, or its last characters; picking a match opens the vehicle
+        JTextField vinField = new JTextField(12);
+        vinField.setBackground(INPUT_BG);
+        vinField.setForeground(TEXT_COLOR);
+        vinField.setCaretColor(TEXT_COLOR);
+        vinField.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        vinField.setFont(new Font("Inter", Font.PLAIN, 14));
+        VinAutocomplete.install(vinField, vehicle -> showVehicleForm(vehicle.vehicleId()));
+        searchPanel.add(vinField);
+
         // Button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
         buttonPanel.setOpaque(false);
@@ -131,21 +146,31 @@ public class VehiclePanel extends JPanel {
         deleteButton.addActionListener(e -> deleteSelectedVehicle());
         buttonPanel.add(deleteButton);
 
+        testDriveButton = createStyledButton("Test Drive", GLOW_COLOR_START, GLOW_COLOR_END);
+        testDriveButton.addActionListener(e -> bookTestDriveForSelectedVehicle());
+        buttonPanel.add(testDriveButton);
+
+        testDrivesButton = createStyledButton("Test Drives", GLOW_COLOR_START, GLOW_COLOR_END);
+        testDrivesButton.addActionListener(e -> TestDriveAction.showDay(this));
+        buttonPanel.add(testDrivesButton);
+
         refreshButton = createStyledButton("Refresh", GLOW_COLOR_START, GLOW_COLOR_END);
         refreshButton.addActionListener(e -> loadVehiclesData());
         buttonPanel.add(refreshButton);
 
+        importButton = createStyledButton("Import", GLOW_COLOR_START, GLOW_COLOR_END);
+        importButton.addActionListener(e -> VehicleImportAction.importFeed(this, this::loadVehiclesData));
+        buttonPanel.add(importButton);
+
+        exportButton = createStyledButton("Export", GLOW_COLOR_START, GLOW_COLOR_END);
+        exportButton.addActionListener(e -> ExportAction.export(this, tableModel.currentQuery(), "Inventory"));
+        buttonPanel.add(exportButton);
+
         topPanel.add(searchPanel, BorderLayout.WEST);
         topPanel.add(buttonPanel, BorderLayout.EAST);
 
         // Table
-        String[] columns = {"ID", "VIN", "Make", "Model", "Year", "Color", "Mileage", "Condition", "Purchase Price", "List Price", "Status", "Category"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new VehicleTableModel(this);
         vehicleTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
@@ -159,6 +184,7 @@ public class VehiclePanel extends JPanel {
                 return c;
             }
         };
+        tableModel.installSorting(vehicleTable);
         vehicleTable.setOpaque(false);
         vehicleTable.setShowGrid(false);
         vehicleTable.setRowHeight(30);
@@ -238,17 +264,25 @@ public class VehiclePanel extends JPanel {
         return button;
     }
 
+    @Override
+    public void suspend() {
+        tableModel.suspend();
+    }
+
+    @Override
+    public void resume() {
+        tableModel.resume();
+    }
+
     private void startAnimation() {
         if (!animationsEnabled) return;
-        animationTimer = new Timer(1000 / 60, e -> {
-            float phase = (float) (System.currentTimeMillis() % 5000) / 5000;
-            int r = (int) (5 + 2 * Math.sin(phase));
-            int g = (int) (5 + 2 * Math.sin(phase + 2));
-            int b = (int) (6 + 2 * Math.sin(phase + 4));
-            currentBackground = new Color(r, g, b);
-            repaint();
+        AnimationClock.getInstance().register(this, now -> {
+            Color next = AnimationClock.ambientColor(now);
+            if (next != currentBackground) {
+                currentBackground = next;
+                repaint();
+            }
         });
-        animationTimer.start();
     }
 
     private void startFadeInAnimation() {
@@ -316,29 +350,16 @@ public class VehiclePanel extends JPanel {
     }
 
     private void loadVehiclesData() {
-        tableModel.setRowCount(0);
-        List<Vector<Object>> vehicles = DBConnection.getAllVehicles();
-        for (Vector<Object> row : vehicles) {
-            tableModel.addRow(row);
-        }
+        tableModel.setQuery(DBConnection.pageVehicles(null, null));
     }
 
+    // The search text and status filter narrow the same listing
     private void searchVehicles() {
-        String searchText = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        List<Vector<Object>> vehicles = searchText.isEmpty() ? DBConnection.getAllVehicles() : DBConnection.searchVehicles(searchText);
-        for (Vector<Object> row : vehicles) {
-            tableModel.addRow(row);
-        }
+        tableModel.setQuery(DBConnection.pageVehicles(searchField.getText().trim(), (String) statusComboBox.getSelectedItem()));
     }
 
     private void filterByStatus() {
-        String selectedStatus = (String) statusComboBox.getSelectedItem();
-        tableModel.setRowCount(0);
-        List<Vector<Object>> vehicles = "All".equals(selectedStatus) ? DBConnection.getAllVehicles() : DBConnection.filterVehiclesByStatus(selectedStatus);
-        for (Vector<Object> row : vehicles) {
-            tableModel.addRow(row);
-        }
+        searchVehicles();
     }
 
     private void loadCategories(JComboBox<String> comboBox) {
@@ -422,8 +443,7 @@ public class VehiclePanel extends JPanel {
         }
 
         if (vehicleId != null) {
-            try {
-                ResultSet rs = DBConnection.getVehicleById(vehicleId);
+            try (ResultSet rs = DBConnection.getVehicleById(vehicleId)) {
                 Connection conn = rs.getStatement().getConnection();
                 if (rs.next()) {
                     fields[0].setText(rs.getString("VIN"));
@@ -440,7 +460,6 @@ public class VehiclePanel extends JPanel {
                     String categoryName = DBConnection.getCategoryName(conn, categoryId);
                     categoryField.setSelectedItem(categoryName);
                 }
-                DBConnection.closeResources(conn, rs.getStatement(), rs);
             } catch (SQLException e) {
                 JOptionPane.showMessageDialog(formDialog, "Error loading vehicle details: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 return;
@@ -517,24 +536,35 @@ public class VehiclePanel extends JPanel {
 
     private void editSelectedVehicle() {
         int selectedRow = vehicleTable.getSelectedRow();
-        if (selectedRow == -1) {
+        VehicleRow vehicle = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (vehicle == null) {
             JOptionPane.showMessageDialog(this, "Please select a vehicle to edit", "Selection Error", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        int vehicleId = (int) tableModel.getValueAt(selectedRow, 0);
-        showVehicleForm(vehicleId);
+        showVehicleForm(vehicle.vehicleId());
+    }
+
+    private void bookTestDriveForSelectedVehicle() {
+        int selectedRow = vehicleTable.getSelectedRow();
+        VehicleRow vehicle = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (vehicle == null) {
+            JOptionPane.showMessageDialog(this, "Please select a vehicle for the test drive", "Selection Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        TestDriveAction.book(this, testDriveButton, vehicle);
     }
 
     private void deleteSelectedVehicle() {
         int selectedRow = vehicleTable.getSelectedRow();
-        if (selectedRow == -1) {
+        VehicleRow vehicle = selectedRow != -1 ? tableModel.getRow(selectedRow) : null;
+        if (vehicle == null) {
             JOptionPane.showMessageDialog(this, "Please select a vehicle to delete", "Selection Error", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        int vehicleId = (int) tableModel.getValueAt(selectedRow, 0);
-        String make = (String) tableModel.getValueAt(selectedRow, 2);
-        String model = (String) tableModel.getValueAt(selectedRow, 3);
+        int vehicleId = vehicle.vehicleId();
+        String make = vehicle.make();
+        String model = vehicle.model();
 
         int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete " + make + " " + model + "?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
@@ -548,6 +578,43 @@ public class VehiclePanel extends JPanel {
         }
     }
 
+    private static class VehicleTableModel extends PagedTableModel<VehicleRow> {
+        VehicleTableModel(Component owner) {
+            super(owner, "ID", "VIN", "Make", "Model", "Year", "Color", "Mileage", "Condition", "Purchase Price", "List Price", "Status", "Category");
+        }
+
+        @Override
+        protected String sortColumn(int column) {
+            switch (column) {
+                case 0: return "VehicleID";
+                case 1: return "VIN";
+                case 2: return "Make";
+                case 4: return "Year";
+                case 9: return "ListPrice";
+                default: return null;
+            }
+        }
+
+        @Override
+        protected Object valueAt(VehicleRow row, int column) {
+            switch (column) {
+                case 0: return row.vehicleId();
+                case 1: return row.vin();
+                case 2: return row.make();
+                case 3: return row.model();
+                case 4: return row.year();
+                case 5: return row.color();
+                case 6: return row.mileage();
+                case 7: return row.condition();
+                case 8: return row.purchasePrice();
+                case 9: return row.listPrice();
+                case 10: return row.status();
+                case 11: return row.categoryName();
+                default: return null;
+            }
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Vehicle Management");
@@ -0,0 +1,134 @@
+package panels;
+
+import Database.VehicleRow;
+import Database.VinLookup;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Suggests vehicles under a text field as a VIN is typed or scanned:
+ * those whose VIN starts with the text, then those whose VIN ends with it,
+ * so the last six or eight characters are enough. Up and Down move through
+ * the suggestions, Enter or a click picks one, Escape closes the list.
+ * Enter with a full VIN and no list open looks that VIN up directly.
+ */
+final class VinAutocomplete {
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int DELAY_MILLIS = 120;
+
+    private final JTextField field;
+    private final Consumer<VehicleRow> onPick;
+    private final AsyncLoader<List<VehicleRow>> loader;
+    private final AsyncLoader<VehicleRow> lookupLoader;
+    private final DefaultListModel<VehicleRow> suggestions = new DefaultListModel<>();
+    private final JList<VehicleRow> list = new JList<>(suggestions);
+    private final JPopupMenu popup = new JPopupMenu();
+
+    private VinAutocomplete(JTextField field, Consumer<VehicleRow> onPick) {
+        this.field = field;
+        this.onPick = onPick;
+        this.loader = new AsyncLoader<>(field, "vinSuggest");
+        this.lookupLoader = new AsyncLoader<>(field, "vinFind");
+    }
+
+    static VinAutocomplete install(JTextField field, Consumer<VehicleRow> onPick) {
+        VinAutocomplete autocomplete = new VinAutocomplete(field, onPick);
+        autocomplete.wire();
+        return autocomplete;
+    }
+
+    private void wire() {
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean selected, boolean focused) {
+                VehicleRow row = (VehicleRow) value;
+                String text = row.vin() + "  " + row.year() + " " + row.make() + " " + row.model() + " (" + row.status() + ")";
+                return super.getListCellRendererComponent(list, text, index, selected, focused);
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) pick(suggestions.get(index));
+            }
+        });
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        new DebouncedSearch(field, DELAY_MILLIS, VinLookup.MIN_CHARS, text -> {
+            if (text.isEmpty()) {
+                loader.cancel();
+                popup.setVisible(false);
+            } else {
+                loader.load(() -> VinLookup.suggest(text, MAX_SUGGESTIONS), this::show);
+            }
+        });
+
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN: move(1); e.consume(); break;
+                    case KeyEvent.VK_UP: move(-1); e.consume(); break;
+                    case KeyEvent.VK_ESCAPE: popup.setVisible(false); break;
+                    case KeyEvent.VK_ENTER: enter(); e.consume(); break;
+                    default:
+                }
+            }
+        });
+    }
+
+    private void show(List<VehicleRow> rows) {
+        suggestions.clear();
+        for (VehicleRow row : rows) {
+            suggestions.addElement(row);
+        }
+        if (rows.isEmpty() || !field.isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+        list.setVisibleRowCount(Math.min(rows.size(), MAX_SUGGESTIONS));
+        list.setSelectedIndex(0);
+        popup.pack();
+        popup.show(field, 0, field.getHeight());
+    }
+
+    private void move(int step) {
+        if (!popup.isVisible() || suggestions.isEmpty()) return;
+        int index = Math.floorMod(list.getSelectedIndex() + step, suggestions.size());
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void enter() {
+        if (popup.isVisible() && list.getSelectedValue() != null) {
+            pick(list.getSelectedValue());
+            return;
+        }
+        String vin = field.getText().trim();
+        if (vin.isEmpty()) return;
+        lookupLoader.load(() -> VinLookup.find(vin), row -> {
+            if (row != null) {
+                pick(row);
+            } else {
+                JOptionPane.showMessageDialog(field, "No vehicle with VIN " + vin.toUpperCase() + ".", "VIN Lookup",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+    }
+
+    private void pick(VehicleRow row) {
+        popup.setVisible(false);
+        onPick.accept(row);
+    }
+}